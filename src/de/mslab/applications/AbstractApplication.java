@@ -19,6 +19,7 @@ import de.mslab.utils.Logger;
  * Abstract base class for the exported applications of the framework.
  * @see BicliqueFinderApplication
  * @see MatchingApplication 
+ * @see BatchMatchingApplication
  */
 abstract class AbstractApplication {
 	
@@ -0,0 +1,224 @@
+package de.mslab.applications;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.helpers.CipherHelperFactory;
+import de.mslab.core.Biclique;
+import de.mslab.errors.InvalidArgumentError;
+import de.mslab.matching.ComplexityCalculator;
+import de.mslab.matching.MatchingContext;
+import de.mslab.matching.MatchingFinder;
+import de.mslab.rendering.MatchingPhaseRenderer;
+import de.mslab.utils.BicliqueXMLParser;
+
+/**
+ * The application which finds optimal matchings for all serialized bicliques in a directory,
+ * as written by the biclique search, in one JVM. Every biclique is parsed, matched, its
+ * complexity is computed, and optionally its matching is rendered, by a pool of worker threads.
+ * The files are passed to the workers through a bounded queue. A biclique, which fails with an
+ * exception, is recorded in the summary with its error, and the remaining bicliques are processed
+ * nonetheless. At the end, a summary of all bicliques is written as CSV or JSON.
+ */
+public class BatchMatchingApplication extends AbstractApplication {
+	
+	public static void main(String[] args) {
+		new BatchMatchingApplication(args);
+	}
+	
+	private static final int NUM_QUEUED_FILES_PER_THREAD = 2;
+	
+	private File inputDirectory;
+	private int numThreads;
+	private BicliqueXMLParser parser;
+	private File pdfDirectory;
+	private BatchMatchingSummary summary;
+	private File summaryFile;
+	
+	public BatchMatchingApplication(String[] args) {
+		super(args);
+	}
+	
+	public void setUp(CommandLine commandLine) {
+		String inputPath = getRequiredOption(commandLine, "i");
+		String summaryPath = getRequiredOption(commandLine, "o");
+		String pdfPath = getOptionValue(commandLine, "pdf", "");
+		int numThreads = Integer.parseInt(getOptionValue(commandLine, "t",
+			Integer.toString(Runtime.getRuntime().availableProcessors())));
+		boolean debug = commandLine.hasOption("debug");
+		
+		setUp(new File(inputPath), new File(summaryPath), numThreads, debug);
+		
+		if (pdfPath.length() > 0) {
+			pdfDirectory = new File(pdfPath);
+		}
+	}
+	
+	/**
+	 * Sets up the application.
+	 * @param inputDirectory The directory, which contains the XML files of the bicliques.
+	 * @param summaryFile The file, to which the summary is written, as JSON if its name ends
+	 * with <code>.json</code>, and as CSV otherwise.
+	 * @param numThreads The number of bicliques, which are processed in parallel.
+	 * @param debug
+	 * @throws InvalidArgumentError If the input is no directory, or the number of threads is less than one.
+	 */
+	public void setUp(File inputDirectory, File summaryFile, int numThreads, boolean debug) {
+		if (!inputDirectory.isDirectory()) {
+			throw new InvalidArgumentError("The input " + inputDirectory + " is no directory.");
+		}
+		
+		if (numThreads < 1) {
+			throw new InvalidArgumentError("The number of threads must be at least one.");
+		}
+		
+		this.inputDirectory = inputDirectory;
+		this.summaryFile = summaryFile;
+		this.numThreads = numThreads;
+		parser = new BicliqueXMLParser();
+		logger.isDebugEnabled = debug;
+	}
+	
+	public void run() throws IOException, InterruptedException {
+		File[] files = listBicliqueFiles();
+		summary = new BatchMatchingSummary(files.length);
+		logger.info("Started matching {0} bicliques from {1} with {2} threads",
+			files.length, inputDirectory, numThreads);
+		
+		// If the queue is full, the reading thread matches a biclique itself, so that it does not
+		// run ahead of the workers.
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(NUM_QUEUED_FILES_PER_THREAD * numThreads),
+			new ThreadPoolExecutor.CallerRunsPolicy()
+		);
+		
+		try {
+			for (int i = 0; i < files.length; i++) {
+				executor.execute(new MatchingTask(i, files[i]));
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		
+		summary.write(summaryFile);
+		logger.info("Matched {0}/{1} bicliques. Wrote summary to {2}",
+			files.length - summary.getNumFailures(), files.length, summaryFile);
+	}
+	
+	public void tearDown() {
+		
+	}
+	
+	protected void createOptions() {
+		options.addOption(createOptionWithArg("i", "Path to an input directory, which contains XML files of serialized bicliques. Required.", true));
+		options.addOption(createOptionWithArg("o", "Path to an output summary file. Written as JSON if the name ends with .json, and as CSV otherwise. Required.", true));
+		options.addOption(createOptionWithArg("pdf", "Path to an output directory to render the found matchings in PDF format. Optional, matchings are not rendered by default.", false));
+		options.addOption(createOptionWithArg("t", "Number of bicliques, which are matched in parallel. Defaults to the number of processors.", false));
+		options.addOption(createOption("debug", "Log debugging information. Optional. Defaults to false."));
+	}
+	
+	protected void logHelp(Options options) {
+		HelpFormatter formatter = new HelpFormatter();
+		formatter.printHelp("batchmatchingsearch", options);
+	}
+	
+	/**
+	 * Returns the XML files in the input directory, sorted by name.
+	 */
+	private File[] listBicliqueFiles() throws IOException {
+		File[] files = inputDirectory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().toLowerCase().endsWith(".xml");
+			}
+		});
+		
+		if (files == null) {
+			throw new IOException("Could not list the files in " + inputDirectory);
+		}
+		
+		Arrays.sort(files);
+		return files;
+	}
+	
+	/**
+	 * Parses, matches, and optionally renders one biclique, and stores its result in the summary.
+	 * The cipher and helper are created for every biclique from the cipher name stored in it.
+	 */
+	private class MatchingTask implements Runnable {
+		
+		private int index;
+		private File file;
+		
+		public MatchingTask(int index, File file) {
+			this.index = index;
+			this.file = file;
+		}
+		
+		public void run() {
+			BatchMatchingSummary.Entry entry = new BatchMatchingSummary.Entry(file.getName());
+			long startTime = System.currentTimeMillis();
+			
+			try {
+				match(entry);
+			} catch (Exception e) {
+				// Some exceptions list their causes on separate lines.
+				entry.error = e.toString().replaceAll("\\s+", " ");
+				logger.error("Could not match the biclique {0}: {1}", file, e);
+			}
+			
+			entry.milliseconds = System.currentTimeMillis() - startTime;
+			summary.setEntry(index, entry);
+		}
+		
+		private void match(BatchMatchingSummary.Entry entry) throws Exception {
+			Biclique biclique = parser.parseXML(file);
+			CipherName cipherName = CipherFactory.toCipherName(biclique.cipherName);
+			RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+			
+			entry.cipherName = biclique.cipherName;
+			entry.dimension = biclique.dimension;
+			entry.bicliqueFromRound = biclique.deltaDifferential.fromRound;
+			entry.bicliqueToRound = biclique.deltaDifferential.toRound;
+			
+			MatchingContext matchingContext = new MatchingContext(
+				biclique, cipher, CipherHelperFactory.createCipherHelper(cipherName)
+			);
+			// The bicliques are matched in parallel already.
+			matchingContext.numThreads = 1;
+			
+			entry.matchingResult = new MatchingFinder().findOptimalMatching(matchingContext);
+			entry.complexityResult = new ComplexityCalculator().computeComplexity(
+				cipher,
+				entry.matchingResult.dimension,
+				entry.matchingResult.minRecomputedOperations,
+				entry.matchingResult.numBicliqueRounds,
+				entry.matchingResult.matchingToRound - entry.matchingResult.matchingFromRound + 1,
+				matchingContext.numMatchingBits
+			);
+			
+			if (pdfDirectory != null) {
+				pdfDirectory.mkdirs();
+				String name = file.getName().substring(0, file.getName().length() - ".xml".length());
+				new MatchingPhaseRenderer().renderMatchingPhase(
+					new File(pdfDirectory, name + ".pdf").getPath(), entry.matchingResult, cipher
+				);
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,231 @@
+package de.mslab.applications;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import de.mslab.matching.ComplexityCalculationResult;
+import de.mslab.matching.MatchingFinderResult;
+
+/**
+ * The results of a batch of matchings, one entry per biclique file, which are written to a CSV
+ * or a JSON file. Entries are stored at the index of their file, so that the summary has the order
+ * of the input files, no matter in which order the matchings were completed.
+ *
+ * The summary can be filled concurrently by multiple threads.
+ */
+class BatchMatchingSummary {
+	
+	private static final String[] COLUMNS = new String[]{
+		"file", "cipher", "dimension", "bicliqueFromRound", "bicliqueToRound", "matchingFromRound",
+		"matchingToRound", "bestMatchingRound", "recomputedOperations", "totalComplexityLog",
+		"milliseconds", "error"
+	};
+	
+	private Entry[] entries;
+	
+	public BatchMatchingSummary(int numEntries) {
+		entries = new Entry[numEntries];
+	}
+	
+	/**
+	 * Returns the number of entries, which contain an error.
+	 */
+	public synchronized int getNumFailures() {
+		int numFailures = 0;
+		
+		for (Entry entry : entries) {
+			if (entry != null && entry.error != null) {
+				numFailures++;
+			}
+		}
+		
+		return numFailures;
+	}
+	
+	public synchronized void setEntry(int index, Entry entry) {
+		entries[index] = entry;
+	}
+	
+	/**
+	 * Writes the summary to the given file, as JSON if its name ends with <code>.json</code>,
+	 * and as CSV otherwise.
+	 */
+	public synchronized void write(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		
+		if (directory != null) {
+			directory.mkdirs();
+		}
+		
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		
+		try {
+			if (file.getName().toLowerCase(Locale.ENGLISH).endsWith(".json")) {
+				writeJSON(writer);
+			} else {
+				writeCSV(writer);
+			}
+		} finally {
+			writer.close();
+		}
+		
+		if (writer.checkError()) {
+			throw new IOException("Could not write the summary " + file);
+		}
+	}
+	
+	private void writeCSV(PrintWriter writer) {
+		writer.print(join(COLUMNS, ","));
+		writer.print("\r\n");
+		
+		for (Entry entry : entries) {
+			if (entry != null) {
+				String[] values = entry.toValues();
+				
+				for (int i = 0; i < values.length; i++) {
+					values[i] = quoteCSV(values[i]);
+				}
+				
+				writer.print(join(values, ","));
+				writer.print("\r\n");
+			}
+		}
+	}
+	
+	private void writeJSON(PrintWriter writer) {
+		boolean isFirstEntry = true;
+		writer.println("[");
+		
+		for (Entry entry : entries) {
+			if (entry == null) {
+				continue;
+			}
+			
+			if (!isFirstEntry) {
+				writer.println(",");
+			}
+			
+			String[] values = entry.toValues();
+			writer.print("  {");
+			
+			for (int i = 0; i < values.length; i++) {
+				writer.print(i == 0 ? "" : ", ");
+				writer.print(quoteJSON(COLUMNS[i]));
+				writer.print(": ");
+				
+				if (values[i].length() == 0) {
+					writer.print("null");
+				} else if (i == 0 || i == 1 || i == values.length - 1) {
+					writer.print(quoteJSON(values[i]));
+				} else {
+					writer.print(values[i]);
+				}
+			}
+			
+			writer.print("}");
+			isFirstEntry = false;
+		}
+		
+		writer.println();
+		writer.println("]");
+	}
+	
+	private static String join(String[] values, String separator) {
+		StringBuilder builder = new StringBuilder();
+		
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				builder.append(separator);
+			}
+			
+			builder.append(values[i]);
+		}
+		
+		return builder.toString();
+	}
+	
+	private static String quoteCSV(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+			&& value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+	
+	private static String quoteJSON(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		char c;
+		
+		for (int i = 0; i < value.length(); i++) {
+			c = value.charAt(i);
+			
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c == '\n') {
+				builder.append("\\n");
+			} else if (c == '\r') {
+				builder.append("\\r");
+			} else if (c == '\t') {
+				builder.append("\\t");
+			} else if (c < 0x20) {
+				builder.append(String.format("\\u%04x", (int)c));
+			} else {
+				builder.append(c);
+			}
+		}
+		
+		return builder.append('"').toString();
+	}
+	
+	/**
+	 * The result of the matching of one biclique file. If the biclique could not be parsed or
+	 * matched, only the file name, the time and the error are set.
+	 */
+	static class Entry {
+		
+		public String fileName;
+		public String cipherName;
+		public int dimension;
+		public int bicliqueFromRound;
+		public int bicliqueToRound;
+		public MatchingFinderResult matchingResult;
+		public ComplexityCalculationResult complexityResult;
+		public long milliseconds;
+		public String error;
+		
+		public Entry(String fileName) {
+			this.fileName = fileName;
+		}
+		
+		/**
+		 * Returns the values of the columns, or empty strings for the values, which are not set.
+		 */
+		String[] toValues() {
+			boolean hasBiclique = cipherName != null;
+			boolean hasMatching = matchingResult != null;
+			boolean hasComplexity = complexityResult != null;
+			
+			return new String[]{
+				fileName,
+				hasBiclique ? cipherName : "",
+				hasBiclique ? Integer.toString(dimension) : "",
+				hasBiclique ? Integer.toString(bicliqueFromRound) : "",
+				hasBiclique ? Integer.toString(bicliqueToRound) : "",
+				hasMatching ? Integer.toString(matchingResult.matchingFromRound) : "",
+				hasMatching ? Integer.toString(matchingResult.matchingToRound) : "",
+				hasMatching ? Integer.toString(matchingResult.bestMatchingRound) : "",
+				hasMatching ? Integer.toString(matchingResult.minRecomputedOperations) : "",
+				hasComplexity ? String.format(Locale.ENGLISH, "%.4f", complexityResult.totalComplexityLog) : "",
+				Long.toString(milliseconds),
+				error == null ? "" : error
+			};
+		}
+		
+	}
+	
+}
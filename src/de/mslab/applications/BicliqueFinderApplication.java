@@ -8,18 +8,25 @@ import org.apache.commons.cli.Options;
 
 import de.mslab.bicliquesearch.BicliqueFinder;
 import de.mslab.bicliquesearch.BicliqueFinderContext;
+import de.mslab.bicliquesearch.helpers.TopBicliqueCollector;
 import de.mslab.ciphers.CipherFactory;
 import de.mslab.ciphers.CipherFactory.CipherName;
 import de.mslab.ciphers.helpers.BitwiseDifferentialComparator;
 import de.mslab.ciphers.helpers.BytewiseDifferentialComparator;
 import de.mslab.ciphers.helpers.CipherHelperFactory;
 import de.mslab.ciphers.helpers.NibblewiseDifferentialComparator;
+import de.mslab.ciphers.truncated.TruncatedDifferentialPropagatorFactory;
 import de.mslab.core.Biclique;
 import de.mslab.diffbuilder.BitwiseDifferenceBuilder;
 import de.mslab.diffbuilder.BytewiseDifferenceBuilder;
+import de.mslab.diffbuilder.DifferentialCache;
 import de.mslab.diffbuilder.NibblewiseDifferenceBuilder;
+import de.mslab.errors.InvalidArgumentError;
+import de.mslab.errors.NoSuchCipherError;
+import de.mslab.errors.StorageError;
 import de.mslab.rendering.BicliqueRenderer;
 import de.mslab.rendering.IBicliqueRenderer;
+import de.mslab.utils.BicliqueStore;
 import de.mslab.utils.BicliqueXMLSerializer;
 
 /**
@@ -36,6 +43,7 @@ public class BicliqueFinderApplication extends AbstractApplication {
 	private int maxBicliqueRounds;
 	private IBicliqueRenderer renderer;
 	private BicliqueXMLSerializer serializer;
+	private BicliqueStore store;
 	private String resultPath;
 	
 	public BicliqueFinderApplication(String[] args) {
@@ -48,9 +56,39 @@ public class BicliqueFinderApplication extends AbstractApplication {
 		int dimension = Integer.parseInt(getOptionValue(commandLine, "d", "8"));
 		boolean stopAfterFoundFirstBiclique = commandLine.hasOption("stop");
 		boolean debug = commandLine.hasOption("debug");
+		boolean truncated = commandLine.hasOption("truncated");
+		boolean reuseDifferentialPrefixes = !commandLine.hasOption("noprefixes");
 		String resultPath = getOptionValue(commandLine, "o", "");
+		String cachePath = getOptionValue(commandLine, "cache", "");
+		long cacheSize = Long.parseLong(getOptionValue(commandLine, "cachesize", "1024"));
+		int numBicliquesToKeep = Integer.parseInt(getOptionValue(commandLine, "keep", "0"));
+		String checkpointPath = getOptionValue(commandLine, "checkpoint", "");
+		boolean resume = commandLine.hasOption("resume");
+		String storePath = getOptionValue(commandLine, "store", "");
 		
 		setUp(cipherName, dimension, maxBicliqueRounds, stopAfterFoundFirstBiclique, debug, resultPath);
+		
+		if (truncated) {
+			useTruncatedDifferentials(cipherName);
+		}
+		
+		finderContext.reuseDifferentialPrefixes = reuseDifferentialPrefixes;
+		
+		if (cachePath.length() > 0) {
+			useDifferentialCache(new File(cachePath), cacheSize << 20);
+		}
+		
+		if (numBicliquesToKeep > 0) {
+			keepBestBicliques(numBicliquesToKeep);
+		}
+		
+		if (checkpointPath.length() > 0) {
+			useCheckpoints(new File(checkpointPath), resume);
+		}
+		
+		if (storePath.length() > 0) {
+			useBicliqueStore(new File(storePath));
+		}
 	}
 	
 	/**
@@ -71,6 +109,59 @@ public class BicliqueFinderApplication extends AbstractApplication {
 		logger.isDebugEnabled = debug;
 	}
 	
+	/**
+	 * Lets the finder propagate truncated differentials instead of concrete ones, which is 
+	 * much faster for high dimensions. Requires a propagator for the given cipher.
+	 * @param cipherName
+	 * @throws NoSuchCipherError If there is no propagator for the cipher with the given name.
+	 */
+	public void useTruncatedDifferentials(CipherName cipherName) {
+		finderContext.propagator = TruncatedDifferentialPropagatorFactory.createPropagator(cipherName, cipher);
+	}
+	
+	/**
+	 * Lets the finder load differentials from a cache in the given directory, and store the computed 
+	 * ones in it, so that later runs reuse them. 
+	 * @param directory
+	 * @param maxSize The maximum size of the cache in bytes.
+	 * @throws StorageError If the directory could not be created.
+	 */
+	public void useDifferentialCache(File directory, long maxSize) {
+		finderContext.differentialCache = new DifferentialCache(directory, maxSize);
+	}
+	
+	/**
+	 * Lets the finder keep only the given number of bicliques with the highest scores, instead of 
+	 * all bicliques with the maximum score. 
+	 * @param numBicliques
+	 * @throws InvalidArgumentError If the number is less than one.
+	 */
+	public void keepBestBicliques(int numBicliques) {
+		finderContext.bicliqueCollector = new TopBicliqueCollector(numBicliques);
+	}
+	
+	/**
+	 * Lets the finder save the state of every search periodically in the given directory, so that 
+	 * an interrupted run can be resumed. 
+	 * @param directory
+	 * @param resume If set, searches are resumed from the checkpoints of a previous run, and 
+	 * completed searches are skipped.
+	 */
+	public void useCheckpoints(File directory, boolean resume) {
+		finderContext.checkpointDirectory = directory;
+		finderContext.resumeFromCheckpoint = resume;
+	}
+	
+	/**
+	 * Lets the application append all found bicliques, together with their scores, to the 
+	 * biclique store in the given file, in addition to saving the first biclique as XML. 
+	 * @param file
+	 * @throws StorageError If the store could not be opened.
+	 */
+	public void useBicliqueStore(File file) {
+		store = new BicliqueStore(file);
+	}
+	
 	public void run() {
 		findBicliquesAtCipherEnd();
 		findBicliquesAtCipherStart();
@@ -82,6 +173,11 @@ public class BicliqueFinderApplication extends AbstractApplication {
 	public void tearDown() {
 		finder.tearDown();
 		finder = null;
+		
+		if (store != null) {
+			store.close();
+			store = null;
+		}
 	}
 	
 	protected void createOptions() {
@@ -92,6 +188,14 @@ public class BicliqueFinderApplication extends AbstractApplication {
 		options.addOption(createOptionWithArg("o", "Path to an output directory to save serialized bicliques in XML, and their visualizations in PDF format. Defaults to execution directory.", false));
 		options.addOption(createOption("stop", "Stops the search on current rounds, if one biclique was found. Defaults to false."));
 		options.addOption(createOption("debug", "Log debugging information. Defaults to false."));
+		options.addOption(createOptionWithArg("cache", "Path to a directory, in which computed differentials are cached for later runs. Optional, differentials are not cached by default.", false));
+		options.addOption(createOptionWithArg("cachesize", "Maximum size of the differential cache in MB. Defaults to 1024.", false));
+		options.addOption(createOptionWithArg("keep", "Number of bicliques with the highest scores to keep per round interval. Optional, all bicliques with the maximum score are kept by default.", false));
+		options.addOption(createOptionWithArg("checkpoint", "Path to a directory, in which the state of every search is saved periodically. Optional, no checkpoints are saved by default.", false));
+		options.addOption(createOptionWithArg("store", "Path to a biclique store file, to which all found bicliques are appended with their scores. Optional, bicliques are not stored by default.", false));
+		options.addOption(createOption("resume", "Resumes the searches from the checkpoints in the checkpoint directory of a previous run. Defaults to false."));
+		options.addOption(createOption("noprefixes", "Computes the differentials of every round interval from scratch, instead of deriving them from those of the longest interval at the cipher start or end. Needs less memory. Defaults to false."));
+		options.addOption(createOption("truncated", "Propagates truncated differentials instead of testing all key differences. Supported for AES, ARIA, BKSQ, Khazad, KLEIN, LED, and SQUARE. Defaults to false."));
 	}
 	
 	protected void logHelp(Options options) {
@@ -137,25 +241,41 @@ public class BicliqueFinderApplication extends AbstractApplication {
 	/**
 	 * Searches for bicliques in the <code>maxBicliqueRounds</code> rounds of the cipher.
 	 * This means, that first, bicliques will be searched for the final round, then for 
-	 * the two final rounds, etc.     
+	 * the two final rounds, etc. If the finder reuses differentials of longer intervals, 
+	 * the order is reversed, so that the nabla differentials of all intervals are derived 
+	 * from those of the first search.     
 	 */
 	private void findBicliquesAtCipherEnd() {
 		int numRounds = cipher.getNumRounds();
 		int endRound = numRounds - maxBicliqueRounds + 1;
 		
-		for (int fromRound = numRounds; fromRound >= endRound; fromRound--) {
-			findBicliques(fromRound, numRounds);
+		if (finderContext.reuseDifferentialPrefixes) {
+			for (int fromRound = endRound; fromRound <= numRounds; fromRound++) {
+				findBicliques(fromRound, numRounds);
+			}
+		} else {
+			for (int fromRound = numRounds; fromRound >= endRound; fromRound--) {
+				findBicliques(fromRound, numRounds);
+			}
 		}
 	}
 	
 	/**
 	 * Searches for bicliques in the <code>maxBicliqueRounds</code> rounds of the cipher.
 	 * This means, that first, bicliques will be searched for the initial round, then for 
-	 * the rounds 1 - 2, etc.     
+	 * the rounds 1 - 2, etc. If the finder reuses differentials of longer intervals, the 
+	 * order is reversed, so that the delta differentials of all intervals are derived from 
+	 * those of the first search.     
 	 */
 	private void findBicliquesAtCipherStart() {
-		for (int toRound = 1; toRound <= maxBicliqueRounds; toRound++) {
-			findBicliques(1, toRound);
+		if (finderContext.reuseDifferentialPrefixes) {
+			for (int toRound = maxBicliqueRounds; toRound >= 1; toRound--) {
+				findBicliques(1, toRound);
+			}
+		} else {
+			for (int toRound = 1; toRound <= maxBicliqueRounds; toRound++) {
+				findBicliques(1, toRound);
+			}
 		}
 	}
 	
@@ -167,6 +287,7 @@ public class BicliqueFinderApplication extends AbstractApplication {
 		if (finder.getBicliques().size() > 0) {
 			logFirstBiclique();
 			saveFirstBiclique();
+			storeBicliques();
 			renderFirstBiclique();
 		}
 	}
@@ -216,4 +337,14 @@ public class BicliqueFinderApplication extends AbstractApplication {
 		}
 	}
 	
+	private void storeBicliques() {
+		if (store == null) {
+			return;
+		}
+		
+		for (Biclique biclique : finder.getBicliques()) {
+			store.append(biclique, finderContext.bicliqueRater.determineScoreForBiclique(biclique));
+		}
+	}
+	
 }
@@ -0,0 +1,137 @@
+package de.mslab.bicliquesearch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.mslab.ciphers.helpers.ActivitySignatureComparator;
+import de.mslab.core.Differential;
+
+/**
+ * Indexes the activity signatures of delta differentials for the join with nabla differentials. 
+ * The differentials are partitioned by the first word of their signature, which covers the first 
+ * tested round. A nabla signature only probes the differentials of partitions whose key is disjoint 
+ * from its own first word, and tests the remaining words of their signatures with AND operations.
+ */
+class ActivitySignatureIndex {
+	
+	private Differential[] differentials;
+	private long[] signatures;
+	private int signatureLength;
+	
+	private long[] groupKeys;
+	private int[] groupEnds;
+	private int[] entryGroups;
+	
+	/**
+	 * Computes the signatures of all given differentials with the given comparator and builds the index.
+	 */
+	public ActivitySignatureIndex(Differential[] differentials, ActivitySignatureComparator comparator) {
+		int numDifferentials = differentials.length;
+		long[][] signaturesByDifferential = new long[numDifferentials][];
+		signatureLength = 1;
+		
+		for (int i = 0; i < numDifferentials; i++) {
+			signaturesByDifferential[i] = comparator.computeActivitySignature(differentials[i]);
+			signatureLength = Math.max(signatureLength, signaturesByDifferential[i].length);
+		}
+		
+		Map<Long, List<Integer>> groups = new LinkedHashMap<Long, List<Integer>>();
+		List<Integer> group;
+		Long key;
+		
+		for (int i = 0; i < numDifferentials; i++) {
+			key = getWord(signaturesByDifferential[i], 0);
+			group = groups.get(key);
+			
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				groups.put(key, group);
+			}
+			
+			group.add(i);
+		}
+		
+		this.differentials = new Differential[numDifferentials];
+		this.signatures = new long[numDifferentials * signatureLength];
+		this.groupKeys = new long[groups.size()];
+		this.groupEnds = new int[groups.size()];
+		this.entryGroups = new int[numDifferentials];
+		
+		int entry = 0;
+		int groupIndex = 0;
+		long[] signature;
+		
+		for (Map.Entry<Long, List<Integer>> mapEntry : groups.entrySet()) {
+			for (int i : mapEntry.getValue()) {
+				signature = signaturesByDifferential[i];
+				System.arraycopy(signature, 0, signatures, entry * signatureLength, signature.length);
+				this.differentials[entry] = differentials[i];
+				entryGroups[entry] = groupIndex;
+				entry++;
+			}
+			
+			groupKeys[groupIndex] = mapEntry.getKey();
+			groupEnds[groupIndex] = entry;
+			groupIndex++;
+		}
+	}
+	
+	/**
+	 * Returns the differential at the given entry of the index. 
+	 */
+	public Differential getDifferential(int entry) {
+		return differentials[entry];
+	}
+	
+	/**
+	 * Returns the number of indexed differentials.
+	 */
+	public int getNumDifferentials() {
+		return differentials.length;
+	}
+	
+	/**
+	 * Returns the first entry at or after the given one, whose signature is disjoint from the 
+	 * given signature, or <code>-1</code> if there is none. 
+	 */
+	public int findNextDisjoint(long[] signature, int entry) {
+		int numEntries = differentials.length;
+		int numWords = Math.min(signature.length, signatureLength);
+		long firstWord = getWord(signature, 0);
+		int group;
+		int offset;
+		int i;
+		
+		while (entry < numEntries) {
+			group = entryGroups[entry];
+			
+			if ((groupKeys[group] & firstWord) != 0) {
+				entry = groupEnds[group];
+				continue;
+			}
+			
+			offset = entry * signatureLength;
+			
+			for (i = 1; i < numWords; i++) {
+				if ((signatures[offset + i] & signature[i]) != 0) {
+					break;
+				}
+			}
+			
+			if (i >= numWords) {
+				return entry;
+			}
+			
+			entry++;
+		}
+		
+		return -1;
+	}
+	
+	private static long getWord(long[] signature, int index) {
+		return index < signature.length ? signature[index] : 0L;
+	}
+	
+}
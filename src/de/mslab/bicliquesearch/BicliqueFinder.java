@@ -1,16 +1,28 @@
 package de.mslab.bicliquesearch;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import de.mslab.bicliquesearch.helpers.BicliqueCollector;
 import de.mslab.bicliquesearch.helpers.DefaultBicliqueRater;
+import de.mslab.bicliquesearch.helpers.MaxScoreBicliqueCollector;
+import de.mslab.ciphers.helpers.ActivitySignatureComparator;
 import de.mslab.core.Biclique;
 import de.mslab.core.ByteArray;
 import de.mslab.core.Differential;
+import de.mslab.diffbuilder.AbstractDifferentialBuilder;
 import de.mslab.diffbuilder.BicliqueDifferentialBuilder;
 import de.mslab.diffbuilder.DifferenceIterator;
+import de.mslab.diffbuilder.DifferentialCache;
 import de.mslab.diffbuilder.DifferentialBuilder;
+import de.mslab.diffbuilder.PartialDifferentialFilter;
+import de.mslab.diffbuilder.TruncatedDifferentialBuilder;
 import de.mslab.utils.Logger;
 
 /**
@@ -18,24 +30,64 @@ import de.mslab.utils.Logger;
  */
 public class BicliqueFinder {
 	
+	/**
+	 * The number of chunks per worker thread, into which the delta and nabla index ranges are split 
+	 * at most. Smaller chunks can be stolen by idle workers, which balances the strongly varying costs 
+	 * of matching nabla differentials.
+	 */
+	private static final int NUM_CHUNKS_PER_THREAD = 16;
+	
 	private BicliqueFinderContext context;
-	private volatile List<Biclique> bicliques;
+	private List<Biclique> bicliques = new ArrayList<Biclique>();
 	
-	private DifferentialBuilder differentialBuilder = new BicliqueDifferentialBuilder();
-	private volatile List<Differential> deltaDifferentials;
-	private List<DeltaThread> deltaThreads;
-	private List<NablaThread> nablaThreads;
+	/**
+	 * A builder per worker thread, each with its own copy of the cipher, so that the threads 
+	 * compute differentials without any synchronization. 
+	 */
+	private ThreadLocal<DifferentialBuilder> differentialBuilders;
+	/**
+	 * The delta differentials of the current iteration, of which only one per class of equivalent 
+	 * differentials is joined with the nabla differentials. 
+	 */
+	private DifferentialEquivalenceClasses deltaDifferentials;
+	private Differential[] deltaDifferentialsArray;
+	private ActivitySignatureIndex deltaDifferentialsIndex;
+	/**
+	 * The activity signatures of all delta differentials, if they are stored in a file instead of 
+	 * memory. Then, all differentials are matched in a single iteration.
+	 */
+	private DeltaSignatureStore deltaSignatureStore;
+	private boolean useDeltaSignatureStore;
+	/**
+	 * The delta and nabla differentials of a previous search in a longer interval, from which those of 
+	 * the current search are derived, or the differentials of the current search, which are kept for 
+	 * later searches in sub-intervals. 
+	 */
+	private DifferentialPrefixStore deltaPrefixes;
+	private DifferentialPrefixStore nablaPrefixes;
+	private boolean canKeepDifferentials;
+	private boolean keepsDeltaDifferentials;
+	private boolean keepsNablaDifferentials;
+	private ForkJoinPool pool;
+	/**
+	 * The ranks of the nabla differentials of the current iteration, which were matched completely. 
+	 * Nabla tasks pass their bicliques to the collector and add their range, while holding the read 
+	 * lock. A checkpoint is taken while holding the write lock, so that its bicliques are exactly 
+	 * those from the ranges in it. 
+	 */
+	private RankRanges completedNablaRanks = new RankRanges();
+	private ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+	private ReentrantLock checkpointWriteLock = new ReentrantLock();
+	private volatile long nextCheckpointTime;
+	private long firstIterationIndex;
+	private RankRanges resumedNablaRanks;
 	
 	private volatile boolean hasFoundBiclique = false;
-	private volatile int numDeltaThreadsRunning;
-	private volatile int numNablaThreadsRunning;
-	private volatile int numNablaDifferentialsMatched;
+	private AtomicLong numNablaDifferentialsMatched = new AtomicLong();
 	private long startTime;
 	
 	private ByteArray initialKey;
 	private Logger logger = Logger.getLogger();
-	private volatile int maxBicliqueScore;
-	private Object mutex = new Object();
 	
 	public BicliqueFinder() {
 		
@@ -48,6 +100,41 @@ public class BicliqueFinder {
 		return bicliques;
 	}
 	
+	/**
+	 * Returns all bicliques, which are equivalent to the given one of the last search. The delta 
+	 * differential of each biclique in {@link #getBicliques()} represents all equivalent delta differentials, 
+	 * of which only the first was joined with the nabla differentials. 
+	 * This method recomputes the delta differentials for the key differences of the others, and 
+	 * combines each of them with the nabla differential of the given biclique. The result starts 
+	 * with the given biclique. Returns only the given biclique if it is not from the last search.
+	 */
+	public List<Biclique> getEquivalentBicliques(Biclique biclique) {
+		List<Biclique> result = new ArrayList<Biclique>();
+		result.add(biclique);
+		
+		long[] ranks = (deltaDifferentials == null) ? null : deltaDifferentials.getRanks(biclique.deltaDifferential);
+		
+		if (ranks == null) {
+			return result;
+		}
+		
+		DifferentialBuilder differentialBuilder = createDifferentialBuilder();
+		Differential deltaDifferential;
+		Biclique equivalentBiclique;
+		
+		for (int i = 1; i < ranks.length; i++) {
+			deltaDifferential = differentialBuilder.computeForwardDifferential(
+				context.fromRound, context.toRound, context.differenceBuilder.get(ranks[i]), initialKey, context.fromRound
+			);
+			equivalentBiclique = new Biclique(deltaDifferential, biclique.nablaDifferential);
+			equivalentBiclique.cipherName = biclique.cipherName;
+			equivalentBiclique.dimension = biclique.dimension;
+			result.add(equivalentBiclique);
+		}
+		
+		return result;
+	}
+	
 	/**
 	 * Returns the BicliqueFinderContext.
 	 */
@@ -78,57 +165,67 @@ public class BicliqueFinder {
 	public void findBicliques() {
 		logStart();
 		initializeDifferenceBuilder();
-		initializeBicliqueRater();
+		initializeBicliqueRaterAndCollector();
+		initializePool();
 		determineNumIterations();
+		
+		if (resumeFromCheckpoint()) {
+			return;
+		}
+		
+		initializePrefixStores();
 		computeInitialKey();
 		
-		for (context.iterationIndex = 0; context.iterationIndex < context.numIterations; context.iterationIndex++) {
+		for (context.iterationIndex = firstIterationIndex; context.iterationIndex < context.numIterations; context.iterationIndex++) {
 			reset();
 			computeDeltaDifferentialsWithMultipleThreads();
 			logDeltaProgress();
-			
-			initializeDifferenceBuilder();
 			computeNablaDifferentialsWithMultipleThreads();
+			bicliques = context.bicliqueCollector.getBicliques();
 			
 			if (hasFoundBiclique && context.stopAfterFoundFirstBiclique) {
 				break;
 			}
 			
 			logNablaProgress();
+			
+			if (context.iterationIndex + 1 < context.numIterations) {
+				writeCheckpoint(context.iterationIndex + 1, new RankRanges(), false);
+			}
 		}
+		
+		writeCheckpoint(context.iterationIndex, new RankRanges(), true);
+		logDifferentialCache();
 	}
 	
 	/**
-	 * Clears the internal lists of differentials, bicliques, and threads used for 
-	 * biclique finding to clean up memory.
+	 * Clears the internal lists of differentials and bicliques, and shuts down the worker threads 
+	 * used for biclique finding to clean up memory.
 	 */
 	public void tearDown() {
-		if (deltaDifferentials == null) {
-			deltaDifferentials = Collections.synchronizedList(new ArrayList<Differential>(context.numThreads));
-		} else {
+		if (deltaDifferentials != null) {
 			deltaDifferentials.clear();
 		}
 		
-		if (bicliques == null) {
-			bicliques = Collections.synchronizedList(new ArrayList<Biclique>());
-		} else {
-			bicliques.clear();
+		if (context != null && context.bicliqueCollector != null) {
+			context.bicliqueCollector.clear();
 		}
 		
-		if (deltaThreads == null) {
-			deltaThreads = new ArrayList<DeltaThread>(context.numThreads);
-		} else {
-			deltaThreads.clear();
-		}
+		bicliques = new ArrayList<Biclique>();
 		
-		if (deltaThreads == null) {
-			nablaThreads = new ArrayList<NablaThread>(context.numThreads);
-		} else {
-			deltaThreads.clear();
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
 		}
 		
-		numDeltaThreadsRunning = 0;
-		numNablaThreadsRunning = 0;
+		closeDeltaSignatureStore();
+		deltaDifferentialsArray = null;
+		deltaDifferentialsIndex = null;
+		deltaPrefixes = null;
+		nablaPrefixes = null;
+		completedNablaRanks = new RankRanges();
+		resumedNablaRanks = null;
+		numNablaDifferentialsMatched.set(0);
 		hasFoundBiclique = false;
 	}
 	
@@ -143,35 +240,117 @@ public class BicliqueFinder {
 	}
 	
 	private void computeDeltaDifferentialsWithMultipleThreads() {
-		prepareDeltaThreads();
-		startDeltaThreads();
+		long iterationOffset = context.iterationIndex * context.numDifferentialsPerIteration;
+		long iterationEnd = Math.min(iterationOffset + context.numDifferentialsPerIteration, context.numDifferentialsToTest);
 		
-		while(numDeltaThreadsRunning > 0) {
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-				break;
-			}
+		if (useDeltaSignatureStore) {
+			deltaSignatureStore = createDeltaSignatureStore();
+		}
+		
+		if (iterationOffset < iterationEnd) {
+			pool.invoke(new DeltaTask(iterationOffset, iterationEnd, computeChunkSize(iterationEnd - iterationOffset)));
 		}
 		
-		stopDeltaThreads();
+		if (deltaSignatureStore != null) {
+			return;
+		}
+		
+		deltaDifferentialsArray = deltaDifferentials.getRepresentatives();
+		logDeltaClasses();
+		
+		if (context.comparator instanceof ActivitySignatureComparator) {
+			deltaDifferentialsIndex = new ActivitySignatureIndex(
+				deltaDifferentialsArray, (ActivitySignatureComparator)context.comparator
+			);
+		}
 	}
 	
 	private void computeNablaDifferentialsWithMultipleThreads() {
-		prepareNablaThreads();
-		startNablaThreads();
+		long numDifferentials = context.numDifferentialsToTest;
 		
-		while(numNablaThreadsRunning > 0) {
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-				break;
-			}
+		if (numDifferentials > 0) {
+			pool.invoke(new NablaTask(0, numDifferentials, computeChunkSize(numDifferentials)));
+		}
+	}
+	
+	/**
+	 * Returns the maximum number of indices which a single task processes without splitting 
+	 * its range further.
+	 */
+	private long computeChunkSize(long numDifferentials) {
+		long numChunks = (long)pool.getParallelism() * NUM_CHUNKS_PER_THREAD;
+		return Math.max(1, numDifferentials / numChunks);
+	}
+	
+	/**
+	 * Creates a store for the signatures of all delta differentials. Since only one iteration is needed 
+	 * then, the store is indexed by the ranks of the key differences. 
+	 */
+	private DeltaSignatureStore createDeltaSignatureStore() {
+		int signatureLength = 1;
+		
+		if (context.numDifferentialsToTest > 0) {
+			long[] signature = ((ActivitySignatureComparator)context.comparator).computeActivitySignature(
+				computeDeltaDifferential(0)
+			);
+			signatureLength = Math.max(signatureLength, signature.length);
+		}
+		
+		DeltaSignatureStore store = new DeltaSignatureStore(
+			context.deltaStoreDirectory, context.numDifferentialsToTest, signatureLength
+		);
+		logDeltaSignatureStore(store);
+		return store;
+	}
+	
+	private void closeDeltaSignatureStore() {
+		if (deltaSignatureStore != null) {
+			deltaSignatureStore.close();
+			deltaSignatureStore = null;
+		}
+	}
+	
+	/**
+	 * Computes the delta differential for the key differences with the given rank with the builder 
+	 * of the current thread, or derives it from the kept differential of a longer interval.
+	 */
+	private Differential computeDeltaDifferential(long rank) {
+		Differential differential = null;
+		
+		if (deltaPrefixes != null && !keepsDeltaDifferentials) {
+			differential = deltaPrefixes.get(rank, context.fromRound, context.toRound);
+		}
+		
+		if (differential == null) {
+			DifferenceIterator keyDifferencesIterator = context.differenceBuilder.get(rank);
+			differential = differentialBuilders.get().computeForwardDifferential(
+				context.fromRound, context.toRound, keyDifferencesIterator, initialKey, context.fromRound
+			);
 		}
 		
-		stopNablaThreads();
+		if (keepsDeltaDifferentials) {
+			deltaPrefixes.put(rank, differential);
+		}
+		
+		return differential;
+	}
+	
+	private DifferentialBuilder createDifferentialBuilder() {
+		DifferentialBuilder differentialBuilder;
+		
+		if (context.propagator != null) {
+			differentialBuilder = new TruncatedDifferentialBuilder(context.propagator.copy());
+		} else {
+			differentialBuilder = new BicliqueDifferentialBuilder();
+		}
+		
+		differentialBuilder.setCipher(context.cipher.copy());
+		
+		if (differentialBuilder instanceof AbstractDifferentialBuilder) {
+			((AbstractDifferentialBuilder)differentialBuilder).setCache(context.differentialCache);
+		}
+		
+		return differentialBuilder;
 	}
 	
 	private void determineNumIterations() {
@@ -186,24 +365,66 @@ public class BicliqueFinder {
 		long numBytesRequired = numDifferentials * numBytesRequiredPerDifferential;
 		
 		Runtime runtime = Runtime.getRuntime();
-		long maxNumBytesMemoryUsable = (runtime.maxMemory() - runtime.freeMemory()) * 7/8; // use 7/8 of free RAM
+		long numBytesMemoryUsed = runtime.totalMemory() - runtime.freeMemory();
+		long maxNumBytesMemoryUsable = (runtime.maxMemory() - numBytesMemoryUsed) * 7/8; // use 7/8 of free RAM
 		logUsableMemory(maxNumBytesMemoryUsable);
 		
-		if (numBytesRequired < maxNumBytesMemoryUsable) {
+		useDeltaSignatureStore = (context.comparator instanceof ActivitySignatureComparator) 
+			&& (context.storeDeltaSignaturesOnDisk || numBytesRequired >= maxNumBytesMemoryUsable);
+		
+		canKeepDifferentials = !useDeltaSignatureStore && numDifferentials <= Integer.MAX_VALUE 
+			&& 3 * numBytesRequired < maxNumBytesMemoryUsable;
+		
+		if (useDeltaSignatureStore || numBytesRequired < maxNumBytesMemoryUsable) {
 			context.numDifferentialsPerIteration = numDifferentials;
 			context.numIterations = 1;
 		} else {
-			context.numDifferentialsPerIteration = (int)((double)maxNumBytesMemoryUsable / (double)numBytesRequiredPerDifferential);
+			context.numDifferentialsPerIteration = Math.max(1, maxNumBytesMemoryUsable / numBytesRequiredPerDifferential);
 			context.numIterations = (int)(Math.ceil((double)numDifferentials / (double)context.numDifferentialsPerIteration));			
 		}
 	}
 	
-	private void initializeBicliqueRater() {
+	/**
+	 * Selects the stores of kept differentials for the current search. A store of a previous search 
+	 * is reused if its differentials can be restricted to the current rounds. Otherwise, if enough 
+	 * memory is available, the delta differentials of a search starting in the first round, and the 
+	 * nabla differentials of a search ending in the last round, are kept for later searches. 
+	 */
+	private void initializePrefixStores() {
+		DifferentialPrefixStore previousDeltaPrefixes = deltaPrefixes;
+		DifferentialPrefixStore previousNablaPrefixes = nablaPrefixes;
+		
+		deltaPrefixes = selectPrefixStore(deltaPrefixes, context.fromRound == 1, false);
+		nablaPrefixes = selectPrefixStore(nablaPrefixes, context.toRound == context.cipher.getNumRounds(), true);
+		keepsDeltaDifferentials = (deltaPrefixes != null && deltaPrefixes != previousDeltaPrefixes);
+		keepsNablaDifferentials = (nablaPrefixes != null && nablaPrefixes != previousNablaPrefixes);
+	}
+	
+	private DifferentialPrefixStore selectPrefixStore(DifferentialPrefixStore store, boolean isKeepable, 
+		boolean isBackward) {
+		
+		if (!context.reuseDifferentialPrefixes) {
+			return null;
+		} else if (store != null && store.covers(context)) {
+			return store;
+		} else if (isKeepable && canKeepDifferentials && context.numIterations == 1) {
+			return new DifferentialPrefixStore(context, isBackward);
+		} else {
+			return null;
+		}
+	}
+	
+	private void initializeBicliqueRaterAndCollector() {
 		if (context.bicliqueRater == null) {
 			context.bicliqueRater = new DefaultBicliqueRater();
 		}
 		
-		maxBicliqueScore = Integer.MIN_VALUE;
+		if (context.bicliqueCollector == null) {
+			context.bicliqueCollector = new MaxScoreBicliqueCollector();
+		}
+		
+		context.bicliqueCollector.clear();
+		bicliques = new ArrayList<Biclique>();
 	}
 	
 	private void initializeDifferenceBuilder() {
@@ -213,26 +434,68 @@ public class BicliqueFinder {
 		);
 	}
 	
+	/**
+	 * Creates the pool of worker threads, or reuses the pool of a previous search if the 
+	 * desired number of threads did not change.
+	 */
+	private void initializePool() {
+		int numThreads = Math.max(1, context.numThreads);
+		
+		if (pool != null && pool.getParallelism() != numThreads) {
+			pool.shutdown();
+			pool = null;
+		}
+		
+		if (pool == null) {
+			pool = new ForkJoinPool(numThreads);
+		}
+	}
+	
+	private boolean isStopRequested() {
+		return hasFoundBiclique && context.stopAfterFoundFirstBiclique;
+	}
+	
 	private void logDeltaProgress() {
 		long numDifferentials = (context.iterationIndex + 1) * context.numDifferentialsPerIteration;
 		long numTotalDifferentials = context.differenceBuilder.getNumResults();
 		logger.info("{0}/{1} Delta differentials tested.", numDifferentials, numTotalDifferentials);
 	}
 	
+	private void logDeltaClasses() {
+		logger.info("{0} delta differentials in {1} classes of equivalent differentials.", 
+			deltaDifferentials.getNumDifferentials(), deltaDifferentialsArray.length
+		);
+	}
+	
+	private void logDifferentialCache() {
+		DifferentialCache cache = context.differentialCache;
+		
+		if (cache != null) {
+			logger.info("Differential cache: {0} hits, {1} misses, {2} differentials in {3} MB", 
+				cache.getNumHits(), cache.getNumMisses(), cache.getNumEntries(), cache.getSize() >> 20
+			);
+		}
+	}
+	
+	private void logDeltaSignatureStore(DeltaSignatureStore store) {
+		long numMegaBytes = (store.getNumEntries() * store.getSignatureLength() * 8L) >> 20;
+		logger.info("Storing signatures of delta differentials in a file of {0} MB", numMegaBytes);
+	}
+	
 	private void logNablaProgress() {
 		long numDifferentials = (context.iterationIndex + 1) * context.numDifferentialsPerIteration;
 		long numTotalDifferentials = context.differenceBuilder.getNumResults();
 		logger.info("{0}/{1} Nabla differentials tested.", numDifferentials, numTotalDifferentials);
 	}
 	
-	private void logNablaProgressInIteration() {
+	private void logNablaProgressInIteration(long numMatched) {
 		double elapsedTime = (double)(System.nanoTime() - startTime) / 1000000000.0;
-		double elapsedPart = (double)numNablaDifferentialsMatched / (double)context.numDifferentialsToTest;
+		double elapsedPart = (double)numMatched / (double)context.numDifferentialsToTest;
 		long expectedTime = (long)(elapsedTime / (double)elapsedPart);
 		elapsedTime = (long)elapsedTime;
 		
 		logger.info("Computed and matched {0}/{1} nabla differences. Elapsed {2}/{3}s", 
-			numNablaDifferentialsMatched, context.numDifferentialsToTest, elapsedTime, expectedTime
+			numMatched, context.numDifferentialsToTest, elapsedTime, expectedTime
 		);
 	}
 	
@@ -245,297 +508,494 @@ public class BicliqueFinder {
 		logger.info("{0} MB memory available", numMegaBytesUsable);
 	}
 	
-	private void prepareDeltaThreads() {
-		DeltaThread thread;
-		
-		int offset = (int)(Math.floor(context.numDifferentialsPerIteration / context.numThreads));
-		long startIndex;
-		long endIndex;
+	private void reset() {
+		// clear lists and reset flags
+		closeDeltaSignatureStore();
+		deltaDifferentials = new DifferentialEquivalenceClasses(context.comparator);
+		deltaDifferentialsArray = null;
+		deltaDifferentialsIndex = null;
+		hasFoundBiclique = false;
+		completedNablaRanks = (resumedNablaRanks != null) ? resumedNablaRanks : new RankRanges();
+		resumedNablaRanks = null;
+		numNablaDifferentialsMatched.set(completedNablaRanks.getNumRanks());
+		startTime = System.nanoTime();
+		nextCheckpointTime = startTime + context.checkpointInterval * 1000000L;
 		
-		for (int i = 0; i < context.numThreads; i++) {
-			startIndex = i * offset;
-			endIndex = (i + 1) * offset;
-			
-			if (i + 1 == context.numThreads) {
-				endIndex = context.numDifferentialsPerIteration;
-			}
-			
-			if (deltaThreads.size() < context.numThreads) {
-				thread = new DeltaThread(startIndex, endIndex);
-				deltaThreads.add(thread);
-			} else {
-				thread = deltaThreads.get(i);
-				thread.startIndex = startIndex;
-				thread.endIndex = endIndex;
+		// init dependencies
+		differentialBuilders = new ThreadLocal<DifferentialBuilder>() {
+			protected DifferentialBuilder initialValue() {
+				return createDifferentialBuilder();
 			}
-		}
+		};
 	}
 	
-	private void prepareNablaThreads() {
-		NablaThread thread;
-		int offset = (int)(Math.floor(context.numDifferentialsToTest / context.numThreads));
-		long startIndex;
-		long endIndex;
+	/**
+	 * Restores the state of the search from its checkpoint, if resuming is enabled and there is a 
+	 * checkpoint of the same search. Returns <code>true</code> if the restored search was completed. 
+	 */
+	private boolean resumeFromCheckpoint() {
+		firstIterationIndex = 0;
+		resumedNablaRanks = null;
 		
-		for (int i = 0; i < context.numThreads; i++) {
-			startIndex = i * offset;
-			endIndex = (i + 1) * offset;
-
-			if (i + 1 == context.numThreads) {
-				endIndex = context.numDifferentialsPerIteration;
-			}
-			
-			if (nablaThreads.size() < context.numThreads) {
-				thread = new NablaThread(startIndex, endIndex);
-				nablaThreads.add(thread);
-			} else {
-				thread = nablaThreads.get(i);
-				thread.startIndex = startIndex;
-				thread.endIndex = endIndex;
-			}
-		}
-	}
-	
-	private void reset() {
-		// clear lists and reset flags
-		if (deltaDifferentials == null) {
-			deltaDifferentials = Collections.synchronizedList(new ArrayList<Differential>(context.numThreads));
-		} else {
-			deltaDifferentials.clear();
+		if (context.checkpointDirectory == null || !context.resumeFromCheckpoint) {
+			return false;
 		}
 		
-		if (bicliques == null) {
-			bicliques = Collections.synchronizedList(new ArrayList<Biclique>());
-		} else {
-			bicliques.clear();
+		File file = SearchCheckpoint.getFile(context.checkpointDirectory, context);
+		SearchCheckpoint checkpoint = SearchCheckpoint.read(file);
+		
+		if (checkpoint == null) {
+			return false;
+		} else if (!checkpoint.matches(context)) {
+			logger.info("Ignoring checkpoint {0} of a different search", file);
+			return false;
 		}
 		
-		hasFoundBiclique = false;
-		numNablaDifferentialsMatched = 0;
-		startTime = System.nanoTime();
+		for (Biclique biclique : checkpoint.bicliques) {
+			context.bicliqueCollector.add(biclique, context.bicliqueRater.determineScoreForBiclique(biclique));
+		}
 		
-		// init dependencies
-		differentialBuilder.setCipher(context.cipher);
+		bicliques = context.bicliqueCollector.getBicliques();
 		
-		// create threads
-		if (deltaThreads == null || deltaThreads.size() != context.numThreads) {
-			stopDeltaThreads();
-			deltaThreads = null;
-			deltaThreads = new ArrayList<DeltaThread>(context.numThreads);
+		if (checkpoint.isComplete) {
+			logger.info("Restored {0} biclique(s) of the completed search from checkpoint {1}", bicliques.size(), file);
+			return true;
 		}
 		
-		if (nablaThreads == null || nablaThreads.size() != context.numThreads) {
-			stopNablaThreads();
-			nablaThreads = null;
-			nablaThreads = new ArrayList<NablaThread>(context.numThreads);
-		}
+		// The completed ranks refer to the iterations of the interrupted search.
+		context.numDifferentialsPerIteration = checkpoint.numDifferentialsPerIteration;
+		context.numIterations = checkpoint.numIterations;
+		firstIterationIndex = checkpoint.iterationIndex;
+		resumedNablaRanks = checkpoint.completedNablaRanks;
+		
+		logger.info("Resuming from checkpoint {0} in iteration {1}/{2} with {3} nabla differentials matched and {4} biclique(s)", 
+			file, firstIterationIndex + 1, context.numIterations, resumedNablaRanks.getNumRanks(), bicliques.size()
+		);
+		return false;
 	}
 	
-	private void startDeltaThreads() {
-		numDeltaThreadsRunning = 0;
+	/**
+	 * Saves the state of the search with the given iteration and the nabla ranks matched in it, 
+	 * if checkpoints are enabled. 
+	 */
+	private void writeCheckpoint(long iterationIndex, RankRanges completedNablaRanks, boolean isComplete) {
+		if (context.checkpointDirectory == null) {
+			return;
+		}
 		
-		if (deltaThreads != null) {
-			for (int i = 0; i < deltaThreads.size(); i++) {
-				DeltaThread thread = deltaThreads.get(i);
-				thread.start();
-			}
+		SearchCheckpoint checkpoint = new SearchCheckpoint(context);
+		checkpoint.iterationIndex = iterationIndex;
+		checkpoint.isComplete = isComplete;
+		checkpointLock.writeLock().lock();
+		
+		try {
+			checkpoint.completedNablaRanks = completedNablaRanks.copy();
+			checkpoint.bicliques = context.bicliqueCollector.getBicliques();
+		} finally {
+			checkpointLock.writeLock().unlock();
 		}
+		
+		checkpoint.write(SearchCheckpoint.getFile(context.checkpointDirectory, context));
+		nextCheckpointTime = System.nanoTime() + context.checkpointInterval * 1000000L;
 	}
 	
-	private void startNablaThreads() {
-		numNablaThreadsRunning = 0;
+	/**
+	 * Saves the state of the current iteration, if the checkpoint interval elapsed and no other 
+	 * thread is saving it already.
+	 */
+	private void writeCheckpointIfDue() {
+		if (context.checkpointDirectory == null || System.nanoTime() < nextCheckpointTime 
+			|| !checkpointWriteLock.tryLock()) {
+			return;
+		}
 		
-		if (nablaThreads != null) {
-			for (int i = 0; i < nablaThreads.size(); i++) {
-				NablaThread thread = nablaThreads.get(i);
-				thread.start();
+		try {
+			if (System.nanoTime() >= nextCheckpointTime) {
+				writeCheckpoint(context.iterationIndex, completedNablaRanks, false);
 			}
+		} finally {
+			checkpointWriteLock.unlock();
 		}
 	}
 	
-	private void stopDeltaThreads() {
-		if (deltaThreads != null) {
-			for (int i = 0; i < deltaThreads.size(); i++) {
-				DeltaThread thread = deltaThreads.get(i);
-				thread.stop();
-			}
+	/**
+	 * Task to process a range of differences. Splits itself in halves until its range is 
+	 * not larger than the given chunk size, so that idle workers can steal the remaining halves.
+	 */
+	private abstract class RangeTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		protected final long startIndex;
+		protected final long endIndex;
+		protected final long chunkSize;
+		
+		public RangeTask(long startIndex, long endIndex, long chunkSize) {
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.chunkSize = chunkSize;
 		}
 		
-		numDeltaThreadsRunning = 0;
-	}
-	
-	private void stopNablaThreads() {
-		if (nablaThreads != null) {
-			for (int i = 0; i < nablaThreads.size(); i++) {
-				NablaThread thread = nablaThreads.get(i);
-				thread.stop();
+		protected void compute() {
+			if (endIndex - startIndex <= chunkSize) {
+				computeRange();
+			} else {
+				long middleIndex = startIndex + (endIndex - startIndex) / 2;
+				invokeAll(
+					createSubtask(startIndex, middleIndex), 
+					createSubtask(middleIndex, endIndex)
+				);
 			}
 		}
 		
-		numNablaThreadsRunning = 0;
+		protected abstract RangeTask createSubtask(long startIndex, long endIndex);
+		
+		protected abstract void computeRange();
+		
 	}
 	
 	/**
-	 * Thread to compute delta (= forward) differentials. 
+	 * Task to compute delta (= forward) differentials. 
 	 */
-	private class DeltaThread implements Runnable {
+	private class DeltaTask extends RangeTask {
 		
-		private long startIndex;
-		private long endIndex;
-		private Thread thread = null;
-		private volatile boolean running;
+		private static final long serialVersionUID = 1L;
 		
-		public DeltaThread(long startIndex, long endIndex) {
-			this.startIndex = startIndex;
-			this.endIndex = endIndex;
+		public DeltaTask(long startIndex, long endIndex, long chunkSize) {
+			super(startIndex, endIndex, chunkSize);
 		}
 		
-		public void start() {
-			if (!running) {
-				thread = new Thread(this);
-				thread.start();
-				running = true;
-				
-				synchronized (mutex) {
-					numDeltaThreadsRunning++;
-				}
+		protected RangeTask createSubtask(long startIndex, long endIndex) {
+			return new DeltaTask(startIndex, endIndex, chunkSize);
+		}
+		
+		protected void computeRange() {
+			if (deltaSignatureStore != null) {
+				computeSignatures();
+			} else {
+				computeDifferentials();
 			}
 		}
 		
-		public void run() {
-			DifferenceIterator keyDifferencesIterator;
-			Differential deltaDifferential;
+		private void computeDifferentials() {
+			List<Differential> differentials = new ArrayList<Differential>((int)(endIndex - startIndex));
 			
 			for (long i = startIndex; i < endIndex; i++) {
-				keyDifferencesIterator = context.differenceBuilder.next();
-				deltaDifferential = differentialBuilder.computeForwardDifferential(
-					context.fromRound, context.toRound, keyDifferencesIterator, initialKey, context.fromRound
-				);
-				
-				synchronized (mutex) {
-					deltaDifferentials.add(deltaDifferential);
-				}
-				
-				if (thread.isInterrupted()) {
-					break;
-				}
+				differentials.add(computeDeltaDifferential(i));
 			}
-
-			stop();
+			
+			deltaDifferentials.addAll(startIndex, differentials);
 		}
 		
-		public void stop() {
-			if (running) {
-				thread.interrupt();
-				thread = null;
-				running = false;
-				
-				synchronized (mutex) {
-					numDeltaThreadsRunning--;
+		/**
+		 * Writes only the activity signatures of the delta differentials to the store. 
+		 */
+		private void computeSignatures() {
+			ActivitySignatureComparator comparator = (ActivitySignatureComparator)context.comparator;
+			
+			for (long i = startIndex; i < endIndex; i++) {
+				deltaSignatureStore.put(i, comparator.computeActivitySignature(computeDeltaDifferential(i)));
+			}
+		}
+		
+	}
+	
+	/**
+	 * Rejects a partially computed nabla differential, as soon as it shares active components with 
+	 * all delta differentials in the index, store, or array. Since the differential only becomes more 
+	 * active with every further round or key, the search for an independent delta differential 
+	 * continues at the entry, where it stopped for the previous call. The entries before it can be 
+	 * skipped in the matching. 
+	 */
+	private class DisjointDeltaFilter implements PartialDifferentialFilter {
+		
+		/**
+		 * The first entry, which is independent of the last accepted differential. 
+		 */
+		long entry = 0;
+		
+		public boolean accept(Differential differential) {
+			if (deltaSignatureStore == null && deltaDifferentialsIndex == null) {
+				entry = findNextIndependent(differential, (int)entry);
+				return entry >= 0;
+			}
+			
+			ActivitySignatureComparator comparator = (ActivitySignatureComparator)context.comparator;
+			long[] signature = comparator.computeActivitySignature(differential);
+			
+			if (deltaSignatureStore != null) {
+				entry = deltaSignatureStore.findNextDisjoint(signature, entry);
+			} else {
+				entry = deltaDifferentialsIndex.findNextDisjoint(signature, (int)entry);
+			}
+			
+			return entry >= 0;
+		}
+		
+		/**
+		 * Returns the first index of the delta differentials array from the given one on, whose 
+		 * differential does not share active components with the given one, or -1 if there is none. 
+		 */
+		private int findNextIndependent(Differential nablaDifferential, int index) {
+			Differential[] deltaDifferentials = deltaDifferentialsArray;
+			
+			for (; index < deltaDifferentials.length; index++) {
+				if (!context.comparator.shareActiveNonLinearOperations(deltaDifferentials[index], nablaDifferential)) {
+					return index;
 				}
 			}
+			
+			return -1;
 		}
 		
 	}
 	
 	/**
-	 * Computes nabla differentials.
+	 * Task to compute nabla (= backward) differentials and to match them with all delta differentials.
 	 */
-	private class NablaThread implements Runnable {
-
-		private long startIndex;
-		private long endIndex;
-		private Thread thread = null;
-		private volatile boolean running;
+	private class NablaTask extends RangeTask {
 		
-		public NablaThread(long startIndex, long endIndex) {
-			this.startIndex = startIndex;
-			this.endIndex = endIndex;
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The bicliques found in the range of this task, which are passed to the collector at once 
+		 * when the range is done, so that threads rarely contend for the collector. 
+		 */
+		private List<Biclique> foundBicliques = new ArrayList<Biclique>();
+		private List<Integer> foundScores = new ArrayList<Integer>();
+		
+		public NablaTask(long startIndex, long endIndex, long chunkSize) {
+			super(startIndex, endIndex, chunkSize);
+		}
+		
+		protected void compute() {
+			if (!isStopRequested()) {
+				super.compute();
+			}
 		}
 		
-		public void start() {
-			if (!running) {
-				thread = new Thread(this);
-				thread.start();
-				running = true;
+		protected RangeTask createSubtask(long startIndex, long endIndex) {
+			return new NablaTask(startIndex, endIndex, chunkSize);
+		}
+		
+		/**
+		 * Computes and matches the nabla differentials in the range of this task, except those, which 
+		 * were already matched before the search was resumed. 
+		 */
+		protected void computeRange() {
+			boolean isCompleted = false;
+			
+			try {
+				long start = completedNablaRanks.nextNotContained(startIndex);
+				long end;
 				
-				synchronized (mutex) {
-					numNablaThreadsRunning++;
+				while (start < endIndex) {
+					end = Math.min(endIndex, completedNablaRanks.nextContained(start));
+					computeAndMatchDifferentials(start, end);
+					start = completedNablaRanks.nextNotContained(end);
+				}
+				
+				isCompleted = !isStopRequested();
+			} finally {
+				checkpointLock.readLock().lock();
+				
+				try {
+					collectBicliques();
+					
+					if (isCompleted) {
+						completedNablaRanks.add(startIndex, endIndex);
+					}
+				} finally {
+					checkpointLock.readLock().unlock();
 				}
 			}
+			
+			writeCheckpointIfDue();
 		}
 		
-		public void run() {
+		private void computeAndMatchDifferentials(long startIndex, long endIndex) {
+			DifferentialBuilder differentialBuilder = differentialBuilders.get();
 			DifferenceIterator keyDifferencesIterator;
 			Differential nablaDifferential;
-			Differential deltaDifferential;
-			Biclique biclique;
+			DisjointDeltaFilter filter = null;
+			long firstEntry = 0;
+			long numMatched;
 			
-			int numDeltaDifferentials = deltaDifferentials.size();
-			int score;
+			// Kept nabla differentials must be complete.
+			if (context.abortNablaDifferentialsEarly && differentialBuilder instanceof AbstractDifferentialBuilder 
+				&& !keepsNablaDifferentials) {
+				filter = new DisjointDeltaFilter();
+			}
 			
-			nabla: for (long j = startIndex; j < endIndex; j++) {
-				keyDifferencesIterator = context.differenceBuilder.next();
-				nablaDifferential = differentialBuilder.computeBackwardDifferential(
-					context.fromRound, context.toRound, keyDifferencesIterator, initialKey, context.toRound
-				);
+			for (long j = startIndex; j < endIndex; j++) {
+				if (isStopRequested()) {
+					break;
+				}
+				
+				nablaDifferential = null;
+				
+				if (filter != null) {
+					filter.entry = 0;
+				}
 				
-				for (int i = 0; i < numDeltaDifferentials; i++) {
-					deltaDifferential = deltaDifferentials.get(i);
+				if (nablaPrefixes != null && !keepsNablaDifferentials) {
+					nablaDifferential = nablaPrefixes.get(j, context.fromRound, context.toRound);
+				}
+				
+				if (nablaDifferential != null) {
+					if (filter != null && !filter.accept(nablaDifferential)) {
+						nablaDifferential = null;
+					}
+				} else {
+					keyDifferencesIterator = context.differenceBuilder.get(j);
 					
-					if (!context.comparator.shareActiveNonLinearOperations(deltaDifferential, nablaDifferential)) {
-						biclique = new Biclique(deltaDifferential, nablaDifferential);
-						biclique.cipherName = context.cipher.getName();
-						biclique.dimension = context.dimension;
-						
-						score = context.bicliqueRater.determineScoreForBiclique(biclique);
-						
-						synchronized (mutex) {
-							if (score > maxBicliqueScore) {
-								bicliques.clear();
-							}
-							
-							if (score >= maxBicliqueScore) {
-								maxBicliqueScore = score;
-								bicliques.add(biclique);
-								hasFoundBiclique = true;
-							}
-							
-							if (context.stopAfterFoundFirstBiclique) {
-								break nabla;
-							}
-						}
-					} else if (hasFoundBiclique && context.stopAfterFoundFirstBiclique) {
-						break nabla;
+					if (filter != null) {
+						nablaDifferential = ((AbstractDifferentialBuilder)differentialBuilder).computeBackwardDifferential(
+							context.fromRound, context.toRound, keyDifferencesIterator, initialKey, context.toRound, filter
+						);
+					} else {
+						nablaDifferential = differentialBuilder.computeBackwardDifferential(
+							context.fromRound, context.toRound, keyDifferencesIterator, initialKey, context.toRound
+						);
 					}
 				}
 				
-				if (thread.isInterrupted()) {
-					break nabla;
+				if (keepsNablaDifferentials) {
+					nablaPrefixes.put(j, nablaDifferential);
+				}
+				
+				if (filter != null) {
+					firstEntry = filter.entry;
 				}
 				
-				numNablaDifferentialsMatched++;
+				if (nablaDifferential != null) {
+					match(nablaDifferential, firstEntry);
+				}
 				
-				if (numNablaDifferentialsMatched % context.logInterval == 0) {
-					logNablaProgressInIteration();
+				if (isStopRequested()) {
+					break;
+				}
+				
+				numMatched = numNablaDifferentialsMatched.incrementAndGet();
+				
+				if (numMatched % context.logInterval == 0) {
+					logNablaProgressInIteration(numMatched);
 				}
 			}
+		}
+		
+		/**
+		 * Matches the given nabla differential with the delta differentials from the given entry on. 
+		 */
+		private void match(Differential nablaDifferential, long firstEntry) {
+			if (deltaSignatureStore != null) {
+				matchWithStore(nablaDifferential, firstEntry);
+			} else if (deltaDifferentialsIndex != null) {
+				matchWithIndex(nablaDifferential, (int)firstEntry);
+			} else {
+				matchWithAll(nablaDifferential, (int)firstEntry);
+			}
+		}
+		
+		/**
+		 * Matches the given nabla differential only with those delta differentials from the given 
+		 * entry on, whose activity signatures are disjoint from its own.
+		 */
+		private void matchWithIndex(Differential nablaDifferential, int firstEntry) {
+			ActivitySignatureIndex index = deltaDifferentialsIndex;
+			ActivitySignatureComparator comparator = (ActivitySignatureComparator)context.comparator;
+			long[] signature = comparator.computeActivitySignature(nablaDifferential);
+			int entry = index.findNextDisjoint(signature, firstEntry);
 			
-			stop();
+			while (entry >= 0) {
+				if (addBiclique(index.getDifferential(entry), nablaDifferential)) {
+					return;
+				}
+				
+				entry = index.findNextDisjoint(signature, entry + 1);
+			}
+		}
+		
+		/**
+		 * Matches the given nabla differential with all delta differentials in the signature store 
+		 * from the given entry on, and recomputes those delta differentials, whose signatures are 
+		 * disjoint from its own.
+		 */
+		private void matchWithStore(Differential nablaDifferential, long firstEntry) {
+			DeltaSignatureStore store = deltaSignatureStore;
+			ActivitySignatureComparator comparator = (ActivitySignatureComparator)context.comparator;
+			long[] signature = comparator.computeActivitySignature(nablaDifferential);
+			long entry = store.findNextDisjoint(signature, firstEntry);
+			Differential deltaDifferential;
+			
+			while (entry >= 0) {
+				deltaDifferential = computeDeltaDifferential(entry);
+				
+				if (addBiclique(deltaDifferential, nablaDifferential) || isStopRequested()) {
+					return;
+				}
+				
+				entry = store.findNextDisjoint(signature, entry + 1);
+			}
 		}
 		
-		public void stop() {
-			if (running) {
-				thread.interrupt();
-				thread = null;
-				running = false;
+		/**
+		 * Matches the given nabla differential with all delta differentials from the given index on.
+		 */
+		private void matchWithAll(Differential nablaDifferential, int firstIndex) {
+			Differential[] deltaDifferentials = deltaDifferentialsArray;
+			Differential deltaDifferential;
+			int numDeltaDifferentials = deltaDifferentials.length;
+			
+			for (int i = firstIndex; i < numDeltaDifferentials; i++) {
+				deltaDifferential = deltaDifferentials[i];
 				
-				synchronized (mutex) {
-					numNablaThreadsRunning--;
+				if (!context.comparator.shareActiveNonLinearOperations(deltaDifferential, nablaDifferential)) {
+					if (addBiclique(deltaDifferential, nablaDifferential)) {
+						return;
+					}
+				} else if (isStopRequested()) {
+					return;
 				}
 			}
 		}
+		
+		/**
+		 * Rates the biclique from the given independent differentials and keeps it for the collector, 
+		 * if its score reaches the current threshold of the collector. Returns <code>true</code> if the 
+		 * search should be stopped.
+		 */
+		private boolean addBiclique(Differential deltaDifferential, Differential nablaDifferential) {
+			Biclique biclique = new Biclique(deltaDifferential, nablaDifferential);
+			biclique.cipherName = context.cipher.getName();
+			biclique.dimension = context.dimension;
+			
+			int score = context.bicliqueRater.determineScoreForBiclique(biclique);
+			
+			if (score >= context.bicliqueCollector.getThreshold()) {
+				foundBicliques.add(biclique);
+				foundScores.add(score);
+				hasFoundBiclique = true;
+			}
 			
+			return context.stopAfterFoundFirstBiclique;
+		}
+		
+		/**
+		 * Passes the bicliques found in the range of this task to the collector. 
+		 */
+		private void collectBicliques() {
+			BicliqueCollector collector = context.bicliqueCollector;
+			int numBicliques = foundBicliques.size();
+			
+			for (int i = 0; i < numBicliques; i++) {
+				collector.add(foundBicliques.get(i), foundScores.get(i));
+			}
+			
+			foundBicliques.clear();
+			foundScores.clear();
+		}
+		
 	}
 	
 }
@@ -558,5 +1018,4 @@ public class BicliqueFinder {
 
 
 
-
 
@@ -1,10 +1,18 @@
 package de.mslab.bicliquesearch;
 
+import java.io.File;
+
+import de.mslab.bicliquesearch.helpers.BicliqueCollector;
 import de.mslab.bicliquesearch.helpers.BicliqueRater;
 import de.mslab.bicliquesearch.helpers.DefaultBicliqueRater;
+import de.mslab.bicliquesearch.helpers.MaxScoreBicliqueCollector;
+import de.mslab.bicliquesearch.helpers.TopBicliqueCollector;
 import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.helpers.ActivitySignatureComparator;
 import de.mslab.ciphers.helpers.DifferentialComparator;
+import de.mslab.ciphers.truncated.TruncatedDifferentialPropagator;
 import de.mslab.diffbuilder.DifferenceBuilder;
+import de.mslab.diffbuilder.DifferentialCache;
 
 /**
  * Stores the context information for the biclique search.
@@ -43,9 +51,10 @@ public class BicliqueFinderContext {
 	 */
 	public int dimension;
 	/**
-	 * The desired number of threads which will be used in the {@link BicliqueFinder}. Required.
+	 * The desired number of worker threads which will be used in the {@link BicliqueFinder}. 
+	 * Defaults to the number of processors available to the JVM.
 	 */
-	public int numThreads = 8;
+	public int numThreads = Runtime.getRuntime().availableProcessors();
 	/**
 	 * If the value of {@link #stopAfterFoundFirstBiclique} is set to true, this instance 
 	 * is used to determine a score for a biclique. To reduce the memory costs, the {@link BicliqueFinder}
@@ -54,6 +63,13 @@ public class BicliqueFinderContext {
 	 * {@link DefaultBicliqueRater} for it after {@link BicliqueFinder#findBicliques()} was invoked.
 	 */
 	public BicliqueRater bicliqueRater;
+	/**
+	 * Collects the bicliques by the scores of the {@link #bicliqueRater}. The default value is null. 
+	 * If the user does not specify an instance, the {@link BicliqueFinder} will create and assign an 
+	 * instance of type {@link MaxScoreBicliqueCollector}, which keeps all bicliques with the maximum 
+	 * score. A {@link TopBicliqueCollector} keeps only a fixed number of the best bicliques instead. 
+	 */
+	public BicliqueCollector bicliqueCollector;
 	/**
 	 * A flag which will stop the search for biciques in the given round range, if one biclique was found.
 	 * <code>True</code> by default.
@@ -66,6 +82,76 @@ public class BicliqueFinderContext {
 	 * testing after each n backward differentials are processed. You can set this n here. 
 	 */
 	public long logInterval = 10000;
+	/**
+	 * If set, the {@link BicliqueFinder} computes each differential by propagating the truncated 
+	 * key difference through the rounds once, instead of encrypting with each of the 2^d key differences. 
+	 * The resulting differentials may contain more active components than the concrete ones. 
+	 * Optional, <code>null</code> by default.
+	 */
+	public TruncatedDifferentialPropagator propagator;
+	/**
+	 * If the delta differentials do not fit into memory and the {@link #comparator} is an 
+	 * {@link ActivitySignatureComparator}, the {@link BicliqueFinder} writes only their activity signatures 
+	 * to a memory-mapped file in this directory, and matches all nabla differentials in a single pass. 
+	 * Optional, the default temporary directory is used if it is <code>null</code>.
+	 */
+	public File deltaStoreDirectory;
+	/**
+	 * If set and the {@link #comparator} is an {@link ActivitySignatureComparator}, the 
+	 * {@link BicliqueFinder} always stores the activity signatures of the delta differentials in a file 
+	 * in the {@link #deltaStoreDirectory}, even if the differentials would fit into memory. 
+	 * <code>False</code> by default.
+	 */
+	public boolean storeDeltaSignaturesOnDisk = false;
+	/**
+	 * If set, the {@link BicliqueFinder} drops each nabla differential as soon as its partially computed 
+	 * differences share active components with all delta differentials. If the {@link #comparator} is an 
+	 * {@link ActivitySignatureComparator}, the differentials are computed round by round, and compared 
+	 * by their activity signatures. Otherwise, or if they are computed on bitsliced or primitive states, 
+	 * the differentials are compared after the first 1, 2, 4, ... keys, so that saturated differentials 
+	 * are dropped early. The found bicliques are the same as if all nabla differentials were computed 
+	 * completely. <code>True</code> by default.
+	 * 
+	 * Delta differentials are always computed completely. Differentials, whose differences have all 
+	 * become fully active, are not detected separately, since this practically never happens for the 
+	 * supported ciphers. 
+	 */
+	public boolean abortNablaDifferentialsEarly = true;
+	/**
+	 * If set, the {@link BicliqueFinder} loads the concrete delta and nabla differentials from this 
+	 * cache instead of computing them, and stores the computed ones in it, so that repeated searches 
+	 * in the same rounds reuse them. Nabla differentials, which are dropped early, are not cached. 
+	 * Optional, <code>null</code> by default.
+	 */
+	public DifferentialCache differentialCache;
+	/**
+	 * If set, the {@link BicliqueFinder} keeps the delta differentials of a search, which starts in the 
+	 * first round, and the nabla differentials of a search, which ends in the last round, if they fit 
+	 * into memory. The differentials of following searches in sub-intervals, which start in the same 
+	 * first or end in the same last round, are derived from the kept ones instead of recomputing them. 
+	 * So, searching the longest interval first saves computations. The kept nabla differentials are 
+	 * always computed completely. <code>False</code> by default.
+	 */
+	public boolean reuseDifferentialPrefixes = false;
+	/**
+	 * If set, the {@link BicliqueFinder} saves the state of a search periodically to a file in this 
+	 * directory: the current iteration, the ranges of nabla differentials, which were matched completely, 
+	 * and the bicliques found so far. The state is also saved after every iteration and at the end 
+	 * of the search. Optional, <code>null</code> by default.
+	 */
+	public File checkpointDirectory;
+	/**
+	 * The minimum time in milliseconds between two checkpoints during an iteration. Defaults to 
+	 * one minute.
+	 */
+	public long checkpointInterval = 60000;
+	/**
+	 * If set, the {@link BicliqueFinder} resumes a search from its checkpoint in the 
+	 * {@link #checkpointDirectory}, if there is one for the same cipher, dimension, rounds and 
+	 * key differences. The search skips completed iterations and nabla differentials, and returns 
+	 * the bicliques of a completed search immediately. <code>False</code> by default.
+	 */
+	public boolean resumeFromCheckpoint = false;
 	
 	/**
 	 * For the {@link BicliqueFinder} only.
@@ -0,0 +1,158 @@
+package de.mslab.bicliquesearch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import de.mslab.errors.InvalidArgumentError;
+import de.mslab.errors.StorageError;
+
+/**
+ * Stores the activity signatures of delta differentials in a temporary file, which is mapped into
+ * memory, for searches whose delta differentials do not fit into the heap. Only the signatures are
+ * stored, since a nabla differential is matched with a delta differential by their signatures alone.
+ * The rare delta differentials, which match, are recomputed from their rank.
+ *
+ * The file contains one entry of {@link #getSignatureLength()} words per rank. Entries can be
+ * written concurrently by multiple threads, as long as each entry is written by one thread only,
+ * and read concurrently after all entries were written.
+ */
+class DeltaSignatureStore {
+	
+	/**
+	 * The maximum number of bytes in a single mapping. Should be a multiple of the page size.
+	 */
+	private static final long MAX_SEGMENT_SIZE = 1L << 30;
+	
+	private File file;
+	private RandomAccessFile randomAccessFile;
+	private LongBuffer[] segments;
+	private long numEntries;
+	private int signatureLength;
+	private int numEntriesPerSegment;
+	
+	/**
+	 * Creates a temporary file in the given directory, or in the default temporary directory if it is
+	 * <code>null</code>, which is large enough for the given number of entries, and maps it into memory.
+	 * @throws StorageError If the file could not be created or mapped.
+	 */
+	public DeltaSignatureStore(File directory, long numEntries, int signatureLength) throws StorageError {
+		this.numEntries = numEntries;
+		this.signatureLength = signatureLength;
+		this.numEntriesPerSegment = (int)(MAX_SEGMENT_SIZE / (signatureLength * 8L));
+		
+		try {
+			file = File.createTempFile("deltas", ".bin", directory);
+			file.deleteOnExit();
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			randomAccessFile.setLength(numEntries * signatureLength * 8L);
+			mapSegments(randomAccessFile.getChannel());
+		} catch (IOException e) {
+			close();
+			throw new StorageError("Could not create a delta signature store in " + directory, e);
+		}
+	}
+	
+	/**
+	 * Closes and deletes the file. The store must not be used afterwards.
+	 */
+	public void close() {
+		segments = null;
+		
+		if (randomAccessFile != null) {
+			try {
+				randomAccessFile.close();
+			} catch (IOException e) {
+				// The file is deleted anyway.
+			}
+			
+			randomAccessFile = null;
+		}
+		
+		if (file != null) {
+			file.delete();
+			file = null;
+		}
+	}
+	
+	/**
+	 * Returns the first entry at or after the given one, whose signature is disjoint from the
+	 * given signature, or <code>-1</code> if there is none.
+	 */
+	public long findNextDisjoint(long[] signature, long entry) {
+		int numWords = Math.min(signature.length, signatureLength);
+		LongBuffer segment;
+		int offset;
+		int i;
+		
+		while (entry < numEntries) {
+			segment = segments[(int)(entry / numEntriesPerSegment)];
+			offset = (int)(entry % numEntriesPerSegment) * signatureLength;
+			
+			for (i = 0; i < numWords; i++) {
+				if ((segment.get(offset + i) & signature[i]) != 0) {
+					break;
+				}
+			}
+			
+			if (i >= numWords) {
+				return entry;
+			}
+			
+			entry++;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of entries.
+	 */
+	public long getNumEntries() {
+		return numEntries;
+	}
+	
+	/**
+	 * Returns the number of words per entry.
+	 */
+	public int getSignatureLength() {
+		return signatureLength;
+	}
+	
+	/**
+	 * Writes the given signature to the given entry. Missing words are filled with zeroes.
+	 * @throws InvalidArgumentError If the signature is longer than {@link #getSignatureLength()}.
+	 */
+	public void put(long entry, long[] signature) throws InvalidArgumentError {
+		if (signature.length > signatureLength) {
+			throw new InvalidArgumentError("Signature length must be at most " + signatureLength + ", but was "
+				+ signature.length);
+		}
+		
+		LongBuffer segment = segments[(int)(entry / numEntriesPerSegment)];
+		int offset = (int)(entry % numEntriesPerSegment) * signatureLength;
+		
+		for (int i = 0; i < signatureLength; i++) {
+			segment.put(offset + i, i < signature.length ? signature[i] : 0L);
+		}
+	}
+	
+	private void mapSegments(FileChannel channel) throws IOException {
+		int numSegments = (int)((numEntries + numEntriesPerSegment - 1) / numEntriesPerSegment);
+		long segmentSize = (long)numEntriesPerSegment * signatureLength * 8L;
+		long position;
+		
+		segments = new LongBuffer[numSegments];
+		
+		for (int i = 0; i < numSegments; i++) {
+			position = i * segmentSize;
+			segments[i] = channel.map(
+				MapMode.READ_WRITE, position, Math.min(segmentSize, numEntries * signatureLength * 8L - position)
+			).asLongBuffer();
+		}
+	}
+	
+}
@@ -0,0 +1,228 @@
+package de.mslab.bicliquesearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.mslab.ciphers.helpers.ActivitySignatureComparator;
+import de.mslab.ciphers.helpers.DifferentialComparator;
+import de.mslab.core.Difference;
+import de.mslab.core.Differential;
+
+/**
+ * Partitions delta differentials into classes of differentials, which behave identically in the
+ * join with nabla differentials, and keeps only one representative differential per class. For
+ * every class, it stores the ranks of all key differences, which led to a differential of the class,
+ * so that the bicliques of the discarded differentials can still be recomputed and reported.
+ *
+ * If the comparator is an {@link ActivitySignatureComparator}, two differentials are equivalent if
+ * they have the same activity signature, since the comparator decides solely on the signatures.
+ * Otherwise, they are equivalent if they contain the same differences. In both cases, the state
+ * difference after the last round has to be equal, too, because the 
+ * {@link de.mslab.bicliquesearch.helpers.DefaultBicliqueRater} determines the data complexity 
+ * of a biclique from it.
+ */
+class DifferentialEquivalenceClasses {
+	
+	private ActivitySignatureComparator comparator;
+	private Map<ClassKey, EquivalenceClass> classes = new HashMap<ClassKey, EquivalenceClass>();
+	private Map<Differential, EquivalenceClass> classesByRepresentative =
+		new IdentityHashMap<Differential, EquivalenceClass>();
+	private long numDifferentials = 0;
+	
+	/**
+	 * Creates an empty partition. The given comparator is used to compute activity signatures,
+	 * if it is an {@link ActivitySignatureComparator}.
+	 */
+	public DifferentialEquivalenceClasses(DifferentialComparator comparator) {
+		if (comparator instanceof ActivitySignatureComparator) {
+			this.comparator = (ActivitySignatureComparator)comparator;
+		}
+	}
+	
+	/**
+	 * Adds the given differentials, where the i-th differential was computed from the key
+	 * differences with the rank <code>firstRank + i</code>. Can be called by multiple threads.
+	 */
+	public void addAll(long firstRank, List<Differential> differentials) {
+		int numDifferentials = differentials.size();
+		ClassKey[] keys = new ClassKey[numDifferentials];
+		
+		for (int i = 0; i < numDifferentials; i++) {
+			keys[i] = createKey(differentials.get(i));
+		}
+		
+		synchronized (this) {
+			EquivalenceClass equivalenceClass;
+			
+			for (int i = 0; i < numDifferentials; i++) {
+				equivalenceClass = classes.get(keys[i]);
+				
+				if (equivalenceClass == null) {
+					equivalenceClass = new EquivalenceClass();
+					classes.put(keys[i], equivalenceClass);
+				}
+				
+				equivalenceClass.add(firstRank + i, differentials.get(i));
+			}
+			
+			this.numDifferentials += numDifferentials;
+		}
+	}
+	
+	/**
+	 * Removes all classes.
+	 */
+	public synchronized void clear() {
+		classes.clear();
+		classesByRepresentative.clear();
+		numDifferentials = 0;
+	}
+	
+	/**
+	 * Returns the number of differentials added so far, including the discarded ones.
+	 */
+	public synchronized long getNumDifferentials() {
+		return numDifferentials;
+	}
+	
+	/**
+	 * Returns the ranks of the key differences of all differentials in the class of the given
+	 * representative in ascending order, or <code>null</code> if the given differential is not
+	 * a representative. Call {@link #getRepresentatives()} before.
+	 */
+	public synchronized long[] getRanks(Differential representative) {
+		EquivalenceClass equivalenceClass = classesByRepresentative.get(representative);
+		
+		if (equivalenceClass == null) {
+			return null;
+		} else {
+			return equivalenceClass.getSortedRanks();
+		}
+	}
+	
+	/**
+	 * Returns one differential per class, which is the one with the lowest rank, ordered
+	 * ascending by those ranks.
+	 */
+	public synchronized Differential[] getRepresentatives() {
+		List<EquivalenceClass> sortedClasses = new ArrayList<EquivalenceClass>(classes.values());
+		Collections.sort(sortedClasses, new Comparator<EquivalenceClass>() {
+			public int compare(EquivalenceClass first, EquivalenceClass second) {
+				return first.firstRank < second.firstRank ? -1 : (first.firstRank == second.firstRank ? 0 : 1);
+			}
+		});
+		
+		int numClasses = sortedClasses.size();
+		Differential[] representatives = new Differential[numClasses];
+		EquivalenceClass equivalenceClass;
+		classesByRepresentative.clear();
+		
+		for (int i = 0; i < numClasses; i++) {
+			equivalenceClass = sortedClasses.get(i);
+			representatives[i] = equivalenceClass.representative;
+			classesByRepresentative.put(equivalenceClass.representative, equivalenceClass);
+		}
+		
+		return representatives;
+	}
+	
+	private ClassKey createKey(Differential differential) {
+		Difference outputDifference = differential.getStateDifference(differential.toRound);
+		
+		if (comparator != null) {
+			return new ClassKey(comparator.computeActivitySignature(differential), null, outputDifference);
+		} else {
+			return new ClassKey(null, differential, outputDifference);
+		}
+	}
+	
+	/**
+	 * The property by which differentials are partitioned. Either the signature or the differential
+	 * is set.
+	 */
+	private static class ClassKey {
+		
+		private final long[] signature;
+		private final Differential differential;
+		private final Difference outputDifference;
+		private final int hashCode;
+		
+		public ClassKey(long[] signature, Differential differential, Difference outputDifference) {
+			this.signature = signature;
+			this.differential = differential;
+			this.outputDifference = outputDifference;
+			
+			int hashCode = (outputDifference == null) ? 0 : outputDifference.hashCode();
+			
+			if (signature != null) {
+				hashCode = 31 * hashCode + Arrays.hashCode(signature);
+			} else {
+				hashCode = 31 * hashCode + differential.hashCode();
+			}
+			
+			this.hashCode = hashCode;
+		}
+		
+		public boolean equals(Object object) {
+			if (!(object instanceof ClassKey)) {
+				return false;
+			}
+			
+			ClassKey other = (ClassKey)object;
+			
+			if (hashCode != other.hashCode) {
+				return false;
+			} else if (outputDifference == null ? other.outputDifference != null : !outputDifference.equals(other.outputDifference)) {
+				return false;
+			} else if (signature != null) {
+				return Arrays.equals(signature, other.signature);
+			} else {
+				return differential.hasSameDifferences(other.differential);
+			}
+		}
+		
+		public int hashCode() {
+			return hashCode;
+		}
+		
+	}
+	
+	/**
+	 * A class of equivalent differentials. Stores only the differential with the lowest rank, and the
+	 * ranks of all others in a growing array.
+	 */
+	private static class EquivalenceClass {
+		
+		private Differential representative;
+		private long firstRank = Long.MAX_VALUE;
+		private long[] ranks = new long[1];
+		private int numRanks = 0;
+		
+		public void add(long rank, Differential differential) {
+			if (numRanks == ranks.length) {
+				ranks = Arrays.copyOf(ranks, 2 * numRanks);
+			}
+			
+			ranks[numRanks++] = rank;
+			
+			if (rank < firstRank) {
+				firstRank = rank;
+				representative = differential;
+			}
+		}
+		
+		public long[] getSortedRanks() {
+			long[] result = Arrays.copyOf(ranks, numRanks);
+			Arrays.sort(result);
+			return result;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,93 @@
+package de.mslab.bicliquesearch;
+
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.Differential;
+import de.mslab.diffbuilder.DifferenceBuilder;
+
+/**
+ * Keeps the delta or nabla differentials of a search for all ranks, so that the differentials of a
+ * later search in a sub-interval can be derived from them by {@link Differential#restrict(int, int)}
+ * instead of recomputing them. This is possible if the key difference is injected in the same round,
+ * and the sub-interval shares the round of the key difference with the kept interval: delta
+ * differentials, which start in the same round, and nabla differentials, which end in the same round.
+ *
+ * Entries are written by multiple threads, each entry by one thread only, and read after all
+ * entries were written.
+ */
+class DifferentialPrefixStore {
+	
+	private RoundBasedBlockCipher cipher;
+	private DifferenceBuilder differenceBuilder;
+	private Differential[] differentials;
+	private int dimension;
+	private int fromRound;
+	private boolean isBackward;
+	private int toRound;
+	
+	/**
+	 * Creates an empty store for the differentials of all ranks in the rounds of the given context. 
+	 * Backward differentials have their key difference in the last round, forward differentials in 
+	 * the first.
+	 */
+	public DifferentialPrefixStore(BicliqueFinderContext context, boolean isBackward) {
+		this.cipher = context.cipher;
+		this.differenceBuilder = context.differenceBuilder;
+		this.dimension = context.dimension;
+		this.fromRound = context.fromRound;
+		this.toRound = context.toRound;
+		this.isBackward = isBackward;
+		this.differentials = new Differential[(int)context.numDifferentialsToTest];
+	}
+	
+	/**
+	 * Returns <code>true</code> if the differentials in the rounds of the given context can be derived 
+	 * from the kept ones.
+	 */
+	public boolean covers(BicliqueFinderContext context) {
+		int fromRound = context.fromRound;
+		int toRound = context.toRound;
+		
+		if (context.cipher != cipher || context.differenceBuilder != differenceBuilder 
+			|| context.dimension != dimension || context.numDifferentialsToTest != differentials.length 
+			|| fromRound > toRound) {
+			return false;
+		}
+		
+		if (isBackward) {
+			return toRound == this.toRound && fromRound >= this.fromRound;
+		} else {
+			return fromRound == this.fromRound && toRound <= this.toRound;
+		}
+	}
+	
+	/**
+	 * Returns the differential for the given rank restricted to the given rounds, or <code>null</code>
+	 * if no differential was kept for the rank.
+	 */
+	public Differential get(long rank, int fromRound, int toRound) {
+		Differential differential = differentials[(int)rank];
+		
+		if (differential == null) {
+			return null;
+		}
+		
+		return differential.restrict(fromRound, toRound);
+	}
+	
+	public int getFromRound() {
+		return fromRound;
+	}
+	
+	public int getToRound() {
+		return toRound;
+	}
+	
+	public boolean isBackward() {
+		return isBackward;
+	}
+	
+	public void put(long rank, Differential differential) {
+		differentials[(int)rank] = differential;
+	}
+	
+}
@@ -0,0 +1,125 @@
+package de.mslab.bicliquesearch;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of ranks of key differences, which is stored as disjoint ranges [start, end). Adjacent
+ * ranges are merged, so that the ranges of the chunks, which are completed in nearly ascending
+ * order during a search, are kept in only a few entries.
+ *
+ * The set can be used concurrently by multiple threads.
+ */
+class RankRanges {
+	
+	/**
+	 * The exclusive end of every range by its start.
+	 */
+	private TreeMap<Long, Long> ranges = new TreeMap<Long, Long>();
+	private long numRanks = 0;
+	
+	public RankRanges() {
+		
+	}
+	
+	/**
+	 * Adds the ranks from the given start rank inclusive to the given end rank exclusive.
+	 */
+	public synchronized void add(long start, long end) {
+		if (start >= end) {
+			return;
+		}
+		
+		Map.Entry<Long, Long> entry = ranges.floorEntry(start);
+		
+		if (entry != null && entry.getValue() >= start) {
+			start = entry.getKey();
+			end = Math.max(end, entry.getValue());
+			remove(entry.getKey());
+		}
+		
+		entry = ranges.ceilingEntry(start);
+		
+		while (entry != null && entry.getKey() <= end) {
+			end = Math.max(end, entry.getValue());
+			remove(entry.getKey());
+			entry = ranges.ceilingEntry(start);
+		}
+		
+		ranges.put(start, end);
+		numRanks += end - start;
+	}
+	
+	/**
+	 * Returns a copy of this set.
+	 */
+	public synchronized RankRanges copy() {
+		RankRanges copy = new RankRanges();
+		copy.ranges.putAll(ranges);
+		copy.numRanks = numRanks;
+		return copy;
+	}
+	
+	/**
+	 * Returns the starts and exclusive ends of all ranges in ascending order, alternately.
+	 */
+	public synchronized long[] getBounds() {
+		long[] bounds = new long[2 * ranges.size()];
+		int index = 0;
+		
+		for (Map.Entry<Long, Long> entry : ranges.entrySet()) {
+			bounds[index++] = entry.getKey();
+			bounds[index++] = entry.getValue();
+		}
+		
+		return bounds;
+	}
+	
+	/**
+	 * Returns the number of ranks in this set.
+	 */
+	public synchronized long getNumRanks() {
+		return numRanks;
+	}
+	
+	/**
+	 * Returns the number of disjoint ranges in this set.
+	 */
+	public synchronized int getNumRanges() {
+		return ranges.size();
+	}
+	
+	/**
+	 * Returns the first rank from the given one on, which is in this set, or {@link Long#MAX_VALUE}
+	 * if there is none.
+	 */
+	public synchronized long nextContained(long rank) {
+		Map.Entry<Long, Long> entry = ranges.floorEntry(rank);
+		
+		if (entry != null && entry.getValue() > rank) {
+			return rank;
+		}
+		
+		Long start = ranges.higherKey(rank);
+		return (start == null) ? Long.MAX_VALUE : start;
+	}
+	
+	/**
+	 * Returns the first rank from the given one on, which is not in this set.
+	 */
+	public synchronized long nextNotContained(long rank) {
+		Map.Entry<Long, Long> entry = ranges.floorEntry(rank);
+		
+		if (entry != null && entry.getValue() > rank) {
+			return entry.getValue();
+		}
+		
+		return rank;
+	}
+	
+	private void remove(long start) {
+		long end = ranges.remove(start);
+		numRanks -= end - start;
+	}
+	
+}
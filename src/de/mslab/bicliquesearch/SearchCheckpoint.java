@@ -0,0 +1,243 @@
+package de.mslab.bicliquesearch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mslab.bicliquesearch.helpers.TopBicliqueCollector;
+import de.mslab.core.Biclique;
+import de.mslab.errors.StorageError;
+import de.mslab.utils.ChecksummedFileFormat;
+
+/**
+ * The state of a biclique search in one round interval, from which an interrupted search can be
+ * resumed: the parameters, which determine the ranks of the key differences and their partition
+ * into iterations, the settings, which determine the found bicliques, the current iteration, the ranges of nabla ranks, which were completely matched
+ * in it, and the bicliques found so far.
+ *
+ * A checkpoint is stored in a file of its own per cipher, dimension and round interval, in the
+ * {@link ChecksummedFileFormat}. So, an interruption while writing keeps the previous checkpoint,
+ * and files, which are truncated or corrupted, are ignored.
+ */
+class SearchCheckpoint {
+	
+	private static final int MAGIC = 0x4A424350;
+	private static final int VERSION = 2;
+	private static final String FILE_SUFFIX = ".checkpoint";
+	private static final ChecksummedFileFormat FORMAT = new ChecksummedFileFormat(MAGIC, VERSION, true);
+	
+	public String cipherName;
+	public int dimension;
+	public int fromRound;
+	public int toRound;
+	public String differenceBuilderName;
+	public boolean isTruncated;
+	public String comparatorName;
+	public String bicliqueRaterName;
+	public String bicliqueCollectorName;
+	/**
+	 * The number of bicliques, which a {@link TopBicliqueCollector} keeps, or 0 for other collectors.
+	 */
+	public int numBicliquesToKeep;
+	public boolean stopAfterFoundFirstBiclique;
+	public long numDifferentialsToTest;
+	public long numDifferentialsPerIteration;
+	public long numIterations;
+	
+	/**
+	 * The index of the iteration, which is not completed yet.
+	 */
+	public long iterationIndex;
+	/**
+	 * <code>True</code> if the search is completed, and the bicliques are its result.
+	 */
+	public boolean isComplete;
+	/**
+	 * The ranks of the nabla differentials, which were matched with all delta differentials of
+	 * the current iteration.
+	 */
+	public RankRanges completedNablaRanks = new RankRanges();
+	public List<Biclique> bicliques = new ArrayList<Biclique>();
+	
+	public SearchCheckpoint() {
+		
+	}
+	
+	/**
+	 * Creates a checkpoint with the parameters of the search in the given context.
+	 */
+	public SearchCheckpoint(BicliqueFinderContext context) {
+		cipherName = context.cipher.getName();
+		dimension = context.dimension;
+		fromRound = context.fromRound;
+		toRound = context.toRound;
+		differenceBuilderName = context.differenceBuilder.getClass().getName();
+		isTruncated = context.propagator != null;
+		comparatorName = context.comparator.getClass().getName();
+		bicliqueRaterName = context.bicliqueRater.getClass().getName();
+		bicliqueCollectorName = context.bicliqueCollector.getClass().getName();
+		numBicliquesToKeep = getNumBicliquesToKeep(context);
+		stopAfterFoundFirstBiclique = context.stopAfterFoundFirstBiclique;
+		numDifferentialsToTest = context.numDifferentialsToTest;
+		numDifferentialsPerIteration = context.numDifferentialsPerIteration;
+		numIterations = context.numIterations;
+	}
+	
+	/**
+	 * Returns the file of the checkpoint for the search in the given context.
+	 */
+	public static File getFile(File directory, BicliqueFinderContext context) {
+		String cipherName = context.cipher.getName().replaceAll("[^A-Za-z0-9]", "");
+		return new File(directory,
+			cipherName + "_" + context.dimension + "_" + context.fromRound + "_" + context.toRound + FILE_SUFFIX
+		);
+	}
+	
+	/**
+	 * Returns <code>true</code> if this checkpoint was created for a search with the same
+	 * key differences, and the same settings to compare, rate and collect the bicliques, as the
+	 * search in the given context.
+	 */
+	public boolean matches(BicliqueFinderContext context) {
+		return cipherName.equals(context.cipher.getName())
+			&& dimension == context.dimension
+			&& fromRound == context.fromRound
+			&& toRound == context.toRound
+			&& differenceBuilderName.equals(context.differenceBuilder.getClass().getName())
+			&& isTruncated == (context.propagator != null)
+			&& comparatorName.equals(context.comparator.getClass().getName())
+			&& bicliqueRaterName.equals(context.bicliqueRater.getClass().getName())
+			&& bicliqueCollectorName.equals(context.bicliqueCollector.getClass().getName())
+			&& numBicliquesToKeep == getNumBicliquesToKeep(context)
+			&& stopAfterFoundFirstBiclique == context.stopAfterFoundFirstBiclique
+			&& numDifferentialsToTest == context.numDifferentialsToTest;
+	}
+	
+	private static int getNumBicliquesToKeep(BicliqueFinderContext context) {
+		if (context.bicliqueCollector instanceof TopBicliqueCollector) {
+			return ((TopBicliqueCollector)context.bicliqueCollector).getNumBicliques();
+		} else {
+			return 0;
+		}
+	}
+	
+	/**
+	 * Reads the checkpoint from the given file, or returns <code>null</code> if the file does not
+	 * exist, or is not a valid checkpoint.
+	 */
+	public static SearchCheckpoint read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		
+		try {
+			byte[] payload = FORMAT.read(file);
+			return payload == null ? null : deserialize(payload);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes this checkpoint to the given file, and replaces the previous checkpoint in it.
+	 * @throws StorageError If the checkpoint could not be written.
+	 */
+	public void write(File file) throws StorageError {
+		try {
+			FORMAT.write(file, serialize());
+		} catch (IOException e) {
+			throw new StorageError("Could not write the checkpoint " + file, e);
+		}
+	}
+	
+	private static SearchCheckpoint deserialize(byte[] payload) throws IOException {
+		ObjectInputStream input = ChecksummedFileFormat.createInflatedInput(payload);
+		SearchCheckpoint checkpoint = new SearchCheckpoint();
+		
+		try {
+			checkpoint.cipherName = input.readUTF();
+			checkpoint.dimension = input.readInt();
+			checkpoint.fromRound = input.readInt();
+			checkpoint.toRound = input.readInt();
+			checkpoint.differenceBuilderName = input.readUTF();
+			checkpoint.isTruncated = input.readBoolean();
+			checkpoint.comparatorName = input.readUTF();
+			checkpoint.bicliqueRaterName = input.readUTF();
+			checkpoint.bicliqueCollectorName = input.readUTF();
+			checkpoint.numBicliquesToKeep = input.readInt();
+			checkpoint.stopAfterFoundFirstBiclique = input.readBoolean();
+			checkpoint.numDifferentialsToTest = input.readLong();
+			checkpoint.numDifferentialsPerIteration = input.readLong();
+			checkpoint.numIterations = input.readLong();
+			checkpoint.iterationIndex = input.readLong();
+			checkpoint.isComplete = input.readBoolean();
+			
+			int numRanges = input.readInt();
+			
+			for (int i = 0; i < numRanges; i++) {
+				checkpoint.completedNablaRanks.add(input.readLong(), input.readLong());
+			}
+			
+			int numBicliques = input.readInt();
+			Biclique biclique;
+			
+			for (int i = 0; i < numBicliques; i++) {
+				biclique = new Biclique();
+				biclique.readExternal(input);
+				checkpoint.bicliques.add(biclique);
+			}
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} finally {
+			input.close();
+		}
+		
+		return checkpoint;
+	}
+	
+	private byte[] serialize() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = ChecksummedFileFormat.createDeflatedOutput(bytes);
+		
+		try {
+			output.writeUTF(cipherName);
+			output.writeInt(dimension);
+			output.writeInt(fromRound);
+			output.writeInt(toRound);
+			output.writeUTF(differenceBuilderName);
+			output.writeBoolean(isTruncated);
+			output.writeUTF(comparatorName);
+			output.writeUTF(bicliqueRaterName);
+			output.writeUTF(bicliqueCollectorName);
+			output.writeInt(numBicliquesToKeep);
+			output.writeBoolean(stopAfterFoundFirstBiclique);
+			output.writeLong(numDifferentialsToTest);
+			output.writeLong(numDifferentialsPerIteration);
+			output.writeLong(numIterations);
+			output.writeLong(iterationIndex);
+			output.writeBoolean(isComplete);
+			
+			long[] bounds = completedNablaRanks.getBounds();
+			output.writeInt(bounds.length / 2);
+			
+			for (long bound : bounds) {
+				output.writeLong(bound);
+			}
+			
+			output.writeInt(bicliques.size());
+			
+			for (Biclique biclique : bicliques) {
+				biclique.writeExternal(output);
+			}
+		} finally {
+			output.close();
+		}
+		
+		return bytes.toByteArray();
+	}
+	
+}
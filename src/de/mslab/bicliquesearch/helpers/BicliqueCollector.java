@@ -0,0 +1,36 @@
+package de.mslab.bicliquesearch.helpers;
+
+import java.util.List;
+
+import de.mslab.core.Biclique;
+
+/**
+ * Collects the best bicliques of a search by the scores of a {@link BicliqueRater}. 
+ * Bicliques are added concurrently by multiple threads. 
+ */
+public interface BicliqueCollector {
+	
+	/**
+	 * Adds the given biclique with the given score, if its score is high enough. 
+	 * Can be called concurrently.
+	 */
+	void add(Biclique biclique, int score);
+	
+	/**
+	 * Removes all bicliques and resets the threshold. 
+	 */
+	void clear();
+	
+	/**
+	 * Returns a copy of the kept bicliques, ordered by descending scores. 
+	 */
+	List<Biclique> getBicliques();
+	
+	/**
+	 * Returns the minimum score, which a biclique must reach in order to be kept. The threshold 
+	 * only increases until the collector is cleared. Can be read concurrently without locking, 
+	 * so that threads can drop bicliques with lower scores before adding them. 
+	 */
+	int getThreshold();
+	
+}
@@ -0,0 +1,40 @@
+package de.mslab.bicliquesearch.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mslab.core.Biclique;
+
+/**
+ * Keeps all bicliques with the maximum score found so far. 
+ */
+public class MaxScoreBicliqueCollector implements BicliqueCollector {
+	
+	private List<Biclique> bicliques = new ArrayList<Biclique>();
+	private volatile int maxScore = Integer.MIN_VALUE;
+	
+	public synchronized void add(Biclique biclique, int score) {
+		if (score > maxScore) {
+			bicliques.clear();
+			maxScore = score;
+		}
+		
+		if (score == maxScore) {
+			bicliques.add(biclique);
+		}
+	}
+	
+	public synchronized void clear() {
+		bicliques.clear();
+		maxScore = Integer.MIN_VALUE;
+	}
+	
+	public synchronized List<Biclique> getBicliques() {
+		return new ArrayList<Biclique>(bicliques);
+	}
+	
+	public int getThreshold() {
+		return maxScore;
+	}
+	
+}
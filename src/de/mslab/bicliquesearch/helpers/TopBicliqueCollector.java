@@ -0,0 +1,125 @@
+package de.mslab.bicliquesearch.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.mslab.core.Biclique;
+import de.mslab.errors.InvalidArgumentError;
+
+/**
+ * Keeps the given number of bicliques with the highest scores. Of bicliques with equal scores, 
+ * the ones, which were added first, are kept. The bicliques are kept in a concurrent skip list, 
+ * so that threads can add bicliques without locking. 
+ */
+public class TopBicliqueCollector implements BicliqueCollector {
+	
+	private ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<Entry>();
+	private AtomicInteger numEntries = new AtomicInteger();
+	private AtomicLong numAdded = new AtomicLong();
+	private int numBicliques;
+	private AtomicInteger threshold = new AtomicInteger(Integer.MIN_VALUE);
+	
+	/**
+	 * @param numBicliques The number of bicliques to keep.
+	 * @throws InvalidArgumentError If the number is less than one.
+	 */
+	public TopBicliqueCollector(int numBicliques) throws InvalidArgumentError {
+		if (numBicliques < 1) {
+			throw new InvalidArgumentError("The number of bicliques to keep must be at least 1, but was " + numBicliques);
+		}
+		
+		this.numBicliques = numBicliques;
+	}
+	
+	public void add(Biclique biclique, int score) {
+		if (score < threshold.get()) {
+			return;
+		}
+		
+		entries.add(new Entry(biclique, score, numAdded.getAndIncrement()));
+		
+		if (numEntries.incrementAndGet() > numBicliques) {
+			entries.pollLast();
+			numEntries.decrementAndGet();
+			raiseThreshold();
+		}
+	}
+	
+	public void clear() {
+		entries.clear();
+		numEntries.set(0);
+		numAdded.set(0);
+		threshold.set(Integer.MIN_VALUE);
+	}
+	
+	public List<Biclique> getBicliques() {
+		List<Biclique> bicliques = new ArrayList<Biclique>(numBicliques);
+		
+		for (Entry entry : entries) {
+			bicliques.add(entry.biclique);
+		}
+		
+		return bicliques;
+	}
+	
+	public int getNumBicliques() {
+		return numBicliques;
+	}
+	
+	/**
+	 * Returns the lowest score of the kept bicliques plus one, if the collector is full, since later 
+	 * bicliques with the same score would not be kept. 
+	 */
+	public int getThreshold() {
+		return threshold.get();
+	}
+	
+	private void raiseThreshold() {
+		int lowestScore;
+		int current;
+		
+		try {
+			lowestScore = entries.last().score;
+		} catch (NoSuchElementException e) {
+			return;
+		}
+		
+		do {
+			current = threshold.get();
+			
+			if (lowestScore + 1 <= current) {
+				return;
+			}
+		} while (!threshold.compareAndSet(current, lowestScore + 1));
+	}
+	
+	/**
+	 * A biclique with its score, ordered by descending scores, and ascending order of addition. 
+	 */
+	private static class Entry implements Comparable<Entry> {
+		
+		private final Biclique biclique;
+		private final long index;
+		private final int score;
+		
+		public Entry(Biclique biclique, int score, long index) {
+			this.biclique = biclique;
+			this.score = score;
+			this.index = index;
+		}
+		
+		public int compareTo(Entry other) {
+			if (score != other.score) {
+				return score > other.score ? -1 : 1;
+			}
+			
+			return index < other.index ? -1 : (index == other.index ? 0 : 1);
+		}
+		
+	}
+	
+}
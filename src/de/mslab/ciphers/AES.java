@@ -7,11 +7,12 @@ import de.mslab.errors.InvalidKeySizeError;
  * Abstract base class for the AES, as designed 1998 as Rijndael by Daemen and Rijmen.  
  * 
  */
-abstract public class AES extends AbstractRoundBasedBlockCipher {
+abstract public class AES extends AbstractRoundBasedBlockCipher implements InPlaceRoundBasedBlockCipher {
 	
 	public static final int NUM_COLUMNS_IN_STATE = 4;
 	public static final int NUM_ROWS_IN_STATE = 4;
 	public static final int NUM_BYTES_IN_STATE = NUM_COLUMNS_IN_STATE * NUM_ROWS_IN_STATE;
+	public static final int NUM_WORDS_IN_STATE = NUM_BYTES_IN_STATE / (Long.SIZE / Byte.SIZE);
 	
 	public static final int[] INVERSE_SBOX = { // inverse s-box
 		0x52, 0x09, 0x6a, 0xd5, 0x30, 0x36, 0xa5, 0x38, 0xbf, 0x40, 0xa3, 0x9e, 0x81, 0xf3, 0xd7, 0xfb, 0x7c, 0xe3, 0x39,
@@ -168,6 +169,18 @@ abstract public class AES extends AbstractRoundBasedBlockCipher {
 		0x4a, 0x58, 0x56, 0x37, 0x39, 0x2b, 0x25, 0x0f, 0x01, 0x13, 0x1d, 0x47, 0x49, 0x5b, 0x55, 0x7f, 0x71, 0x63, 0x6d,
 		0xd7, 0xd9, 0xcb, 0xc5, 0xef, 0xe1, 0xf3, 0xfd, 0xa7, 0xa9, 0xbb, 0xb5, 0x9f, 0x91, 0x83, 0x8d
 	};
+	/**
+	 * T-tables, which combine SubBytes and MixColumns. Entry x of table r is the MixColumns of a column, 
+	 * whose only non-zero row r is SBOX[x], where the first row forms the most significant byte.
+	 */
+	private static final int[][] T_TABLES = createTables(SBOX, new int[][]{ X_TIMES_2, null, null, X_TIMES_3 });
+	/**
+	 * Tables for the inverse MixColumns. Entry x of table r is the inverse MixColumns of a column, 
+	 * whose only non-zero row r is x.
+	 */
+	private static final int[][] INVERSE_MIX_COLUMN_TABLES = createTables(
+		null, new int[][]{ X_TIMES_E, X_TIMES_9, X_TIMES_D, X_TIMES_B }
+	);
 	
 	public AES() {
 		super();
@@ -230,6 +243,47 @@ abstract public class AES extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long first = state[0];
+		long second = state[1];
+		int column0, column1, column2, column3;
+		
+		for (int round = toRound; round >= fromRound; round--) {
+			first ^= secretKey.getWord(NUM_WORDS_IN_STATE * round);
+			second ^= secretKey.getWord(NUM_WORDS_IN_STATE * round + 1);
+			
+			column0 = (int)(first >>> Integer.SIZE);
+			column1 = (int)first;
+			column2 = (int)(second >>> Integer.SIZE);
+			column3 = (int)second;
+			
+			if (round < numRounds) {
+				column0 = lookUpColumn(INVERSE_MIX_COLUMN_TABLES, column0, column0, column0, column0);
+				column1 = lookUpColumn(INVERSE_MIX_COLUMN_TABLES, column1, column1, column1, column1);
+				column2 = lookUpColumn(INVERSE_MIX_COLUMN_TABLES, column2, column2, column2, column2);
+				column3 = lookUpColumn(INVERSE_MIX_COLUMN_TABLES, column3, column3, column3, column3);
+			}
+			
+			// Row r of column c is taken from column c - r
+			first = joinColumns(
+				substituteColumn(INVERSE_SBOX, column0, column3, column2, column1), 
+				substituteColumn(INVERSE_SBOX, column1, column0, column3, column2)
+			);
+			second = joinColumns(
+				substituteColumn(INVERSE_SBOX, column2, column1, column0, column3), 
+				substituteColumn(INVERSE_SBOX, column3, column2, column1, column0)
+			);
+		}
+		
+		if (fromRound == 1) {
+			first ^= secretKey.getWord(0);
+			second ^= secretKey.getWord(1);
+		}
+		
+		state[0] = first;
+		state[1] = second;
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		state = block.clone();
 		
@@ -251,6 +305,44 @@ abstract public class AES extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long first = state[0];
+		long second = state[1];
+		int column0, column1, column2, column3;
+		int newColumn0, newColumn1, newColumn2, newColumn3;
+		
+		if (fromRound == 1) {
+			first ^= secretKey.getWord(0);
+			second ^= secretKey.getWord(1);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			column0 = (int)(first >>> Integer.SIZE);
+			column1 = (int)first;
+			column2 = (int)(second >>> Integer.SIZE);
+			column3 = (int)second;
+			
+			// Row r of column c is taken from column c + r
+			if (round < numRounds) {
+				newColumn0 = lookUpColumn(T_TABLES, column0, column1, column2, column3);
+				newColumn1 = lookUpColumn(T_TABLES, column1, column2, column3, column0);
+				newColumn2 = lookUpColumn(T_TABLES, column2, column3, column0, column1);
+				newColumn3 = lookUpColumn(T_TABLES, column3, column0, column1, column2);
+			} else {
+				newColumn0 = substituteColumn(SBOX, column0, column1, column2, column3);
+				newColumn1 = substituteColumn(SBOX, column1, column2, column3, column0);
+				newColumn2 = substituteColumn(SBOX, column2, column3, column0, column1);
+				newColumn3 = substituteColumn(SBOX, column3, column0, column1, column2);
+			}
+			
+			first = joinColumns(newColumn0, newColumn1) ^ secretKey.getWord(NUM_WORDS_IN_STATE * round);
+			second = joinColumns(newColumn2, newColumn3) ^ secretKey.getWord(NUM_WORDS_IN_STATE * round + 1);
+		}
+		
+		state[0] = first;
+		state[1] = second;
+	}
+	
 	public ByteArray expandKey(ByteArray key) {
 		final int expectedKeySize = (numRounds + 1) * stateSize;
 		secretKey = new ByteArray(expectedKeySize);
@@ -283,6 +375,10 @@ abstract public class AES extends AbstractRoundBasedBlockCipher {
 		return round * NUM_ROWS_IN_STATE;
 	}
 	
+	public int getNumStateWords() {
+		return NUM_WORDS_IN_STATE;
+	}
+	
 	public boolean injectsKeyAtRoundEnd(int round) {
 		return true;
 	}
@@ -435,4 +531,56 @@ abstract public class AES extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	/**
+	 * Creates four tables, where entry x of table r is the column, whose row i is 
+	 * <code>multiplications[(i - r) mod 4][sbox[x]]</code>, or <code>sbox[x]</code> if that multiplication 
+	 * table is <code>null</code>. The S-box is omitted if it is <code>null</code>.
+	 */
+	private static int[][] createTables(int[] sbox, int[][] multiplications) {
+		int[][] tables = new int[NUM_ROWS_IN_STATE][256];
+		int[] multiplication;
+		int value, column;
+		
+		for (int x = 0; x < 256; x++) {
+			value = (sbox == null) ? x : sbox[x];
+			column = 0;
+			
+			for (int row = 0; row < NUM_ROWS_IN_STATE; row++) {
+				multiplication = multiplications[row];
+				column = (column << 8) | (multiplication == null ? value : multiplication[value]);
+			}
+			
+			for (int row = 0; row < NUM_ROWS_IN_STATE; row++) {
+				tables[row][x] = Integer.rotateRight(column, 8 * row);
+			}
+		}
+		
+		return tables;
+	}
+	
+	private static long joinColumns(int first, int second) {
+		return ((long)first << Integer.SIZE) | (second & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Returns the XOR of the entries of the given tables, where the entry of table r is looked up with 
+	 * row r of the r-th given column. 
+	 */
+	private static int lookUpColumn(int[][] tables, int column0, int column1, int column2, int column3) {
+		return tables[0][column0 >>> 24]
+			^ tables[1][(column1 >>> 16) & 0xFF]
+			^ tables[2][(column2 >>> 8) & 0xFF]
+			^ tables[3][column3 & 0xFF];
+	}
+	
+	/**
+	 * Returns a column, whose row r is the substituted row r of the r-th given column. 
+	 */
+	private static int substituteColumn(int[] sbox, int column0, int column1, int column2, int column3) {
+		return (sbox[column0 >>> 24] << 24)
+			| (sbox[(column1 >>> 16) & 0xFF] << 16)
+			| (sbox[(column2 >>> 8) & 0xFF] << 8)
+			| sbox[column3 & 0xFF];
+	}
+	
 }
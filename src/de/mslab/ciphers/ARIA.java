@@ -91,7 +91,7 @@ public class ARIA extends AbstractRoundBasedBlockCipher {
 		0x90, 0x0b, 0x5b, 0x33, 0x7d, 0x5a, 0x52, 0xf3, 0x61, 0xa1, 0xf7, 0xb0, 0xd6, 0x3f, 0x7c, 0x6d, 
 		0xed, 0x14, 0xe0, 0xa5, 0x3d, 0x22, 0xb3, 0xf8, 0x89, 0xde, 0x71, 0x1a, 0xaf, 0xba, 0xb5, 0x81
 	};
-	protected static final short[][] DIFFUSE_MAPPINGS = {
+	public static final short[][] DIFFUSE_MAPPINGS = {
 		{ 3,  4,  6,  8,  9, 13, 14}, { 2,  5,  7,  8,  9, 12, 15}, 
 		{ 1,  4,  6, 10, 11, 12, 15}, { 0,  5,  7, 10, 11, 13, 14},
 		{ 0,  2,  5,  8, 11, 14, 15}, { 1,  3,  4,  9, 10, 14, 15}, 
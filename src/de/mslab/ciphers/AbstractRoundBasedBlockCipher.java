@@ -6,7 +6,7 @@ import de.mslab.utils.Logger;
 /**
  * Base class for round-based ciphers.
  */
-abstract class AbstractRoundBasedBlockCipher implements RoundBasedBlockCipher {
+abstract class AbstractRoundBasedBlockCipher implements RoundBasedBlockCipher, Cloneable {
 	
 	/**
 	 * The key size in bytes.
@@ -65,6 +65,30 @@ abstract class AbstractRoundBasedBlockCipher implements RoundBasedBlockCipher {
 		return result;
 	}
 	
+	/**
+	 * Clones this instance field by field, and copies the state and the secret key. Subclasses, 
+	 * which modify further fields in place instead of replacing them, have to copy these fields, too. 
+	 */
+	public RoundBasedBlockCipher copy() {
+		AbstractRoundBasedBlockCipher copy;
+		
+		try {
+			copy = (AbstractRoundBasedBlockCipher)clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e.getMessage());
+		}
+		
+		if (state != null) {
+			copy.state = state.clone();
+		}
+		
+		if (secretKey != null) {
+			copy.secretKey = secretKey.clone();
+		}
+		
+		return copy;
+	}
+	
 	public ByteArray decrypt(ByteArray block) {
 		return decryptRounds(block, 1, numRounds);
 	}
@@ -0,0 +1,33 @@
+package de.mslab.ciphers;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Interface for round-based ciphers, which can evaluate a round for up to {@link #NUM_LANES}
+ * differently keyed instances at once on a bitsliced state.
+ *
+ * A bitsliced state contains one slice per bit of the block. Slice i holds bit i of the block,
+ * where bit 0 is the most significant one as in {@link ByteArray#getBit(int)}, and bit j of a
+ * slice belongs to the instance in lane j. Round keys are sliced in the same way:
+ * <code>roundKeys[round]</code> contains one slice per bit of {@link #getRoundKey(int)} of the
+ * instances, and may be <code>null</code> for rounds that are not computed.
+ *
+ * The methods neither allocate memory nor keep a reference to their arguments. For every lane,
+ * they are equivalent to {@link RoundBasedBlockCipher#encryptRound(ByteArray, int)} and
+ * {@link RoundBasedBlockCipher#decryptRound(ByteArray, int)} with the key of that lane, including
+ * the whitening in the last round.
+ */
+public interface BitslicedRoundBasedBlockCipher extends RoundBasedBlockCipher {
+	/**
+	 * The number of instances, which are evaluated at once.
+	 */
+	int NUM_LANES = Long.SIZE;
+	/**
+	 * Decrypts the given bitsliced state in place in the given round with the given sliced round keys.
+	 */
+	void decryptRoundBitsliced(long[] state, long[][] roundKeys, int round);
+	/**
+	 * Encrypts the given bitsliced state in place in the given round with the given sliced round keys.
+	 */
+	void encryptRoundBitsliced(long[] state, long[][] roundKeys, int round);
+}
@@ -0,0 +1,31 @@
+package de.mslab.ciphers;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Interface for round-based ciphers, which can also transform a caller-owned state in place.
+ * The state is an array of {@link #getNumStateWords()} 64-bit words, which hold the bytes of
+ * the block as in {@link ByteArray#getWord(int)}, so that it can be exchanged with a
+ * {@link ByteArray} by {@link ByteArray#readWords(long[])} and {@link ByteArray#writeWords(long[])}.
+ * 
+ * The methods neither allocate memory nor keep a reference to the state, so the caller can reuse
+ * the same array for all rounds and all keys. They are equivalent to
+ * {@link RoundBasedBlockCipher#encryptRounds(ByteArray, int, int)} and
+ * {@link RoundBasedBlockCipher#decryptRounds(ByteArray, int, int)} with the current key.
+ */
+public interface InPlaceRoundBasedBlockCipher extends RoundBasedBlockCipher {
+	/**
+	 * Decrypts the given state in place over the rounds from <code>toRound</code> to including
+	 * <code>fromRound</code> with the current key.
+	 */
+	void decryptRoundsInPlace(long[] state, int fromRound, int toRound);
+	/**
+	 * Encrypts the given state in place over the rounds from <code>fromRound</code> to including
+	 * <code>toRound</code> with the current key.
+	 */
+	void encryptRoundsInPlace(long[] state, int fromRound, int toRound);
+	/**
+	 * Returns the number of 64-bit words of the state.
+	 */
+	int getNumStateWords();
+}
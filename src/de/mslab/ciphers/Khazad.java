@@ -7,7 +7,7 @@ import de.mslab.errors.InvalidKeySizeError;
  * Implements the KHAZAD block cipher, designed 1998 by Rijmen and Barreto. 
  * 
  */
-public class Khazad extends AbstractRoundBasedBlockCipher {
+public class Khazad extends AbstractRoundBasedBlockCipher implements InPlaceRoundBasedBlockCipher {
 	
 	public static final int NUM_BYTES_IN_64_BITS = 64 / 8;
 	public static final int NUM_BYTES_IN_128_BITS = 128 / 8;
@@ -190,6 +190,16 @@ public class Khazad extends AbstractRoundBasedBlockCipher {
 		0xde,0xd5,0xc8,0xc3,0xf2,0xf9,0xe4,0xef,0x86,0x8d,0x90,0x9b,0xaa,0xa1,0xbc,0xb7
 	};
 	
+	/**
+	 * Combined tables for gamma and theta. Entry x of table k is theta of a state, whose only 
+	 * non-zero byte k is SBOX[x], where the first byte forms the most significant byte.
+	 */
+	private static final long[][] T_TABLES = createTables(SBOX);
+	/**
+	 * Tables for theta. Entry x of table k is theta of a state, whose only non-zero byte k is x.
+	 */
+	private static final long[][] THETA_TABLES = createTables(null);
+	
 	public Khazad() {
 		super();
 		name = "Khazad";
@@ -245,6 +255,26 @@ public class Khazad extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long block = state[0];
+		
+		for (int round = toRound; round >= fromRound; round--) {
+			block ^= secretKey.getWord(round);
+			
+			if (round != numRounds) {
+				block = lookUp(THETA_TABLES, block);
+			}
+			
+			block = substitute(INVERSE_SBOX, block);
+		}
+		
+		if (fromRound == 1) {
+			block ^= secretKey.getWord(0);
+		}
+		
+		state[0] = block;
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		state = block.clone();
 		
@@ -265,10 +295,34 @@ public class Khazad extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long block = state[0];
+		
+		if (fromRound == 1) {
+			block ^= secretKey.getWord(0);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			if (round != numRounds) {
+				block = lookUp(T_TABLES, block);
+			} else {
+				block = substitute(SBOX, block);
+			}
+			
+			block ^= secretKey.getWord(round);
+		}
+		
+		state[0] = block;
+	}
+	
 	public int getNumActiveComponentsInKeySchedule() {
 		return (numRounds + 1) * stateSize;
 	}
 	
+	public int getNumStateWords() {
+		return 1;
+	}
+	
 	public ByteArray getRoundKey(int round) {
 		int from = round * stateSize;
 		int to = from + stateSize;
@@ -376,6 +430,64 @@ public class Khazad extends AbstractRoundBasedBlockCipher {
 		return theta(state);
 	}
 	
+	/**
+	 * Creates the eight tables, where entry x of table k is theta of a state, whose only non-zero 
+	 * byte k is <code>sbox[x]</code>. The S-box is omitted if it is <code>null</code>.
+	 */
+	private static long[][] createTables(short[] sbox) {
+		// First row of theta; the coefficient of row j and column k is the one at index j XOR k
+		int[][] multiplications = { null, XTIMES_03, XTIMES_04, XTIMES_05, XTIMES_06, XTIMES_08, XTIMES_0B, XTIMES_07 };
+		long[][] tables = new long[NUM_BYTES_IN_STATE][256];
+		int[] multiplication;
+		int value;
+		long entry;
+		
+		for (int x = 0; x < 256; x++) {
+			value = (sbox == null) ? x : sbox[x];
+			
+			for (int k = 0; k < NUM_BYTES_IN_STATE; k++) {
+				entry = 0;
+				
+				for (int j = 0; j < NUM_BYTES_IN_STATE; j++) {
+					multiplication = multiplications[j ^ k];
+					entry = (entry << 8) | (multiplication == null ? value : multiplication[value]);
+				}
+				
+				tables[k][x] = entry;
+			}
+		}
+		
+		return tables;
+	}
+	
+	/**
+	 * Returns the XOR of the entries of the given tables, where the entry of table k is looked up with 
+	 * byte k of the given block.
+	 */
+	private static long lookUp(long[][] tables, long block) {
+		return tables[0][(int)(block >>> 56)] 
+			^ tables[1][(int)(block >>> 48) & 0xFF] 
+			^ tables[2][(int)(block >>> 40) & 0xFF] 
+			^ tables[3][(int)(block >>> 32) & 0xFF] 
+			^ tables[4][(int)(block >>> 24) & 0xFF] 
+			^ tables[5][(int)(block >>> 16) & 0xFF] 
+			^ tables[6][(int)(block >>> 8) & 0xFF] 
+			^ tables[7][(int)block & 0xFF];
+	}
+	
+	/**
+	 * Substitutes every byte of the given block by the given S-box.
+	 */
+	private static long substitute(short[] sbox, long block) {
+		long result = 0;
+		
+		for (int shift = 56; shift >= 0; shift -= Byte.SIZE) {
+			result |= (long)sbox[(int)(block >>> shift) & 0xFF] << shift;
+		}
+		
+		return result;
+	}
+	
 	private ByteArray theta(ByteArray state) {
 		short[] oldState = state.getArray();
 		int[] newState = new int[stateSize];
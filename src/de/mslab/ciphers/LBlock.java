@@ -2,9 +2,11 @@ package de.mslab.ciphers;
 
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidKeySizeError;
+import de.mslab.utils.BitsliceUtil;
+import de.mslab.utils.BitslicedSBox;
 
 
-public class LBlock extends AbstractRoundBasedBlockCipher {
+public class LBlock extends AbstractRoundBasedBlockCipher implements BitslicedRoundBasedBlockCipher {
 	
 	private static final int KEY_SIZE = 80 / Byte.SIZE;
 	private static final String NAME = "LBlock";
@@ -35,7 +37,14 @@ public class LBlock extends AbstractRoundBasedBlockCipher {
 		{ 6, 14, 12, 15, 13, 3, 7, 1, 0, 10, 11, 8, 9, 5, 2, 4 },
 		{ 3, 10, 5, 14, 8, 1, 15, 4, 9, 6, 13, 0, 11, 7, 12, 2 }
 	};
-	
+	/**
+	 * Nibble i of the output of the permutation, where nibble 0 is the least significant one,
+	 * is nibble <code>PERMUTATION_SOURCES[i]</code> of its input.
+	 */
+	private static final int[] PERMUTATION_SOURCES = { 1, 3, 0, 2, 5, 7, 4, 6 };
+	private static final BitslicedSBox[] BITSLICED_SBOX = createBitslicedSBoxes();
+	
+	private long[] functionBuffer;
 	private int roundKeySize;
 	
 	public LBlock() {
@@ -73,12 +82,27 @@ public class LBlock extends AbstractRoundBasedBlockCipher {
 		return secretKey;
 	}
 	
+	public RoundBasedBlockCipher copy() {
+		LBlock copy = (LBlock)super.copy();
+		copy.functionBuffer = null;
+		return copy;
+	}
+	
 	public ByteArray computeKeyPart(ByteArray expandedKey, int round) {
 		final int from = (round - 1) * keySize;
 		final int to = from + keySize;
 		return expandedKey.splice(from, to);
 	}
 	
+	public void decryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		xorBitslicedFunction(state, roundKeys[round]);
+		BitsliceUtil.rotate(state, 32, 32, Byte.SIZE);
+		
+		if (round > 1) {
+			swapBitslicedHalves(state);
+		}
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		ByteArray left = block.splice(0,4);
 		ByteArray right = block.splice(4);
@@ -98,6 +122,15 @@ public class LBlock extends AbstractRoundBasedBlockCipher {
 		return left;
 	}
 	
+	public void encryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		BitsliceUtil.rotate(state, 32, 32, -Byte.SIZE);
+		xorBitslicedFunction(state, roundKeys[round]);
+		
+		if (round < numRounds) {
+			swapBitslicedHalves(state);
+		}
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		ByteArray left = block.splice(0, 4);
 		ByteArray right = block.splice(4);
@@ -159,6 +192,26 @@ public class LBlock extends AbstractRoundBasedBlockCipher {
 		this.secretKey = expandedKey.clone();
 	}
 	
+	private static BitslicedSBox[] createBitslicedSBoxes() {
+		BitslicedSBox[] result = new BitslicedSBox[PERMUTATION_SOURCES.length];
+		
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new BitslicedSBox(SBOX[i]);
+		}
+		
+		return result;
+	}
+	
+	private static void swapBitslicedHalves(long[] state) {
+		long temp;
+		
+		for (int i = 0; i < 32; i++) {
+			temp = state[i];
+			state[i] = state[32 + i];
+			state[32 + i] = temp;
+		}
+	}
+	
 	private void checkKeySize(int length) {
 		if (length != keySize) {
 			throw new InvalidKeySizeError(length);
@@ -242,6 +295,35 @@ public class LBlock extends AbstractRoundBasedBlockCipher {
 		}
 	}
 	
+	/**
+	 * XORs the round function of the left half onto the right half of the given bitsliced state. 
+	 * Nibble i of a half, where nibble 0 is the least significant one, consists of the slices 
+	 * <code>28 - 4 * i</code> to <code>31 - 4 * i</code> of that half. 
+	 */
+	private void xorBitslicedFunction(long[] state, long[] roundKey) {
+		if (functionBuffer == null) {
+			functionBuffer = new long[32];
+		}
+		
+		int i, source;
+		
+		for (i = 0; i < 32; i++) {
+			functionBuffer[i] = state[i] ^ roundKey[i];
+		}
+		
+		for (i = 0; i < BITSLICED_SBOX.length; i++) {
+			BITSLICED_SBOX[i].apply(functionBuffer, 28 - 4 * i, 29 - 4 * i, 30 - 4 * i, 31 - 4 * i);
+		}
+		
+		for (i = 0; i < PERMUTATION_SOURCES.length; i++) {
+			source = 28 - 4 * PERMUTATION_SOURCES[i];
+			
+			for (int bit = 0; bit < 4; bit++) {
+				state[32 + 28 - 4 * i + bit] ^= functionBuffer[source + bit];
+			}
+		}
+	}
+	
 	private ByteArray function(ByteArray block, int round) {
 		block = addRoundKey(round, block);
 		block = subBytes(block);
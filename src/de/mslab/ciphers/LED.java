@@ -7,7 +7,7 @@ import de.mslab.errors.InvalidKeySizeError;
  * Implements the LED block cipher, designed 2011 by Guo, Peyrin and al.  
  * 
  */
-public abstract class LED extends AbstractRoundBasedBlockCipher {
+public abstract class LED extends AbstractRoundBasedBlockCipher implements InPlaceRoundBasedBlockCipher, LinearKeyScheduleCipher {
 	
 	public static final int[] INVERSE_SBOX = PRESENT.INVERSE_SBOX;
 	public static final int NUM_BYTES_IN_64_BIT = 64 / Byte.SIZE;
@@ -22,6 +22,9 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 	
 	public static final int[] SBOX = PRESENT.SBOX;
 	
+	private static final int[] XTIMES_01 = { 
+		0x00,0x01,0x02,0x03,0x04,0x05,0x06,0x07,0x08,0x09,0x0a,0x0b,0x0c,0x0d,0x0e,0x0f
+	};
 	private static final int[] XTIMES_02 = { 
 		0x00,0x02,0x04,0x06,0x08,0x0a,0x0c,0x0e,0x03,0x01,0x07,0x05,0x0b,0x09,0x0f,0x0d
 	};
@@ -64,6 +67,25 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 	private static final int[] XTIMES_0F = { 
 		0x00,0x0f,0x0d,0x02,0x09,0x06,0x04,0x0b,0x01,0x0e,0x0c,0x03,0x08,0x07,0x05,0x0a
 	};
+	/**
+	 * The multiplication tables, indexed by the factor. 
+	 */
+	private static final int[][] XTIMES = {
+		null, XTIMES_01, XTIMES_02, XTIMES_03, XTIMES_04, XTIMES_05, XTIMES_06, XTIMES_07, 
+		XTIMES_08, XTIMES_09, XTIMES_0A, XTIMES_0B, XTIMES_0C, XTIMES_0D, XTIMES_0E, XTIMES_0F
+	};
+	private static final int[][] MIX_COLUMNS_MATRIX = {
+		{ 0x4, 0x1, 0x2, 0x2 }, 
+		{ 0x8, 0x6, 0x5, 0x6 }, 
+		{ 0xB, 0xE, 0xA, 0x9 }, 
+		{ 0x2, 0x2, 0xF, 0xB }
+	};
+	private static final int[][] INVERSE_MIX_COLUMNS_MATRIX = {
+		{ 0xC, 0xC, 0xD, 0x4 }, 
+		{ 0x3, 0x8, 0x4, 0x5 }, 
+		{ 0x7, 0x6, 0x2, 0xE }, 
+		{ 0xD, 0x9, 0x9, 0xD }
+	};
 	
 	protected int cellSize = 4;
 	protected int numRoundsPerKeyInjection = 4;
@@ -80,6 +102,10 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 		return keyPart;
 	}
 	
+	public ByteArray computeExpandedKeyDifference(ByteArray keyPartDifference, int round) {
+		return keyPartDifference.clone();
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		state = twoNibblesPerByteToSingleNibblePerByte(block);
 		
@@ -101,6 +127,27 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 		return singleNibblesPerByteToTwoNibblesPerByte(state);
 	}
 	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long value = state[0];
+		
+		for (int round = toRound; round >= fromRound; round--) {
+			if (round != 1 && hasKeyInjectionInRound(round)) {
+				value ^= getRoundKey(round).getWord(0);
+			}
+			
+			value = mixColumnsSerial(value, INVERSE_MIX_COLUMNS_MATRIX);
+			value = rotateRows(value, -1);
+			value = substituteCells(value, INVERSE_SBOX);
+			value ^= getRoundConstant(round);
+		}
+		
+		if (fromRound == 1) {
+			value ^= getRoundKey(0).getWord(0);
+		}
+		
+		state[0] = value;
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		state = twoNibblesPerByteToSingleNibblePerByte(block);
 		
@@ -122,10 +169,35 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 		return singleNibblesPerByteToTwoNibblesPerByte(state);
 	}
 	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long value = state[0];
+		
+		if (fromRound == 1) {
+			value ^= getRoundKey(0).getWord(0);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			value ^= getRoundConstant(round);
+			value = substituteCells(value, SBOX);
+			value = rotateRows(value, 1);
+			value = mixColumnsSerial(value, MIX_COLUMNS_MATRIX);
+			
+			if (round != 1 && hasKeyInjectionInRound(round)) {
+				value ^= getRoundKey(round).getWord(0);
+			}
+		}
+		
+		state[0] = value;
+	}
+	
 	public int getNumActiveComponentsInKeySchedule() {
 		return 0;
 	}
 	
+	public int getNumStateWords() {
+		return 1;
+	}
+	
 	public ByteArray getRoundKey(int round) {
 		return secretKey;
 	}
@@ -326,4 +398,71 @@ public abstract class LED extends AbstractRoundBasedBlockCipher {
 		return result;
 	}
 	
+	/**
+	 * Returns the constants which are added to the state in the given round, where the first 
+	 * cell forms the most significant nibble. 
+	 */
+	private static long getRoundConstant(int round) {
+		final int constant = ROUND_CONSTANTS[round - 1];
+		final long rc543 = (constant >> 3) & 0x7;
+		final long rc210 = constant & 0x7;
+		
+		return (rc543 << 56) | (1L << 44) | (rc210 << 40) 
+			| (2L << 28) | (rc543 << 24) | (3L << 12) | (rc210 << 8);
+	}
+	
+	private static int getCell(long state, int index) {
+		return (int)(state >>> (60 - 4 * index)) & 0xF;
+	}
+	
+	/**
+	 * Multiplies each column of the given state with the given matrix.
+	 */
+	private static long mixColumnsSerial(long state, int[][] matrix) {
+		long result = 0;
+		int cell;
+		
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				cell = 0;
+				
+				for (int i = 0; i < 4; i++) {
+					cell ^= XTIMES[matrix[row][i]][getCell(state, 4 * i + column)];
+				}
+				
+				result |= (long)cell << (60 - 4 * (4 * row + column));
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Rotates row r of the given state by r cells to the left for direction 1, 
+	 * or to the right for direction -1. 
+	 */
+	private static long rotateRows(long state, int direction) {
+		long result = state & 0xFFFF000000000000L;
+		int row, shift;
+		
+		for (int i = 1; i < 4; i++) {
+			row = (int)(state >>> (48 - 16 * i)) & 0xFFFF;
+			shift = (direction * 4 * i + 16) % 16;
+			row = ((row << shift) | (row >>> (16 - shift))) & 0xFFFF;
+			result |= (long)row << (48 - 16 * i);
+		}
+		
+		return result;
+	}
+	
+	private static long substituteCells(long state, int[] sbox) {
+		long result = 0;
+		
+		for (int shift = 0; shift < Long.SIZE; shift += 4) {
+			result |= (long)sbox[(int)(state >>> shift) & 0xF] << shift;
+		}
+		
+		return result;
+	}
+	
 }
@@ -0,0 +1,18 @@
+package de.mslab.ciphers;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Interface for round-based ciphers with a key schedule, which is linear over GF(2). Then, the
+ * expanded key of a key part, which differs from another one by a given difference, can be derived
+ * from the expanded key of the other one by XORing the expanded difference. This allows updating an
+ * expanded key incrementally, instead of expanding every key from scratch.
+ */
+public interface LinearKeyScheduleCipher extends RoundBasedBlockCipher {
+	/**
+	 * Returns the difference of the expanded keys of two key parts of the given round, which
+	 * differ by the given difference, so that <code>computeExpandedKey(k ^ d, round)</code> equals
+	 * <code>computeExpandedKey(k, round) ^ computeExpandedKeyDifference(d, round)</code> for all k.
+	 */
+	ByteArray computeExpandedKeyDifference(ByteArray keyPartDifference, int round);
+}
@@ -2,12 +2,15 @@ package de.mslab.ciphers;
 
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidKeySizeError;
+import de.mslab.utils.BitsliceUtil;
+import de.mslab.utils.BitslicedSBox;
 
 /**
  * Implements the PRESENT ultra-lightweight block cipher, designed 2007 by Bogdanov, Knudsen et al.
  * 
  */
-public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
+public abstract class PRESENT extends AbstractRoundBasedBlockCipher implements InPlaceRoundBasedBlockCipher,
+		BitslicedRoundBasedBlockCipher {
 	
 	public static final int NUM_ROUNDS = 31;
 	public static final int[] INVERSE_PERMUTATION = {
@@ -29,6 +32,11 @@ public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
 		0x0C, 0x05, 0x06, 0x0B, 0x09, 0x00, 0x0A, 0x0D, 0x03, 0x0E, 0x0F, 0x08, 0x04, 0x07, 0x01, 0x02 
 	};
 	
+	private static final BitslicedSBox BITSLICED_INVERSE_SBOX = new BitslicedSBox(INVERSE_SBOX);
+	private static final BitslicedSBox BITSLICED_SBOX = new BitslicedSBox(SBOX);
+	private static final int[][] INVERSE_PERMUTATION_CYCLES = BitsliceUtil.computeCycles(INVERSE_PERMUTATION);
+	private static final int[][] PERMUTATION_CYCLES = BitsliceUtil.computeCycles(PERMUTATION);
+	
 	public PRESENT() {
 		super();
 		this.numRounds = NUM_ROUNDS;
@@ -75,6 +83,32 @@ public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void decryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		if (round == numRounds) {
+			BitsliceUtil.xor(state, roundKeys[numRounds + 1]);
+		}
+		
+		BitsliceUtil.permute(state, INVERSE_PERMUTATION_CYCLES);
+		substituteNibbles(state, BITSLICED_INVERSE_SBOX);
+		BitsliceUtil.xor(state, roundKeys[round]);
+	}
+	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long value = state[0];
+		
+		if (toRound == numRounds) {
+			value ^= readRoundKey(numRounds + 1);
+		}
+		
+		for (int round = toRound; round >= fromRound; round--) {
+			value = permuteBits(value, INVERSE_PERMUTATION);
+			value = substituteNibbles(value, INVERSE_SBOX);
+			value ^= readRoundKey(round);
+		}
+		
+		state[0] = value;
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		state = block.clone();
 		
@@ -91,8 +125,38 @@ public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void encryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		BitsliceUtil.xor(state, roundKeys[round]);
+		substituteNibbles(state, BITSLICED_SBOX);
+		BitsliceUtil.permute(state, PERMUTATION_CYCLES);
+		
+		if (round == numRounds) {
+			BitsliceUtil.xor(state, roundKeys[numRounds + 1]);
+		}
+	}
+	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long value = state[0];
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			value ^= readRoundKey(round);
+			value = substituteNibbles(value, SBOX);
+			value = permuteBits(value, PERMUTATION);
+		}
+		
+		if (toRound == numRounds) {
+			value ^= readRoundKey(numRounds + 1);
+		}
+		
+		state[0] = value;
+	}
+	
 	public abstract int getNumActiveComponentsInKeySchedule();
 	
+	public int getNumStateWords() {
+		return 1;
+	}
+	
 	public ByteArray getRoundKey(int round) {
 		int from = (round - 1) * keySize;
 		int to = from + stateSize;
@@ -180,6 +244,13 @@ public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
 		return newState;
 	}
 	
+	/**
+	 * Returns the round key of the given round as a 64-bit word without allocating memory. 
+	 */
+	private long readRoundKey(int round) {
+		return secretKey.readLong((round - 1) * keySize);
+	}
+	
 	private ByteArray subBytes(ByteArray state) {
 		int value, msbNibble, lsbNibble;
 		
@@ -193,4 +264,37 @@ public abstract class PRESENT extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	/**
+	 * Moves bit <code>permutation[i]</code> of the given state to bit i, where bit 0 is the most 
+	 * significant one, as in {@link ByteArray#getBit(int)}. 
+	 */
+	private static long permuteBits(long state, int[] permutation) {
+		long result = 0;
+		
+		for (int i = 0; i < Long.SIZE; i++) {
+			result |= ((state >>> (Long.SIZE - 1 - permutation[i])) & 1L) << (Long.SIZE - 1 - i);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Substitutes the 16 nibbles of a bitsliced state, where nibble i consists of slices 4i to 4i + 3.
+	 */
+	private static void substituteNibbles(long[] state, BitslicedSBox sbox) {
+		for (int i = 0; i < Long.SIZE; i += 4) {
+			sbox.apply(state, i, i + 1, i + 2, i + 3);
+		}
+	}
+	
+	private static long substituteNibbles(long state, int[] sbox) {
+		long result = 0;
+		
+		for (int shift = 0; shift < Long.SIZE; shift += 4) {
+			result |= (long)sbox[(int)(state >>> shift) & 0xF] << shift;
+		}
+		
+		return result;
+	}
+	
 }
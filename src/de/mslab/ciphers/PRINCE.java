@@ -27,6 +27,13 @@ public class PRINCE extends AbstractRoundBasedBlockCipher {
 		return princeCore.canInvertKeySchedule();
 	}
 	
+	public RoundBasedBlockCipher copy() {
+		PRINCE copy = (PRINCE)super.copy();
+		copy.expandedKey = expandedKey.clone();
+		copy.princeCore = (PRINCECore)princeCore.copy();
+		return copy;
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		if (toRound == numRounds) {
 			block.xor(getRoundKey(numRounds + 1));
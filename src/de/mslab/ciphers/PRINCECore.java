@@ -3,7 +3,7 @@ package de.mslab.ciphers;
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidKeySizeError;
 
-public class PRINCECore extends AbstractRoundBasedBlockCipher {
+public class PRINCECore extends AbstractRoundBasedBlockCipher implements LinearKeyScheduleCipher {
 	
 	public static final int[] M_0 = createTable(new int[]{ 
 		0x0888,0x4044,0x2202,0x1110,0x8880,0x0444,0x2022,0x1101,
@@ -111,6 +111,10 @@ public class PRINCECore extends AbstractRoundBasedBlockCipher {
 		return keyPart;
 	}
 	
+	public ByteArray computeExpandedKeyDifference(ByteArray keyPartDifference, int round) {
+		return keyPartDifference.clone();
+	}
+	
 	public ByteArray computeKeyPart(ByteArray expandedKey, int round) {
 		return expandedKey;
 	}
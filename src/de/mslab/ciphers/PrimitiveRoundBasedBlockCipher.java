@@ -0,0 +1,36 @@
+package de.mslab.ciphers;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Interface for in-place ciphers, which can also expand and inject keys given as arrays of 64-bit
+ * words, so that neither states nor keys have to be converted from or to a {@link ByteArray}.
+ * Keys are held in words as in {@link ByteArray#getWord(int)}, and expanded keys consist of
+ * {@link #getNumExpandedKeyWords()} words, which hold the bytes of {@link #getExpandedKey()}.
+ *
+ * The methods do not allocate memory, and are equivalent to
+ * {@link RoundBasedBlockCipher#computeExpandedKey(ByteArray, int)},
+ * {@link RoundBasedBlockCipher#setExpandedKey(ByteArray)} and
+ * {@link RoundBasedBlockCipher#getRoundKey(int)}.
+ */
+public interface PrimitiveRoundBasedBlockCipher extends InPlaceRoundBasedBlockCipher {
+	/**
+	 * Writes the expanded key, which is derived from the given key part of the given round,
+	 * into the given array of {@link #getNumExpandedKeyWords()} words.
+	 */
+	void computeExpandedKeyWords(long[] keyPart, int round, long[] expandedKey);
+	/**
+	 * Returns the number of 64-bit words of an expanded key.
+	 */
+	int getNumExpandedKeyWords();
+	/**
+	 * Returns the words of the round key, which is injected in the given round, or <code>null</code>
+	 * if there is no key injection in this round. The returned array must not be modified.
+	 */
+	long[] getRoundKeyWords(int round);
+	/**
+	 * Sets the expanded key from the given array of {@link #getNumExpandedKeyWords()} words.
+	 * The array is copied.
+	 */
+	void setExpandedKeyWords(long[] expandedKey);
+}
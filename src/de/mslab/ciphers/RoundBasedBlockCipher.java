@@ -39,6 +39,12 @@ public interface RoundBasedBlockCipher extends BlockCipher {
 	 * Returns the part of the key which was used as the difference from the given round.
 	 */
 	ByteArray computeKeyPart(ByteArray expandedKey, int round);
+	/**
+	 * Returns a new instance of this cipher with the same parameters and the same key. The copy 
+	 * shares no mutable state with this instance, so that concurrent threads can each encrypt 
+	 * with their own copy without any synchronization. 
+	 */
+	RoundBasedBlockCipher copy();
 	/**
 	 * Performs a decryption over some rounds from <code>toRound</code> to including <code>fromRound</code>
 	 * of the given block with the current key.
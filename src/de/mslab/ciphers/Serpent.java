@@ -3,8 +3,10 @@ package de.mslab.ciphers;
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidArgumentError;
 import de.mslab.errors.InvalidKeySizeError;
+import de.mslab.utils.BitsliceUtil;
+import de.mslab.utils.BitslicedSBox;
 
-public class Serpent extends AbstractRoundBasedBlockCipher {
+public class Serpent extends AbstractRoundBasedBlockCipher implements BitslicedRoundBasedBlockCipher {
 	
 	public static final String NAME = "Serpent";
 	public static final int NUM_ROUNDS = 32;
@@ -34,6 +36,8 @@ public class Serpent extends AbstractRoundBasedBlockCipher {
 		{ 15, 10, 1, 13, 5, 3, 6, 0, 4, 9, 14, 7, 2, 12, 8, 11 },  
 		{ 3, 0, 6, 13, 9, 14, 15, 8, 5, 12, 11, 7, 10, 1, 4, 2 }
 	};
+	private static final BitslicedSBox[] BITSLICED_SBOX = createBitslicedSBoxes(SBOX);
+	private static final BitslicedSBox[] BITSLICED_INVERSE_SBOX = createBitslicedSBoxes(INVERSE_SBOX);
 	
 	private int[] internalExpandedKey;
 	
@@ -209,6 +213,24 @@ public class Serpent extends AbstractRoundBasedBlockCipher {
 		return expandedKey.splice(from, to);
 	}
 	
+	/**
+	 * The bitsliced round operates on the bits of the four 32-bit words, which are read from the 
+	 * state in little-endian order, so that the state is reordered before and after the round. 
+	 */
+	public void decryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		reorderBitslicedState(state);
+		
+		if (round == numRounds) {
+			addBitslicedRoundKey(state, roundKeys[round + 1]);
+		} else {
+			invertBitslicedLinearTransformation(state);
+		}
+		
+		substituteBitslicedState(state, BITSLICED_INVERSE_SBOX[(round - 1) % SBOX.length]);
+		addBitslicedRoundKey(state, roundKeys[round]);
+		reorderBitslicedState(state);
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		final int[] state = blockToInts(block);
 		
@@ -233,6 +255,20 @@ public class Serpent extends AbstractRoundBasedBlockCipher {
 		return intsToBlock(state);
 	}
 	
+	public void encryptRoundBitsliced(long[] state, long[][] roundKeys, int round) {
+		reorderBitslicedState(state);
+		addBitslicedRoundKey(state, roundKeys[round]);
+		substituteBitslicedState(state, BITSLICED_SBOX[(round - 1) % SBOX.length]);
+		
+		if (round == numRounds) {
+			addBitslicedRoundKey(state, roundKeys[round + 1]);
+		} else {
+			bitslicedLinearTransformation(state);
+		}
+		
+		reorderBitslicedState(state);
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		final int[] state = blockToInts(block);
 		
@@ -310,6 +346,94 @@ public class Serpent extends AbstractRoundBasedBlockCipher {
 		internalExpandedKey = secretKey.readUInts();
 	}
 	
+	/**
+	 * XORs the given round key onto a reordered bitsliced state. Since the round key words are stored
+	 * in big-endian order, bit b of word i is the slice <code>32 * i + 31 - b</code> of the key. 
+	 */
+	private static void addBitslicedRoundKey(long[] state, long[] roundKey) {
+		for (int i = 0; i < 128; i += 32) {
+			for (int bit = 0; bit < 32; bit++) {
+				state[i + bit] ^= roundKey[i + 31 - bit];
+			}
+		}
+	}
+	
+	private static void bitslicedLinearTransformation(long[] x) {
+		rotateBitslicedWord(x, 0, 13);
+		rotateBitslicedWord(x, 2, 3);
+		
+		for (int bit = 0; bit < 32; bit++) {
+			x[32 + bit] ^= x[bit] ^ x[64 + bit];
+			x[96 + bit] ^= x[64 + bit] ^ (bit >= 3 ? x[bit - 3] : 0);
+		}
+		
+		rotateBitslicedWord(x, 1, 1);
+		rotateBitslicedWord(x, 3, 7);
+		
+		for (int bit = 0; bit < 32; bit++) {
+			x[bit] ^= x[32 + bit] ^ x[96 + bit];
+			x[64 + bit] ^= x[96 + bit] ^ (bit >= 7 ? x[32 + bit - 7] : 0);
+		}
+		
+		rotateBitslicedWord(x, 0, 5);
+		rotateBitslicedWord(x, 2, 22);
+	}
+	
+	private static BitslicedSBox[] createBitslicedSBoxes(int[][] sboxes) {
+		BitslicedSBox[] result = new BitslicedSBox[sboxes.length];
+		
+		for (int i = 0; i < sboxes.length; i++) {
+			result[i] = new BitslicedSBox(sboxes[i]);
+		}
+		
+		return result;
+	}
+	
+	private static void invertBitslicedLinearTransformation(long[] x) {
+		rotateBitslicedWord(x, 2, -22);
+		rotateBitslicedWord(x, 0, -5);
+		
+		for (int bit = 0; bit < 32; bit++) {
+			x[64 + bit] ^= x[96 + bit] ^ (bit >= 7 ? x[32 + bit - 7] : 0);
+			x[bit] ^= x[32 + bit] ^ x[96 + bit];
+		}
+		
+		rotateBitslicedWord(x, 3, -7);
+		rotateBitslicedWord(x, 1, -1);
+		
+		for (int bit = 0; bit < 32; bit++) {
+			x[96 + bit] ^= x[64 + bit] ^ (bit >= 3 ? x[bit - 3] : 0);
+			x[32 + bit] ^= x[bit] ^ x[64 + bit];
+		}
+		
+		rotateBitslicedWord(x, 2, -3);
+		rotateBitslicedWord(x, 0, -13);
+	}
+	
+	/**
+	 * Converts a bitsliced state between the order of the block, where the bits of every byte start 
+	 * with the most significant one, and the order of the words, where slice <code>32 * i + b</code> 
+	 * is bit b of word i, by reversing the bits of every byte. 
+	 */
+	private static void reorderBitslicedState(long[] state) {
+		for (int i = 0; i < state.length; i += Byte.SIZE) {
+			BitsliceUtil.reverse(state, i, i + Byte.SIZE);
+		}
+	}
+	
+	/**
+	 * Rotates the given word of a reordered bitsliced state to the left by the given distance. 
+	 */
+	private static void rotateBitslicedWord(long[] state, int word, int distance) {
+		BitsliceUtil.rotate(state, 32 * word, 32, distance);
+	}
+	
+	private static void substituteBitslicedState(long[] state, BitslicedSBox sbox) {
+		for (int bit = 0; bit < 32; bit++) {
+			sbox.apply(state, 96 + bit, 64 + bit, 32 + bit, bit);
+		}
+	}
+	
 	private void addRoundKeyWords(int round, int[] state) {
 		int[] key = getRoundKeyWords(round);
 		
@@ -9,7 +9,7 @@ import de.mslab.errors.InvalidTweakSizeError;
  * and was designed 2009 by Ferguson, Lucks, Schneier et al.  
  * 
  */
-public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements TweakableCipher {
+public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements PrimitiveRoundBasedBlockCipher, TweakableCipher {
 	
 	/**
 	 * Constant for round key.
@@ -24,6 +24,11 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 	protected long[][] expandedKey;
 	protected long[] tweak;
 	protected int tweakSize = 128 / Byte.SIZE;
+	
+	/**
+	 * Words which hold a copy of the state during an in-place permutation. 
+	 */
+	private long[] permuteBuffer;
 
 	protected ThreeFish() {
 		super();
@@ -42,10 +47,38 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		return longArrayToByteArray(expandKey(keyPart));
 	}
 	
+	public void computeExpandedKeyWords(long[] keyPart, int round, long[] expandedKey) {
+		int numRoundKeys = (numRounds / numRoundsPerKeyInjection) + 1;
+		long extraWord = computeExtraWord(keyPart);
+		int position = 0;
+		
+		for (int s = 0; s < numRoundKeys; s++) {
+			for (int i = 0; i < keyPart.length; i++) {
+				expandedKey[position++] = computeRoundKeyWord(keyPart, extraWord, s, i);
+			}
+		}
+	}
+	
 	public ByteArray computeKeyPart(ByteArray expandedKey, int round) {
 		return expandedKey.splice(0, keySize);
 	}
 	
+	public RoundBasedBlockCipher copy() {
+		ThreeFish copy = (ThreeFish)super.copy();
+		copy.permuteBuffer = null;
+		
+		// Expanded keys set by setExpandedKeyWords() are written into the existing arrays
+		if (expandedKey != null) {
+			copy.expandedKey = new long[expandedKey.length][];
+			
+			for (int i = 0; i < expandedKey.length; i++) {
+				copy.expandedKey[i] = expandedKey[i].clone();
+			}
+		}
+		
+		return copy;
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		long[] state = block.readLongs();
 		
@@ -65,6 +98,21 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		return new ByteArray(state);
 	}
 	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		for (int round = toRound; round >= fromRound; round--) {
+			if (round % 4 == 0) {
+				subtractRoundKey(round, state);
+			}
+			
+			permuteInPlace(state, true);
+			invertMix(round, state);
+		}
+		
+		if (fromRound == 1) { // Whitening
+			subtractRoundKey(0, state);
+		}
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		long[] state = block.readLongs();
 		
@@ -84,14 +132,49 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		return new ByteArray(state);
 	}
 	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		if (fromRound == 1) { // Whitening
+			addRoundKey(0, state);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			mix(round, state);
+			permuteInPlace(state, false);
+			
+			if (round % 4 == 0) {
+				addRoundKey(round, state);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the expanded key, which is converted lazily from the words of the round keys 
+	 * after {@link #setExpandedKeyWords(long[])}. 
+	 */
+	public ByteArray getExpandedKey() {
+		if (secretKey == null && expandedKey != null) {
+			secretKey = longArrayToByteArray(expandedKey);
+		}
+		
+		return secretKey;
+	}
+	
 	public int getNumActiveComponentsInEncryption(int numRounds) {
 		return numRounds * stateSize / 16;
 	}
 	
+	public int getNumStateWords() {
+		return stateSize / (Long.SIZE / Byte.SIZE);
+	}
+	
 	public int getNumActiveComponentsInKeySchedule() {
 		return 0;
 	}
 	
+	public int getNumExpandedKeyWords() {
+		return ((numRounds / numRoundsPerKeyInjection) + 1) * keySize / (Long.SIZE / Byte.SIZE);
+	}
+	
 	public ByteArray getRoundKey(int round) {
 		if (hasKeyInjectionInRound(round)) {
 			long[] roundKeyWords = getRoundKeyArray(round);
@@ -105,6 +188,14 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		return this.expandedKey[round / numRoundsPerKeyInjection];
 	}
 	
+	public long[] getRoundKeyWords(int round) {
+		if (hasKeyInjectionInRound(round)) {
+			return getRoundKeyArray(round);
+		} else {
+			return null;
+		}
+	}
+	
 	public ByteArray getTweak() {
 		return new ByteArray(this.tweak);
 	}
@@ -166,6 +257,21 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		}
 	}
 	
+	public void setExpandedKeyWords(long[] expandedKey) {
+		int numWordsPerKey = keySize / (Long.SIZE / Byte.SIZE);
+		int numRoundKeys = (numRounds / numRoundsPerKeyInjection) + 1;
+		
+		if (this.expandedKey == null || this.expandedKey.length != numRoundKeys) {
+			this.expandedKey = new long[numRoundKeys][numWordsPerKey];
+		}
+		
+		for (int keyIndex = 0; keyIndex < numRoundKeys; keyIndex++) {
+			System.arraycopy(expandedKey, keyIndex * numWordsPerKey, this.expandedKey[keyIndex], 0, numWordsPerKey);
+		}
+		
+		this.secretKey = null;
+	}
+	
 	public void setTweak(ByteArray tweak) {
 		if (tweak.length() != tweakSize) {
 			throw new InvalidTweakSizeError(tweak.length(), tweakSize);
@@ -204,34 +310,49 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 	
 	protected long[][] expandKey(ByteArray key) {
 		long[] keyWords = key.readLongs();
-		long[] k = new long[keyWords.length + 1];
-		long extraWord = C_240;
+		long extraWord = computeExtraWord(keyWords);
 		int numRoundsWithAddKey = (numRounds / numRoundsPerKeyInjection) + 1;
 		long[][] expandedKeyWords = new long[numRoundsWithAddKey][keyWords.length];
 		
+		for (int s = 0; s < numRoundsWithAddKey; s++) {
+			for (int i = 0; i < keyWords.length; i++) {
+				expandedKeyWords[s][i] = computeRoundKeyWord(keyWords, extraWord, s, i);
+			}
+		}
+		
+		return expandedKeyWords;
+	}
+	
+	/**
+	 * Returns the additional key word, which is the XOR of C_240 and all words of the given key. 
+	 */
+	private long computeExtraWord(long[] keyWords) {
+		long extraWord = C_240;
+		
 		for (int i = 0; i < keyWords.length; i++) {
 			extraWord ^= keyWords[i];
-			k[i] = keyWords[i];
 		}
 		
-		k[keyWords.length] = extraWord;
+		return extraWord;
+	}
+	
+	/**
+	 * Returns word i of the s-th round key, which is derived from the given key words, the 
+	 * additional key word and the tweak. 
+	 */
+	private long computeRoundKeyWord(long[] keyWords, long extraWord, int s, int i) {
+		int index = (s + i) % (keyWords.length + 1);
+		long word = (index == keyWords.length) ? extraWord : keyWords[index];
 		
-		for (int s = 0; s < numRoundsWithAddKey; s++) {
-			for (int i = 0; i < keyWords.length; i++) {
-				int index = (s + i) % (keyWords.length + 1);
-				expandedKeyWords[s][i] = k[index];
-				
-				if (i == keyWords.length - 3) {
-					expandedKeyWords[s][i] += tweak[s % 3];
-				} else if (i == keyWords.length - 2) {
-					expandedKeyWords[s][i] += tweak[(s + 1) % 3];
-				} else if (i == keyWords.length - 1) {
-					expandedKeyWords[s][i] += s;
-				}
-			}
+		if (i == keyWords.length - 3) {
+			word += tweak[s % 3];
+		} else if (i == keyWords.length - 2) {
+			word += tweak[(s + 1) % 3];
+		} else if (i == keyWords.length - 1) {
+			word += s;
 		}
 		
-		return expandedKeyWords;
+		return word;
 	}
 	
 	protected long[] invertMix(int round, long[] state) {
@@ -298,6 +419,29 @@ public abstract class ThreeFish extends AbstractRoundBasedBlockCipher implements
 		return newState;
 	}
 
+	/**
+	 * Permutes the words of the given state like {@link #permute(int, long[])}, or like 
+	 * {@link #invertPermute(int, long[])} if <code>inverse</code> is set, but without allocating 
+	 * a new state. 
+	 */
+	protected void permuteInPlace(long[] state, boolean inverse) {
+		if (permuteBuffer == null || permuteBuffer.length != state.length) {
+			permuteBuffer = new long[state.length];
+		}
+		
+		System.arraycopy(state, 0, permuteBuffer, 0, state.length);
+		
+		if (inverse) {
+			for (int i = 0; i < state.length; i++) {
+				state[permuteConstants[i]] = permuteBuffer[i];
+			}
+		} else {
+			for (int i = 0; i < state.length; i++) {
+				state[i] = permuteBuffer[permuteConstants[i]];
+			}
+		}
+	}
+	
 	protected long[] subtractRoundKey(int round, long[] state) {
 		long[] roundKey = getRoundKeyArray(round);
 		
@@ -7,7 +7,7 @@ import de.mslab.core.ByteArray;
  * designed 2000 by Barreto and Rijmen.   
  * 
  */
-public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
+public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher implements InPlaceRoundBasedBlockCipher {
 	
 	public static final int NUM_BYTES_IN_512_BIT = 512 / Byte.SIZE;
 	public static final int NUM_COLUMNS_IN_STATE = 8;
@@ -268,6 +268,22 @@ public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
 		0x19,0x27,0x65,0x5b,0xe1,0xdf,0x9d,0xa3,0xf4,0xca,0x88,0xb6,0x0c,0x32,0x70,0x4e
 	};
 	
+	/**
+	 * Combined tables C0 to C7 for SubBytes and MixRows. Entry x of table c is the MixRows of a row, 
+	 * whose only non-zero column c is SBOX[x], where the first column forms the most significant byte.
+	 */
+	private static final long[][] C_TABLES = createTables(SBOX, false);
+	/**
+	 * Tables for the inverse MixRows. Entry x of table c is the inverse MixRows of a row, whose only 
+	 * non-zero column c is x.
+	 */
+	private static final long[][] INVERSE_MIX_ROW_TABLES = createTables(null, true);
+	
+	/**
+	 * Words which hold a copy of the state during an in-place round. 
+	 */
+	private long[] rowsBuffer = new long[NUM_ROWS_IN_STATE];
+	
 	public WhirlpoolCipher() {
 		this.name = "WhirlpoolCipher";
 		this.numRounds = NUM_ROUNDS;
@@ -294,6 +310,12 @@ public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
 		return secretKey;
 	}
 	
+	public RoundBasedBlockCipher copy() {
+		WhirlpoolCipher copy = (WhirlpoolCipher)super.copy();
+		copy.rowsBuffer = new long[NUM_ROWS_IN_STATE];
+		return copy;
+	}
+	
 	public ByteArray decryptRounds(ByteArray block, int fromRound, int toRound) {
 		ByteArray state = block.clone();
 		
@@ -307,6 +329,36 @@ public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
 		return state;
 	}
 	
+	public void decryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		long row;
+		
+		for (int round = toRound; round >= fromRound; round--) {
+			for (int i = 0; i < NUM_ROWS_IN_STATE; i++) {
+				row = state[i] ^ secretKey.getWord(round * NUM_ROWS_IN_STATE + i);
+				rowsBuffer[i] = INVERSE_MIX_ROW_TABLES[0][(int)(row >>> 56)] 
+					^ INVERSE_MIX_ROW_TABLES[1][(int)(row >>> 48) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[2][(int)(row >>> 40) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[3][(int)(row >>> 32) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[4][(int)(row >>> 24) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[5][(int)(row >>> 16) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[6][(int)(row >>> 8) & 0xFF] 
+					^ INVERSE_MIX_ROW_TABLES[7][(int)row & 0xFF];
+			}
+			
+			// Column c of row r is taken from row r + c
+			for (int i = 0; i < NUM_ROWS_IN_STATE; i++) {
+				row = 0;
+				
+				for (int column = 0; column < NUM_COLUMNS_IN_STATE; column++) {
+					row |= (long)INVERSE_SBOX[getByte(rowsBuffer[(i + column) % NUM_ROWS_IN_STATE], column)] 
+						<< (56 - Byte.SIZE * column);
+				}
+				
+				state[i] = row;
+			}
+		}
+	}
+	
 	public ByteArray encryptRounds(ByteArray block, int fromRound, int toRound) {
 		ByteArray state = block.clone();
 		
@@ -321,10 +373,35 @@ public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
 		return this.state;
 	}
 	
+	public void encryptRoundsInPlace(long[] state, int fromRound, int toRound) {
+		final long[] rows = rowsBuffer;
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			System.arraycopy(state, 0, rows, 0, NUM_ROWS_IN_STATE);
+			
+			// Column c of row r is taken from row r - c
+			for (int i = 0; i < NUM_ROWS_IN_STATE; i++) {
+				state[i] = C_TABLES[0][(int)(rows[i] >>> 56)] 
+					^ C_TABLES[1][(int)(rows[(i + 7) & 7] >>> 48) & 0xFF] 
+					^ C_TABLES[2][(int)(rows[(i + 6) & 7] >>> 40) & 0xFF] 
+					^ C_TABLES[3][(int)(rows[(i + 5) & 7] >>> 32) & 0xFF] 
+					^ C_TABLES[4][(int)(rows[(i + 4) & 7] >>> 24) & 0xFF] 
+					^ C_TABLES[5][(int)(rows[(i + 3) & 7] >>> 16) & 0xFF] 
+					^ C_TABLES[6][(int)(rows[(i + 2) & 7] >>> 8) & 0xFF] 
+					^ C_TABLES[7][(int)rows[(i + 1) & 7] & 0xFF] 
+					^ secretKey.getWord(round * NUM_ROWS_IN_STATE + i);
+			}
+		}
+	}
+	
 	public int getNumActiveComponentsInKeySchedule() {
 		return numRounds * stateSize;
 	}
 	
+	public int getNumStateWords() {
+		return NUM_ROWS_IN_STATE;
+	}
+	
 	public ByteArray getRoundKey(int round) {
 		int from = round * stateSize;
 		int to = from + stateSize;
@@ -517,4 +594,76 @@ public class WhirlpoolCipher extends AbstractRoundBasedBlockCipher {
 		return newstate;
 	}
 	
+	/**
+	 * Creates the eight tables, where entry x of table c is the MixRows, or the inverse MixRows, of a 
+	 * row whose only non-zero column c is <code>sbox[x]</code>. The S-box is omitted if it is 
+	 * <code>null</code>.
+	 */
+	private static long[][] createTables(int[] sbox, boolean inverse) {
+		long[][] tables = new long[NUM_COLUMNS_IN_STATE][256];
+		long row;
+		
+		for (int x = 0; x < 256; x++) {
+			row = (sbox == null) ? x : sbox[x];
+			row = inverse ? invertMixRow(row << 56) : mixRow(row << 56);
+			
+			// MixRows is circulant, so the tables of further columns are rotations of the first one
+			for (int column = 0; column < NUM_COLUMNS_IN_STATE; column++) {
+				tables[column][x] = Long.rotateRight(row, Byte.SIZE * column);
+			}
+		}
+		
+		return tables;
+	}
+	
+	private static int getByte(long row, int column) {
+		return (int)(row >>> (56 - Byte.SIZE * (column % NUM_COLUMNS_IN_STATE))) & 0xFF;
+	}
+	
+	/**
+	 * Applies {@link #invertMixRows(ByteArray)} to a single row, whose first column forms 
+	 * the most significant byte. 
+	 */
+	private static long invertMixRow(long row) {
+		long result = 0;
+		int value;
+		
+		for (int column = 0; column < NUM_COLUMNS_IN_STATE; column++) {
+			value = XTIMES_04[getByte(row, column)] ^ 
+				XTIMES_3E[getByte(row, column + 1)] ^ 
+				XTIMES_CB[getByte(row, column + 2)] ^ 
+				XTIMES_C2[getByte(row, column + 3)] ^ 
+				XTIMES_C2[getByte(row, column + 4)] ^ 
+				XTIMES_A4[getByte(row, column + 5)] ^ 
+				XTIMES_0E[getByte(row, column + 6)] ^ 
+				XTIMES_AF[getByte(row, column + 7)];
+			result |= (long)value << (56 - Byte.SIZE * column);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Applies {@link #mixRows(ByteArray)} to a single row, whose first column forms 
+	 * the most significant byte. 
+	 */
+	private static long mixRow(long row) {
+		long result = 0;
+		int value;
+		
+		for (int column = 0; column < NUM_COLUMNS_IN_STATE; column++) {
+			value = getByte(row, column) ^ 
+				XTIMES_09[getByte(row, column + 1)] ^ 
+				XTIMES_02[getByte(row, column + 2)] ^ 
+				XTIMES_05[getByte(row, column + 3)] ^ 
+				XTIMES_08[getByte(row, column + 4)] ^ 
+				getByte(row, column + 5) ^ 
+				XTIMES_04[getByte(row, column + 6)] ^ 
+				getByte(row, column + 7);
+			result |= (long)value << (56 - Byte.SIZE * column);
+		}
+		
+		return result;
+	}
+	
 }
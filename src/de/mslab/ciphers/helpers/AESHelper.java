@@ -3,7 +3,7 @@ package de.mslab.ciphers.helpers;
 import de.mslab.core.ByteArray;
 import de.mslab.core.Differential;
 
-abstract class AESHelper extends AbstractCipherHelper {
+abstract class AESHelper extends AbstractCipherHelper implements ActivitySignatureComparator {
 	
 	public int countRecomputedOperations(Differential stateDifferential, Differential keyDifferential) {
 		ByteArray stateDifference;
@@ -62,6 +62,29 @@ abstract class AESHelper extends AbstractCipherHelper {
 		return false;
 	}
 	
+	public long[] computeActivitySignature(Differential differential) {
+		int fromRound = differential.fromRound;
+		int toRound = differential.toRound;
+		ActivitySignatureBuilder builder = new ActivitySignatureBuilder();
+		
+		if (fromRound == 1) {
+			appendActiveNonLinearOperationsInIntermediateState(0, differential, builder);
+			appendActiveNonLinearOperationsInKey(0, differential, builder);
+		} else {
+			appendActiveNonLinearOperationsInState(fromRound - 1, differential, builder);
+		}
+		
+		for (int round = fromRound; round < toRound; round++) {
+			appendActiveNonLinearOperationsInState(round, differential, builder);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			appendActiveNonLinearOperationsInKey(round, differential, builder);
+		}
+		
+		return builder.toArray();
+	}
+	
 	protected abstract int countActiveKeyBytes(int round, ByteArray key);
 	
 }
@@ -10,6 +10,15 @@ abstract class AbstractCipherHelper implements CipherHelper {
 	
 	public abstract int countRecomputedOperations(Differential stateDifferential, Differential keyDifferential);
 	
+	/**
+	 * The helpers count the operations as sum of the active bytes, nibbles, or words in the 
+	 * individual differences, which can only grow when further differences become active. So, 
+	 * the count of a partial differential is already a lower bound. 
+	 */
+	public int countMinRecomputedOperations(Differential differential) {
+		return countRecomputedOperations(differential);
+	}
+	
 	protected boolean shareActiveNonLinearOperationsInKey(int round, 
 		Differential deltaDifferential, Differential nablaDifferential) {
 		return deltaDifferential.keyDifferences.get(round).sharesActiveBytesWith(
@@ -31,4 +40,19 @@ abstract class AbstractCipherHelper implements CipherHelper {
 		);
 	}
 	
+	protected void appendActiveNonLinearOperationsInKey(int round, 
+		Differential differential, ActivitySignatureBuilder builder) {
+		builder.appendActiveBytes(differential.keyDifferences.get(round));
+	}
+	
+	protected void appendActiveNonLinearOperationsInIntermediateState(int round, 
+		Differential differential, ActivitySignatureBuilder builder) {
+		builder.appendActiveBytes(differential.intermediateStateDifferences.get(round));
+	}
+	
+	protected void appendActiveNonLinearOperationsInState(int round, 
+		Differential differential, ActivitySignatureBuilder builder) {
+		builder.appendActiveBytes(differential.stateDifferences.get(round));
+	}
+	
 }
@@ -0,0 +1,152 @@
+package de.mslab.ciphers.helpers;
+
+import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
+
+/**
+ * Builds an activity signature for an {@link ActivitySignatureComparator}. Each appended difference 
+ * is compressed to one bit per active bit, nibble or byte, and the bits are concatenated in the 
+ * order of appending. Differences which are <code>null</code> are skipped, so signatures are 
+ * comparable only for differentials which have the same components set. 
+ */
+public class ActivitySignatureBuilder {
+	
+	private static final long LOW_BITS_OF_BYTES = 0x0101010101010101L;
+	private static final long LOW_BITS_OF_NIBBLES = 0x1111111111111111L;
+	
+	private long[] words;
+	private int numBits;
+	
+	public ActivitySignatureBuilder() {
+		this(4);
+	}
+	
+	/**
+	 * Creates a new builder, which reserves space for the given number of <code>long</code> words.
+	 */
+	public ActivitySignatureBuilder(int numWords) {
+		words = new long[Math.max(1, numWords)];
+		numBits = 0;
+	}
+	
+	/**
+	 * Appends one bit per bit of the given difference.
+	 */
+	public ActivitySignatureBuilder appendActiveBits(Difference difference) {
+		if (difference != null) {
+			ByteArray delta = difference.getDelta();
+			
+			for (int i = 0; i < delta.getNumWords(); i++) {
+				append(delta.getWord(i), Long.SIZE);
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Appends one bit per byte of the given difference, which is set if the byte is active.
+	 */
+	public ActivitySignatureBuilder appendActiveBytes(Difference difference) {
+		if (difference != null) {
+			ByteArray delta = difference.getDelta();
+			
+			for (int i = 0; i < delta.getNumWords(); i++) {
+				append(compressBytes(delta.getWord(i)), Long.SIZE / Byte.SIZE);
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Appends one bit per nibble of the given difference, which is set if the nibble is active.
+	 */
+	public ActivitySignatureBuilder appendActiveNibbles(Difference difference) {
+		if (difference != null) {
+			ByteArray delta = difference.getDelta();
+			
+			for (int i = 0; i < delta.getNumWords(); i++) {
+				append(compressNibbles(delta.getWord(i)), Long.SIZE / 4);
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Returns the signature built so far.
+	 */
+	public long[] toArray() {
+		int numWords = (numBits + Long.SIZE - 1) / Long.SIZE;
+		long[] result = new long[numWords];
+		System.arraycopy(words, 0, result, 0, numWords);
+		return result;
+	}
+	
+	/**
+	 * Returns <code>true</code> if both signatures share at least one set bit. 
+	 */
+	public static boolean intersect(long[] first, long[] second) {
+		int numWords = Math.min(first.length, second.length);
+		
+		for (int i = 0; i < numWords; i++) {
+			if ((first[i] & second[i]) != 0) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Appends the lowest numBitsToAppend bits of the given value.
+	 */
+	private void append(long value, int numBitsToAppend) {
+		int wordIndex = numBits / Long.SIZE;
+		int bitIndex = numBits % Long.SIZE;
+		
+		if (wordIndex + 1 >= words.length) {
+			long[] newWords = new long[2 * words.length + 1];
+			System.arraycopy(words, 0, newWords, 0, words.length);
+			words = newWords;
+		}
+		
+		words[wordIndex] |= value << bitIndex;
+		
+		if (bitIndex + numBitsToAppend > Long.SIZE) {
+			words[wordIndex + 1] |= value >>> (Long.SIZE - bitIndex);
+		}
+		
+		numBits += numBitsToAppend;
+	}
+	
+	/**
+	 * Gathers one bit per byte of the given word into its lowest 8 bits. 
+	 */
+	private static long compressBytes(long word) {
+		word |= word >>> 4;
+		word |= word >>> 2;
+		word |= word >>> 1;
+		word &= LOW_BITS_OF_BYTES;
+		word = (word | (word >>> 7)) & 0x0003000300030003L;
+		word = (word | (word >>> 14)) & 0x0000000F0000000FL;
+		word = (word | (word >>> 28)) & 0xFFL;
+		return word;
+	}
+	
+	/**
+	 * Gathers one bit per nibble of the given word into its lowest 16 bits. 
+	 */
+	private static long compressNibbles(long word) {
+		word |= word >>> 2;
+		word |= word >>> 1;
+		word &= LOW_BITS_OF_NIBBLES;
+		word = (word | (word >>> 3)) & 0x0303030303030303L;
+		word = (word | (word >>> 6)) & 0x000F000F000F000FL;
+		word = (word | (word >>> 12)) & 0x000000FF000000FFL;
+		word = (word | (word >>> 24)) & 0xFFFFL;
+		return word;
+	}
+	
+}
@@ -0,0 +1,18 @@
+package de.mslab.ciphers.helpers;
+
+import de.mslab.core.Differential;
+
+/**
+ * A {@link DifferentialComparator} which can compress a differential into an activity signature, 
+ * that is a bitmask of all components which the comparator tests. Two differentials over the same 
+ * round interval share active non-linear operations if and only if their signatures share a set bit. 
+ * This allows to test a pair of differentials with a few AND operations on <code>long</code>s. 
+ */
+public interface ActivitySignatureComparator extends DifferentialComparator {
+	
+	/**
+	 * Returns the activity signature of the given differential. 
+	 */
+	long[] computeActivitySignature(Differential differential);
+	
+}
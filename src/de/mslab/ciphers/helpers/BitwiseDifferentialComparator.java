@@ -7,7 +7,7 @@ import de.mslab.core.Differential;
  * Compares two differentials for independency, that means, if they share active bits.
  * 
  */
-public class BitwiseDifferentialComparator implements DifferentialComparator {
+public class BitwiseDifferentialComparator implements ActivitySignatureComparator {
 	
 	/**
 	 * Compares two differentials for independency, that means, if they share active bits.
@@ -61,4 +61,26 @@ public class BitwiseDifferentialComparator implements DifferentialComparator {
 		return false;
 	}
 	
+	/**
+	 * Returns a signature with all bits of the state and key differences, which are compared in 
+	 * {@link #shareActiveNonLinearOperations(Differential, Differential)}.
+	 */
+	public long[] computeActivitySignature(Differential differential) {
+		int fromRound = differential.fromRound;
+		int toRound = differential.toRound;
+		ActivitySignatureBuilder builder = new ActivitySignatureBuilder();
+		builder.appendActiveBits(differential.getStateDifference(fromRound - 1));
+		
+		if (fromRound == 1) {
+			builder.appendActiveBits(differential.getKeyDifference(0));
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			builder.appendActiveBits(differential.getStateDifference(round));
+			builder.appendActiveBits(differential.getKeyDifference(round));
+		}
+		
+		return builder.toArray();
+	}
+	
 }
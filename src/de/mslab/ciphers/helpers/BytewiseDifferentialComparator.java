@@ -6,7 +6,7 @@ import de.mslab.core.Differential;
 /**
  * Compares two differentials for independency, that means, if they share active bytes.
  */
-public class BytewiseDifferentialComparator implements DifferentialComparator {
+public class BytewiseDifferentialComparator implements ActivitySignatureComparator {
 	
 	/**
 	 * Compares two differentials for independency, that means, if they share active bytes.
@@ -36,4 +36,18 @@ public class BytewiseDifferentialComparator implements DifferentialComparator {
 		return false;
 	}
 	
+	/**
+	 * Returns a signature with one bit per byte of all state differences, which are compared in 
+	 * {@link #shareActiveNonLinearOperations(Differential, Differential)}.
+	 */
+	public long[] computeActivitySignature(Differential differential) {
+		ActivitySignatureBuilder builder = new ActivitySignatureBuilder();
+		
+		for (int round = differential.fromRound - 1; round <= differential.toRound; round++) {
+			builder.appendActiveBytes(differential.stateDifferences.get(round));
+		}
+		
+		return builder.toArray();
+	}
+	
 }
@@ -6,7 +6,7 @@ import de.mslab.core.Differential;
 /**
  * Compares two differentials for independency, that means, if they share active bytes.
  */
-public class NibblewiseDifferentialComparator implements DifferentialComparator {
+public class NibblewiseDifferentialComparator implements ActivitySignatureComparator {
 	
 	/**
 	 * Compares two differentials for independency, that means, if they share active bytes.
@@ -47,4 +47,20 @@ public class NibblewiseDifferentialComparator implements DifferentialComparator
 		return false;
 	}
 	
+	/**
+	 * Returns a signature with one bit per nibble of all state and key differences, which are compared in 
+	 * {@link #shareActiveNonLinearOperations(Differential, Differential)}.
+	 */
+	public long[] computeActivitySignature(Differential differential) {
+		ActivitySignatureBuilder builder = new ActivitySignatureBuilder();
+		builder.appendActiveNibbles(differential.stateDifferences.get(differential.fromRound - 1));
+		
+		for (int round = differential.fromRound; round <= differential.toRound; round++) {
+			builder.appendActiveNibbles(differential.keyDifferences.get(round));
+			builder.appendActiveNibbles(differential.stateDifferences.get(round));
+		}
+		
+		return builder.toArray();
+	}
+	
 }
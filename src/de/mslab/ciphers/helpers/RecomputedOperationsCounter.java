@@ -24,4 +24,13 @@ public interface RecomputedOperationsCounter {
 	 * @return The number of operations which need recomputation.
 	 */
 	int countRecomputedOperations(Differential stateDifferential, Differential keyDifferential);
+	/**
+	 * Counts a lower bound of the number of operations which need recomputation in a differential, 
+	 * which is computed round by round. The differences of the rounds, which have not been computed 
+	 * yet, are zero, and only become more active in the following rounds. So, the bound can only 
+	 * grow with every round, and does not exceed the number of operations of the complete differential. 
+	 * @param differential The partially computed differential.
+	 * @return A lower bound of the number of operations which need recomputation.
+	 */
+	int countMinRecomputedOperations(Differential differential);
 }
@@ -67,26 +67,36 @@ public class ThreeFishHelper extends AbstractCipherHelper {
 	}
 	
 	protected boolean shareActiveNonLinearOperationsInIntermediateState(int round, Differential deltaDifferential, Differential nablaDifferential) {
-		long[] deltaLongs = deltaDifferential.intermediateStateDifferences.get(round).getDelta().readLongs(); 
-		long[] nablaLongs = nablaDifferential.intermediateStateDifferences.get(round).getDelta().readLongs();
-		
-		for (int i = 0; i < deltaLongs.length; i += 2) {
-			if ((deltaLongs[i] != 0 || deltaLongs[i + 1] != 0) 
-				&& (nablaLongs[i] != 0 || nablaLongs[i + 1] != 0)) {
-				return true;
-			}
-		}
-		
-		return false;
+		return shareActiveMixOperations(
+			deltaDifferential.intermediateStateDifferences.get(round).getDelta(), 
+			nablaDifferential.intermediateStateDifferences.get(round).getDelta()
+		);
 	}
 	
 	protected boolean shareActiveNonLinearOperationsInState(int round, Differential deltaDifferential, Differential nablaDifferential) {
-		long[] deltaLongs = deltaDifferential.stateDifferences.get(round).getDelta().readLongs(); 
-		long[] nablaLongs = nablaDifferential.stateDifferences.get(round).getDelta().readLongs();
+		return shareActiveMixOperations(
+			deltaDifferential.stateDifferences.get(round).getDelta(), 
+			nablaDifferential.stateDifferences.get(round).getDelta()
+		);
+	}
+	
+	/**
+	 * Compares the XOR of the first and second secret key of both differentials word by word, 
+	 * without creating the XORed keys. 
+	 */
+	private boolean checkExpandedKey(Differential deltaDifferential, Differential nablaDifferential) {
+		ByteArray deltaFirstKey = deltaDifferential.firstSecretKey;
+		ByteArray deltaSecondKey = deltaDifferential.secondSecretKey;
+		ByteArray nablaFirstKey = nablaDifferential.firstSecretKey;
+		ByteArray nablaSecondKey = nablaDifferential.secondSecretKey;
+		
+		if (deltaFirstKey.length() != nablaFirstKey.length()) {
+			return true;
+		}
 		
-		for (int i = 0; i < deltaLongs.length; i += 2) {
-			if ((deltaLongs[i] != 0 || deltaLongs[i + 1] != 0) 
-				&& (nablaLongs[i] != 0 || nablaLongs[i + 1] != 0)) {
+		for (int i = 0; i < deltaFirstKey.getNumWords(); i++) {
+			if (((deltaFirstKey.getWord(i) ^ deltaSecondKey.getWord(i)) 
+				& (nablaFirstKey.getWord(i) ^ nablaSecondKey.getWord(i))) != 0) {
 				return true;
 			}
 		}
@@ -94,25 +104,14 @@ public class ThreeFishHelper extends AbstractCipherHelper {
 		return false;
 	}
 	
-	private boolean checkExpandedKey(Differential deltaDifferential, Differential nablaDifferential) {
-		ByteArray deltaKey = deltaDifferential.firstSecretKey.clone();
-		deltaKey.xor(deltaDifferential.secondSecretKey);
-		
-		ByteArray nablaKey = nablaDifferential.firstSecretKey.clone();
-		nablaKey.xor(nablaDifferential.secondSecretKey);
-		
-		return deltaKey.sharesActiveBitsWith(nablaKey);
-	}
-	
 	/**
 	 * Returns the number of non-zero bits in the byte array.  
 	 */
 	private int countMixOperations(ByteArray state) {
 		int sum = 0;
-		long[] stateAsLong = state.readLongs();
 		
-		for (int i = 0; i < stateAsLong.length; i += 2) {
-			if (stateAsLong[i] != 0 || stateAsLong[i + 1] != 0) {
+		for (int i = 0; i < state.getNumWords(); i += 2) {
+			if (state.getWord(i) != 0 || state.getWord(i + 1) != 0) {
 				sum++;
 			}
 		}
@@ -120,4 +119,19 @@ public class ThreeFishHelper extends AbstractCipherHelper {
 		return sum;
 	}
 	
+	/**
+	 * Returns true if a pair of words, which is the input of one MIX operation, is active in both 
+	 * given states. The words are read in place, as in {@link ByteArray#getWord(int)}. 
+	 */
+	private boolean shareActiveMixOperations(ByteArray deltaState, ByteArray nablaState) {
+		for (int i = 0; i < deltaState.getNumWords(); i += 2) {
+			if ((deltaState.getWord(i) != 0 || deltaState.getWord(i + 1) != 0) 
+				&& (nablaState.getWord(i) != 0 || nablaState.getWord(i + 1) != 0)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
 }
@@ -0,0 +1,62 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.AES;
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through the AES with 128, 192, and 256 bit keys. 
+ */
+public class AESPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int[] SHIFT_ROWS = { 0, 5, 10, 15, 4, 9, 14, 3, 8, 13, 2, 7, 12, 1, 6, 11 };
+	private static final int[] INVERSE_SHIFT_ROWS = { 0, 13, 10, 7, 4, 1, 14, 11, 8, 5, 2, 15, 12, 9, 6, 3 };
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		return computeColumnwiseExpandedKey(keyPart, round, AES.NUM_ROWS_IN_STATE);
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		
+		if (round < numRounds) {
+			state = mixColumns(state);
+		}
+		
+		state = permuteBytes(state, INVERSE_SHIFT_ROWS);
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		state = permuteBytes(state, SHIFT_ROWS);
+		
+		if (round < numRounds) {
+			state = mixColumns(state);
+		}
+		
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeBytes(difference);
+	}
+	
+	private ByteArray mixColumns(ByteArray state) {
+		for (int column = 0; column < AES.NUM_COLUMNS_IN_STATE; column++) {
+			mixBytes(state, column * AES.NUM_ROWS_IN_STATE, 1, AES.NUM_ROWS_IN_STATE);
+		}
+		
+		return state;
+	}
+	
+}
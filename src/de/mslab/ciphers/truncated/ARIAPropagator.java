@@ -0,0 +1,117 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.ARIA;
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through ARIA with 128, 192, and 256 bit keys. The round keys 
+ * are sums of the words W0, ..., W3 and their rotations by 19 or 31 bits to the right, or by 
+ * 61, 31, or 19 bits to the left. As rotations are not byte-aligned, each rotated byte activates 
+ * both bytes it is spread over. 
+ */
+public class ARIAPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int NUM_WORDS = 4;
+	private static final int NUM_ROUND_KEYS = 19;
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		ByteArray key = normalize(keyPart);
+		ByteArray kr = new ByteArray(ARIA.NUM_BYTES_IN_STATE);
+		ByteArray[] w = new ByteArray[NUM_WORDS];
+		
+		if (keySize > ARIA.NUM_BYTES_IN_STATE) {
+			kr.copyBytes(key, ARIA.NUM_BYTES_IN_STATE, 0, keySize - ARIA.NUM_BYTES_IN_STATE);
+		}
+		
+		w[0] = key.splice(0, ARIA.NUM_BYTES_IN_STATE);
+		w[1] = diffuse(w[0]).or(kr);
+		w[2] = diffuse(w[1]).or(w[0]);
+		w[3] = diffuse(w[2]).or(w[1]);
+		
+		long[][] words = new long[NUM_WORDS][];
+		long[][] roundKeys = new long[NUM_ROUND_KEYS][];
+		
+		for (int i = 0; i < NUM_WORDS; i++) {
+			words[i] = w[i].readLongs();
+		}
+		
+		roundKeys[0] = words[0];
+		roundKeys[1] = kr.readLongs();
+		
+		for (int i = 0; i < NUM_WORDS; i++) {
+			int j = (i + 1) % NUM_WORDS;
+			roundKeys[2 + i] = or(words[i], rotateRight(words[j], 19));
+			roundKeys[6 + i] = or(words[i], rotateRight(words[j], 31));
+			roundKeys[10 + i] = or(words[i], rotateLeft(words[j], 61));
+			roundKeys[14 + i] = or(words[i], rotateLeft(words[j], 31));
+		}
+		
+		roundKeys[18] = or(words[0], rotateLeft(words[1], 19));
+		return normalize(new ByteArray(roundKeys));
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == numRounds) {
+			state = addRoundKey(numRounds + 1, state);
+		} else {
+			state = diffuse(state);
+		}
+		
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		
+		if (round == numRounds) {
+			state = addRoundKey(numRounds + 1, state);
+		} else {
+			state = diffuse(state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeBytes(difference);
+	}
+	
+	private ByteArray diffuse(ByteArray state) {
+		ByteArray result = new ByteArray(ARIA.NUM_BYTES_IN_STATE);
+		short[][] mappings = ARIA.DIFFUSE_MAPPINGS;
+		int value;
+		
+		for (int i = 0; i < ARIA.NUM_BYTES_IN_STATE; i++) {
+			value = 0;
+			
+			for (int j = 0; j < mappings[i].length; j++) {
+				value |= state.get(mappings[i][j]);
+			}
+			
+			result.set(i, value);
+		}
+		
+		return result;
+	}
+	
+	private long[] or(long[] left, long[] right) {
+		return new long[] { left[0] | right[0], left[1] | right[1] };
+	}
+	
+	private long[] rotateLeft(long[] value, int rotation) {
+		return new long[] {
+			(value[0] << rotation) | (value[1] >>> (Long.SIZE - rotation)), 
+			(value[1] << rotation) | (value[0] >>> (Long.SIZE - rotation))
+		};
+	}
+	
+	private long[] rotateRight(long[] value, int rotation) {
+		return new long[] {
+			(value[0] >>> rotation) | (value[1] << (Long.SIZE - rotation)), 
+			(value[1] >>> rotation) | (value[0] << (Long.SIZE - rotation))
+		};
+	}
+	
+}
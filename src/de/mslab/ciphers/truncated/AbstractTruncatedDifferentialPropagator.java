@@ -0,0 +1,216 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+
+/**
+ * Provides the operations on truncated differences which are shared by the propagators. 
+ * The truncated difference of the expanded key is stored in the cipher itself, so round keys 
+ * are sliced by the cipher's own {@link RoundBasedBlockCipher#getRoundKey(int)}.  
+ */
+abstract class AbstractTruncatedDifferentialPropagator implements TruncatedDifferentialPropagator, Cloneable {
+	
+	private static final long LOW_BITS_OF_BYTES = 0x0101010101010101L;
+	private static final long LOW_BITS_OF_NIBBLES = 0x1111111111111111L;
+	
+	protected RoundBasedBlockCipher cipher;
+	protected ByteArray expandedKey;
+	protected int keySize;
+	protected int numRounds;
+	protected int stateSize;
+	
+	public TruncatedDifferentialPropagator copy() {
+		AbstractTruncatedDifferentialPropagator copy;
+		
+		try {
+			copy = (AbstractTruncatedDifferentialPropagator)clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e.getMessage());
+		}
+		
+		if (cipher != null) {
+			copy.cipher = cipher.copy();
+		}
+		
+		if (expandedKey != null) {
+			copy.expandedKey = expandedKey.clone();
+		}
+		
+		return copy;
+	}
+	
+	public RoundBasedBlockCipher getCipher() {
+		return cipher;
+	}
+	
+	public ByteArray getRoundKey(int round) {
+		return cipher.getRoundKey(round).clone();
+	}
+	
+	public void setCipher(RoundBasedBlockCipher cipher) {
+		this.cipher = cipher;
+		this.keySize = cipher.getKeySize();
+		this.numRounds = cipher.getNumRounds();
+		this.stateSize = cipher.getStateSize();
+	}
+	
+	public void setExpandedKey(ByteArray expandedKey) {
+		this.expandedKey = expandedKey;
+		cipher.setExpandedKey(expandedKey);
+	}
+	
+	/**
+	 * Joins the given round key into the state. 
+	 */
+	protected ByteArray addRoundKey(int round, ByteArray state) {
+		return state.or(getRoundKey(round));
+	}
+	
+	/**
+	 * Activates all bytes <code>first, first + step, ..., first + (num - 1) * step</code> of the 
+	 * given state, if at least one of them is active. 
+	 */
+	protected static ByteArray mixBytes(ByteArray state, int first, int step, int num) {
+		int end = first + num * step;
+		int value = 0;
+		
+		for (int i = first; i < end; i += step) {
+			value |= state.get(i);
+		}
+		
+		if (value != 0) {
+			for (int i = first; i < end; i += step) {
+				state.set(i, 0xFF);
+			}
+		}
+		
+		return state;
+	}
+	
+	/**
+	 * Activates all nibbles <code>first, first + step, ..., first + (num - 1) * step</code> of the 
+	 * given state, if at least one of them is active. 
+	 */
+	protected static ByteArray mixNibbles(ByteArray state, int first, int step, int num) {
+		int end = first + num * step;
+		int value = 0;
+		
+		for (int i = first; i < end; i += step) {
+			value |= state.getNibble(i);
+		}
+		
+		if (value != 0) {
+			for (int i = first; i < end; i += step) {
+				state.setNibble(i, 0xF);
+			}
+		}
+		
+		return state;
+	}
+	
+	/**
+	 * Sets all bits of each active byte. 
+	 */
+	protected static ByteArray normalizeBytes(ByteArray difference) {
+		ByteArray result = difference.clone();
+		long word;
+		
+		for (int i = 0; i < result.getNumWords(); i++) {
+			word = result.getWord(i);
+			word |= word >>> 4;
+			word |= word >>> 2;
+			word |= word >>> 1;
+			result.setWord(i, (word & LOW_BITS_OF_BYTES) * 0xFF);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Sets all bits of each active nibble. 
+	 */
+	protected static ByteArray normalizeNibbles(ByteArray difference) {
+		ByteArray result = difference.clone();
+		long word;
+		
+		for (int i = 0; i < result.getNumWords(); i++) {
+			word = result.getWord(i);
+			word |= word >>> 2;
+			word |= word >>> 1;
+			result.setWord(i, (word & LOW_BITS_OF_NIBBLES) * 0xF);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns a new state, where byte <code>i</code> is taken from byte <code>permutation[i]</code> 
+	 * of the given state. 
+	 */
+	protected static ByteArray permuteBytes(ByteArray state, int[] permutation) {
+		ByteArray result = new ByteArray(state.length());
+		
+		for (int i = 0; i < permutation.length; i++) {
+			result.set(i, state.get(permutation[i]));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns a new state, where nibble <code>i</code> is taken from nibble <code>permutation[i]</code> 
+	 * of the given state. 
+	 */
+	protected static ByteArray permuteNibbles(ByteArray state, int[] permutation) {
+		ByteArray result = new ByteArray(state.length());
+		
+		for (int i = 0; i < permutation.length; i++) {
+			result.setNibble(i, state.getNibble(permutation[i]));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Expands the truncated difference of a key part for ciphers with an AES-like key schedule, 
+	 * where each column is the sum of the column one key length before, and the previous column. 
+	 * The previous column is rotated by one row for the first column of each key length; 
+	 * the S-boxes and round constants are neutral to the activity. 
+	 */
+	protected ByteArray computeColumnwiseExpandedKey(ByteArray keyPart, int round, int numRows) {
+		int expandedKeySize = (numRounds + 1) * stateSize;
+		int indexOfFirstByte = Math.min(round * stateSize, expandedKeySize - keySize);
+		int numColumnsPerKey = keySize / numRows;
+		int firstColumn = indexOfFirstByte / numRows;
+		int numColumns = expandedKeySize / numRows;
+		
+		ByteArray expandedKey = new ByteArray(expandedKeySize);
+		expandedKey.copyBytes(normalize(keyPart), 0, indexOfFirstByte);
+		
+		for (int column = firstColumn + numColumnsPerKey; column < numColumns; column++) {
+			joinKeyColumns(expandedKey, numRows, column, column - numColumnsPerKey, column - 1, 
+				column % numColumnsPerKey == 0);
+		}
+		
+		for (int column = firstColumn - 1; column >= 0; column--) {
+			joinKeyColumns(expandedKey, numRows, column, column + numColumnsPerKey, 
+				column + numColumnsPerKey - 1, column % numColumnsPerKey == 0);
+		}
+		
+		return expandedKey;
+	}
+	
+	private void joinKeyColumns(ByteArray key, int numRows, int column, int otherColumn, 
+		int previousColumn, boolean rotate) {
+		int previousRow;
+		
+		for (int row = 0; row < numRows; row++) {
+			previousRow = rotate ? (row + 1) % numRows : row;
+			key.set(
+				column * numRows + row, 
+				key.get(otherColumn * numRows + row) | key.get(previousColumn * numRows + previousRow)
+			);
+		}
+	}
+	
+}
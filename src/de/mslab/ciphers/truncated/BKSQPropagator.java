@@ -0,0 +1,57 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through BKSQ with 96, 144, and 192 bit keys. 
+ */
+public class BKSQPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int NUM_COLUMNS_IN_STATE = 4;
+	private static final int NUM_ROWS_IN_STATE = 3;
+	private static final int[] PI = { 0, 10, 8, 3, 1, 11, 6, 4, 2, 9, 7, 5 };
+	private static final int[] INVERSE_PI = { 0, 4, 8, 3, 7, 11, 6, 10, 2, 9, 1, 5 };
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		return computeColumnwiseExpandedKey(keyPart, round, NUM_ROWS_IN_STATE);
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		state = permuteBytes(state, INVERSE_PI);
+		state = theta(state);
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+			state = theta(state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == 1) {
+			state = theta(state);
+			state = addRoundKey(0, state);
+		}
+		
+		state = theta(state);
+		state = permuteBytes(state, PI);
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeBytes(difference);
+	}
+	
+	private ByteArray theta(ByteArray state) {
+		for (int column = 0; column < NUM_COLUMNS_IN_STATE; column++) {
+			mixBytes(state, column * NUM_ROWS_IN_STATE, 1, NUM_ROWS_IN_STATE);
+		}
+		
+		return state;
+	}
+	
+}
@@ -0,0 +1,132 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through KLEIN with 64, 80, and 96 bit keys. KLEIN applies 
+ * its S-boxes nibble-wise, but rotates and mixes the state byte-wise. Thus, truncated differences 
+ * are tracked per nibble, and the mixing activates both nibbles of all bytes in a column. 
+ */
+public class KLEINPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int NUM_BYTES_IN_COLUMN = 4;
+	private static final int NUM_BYTES_TO_ROTATE = 2;
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		ByteArray expandedKey = new ByteArray((numRounds + 1) * keySize);
+		
+		if (round <= numRounds) {
+			expandKeyForwards(expandedKey, normalize(keyPart), round);
+		}
+		
+		if (round > 0) {
+			expandKeyBackwards(expandedKey, normalize(keyPart), round);
+		}
+		
+		return expandedKey;
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == numRounds) {
+			state = addRoundKey(round + 1, state);
+		}
+		
+		state = mixNibbles(state);
+		state = rotateNibbles(state, stateSize - NUM_BYTES_TO_ROTATE);
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		state = rotateNibbles(state, NUM_BYTES_TO_ROTATE);
+		state = mixNibbles(state);
+		
+		if (round == numRounds) {
+			state = addRoundKey(round + 1, state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeNibbles(difference);
+	}
+	
+	private void expandKeyBackwards(ByteArray expandedKey, ByteArray roundKey, int round) {
+		int halfLength = keySize / 2;
+		expandedKey.copyBytes(roundKey, 0, (round - 1) * keySize);
+		
+		for (round--; round >= 1; round--) {
+			roundKey = invertFeistelKey(roundKey, halfLength);
+			roundKey = rotateHalfKeys(roundKey, halfLength, halfLength - 1);
+			expandedKey.copyBytes(roundKey, 0, (round - 1) * keySize);
+		}
+	}
+	
+	private void expandKeyForwards(ByteArray expandedKey, ByteArray roundKey, int round) {
+		int halfLength = keySize / 2;
+		expandedKey.copyBytes(roundKey, 0, (round - 1) * keySize);
+		
+		for (round++; round <= numRounds + 1; round++) {
+			roundKey = rotateHalfKeys(roundKey, halfLength, 1);
+			roundKey = feistelKey(roundKey, halfLength);
+			expandedKey.copyBytes(roundKey, 0, (round - 1) * keySize);
+		}
+	}
+	
+	private ByteArray feistelKey(ByteArray roundKey, int halfLength) {
+		ByteArray left = roundKey.splice(0, halfLength);
+		ByteArray right = roundKey.splice(halfLength);
+		ByteArray result = new ByteArray(keySize);
+		result.copyBytes(right);
+		result.copyBytes(left.or(right), 0, halfLength);
+		return result;
+	}
+	
+	private ByteArray invertFeistelKey(ByteArray roundKey, int halfLength) {
+		ByteArray left = roundKey.splice(0, halfLength);
+		ByteArray right = roundKey.splice(halfLength);
+		ByteArray result = new ByteArray(keySize);
+		result.copyBytes(right.or(left));
+		result.copyBytes(left, 0, halfLength);
+		return result;
+	}
+	
+	private ByteArray mixNibbles(ByteArray state) {
+		for (int column = 0; column < stateSize; column += NUM_BYTES_IN_COLUMN) {
+			mixBytes(state, column, 1, NUM_BYTES_IN_COLUMN);
+		}
+		
+		return state;
+	}
+	
+	/**
+	 * Rotates each half of the key by the given number of bytes to the left.  
+	 */
+	private ByteArray rotateHalfKeys(ByteArray roundKey, int halfLength, int numBytes) {
+		ByteArray result = new ByteArray(keySize);
+		
+		for (int i = 0; i < halfLength; i++) {
+			result.set(i, roundKey.get((i + numBytes) % halfLength));
+			result.set(halfLength + i, roundKey.get(halfLength + (i + numBytes) % halfLength));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Rotates the state by the given number of bytes to the left.  
+	 */
+	private ByteArray rotateNibbles(ByteArray state, int numBytes) {
+		ByteArray result = new ByteArray(stateSize);
+		
+		for (int i = 0; i < stateSize; i++) {
+			result.set(i, state.get((i + numBytes) % stateSize));
+		}
+		
+		return result;
+	}
+	
+}
@@ -0,0 +1,98 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through Khazad. Since the linear layer theta is an 
+ * MDS matrix over the full state, every active byte activates the whole state.  
+ */
+public class KhazadPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int NUM_ROUND_KEYS_IN_PART = 2;
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		ByteArray expandedKey = new ByteArray((numRounds + 1) * stateSize);
+		ByteArray key = normalize(keyPart);
+		
+		if (round < numRounds) {
+			expandedKey.copyBytes(key, 0, round * stateSize);
+		} else if (round == numRounds) {
+			expandedKey.copyBytes(key, 0, (round - 1) * stateSize);
+		}
+		
+		if (round + NUM_ROUND_KEYS_IN_PART <= numRounds) {
+			expandKeyForwards(expandedKey, key, round + NUM_ROUND_KEYS_IN_PART);
+		}
+		
+		if (round == numRounds) {
+			expandKeyBackwards(expandedKey, key, round - 2);
+		} else if (round > 0) {
+			expandKeyBackwards(expandedKey, key, round - 1);
+		}
+		
+		return expandedKey;
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		
+		if (round != numRounds) {
+			state = theta(state);
+		}
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		if (round != numRounds) {
+			state = theta(state);
+		}
+		
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeBytes(difference);
+	}
+	
+	private void expandKeyBackwards(ByteArray expandedKey, ByteArray key, int round) {
+		ByteArray nextKey = key.splice(0, stateSize);
+		ByteArray nextNextKey = key.splice(stateSize, 2 * stateSize);
+		ByteArray roundKey;
+		
+		for (; round >= 0; round--) {
+			roundKey = theta(nextKey.clone()).or(nextNextKey);
+			expandedKey.copyBytes(roundKey, 0, round * stateSize);
+			nextNextKey = nextKey;
+			nextKey = roundKey;
+		}
+	}
+	
+	private void expandKeyForwards(ByteArray expandedKey, ByteArray key, int round) {
+		ByteArray previousPreviousKey = key.splice(0, stateSize);
+		ByteArray previousKey = key.splice(stateSize, 2 * stateSize);
+		ByteArray roundKey;
+		
+		for (; round <= numRounds; round++) {
+			roundKey = theta(previousKey.clone()).or(previousPreviousKey);
+			expandedKey.copyBytes(roundKey, 0, round * stateSize);
+			previousPreviousKey = previousKey;
+			previousKey = roundKey;
+		}
+	}
+	
+	private ByteArray theta(ByteArray state) {
+		return mixBytes(state, 0, 1, stateSize);
+	}
+	
+}
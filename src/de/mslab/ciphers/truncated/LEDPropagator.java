@@ -0,0 +1,65 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through LED with 64 to 128 bit keys. The differences are 
+ * tracked per nibble. LED has no key schedule, so the expanded key is the key part itself.  
+ */
+public class LEDPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int NUM_CELLS_IN_ROW = 4;
+	private static final int[] SHIFT_ROWS = { 0, 1, 2, 3, 5, 6, 7, 4, 10, 11, 8, 9, 15, 12, 13, 14 };
+	private static final int[] INVERSE_SHIFT_ROWS = { 0, 1, 2, 3, 7, 4, 5, 6, 10, 11, 8, 9, 13, 14, 15, 12 };
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		return normalize(keyPart);
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round != 1 && cipher.hasKeyInjectionInRound(round)) {
+			state = addRoundKey(round, state);
+		}
+		
+		state = mixColumnsSerial(state);
+		state = permuteNibbles(state, INVERSE_SHIFT_ROWS);
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+		}
+		
+		state = permuteNibbles(state, SHIFT_ROWS);
+		state = mixColumnsSerial(state);
+		
+		if (round != 1 && cipher.hasKeyInjectionInRound(round)) {
+			state = addRoundKey(round, state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeNibbles(difference);
+	}
+	
+	private ByteArray mixColumnsSerial(ByteArray state) {
+		for (int column = 0; column < NUM_CELLS_IN_ROW; column++) {
+			mixNibbles(state, column, NUM_CELLS_IN_ROW, NUM_CELLS_IN_ROW);
+		}
+		
+		return state;
+	}
+	
+}
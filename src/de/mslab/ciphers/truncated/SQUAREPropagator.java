@@ -0,0 +1,100 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.SQUARE;
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through SQUARE. 
+ */
+public class SQUAREPropagator extends AbstractTruncatedDifferentialPropagator {
+	
+	private static final int[] PI = { 0, 4, 8, 12, 1, 5, 9, 13, 2, 6, 10, 14, 3, 7, 11, 15 };
+	private static final int[] ROTATED_LAST_ROW = { 13, 14, 15, 12 };
+	
+	public ByteArray computeExpandedKey(ByteArray keyPart, int round) {
+		ByteArray expandedKey = new ByteArray((numRounds + 1) * stateSize);
+		ByteArray roundKey = normalize(keyPart);
+		expandedKey.copyBytes(roundKey, 0, round * stateSize);
+		
+		for (int i = round + 1; i <= numRounds; i++) {
+			roundKey = expandRoundKey(roundKey);
+			expandedKey.copyBytes(roundKey, 0, i * stateSize);
+		}
+		
+		roundKey = normalize(keyPart);
+		
+		for (int i = round - 1; i >= 0; i--) {
+			roundKey = invertExpandRoundKey(roundKey);
+			expandedKey.copyBytes(roundKey, 0, i * stateSize);
+		}
+		
+		return expandedKey;
+	}
+	
+	public ByteArray decryptRound(ByteArray state, int round) {
+		state = addRoundKey(round, state.clone());
+		state = permuteBytes(state, PI);
+		state = theta(state);
+		
+		if (round == 1) {
+			state = addRoundKey(0, state);
+			state = theta(state);
+		}
+		
+		return state;
+	}
+	
+	public ByteArray encryptRound(ByteArray state, int round) {
+		state = state.clone();
+		
+		if (round == 1) {
+			state = theta(state);
+			state = addRoundKey(0, state);
+		}
+		
+		state = theta(state);
+		state = permuteBytes(state, PI);
+		return addRoundKey(round, state);
+	}
+	
+	public ByteArray normalize(ByteArray difference) {
+		return normalizeBytes(difference);
+	}
+	
+	private ByteArray expandRoundKey(ByteArray roundKey) {
+		ByteArray nextRoundKey = new ByteArray(stateSize);
+		
+		for (int j = 0; j < SQUARE.NUM_COLUMNS_IN_STATE; j++) {
+			nextRoundKey.set(j, roundKey.get(j) | roundKey.get(ROTATED_LAST_ROW[j]));
+		}
+		
+		for (int i = SQUARE.NUM_COLUMNS_IN_STATE; i < stateSize; i++) {
+			nextRoundKey.set(i, roundKey.get(i) | nextRoundKey.get(i - SQUARE.NUM_COLUMNS_IN_STATE));
+		}
+		
+		return nextRoundKey;
+	}
+	
+	private ByteArray invertExpandRoundKey(ByteArray roundKey) {
+		ByteArray previousRoundKey = new ByteArray(stateSize);
+		
+		for (int i = stateSize - 1; i >= SQUARE.NUM_COLUMNS_IN_STATE; i--) {
+			previousRoundKey.set(i, roundKey.get(i) | roundKey.get(i - SQUARE.NUM_COLUMNS_IN_STATE));
+		}
+		
+		for (int j = 0; j < SQUARE.NUM_COLUMNS_IN_STATE; j++) {
+			previousRoundKey.set(j, roundKey.get(j) | previousRoundKey.get(ROTATED_LAST_ROW[j]));
+		}
+		
+		return previousRoundKey;
+	}
+	
+	private ByteArray theta(ByteArray state) {
+		for (int row = 0; row < SQUARE.NUM_ROWS_IN_STATE; row++) {
+			mixBytes(state, row * SQUARE.NUM_COLUMNS_IN_STATE, 1, SQUARE.NUM_COLUMNS_IN_STATE);
+		}
+		
+		return state;
+	}
+	
+}
@@ -0,0 +1,59 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+
+/**
+ * Propagates truncated differences through the rounds of a cipher. A truncated difference 
+ * marks each active byte or nibble by setting all of its bits, and each inactive one by zero. 
+ * Non-linear operations keep the activity of a component, linear operations activate all 
+ * components which depend on an active one, and key additions join the activity of state and key.
+ * Cancellations are not modeled, so the result covers every concrete difference which 
+ * follows the given truncated input difference. 
+ * 
+ * The methods mirror those of the {@link RoundBasedBlockCipher}, so that a propagator can be 
+ * used in place of its cipher whenever only the activity of a differential is of interest. 
+ */
+public interface TruncatedDifferentialPropagator {
+	
+	/**
+	 * Computes the truncated difference of the expanded key from the truncated difference of 
+	 * the given key part, which is injected at the given round. 
+	 * @see RoundBasedBlockCipher#computeExpandedKey(ByteArray, int)
+	 */
+	ByteArray computeExpandedKey(ByteArray keyPart, int round);
+	/**
+	 * Returns a new propagator for a copy of the cipher of this propagator, so that concurrent 
+	 * threads can each propagate with their own instance. 
+	 * @see RoundBasedBlockCipher#copy()
+	 */
+	TruncatedDifferentialPropagator copy();
+	/**
+	 * Propagates the given truncated state difference backwards through the given round.  
+	 * @see RoundBasedBlockCipher#decryptRound(ByteArray, int)
+	 */
+	ByteArray decryptRound(ByteArray state, int round);
+	/**
+	 * Propagates the given truncated state difference forwards through the given round.  
+	 * @see RoundBasedBlockCipher#encryptRound(ByteArray, int)
+	 */
+	ByteArray encryptRound(ByteArray state, int round);
+	RoundBasedBlockCipher getCipher();
+	/**
+	 * Returns the truncated difference of the round key of the given round, taken from 
+	 * the truncated difference of the expanded key which was set before.  
+	 * @see RoundBasedBlockCipher#getRoundKey(int)
+	 */
+	ByteArray getRoundKey(int round);
+	/**
+	 * Returns a truncated difference, where all bits of each byte or nibble are set, 
+	 * which contains an active bit in the given difference.  
+	 */
+	ByteArray normalize(ByteArray difference);
+	void setCipher(RoundBasedBlockCipher cipher);
+	/**
+	 * Sets the truncated difference of the expanded key for the next propagations.  
+	 */
+	void setExpandedKey(ByteArray expandedKey);
+	
+}
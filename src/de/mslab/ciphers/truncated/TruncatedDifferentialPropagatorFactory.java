@@ -0,0 +1,65 @@
+package de.mslab.ciphers.truncated;
+
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.errors.NoSuchCipherError;
+
+public class TruncatedDifferentialPropagatorFactory {
+	
+	/**
+	 * Returns true if there is a propagator for the cipher with the given name.
+	 */
+	public static boolean canCreatePropagator(CipherName cipherName) {
+		switch(cipherName) {
+			case AES128: case AES192: case AES256: 
+			case ARIA128: case ARIA192: case ARIA256: 
+			case BKSQ96: case BKSQ144: case BKSQ192: 
+			case KHAZAD: case KLEIN64: case KLEIN80: case KLEIN96: 
+			case LED64: case LED80: case LED96: case LED112: case LED128: 
+			case SQUARE: 
+				return true;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * Creates a propagator for the given cipher instance, which must have been created 
+	 * from the given name. 
+	 * @return A propagator which implements the {@link TruncatedDifferentialPropagator} interface.
+	 * @throws NoSuchCipherError If there is no propagator for the cipher with the given name.
+	 */
+	public static TruncatedDifferentialPropagator createPropagator(CipherName cipherName, 
+		RoundBasedBlockCipher cipher) {
+		TruncatedDifferentialPropagator propagator = createPropagator(cipherName);
+		propagator.setCipher(cipher);
+		return propagator;
+	}
+	
+	private static TruncatedDifferentialPropagator createPropagator(CipherName cipherName) {
+		switch(cipherName) {
+			case AES128: 
+			case AES192: 
+			case AES256: return new AESPropagator();
+			case ARIA128: 
+			case ARIA192: 
+			case ARIA256: return new ARIAPropagator();
+			case BKSQ96: 
+			case BKSQ144: 
+			case BKSQ192: return new BKSQPropagator();
+			case KHAZAD: return new KhazadPropagator();
+			case KLEIN64: 
+			case KLEIN80: 
+			case KLEIN96: return new KLEINPropagator();
+			case LED64: 
+			case LED80: 
+			case LED96: 
+			case LED112: 
+			case LED128: return new LEDPropagator();
+			case SQUARE: return new SQUAREPropagator();
+			default:
+				throw new NoSuchCipherError(cipherName.toString());
+		}
+	}
+	
+}
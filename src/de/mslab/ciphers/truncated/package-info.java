@@ -0,0 +1,8 @@
+/**
+ * Provides propagators which trace truncated differentials, that is only the pattern of active 
+ * bytes or nibbles, through the round functions and key schedules of the individual block ciphers. 
+ * A truncated differential over-approximates the union of all concrete differentials of a 
+ * key difference space, and can be computed in a single pass.
+ */
+
+package de.mslab.ciphers.truncated;
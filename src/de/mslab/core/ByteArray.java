@@ -12,11 +12,27 @@ import de.mslab.errors.InvalidArgumentError;
 
 /**
  * Represents an abstraction of a byte array as used in many parts of this framework.
- * 
+ * Internally, the bytes are packed into 64-bit words, where the byte at position i is stored 
+ * in the word at index i / 8, and the byte at the lowest position of a word forms the most 
+ * significant eight bits of it. Bits in the last word which do not belong to the byte array 
+ * are always zero. This allows to apply logical operations to eight bytes at once. 
  */
 public class ByteArray implements Externalizable,Cloneable {
 	
-	protected short[] array = new short[0];
+	private static final int NUM_BYTES_IN_WORD = Long.SIZE / Byte.SIZE;
+	private static final long HIGH_BITS_OF_BYTES = 0x8080808080808080L;
+	private static final long LOW_BITS_OF_BYTES = 0x7F7F7F7F7F7F7F7FL;
+	private static final long HIGH_BITS_OF_NIBBLES = 0x8888888888888888L;
+	private static final long LOW_BITS_OF_NIBBLES = 0x7777777777777777L;
+	
+	/**
+	 * The packed bytes. 
+	 */
+	protected long[] words = new long[0];
+	/**
+	 * The number of bytes in this byte array.
+	 */
+	protected int numBytes = 0;
 	
 	/**
 	 * Creates a new byte array.
@@ -30,10 +46,10 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * is treated as a byte.
 	 */
 	public ByteArray(short[] values) {
-		this.array = new short[values.length];
+		allocate(values.length);
 		
 		for (int i = 0; i < values.length; i++) {
-			array[i] = (short)(values[i] & 0xFF);
+			setUnchecked(i, values[i]);
 		}
 	}
 	
@@ -42,10 +58,10 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * is treated as a byte, i.e., only its least-significant eight bits are used. 
 	 */
 	public ByteArray(int[] values) {
-		this.array = new short[values.length];
+		allocate(values.length);
 		
 		for (int i = 0; i < values.length; i++) {
-			array[i] = (short)(values[i] & 0xFF);
+			setUnchecked(i, values[i]);
 		}
 	}
 	
@@ -56,10 +72,10 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * with zeroes.
 	 */
 	public ByteArray(int[] values, int position) {
-		this.array = new short[values.length + position];
+		allocate(values.length + position);
 		
 		for (int i = 0; i < values.length; i++) {
-			array[i + position] = (short)(values[i] & 0xFF);
+			setUnchecked(i + position, values[i]);
 		}
 	}
 	
@@ -67,7 +83,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Creates a new byte array and initializes it with <code>length</code> zeroes.
 	 */
 	public ByteArray(int length) {
-		this.array = new short[length];
+		allocate(length);
 	}
 	
 	/**
@@ -91,8 +107,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * treated as a sequence of eight bytes.
 	 */
 	public ByteArray(long[] words) {
-		this.array = new short[words.length * 8];
-		writeLongs(0, words);
+		allocate(words.length * NUM_BYTES_IN_WORD);
+		System.arraycopy(words, 0, this.words, 0, words.length);
 	}
 	
 	/**
@@ -101,28 +117,31 @@ public class ByteArray implements Externalizable,Cloneable {
 	 */
 	public ByteArray(long[][] wordArrays) {
 		int totalSize = 0;
-		int numBytesPerLong = Long.SIZE / Byte.SIZE;
 		
 		for (int i = 0; i < wordArrays.length; i++) {
-			totalSize += wordArrays[i].length * numBytesPerLong; 
+			totalSize += wordArrays[i].length * NUM_BYTES_IN_WORD; 
 		}
 		
-		this.array = new short[totalSize];
+		allocate(totalSize);
 		int position = 0;
 		long[] element;
 		
 		for (int i = 0; i < wordArrays.length; i++) {
 			element = wordArrays[i];
-			writeLongs(position, element);
-			position += element.length * numBytesPerLong;
+			System.arraycopy(element, 0, words, position, element.length);
+			position += element.length;
 		}
 	}
 	
+	/**
+	 * Creates a new byte array, and initializes it with the given bytes. Negative bytes are stored
+	 * as their unsigned values, e.g. <code>(byte)0x80</code> as 0x80.
+	 */
 	public ByteArray(byte[] input) {
-		array = new short[input.length];
+		allocate(input.length);
 		
 		for (int i = 0; i < input.length; i++) {
-			array[i] = input[i];
+			setUnchecked(i, input[i]);
 		}
 	}
 
@@ -141,8 +160,14 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * @param other The second parameter of the AND operation.
 	 */
 	public ByteArray and(ByteArray other) {
-		for (int i = 0; i < array.length; i++) {
-			array[i] &= other.array[i];
+		if (other.numBytes < numBytes) {
+			throw new ArrayIndexOutOfBoundsException(other.numBytes);
+		}
+		
+		final int numWords = words.length;
+		
+		for (int i = 0; i < numWords; i++) {
+			words[i] &= other.words[i];
 		}
 		
 		return this;
@@ -152,12 +177,9 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Creates a deep copy of the current ByteArray.
 	 */
 	public ByteArray clone() {
-		ByteArray copy = new ByteArray(length());
-		
-		for (int i = 0; i < array.length; i++) {
-			copy.set(i, get(i));
-		}
-		
+		ByteArray copy = new ByteArray();
+		copy.numBytes = numBytes;
+		copy.words = words.clone();
 		return copy;
 	}
 	
@@ -166,17 +188,10 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Modifies the current byte array; the other byte array is not modified.
 	 */
 	public void concat(ByteArray other) {
-		short[] temp = new short[length() + other.length()];
-		
-		for (int i = 0; i < array.length; i++) {
-			temp[i] = array[i];
-		}
-		
-		for (int i = 0; i < other.length(); i++) {
-			temp[i + array.length] = other.array[i];
-		}
-		
-		this.array = temp;
+		final int oldLength = numBytes;
+		final int otherLength = other.numBytes;
+		resize(oldLength + otherLength);
+		copyRange(other.words, 0, words, oldLength, otherLength);
 	}
 	
 	/**
@@ -185,7 +200,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Modifies the current byte array; the other byte array is not modified.
 	 */
 	public void copyByte(ByteArray source, int sourceIndex, int destinationIndex) {
-		array[destinationIndex] = source.array[sourceIndex];
+		set(destinationIndex, source.get(sourceIndex));
 	}
 	
 	/**
@@ -233,9 +248,7 @@ public class ByteArray implements Externalizable,Cloneable {
 			throw new ArrayIndexOutOfBoundsException();
 		}
 		
-		for (int i = 0; i < numBytes; i++) {
-			array[destinationIndex + i] = source.array[sourceFrom + i];
-		}
+		copyRange(source.words, sourceFrom, words, destinationIndex, numBytes);
 	}
 	
 	/**
@@ -243,17 +256,9 @@ public class ByteArray implements Externalizable,Cloneable {
 	 */
 	public int countNumActiveBits() {
 		int numActiveBits = 0;
-		int value;
-		final int mask = 1; 
-		
-		for (int i = 0; i < array.length; i++) {
-			value = array[i];
-			for (int j = 0; j < 8; j++) {
-				if ((value & mask) != 0) {
-					numActiveBits++;
-				}
-				value >>= 1;
-			}
+		
+		for (int i = 0; i < words.length; i++) {
+			numActiveBits += Long.bitCount(words[i]);
 		}
 		
 		return numActiveBits;
@@ -265,10 +270,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	public int countNumActiveBytes() {
 		int numActiveBytes = 0;
 		
-		for (int i = 0; i < array.length; i++) {
-			if (array[i] != 0) {
-				numActiveBytes++;
-			}
+		for (int i = 0; i < words.length; i++) {
+			numActiveBytes += Long.bitCount(findActiveBytes(words[i]));
 		}
 		
 		return numActiveBytes;
@@ -280,14 +283,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	public int countNumActiveNibbles() {
 		int numActiveNibbles = 0;
 		
-		for (int i = 0; i < array.length; i++) {
-			if ((array[i] & 0x0F) != 0) {
-				numActiveNibbles++;
-			}
-			
-			if ((array[i] & 0xF0) != 0) {
-				numActiveNibbles++;
-			}
+		for (int i = 0; i < words.length; i++) {
+			numActiveNibbles += Long.bitCount(findActiveNibbles(words[i]));
 		}
 		
 		return numActiveNibbles;
@@ -299,8 +296,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * returns <code>false</code> otherwise.  
 	 */
 	public boolean equals(int value) {
-		for (int i = 0; i < length(); i++) {
-			if (get(i) != value) {
+		for (int i = 0; i < numBytes; i++) {
+			if (getUnchecked(i) != value) {
 				return false;
 			}
 		}
@@ -318,8 +315,8 @@ public class ByteArray implements Externalizable,Cloneable {
 			return false;
 		}
 		
-		for (int i = 0; i < length(); i++) {
-			if (get(i) != (other[i] & 0xFF)) {
+		for (int i = 0; i < numBytes; i++) {
+			if (getUnchecked(i) != (other[i] & 0xFF)) {
 				return false;
 			}
 		}
@@ -333,11 +330,11 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * the given <code>other</code> byte array are equal. Returns <code>false</code> otherwise.
 	 */
 	public boolean equals(ByteArray other) {
-		if (array.length != other.array.length) {
+		if (numBytes != other.numBytes) {
 			return false;
 		}
 		
-		return Arrays.equals(array, other.array);
+		return Arrays.equals(words, other.words);
 	}
 	
 	public boolean equals(Object object) {
@@ -355,23 +352,23 @@ public class ByteArray implements Externalizable,Cloneable {
 	}
 	
 	public int hashCode() {
-		assert false : "hashCode not implemented";
-		return -1;
+		return 31 * numBytes + Arrays.hashCode(words);
 	}
 	
 	/**
 	 * Returns the byte value at the given position.
 	 */
 	public short get(int position) {
-		return array[position];
+		checkPosition(position);
+		return getUnchecked(position);
 	}
 	
 	@XmlElement
 	/**
-	 * Returns a reference to the internal array.
+	 * Returns a copy of the byte values, where each byte is stored in a short.
 	 */
 	public short[] getArray() {
-		return array;
+		return getArray(0, numBytes);
 	}
 	
 	/**
@@ -383,7 +380,7 @@ public class ByteArray implements Externalizable,Cloneable {
 		int position = 0;
 		
 		for (int i = from; i < to; i++) {
-			result[position++] = array[i];
+			result[position++] = get(i);
 		}
 		
 		return result;
@@ -396,7 +393,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	public boolean getBit(int position) {
 		int bitIndex = position % 8;
 		int mask = getByteMaskWithOneActiveBit(bitIndex);
-		return (array[position / 8] & mask) != 0;
+		return (get(position / 8) & mask) != 0;
 	}
 	
 	/**
@@ -417,25 +414,51 @@ public class ByteArray implements Externalizable,Cloneable {
 	
 	public int getNibble(int position) {
 		if ((position & 1) == 0) {
-			return (array[position / 2]  >> 4) & 0xF;
+			return (get(position / 2)  >> 4) & 0xF;
 		} else {
 			position--;
-			return array[position / 2] & 0xF;
+			return get(position / 2) & 0xF;
 		}
 	}
 	
+	/**
+	 * Returns the number of 64-bit words which are used internally to store the bytes.
+	 */
+	public int getNumWords() {
+		return words.length;
+	}
+	
+	/**
+	 * Returns the 64-bit word at the given index, which contains the bytes at positions 
+	 * <code>8 * index</code> to <code>8 * index + 7</code>, where the byte at position 
+	 * <code>8 * index</code> forms the most significant eight bits. If the length of the byte array
+	 * is not a multiple of eight, the unused bytes of the last word are zero. 
+	 */
+	public long getWord(int index) {
+		return words[index];
+	}
+	
 	/**
 	 * Tests if all bytes in the byte array are not equal to zero.
 	 * @return Returns <code>true</code>, if there is no byte equal to zero in the current byte array;
 	 * <true>false</true> otherwise.  
 	 */
 	public boolean isFullyActive() {
-		for (int i = 0; i < array.length; i++) {
-			if (array[i] == 0) {
+		final int numFullWords = numBytes / NUM_BYTES_IN_WORD;
+		
+		for (int i = 0; i < numFullWords; i++) {
+			if (findActiveBytes(words[i]) != HIGH_BITS_OF_BYTES) {
 				return false;
 			}
 		}
 		
+		final int numRemainingBytes = numBytes % NUM_BYTES_IN_WORD;
+		
+		if (numRemainingBytes != 0) {
+			final long mask = HIGH_BITS_OF_BYTES & createByteRangeMask(0, numRemainingBytes);
+			return findActiveBytes(words[numFullWords]) == mask;
+		}
+		
 		return true;
 	}
 	
@@ -443,7 +466,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Returns the length of the current byte array.
 	 */
 	public int length() {
-		return array.length;
+		return numBytes;
 	}
 	
 	/**
@@ -452,18 +475,38 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * @param other
 	 */
 	public ByteArray or(ByteArray other) {
-		if (array.length <= other.array.length) {
-			return or(other, 0, array.length);
+		if (numBytes <= other.numBytes) {
+			return or(other, 0, numBytes);
 		} else {
-			return or(other, 0, other.array.length);
+			return or(other, 0, other.numBytes);
 		}
 	}
 	
 	public ByteArray or(ByteArray other, int from, int to) {
-		for (int i = from; i < to; i++) {
-			array[i] |= other.array[i];
+		if (from >= to) {
+			return this;
+		}
+		
+		checkRange(from, to);
+		other.checkRange(from, to);
+		
+		final int firstWord = from / NUM_BYTES_IN_WORD;
+		final int lastWord = (to - 1) / NUM_BYTES_IN_WORD;
+		final long firstMask = createByteRangeMask(from % NUM_BYTES_IN_WORD, NUM_BYTES_IN_WORD);
+		final long lastMask = createByteRangeMask(0, to - lastWord * NUM_BYTES_IN_WORD);
+		
+		if (firstWord == lastWord) {
+			words[firstWord] |= other.words[firstWord] & firstMask & lastMask;
+			return this;
+		}
+		
+		words[firstWord] |= other.words[firstWord] & firstMask;
+		
+		for (int i = firstWord + 1; i < lastWord; i++) {
+			words[i] |= other.words[i];
 		}
 		
+		words[lastWord] |= other.words[lastWord] & lastMask;
 		return this;
 	}
 	
@@ -471,8 +514,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Sets every byte in the current ByteArray to a random value between [0 ... 255].
 	 */
 	public void randomize() {
-		for (int i = 0; i < array.length; i++) {
-			array[i] = (short)(Math.round(Math.random() * 0xFF) & 0xFF);
+		for (int i = 0; i < numBytes; i++) {
+			setUnchecked(i, (int)Math.round(Math.random() * 0xFF));
 		}
 	}
 	
@@ -484,13 +527,15 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * @throws ArrayIndexOutOfBoundsException If the length of the ByteArray is less or equal to position + 8.
 	 */
 	public long readLong(int position) {
-		long word = 0;
+		checkRange(position, position + NUM_BYTES_IN_WORD);
+		final int wordIndex = position / NUM_BYTES_IN_WORD;
+		final int shift = (position % NUM_BYTES_IN_WORD) * Byte.SIZE;
 		
-		for (int i = 0; i < 8; i++) {
-			word |= ((long) (array[position + 7 - i] & 0xFF)) << ((i) * 8);
+		if (shift == 0) {
+			return words[wordIndex];
+		} else {
+			return (words[wordIndex] << shift) | (words[wordIndex + 1] >>> (Long.SIZE - shift));
 		}
-		
-		return word;
 	}
 	
 	/**
@@ -510,74 +555,90 @@ public class ByteArray implements Externalizable,Cloneable {
 	
 	public long[] readLongs(int position, int numToRead) {
 		long[] results = new long[numToRead];
-		long word = 0;
+		
+		if (position % NUM_BYTES_IN_WORD == 0 && numToRead > 0) {
+			checkRange(position, position + numToRead * NUM_BYTES_IN_WORD);
+			System.arraycopy(words, position / NUM_BYTES_IN_WORD, results, 0, numToRead);
+			return results;
+		}
 		
 		for (int i = 0; i < numToRead; i++) {
-			word = readLong(position + i * 8);
-			results[i] = word;
+			results[i] = readLong(position + i * 8);
 		}
 		
 		return results;
 	}
 	
+	/**
+	 * Copies the 64-bit words, which store the bytes internally, into the given array without 
+	 * allocating memory. The words are interpreted as in {@link #getWord(int)}; the given array 
+	 * must hold at least {@link #getNumWords()} elements. 
+	 */
+	public void readWords(long[] target) {
+		System.arraycopy(words, 0, target, 0, words.length);
+	}
+	
 	public void set(int position, boolean value) {
-		array[position] = value ? (short)0xFF : 0;
+		set(position, value ? 0xFF : 0);
 	}
 	
 	public void set(int position, short value) {
-		array[position] = (short)(value & 0xFF);
+		checkPosition(position);
+		setUnchecked(position, value);
 	}
 	
 	public void set(int position, int value) {
-		array[position] = (short)(value & 0xFF);
+		checkPosition(position);
+		setUnchecked(position, value);
 	}
 	
 	public void setArray(short[] shorts) {
-		array = new short[shorts.length];
+		allocate(shorts.length);
 		
 		for (int i = 0; i < shorts.length; i++) {
-			array[i] = (short)(shorts[i] & 0xFF);
+			setUnchecked(i, shorts[i]);
 		}
 	}
 	
 	public void setAtEnd(int position, boolean value) {
-		int byteIndex = array.length - position - 1;
-		array[byteIndex] = value ? (short)0xFF : 0;
+		int byteIndex = numBytes - position - 1;
+		set(byteIndex, value ? 0xFF : 0);
 	}
 	
 	public void setAtEnd(int position, short value) {
-		int byteIndex = array.length - position - 1;
-		array[byteIndex] = (short)(value & 0xFF);
+		int byteIndex = numBytes - position - 1;
+		set(byteIndex, value);
 	}
 	
 	public void setBit(int position, boolean value) {
 		int mask = 0;
 		int bitIndex = position % 8;
+		int byteIndex = position / 8;
 		
 		if (value) {
 			mask = getByteMaskWithOneActiveBit(bitIndex);
-			array[position / 8] |= mask;
+			set(byteIndex, get(byteIndex) | mask);
 		} else {
 			mask = getByteMaskWithOneNonActiveBit(bitIndex);
-			array[position / 8] &= mask;
+			set(byteIndex, get(byteIndex) & mask);
 		}
 	}
 	
 	public void setBitAtEnd(int bitPosition, boolean value) {
-		int bytePosition = array.length 
+		int bytePosition = numBytes 
 			- (int)Math.ceil((double)(bitPosition + 1) / Byte.SIZE);
 		
-		if (bytePosition < 0 || bytePosition >= array.length) {
+		if (bytePosition < 0 || bytePosition >= numBytes) {
 			throw new ArrayIndexOutOfBoundsException();
 		}
 		
 		int mask = 1 << (bitPosition % 8);
 		
 		if (value) {
-			array[bytePosition] |= (mask & 0xFF);
+			set(bytePosition, get(bytePosition) | (mask & 0xFF));
 		} else {
 			mask ^= 0xFF;
-			array[bytePosition] &= (mask & 0xFF);
+			set(bytePosition, get(bytePosition) & (mask & 0xFF));
 		}
 	}
 
@@ -587,45 +648,48 @@ public class ByteArray implements Externalizable,Cloneable {
 	
 	public void setNibble(int position, short value) {
 		int byteIndex = (int)(position / 2);
+		int oldValue = get(byteIndex);
 		
 		if ((position & 0x1) == 0) { // is even => set higher four bits
-			array[byteIndex] = (short)((array[byteIndex] & 0x0F) | ((value << 4) & 0xF0));
+			set(byteIndex, (oldValue & 0x0F) | ((value << 4) & 0xF0));
 		} else { // is odd => set lower four bits
-			array[byteIndex] = (short)((array[byteIndex] & 0xF0) | (value & 0xF));
+			set(byteIndex, (oldValue & 0xF0) | (value & 0xF));
 		}
 	}
 	
 	public void setNibbleAtEnd(int position, boolean value) {
-		int byteIndex = array.length - (int)(position / 2) - 1;
+		int byteIndex = numBytes - (int)(position / 2) - 1;
+		int oldValue = get(byteIndex);
 		
 		if ((position & 0x1) == 0) { // is even => set lower four bits
 			if (value) {
-				array[byteIndex] = (short)((array[byteIndex] & 0xF0) | 0xF);
+				set(byteIndex, (oldValue & 0xF0) | 0xF);
 			} else {
-				array[byteIndex] = (short)(array[byteIndex] & 0xF0);
+				set(byteIndex, oldValue & 0xF0);
 			}
 		} else { // is odd => set higher four bits
 			if (value) {
-				array[byteIndex] = (short)((array[byteIndex] & 0x0F) | 0xF0);
+				set(byteIndex, (oldValue & 0x0F) | 0xF0);
 			} else {
-				array[byteIndex] = (short)(array[byteIndex] & 0x0F);
+				set(byteIndex, oldValue & 0x0F);
 			}
 		}
 	}
 	
 	public void setNibbleAtEnd(int position, short value) {
-		int byteIndex = array.length - (int)(position / 2) - 1;
+		int byteIndex = numBytes - (int)(position / 2) - 1;
+		int oldValue = get(byteIndex);
 		
 		if ((position & 0x1) == 0) { // is even => set lower four bits
-			array[byteIndex] = (short)((array[byteIndex] & 0xF0) | (value & 0xF));
+			set(byteIndex, (oldValue & 0xF0) | (value & 0xF));
 		} else { // is odd => set higher four bits
-			array[byteIndex] = (short)((array[byteIndex] & 0x0F) | ((value << 4) & 0xF0));
+			set(byteIndex, (oldValue & 0x0F) | ((value << 4) & 0xF0));
 		}
 	}
 	
 	public void setValue(long value, int numBytes) {
 		if (this.length() != numBytes) {
-			this.array = new short[numBytes];
+			allocate(numBytes);
 		}
 		
 		if (value > 0) {
@@ -635,14 +699,26 @@ public class ByteArray implements Externalizable,Cloneable {
 			
 			for (int i = 0; i < numBytes; i++) {
 				if ((value & (1 << i)) != 0) {
-					array[i] = 1;
+					setUnchecked(i, 1);
 				} else {
-					array[i] = 0;
+					setUnchecked(i, 0);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Sets the 64-bit word at the given index. The word is interpreted as in {@link #getWord(int)}.
+	 * Bytes of the word which exceed the length of the byte array are ignored. 
+	 */
+	public void setWord(int index, long word) {
+		if (index == words.length - 1) {
+			word &= createByteRangeMask(0, numBytes - index * NUM_BYTES_IN_WORD);
+		}
+		
+		words[index] = word;
+	}
+	
 	/**
 	 * Returns <code>true</code>, if this byte array shares any active bit with 
 	 * the given byte array. Returns false otherwise.
@@ -652,8 +728,8 @@ public class ByteArray implements Externalizable,Cloneable {
 			return true;
 		}
 		
-		for (int i = 0; i < length(); i++) {
-			if ((array[i] & other.array[i]) != 0) {
+		for (int i = 0; i < words.length; i++) {
+			if ((words[i] & other.words[i]) != 0) {
 				return true;
 			}
 		}
@@ -670,8 +746,8 @@ public class ByteArray implements Externalizable,Cloneable {
 			return true;
 		}
 		
-		for (int i = 0; i < length(); i++) {
-			if (array[i] != 0 && other.array[i] != 0) {
+		for (int i = 0; i < words.length; i++) {
+			if ((findActiveBytes(words[i]) & findActiveBytes(other.words[i])) != 0) {
 				return true;
 			}
 		}
@@ -679,15 +755,17 @@ public class ByteArray implements Externalizable,Cloneable {
 		return false;
 	}
 	
+	/**
+	 * Returns <code>true</code>, if this byte array shares any active nibble with 
+	 * the given byte array. Returns false otherwise.
+	 */
 	public boolean sharesActiveNibblesWith(ByteArray other) {
 		if (length() != other.length()) {
 			return true;
 		}
 		
-		for (int i = 0; i < length(); i++) {
-			if ((array[i] & 0xF0) != 0 && (other.array[i] & 0xF0) != 0) {
-				return true;
-			} else if ((array[i] & 0x0F) != 0 && (other.array[i] & 0x0F) != 0) {
+		for (int i = 0; i < words.length; i++) {
+			if ((findActiveNibbles(words[i]) & findActiveNibbles(other.words[i])) != 0) {
 				return true;
 			}
 		}
@@ -711,12 +789,8 @@ public class ByteArray implements Externalizable,Cloneable {
 	 */
 	public ByteArray splice(int from, int to) {
 		ByteArray result = new ByteArray(to - from);
-		int max = to - from;
-		
-		for (int i = 0; i < max; i++) {
-			result.array[i] = array[i + from];
-		}
-		
+		checkRange(from, to);
+		copyRange(words, from, result.words, 0, to - from);
 		return result;
 	}
 	
@@ -724,7 +798,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Creates a bit string representation of the byte array.
 	 */
 	public String toBitString() {
-		if (array == null) {
+		if (words == null) {
 			return "";
 		}
 		
@@ -762,7 +836,7 @@ public class ByteArray implements Externalizable,Cloneable {
 	 * Creates a hex string representation of the individual bytes of the byte array.
 	 */
 	public String toHexString() {
-		if (array == null) {
+		if (words == null) {
 			return "";
 		}
 		
@@ -809,18 +883,12 @@ public class ByteArray implements Externalizable,Cloneable {
 	public void writeBytes(int position, short[] newBytes) {
 		int newLength = position + newBytes.length;
 		
-		if (array.length <= newLength) {
-			short[] newArray = new short[newLength];
-			
-			for (int i = 0; i < array.length; i++) {
-				newArray[i] = array[i];
-			}
-			
-			array = newArray;
+		if (numBytes <= newLength) {
+			resize(newLength);
 		}
 		
 		for (int i = position; i < newLength; i++) {
-			array[i] = (short)(newBytes[i - position] & 0xff);
+			setUnchecked(i, newBytes[i - position]);
 		}
 	}
 	
@@ -832,9 +900,16 @@ public class ByteArray implements Externalizable,Cloneable {
 	}
 	
 	public void writeLong(int position, long word) {
-		for (int j = 7; j >= 0; j--) {
-			array[position + j] = (short)(word & 0xff);
-			word >>= 8;
+		checkRange(position, position + NUM_BYTES_IN_WORD);
+		final int wordIndex = position / NUM_BYTES_IN_WORD;
+		final int shift = (position % NUM_BYTES_IN_WORD) * Byte.SIZE;
+		
+		if (shift == 0) {
+			words[wordIndex] = word;
+		} else {
+			final long mask = -1L >>> shift;
+			words[wordIndex] = (words[wordIndex] & ~mask) | (word >>> shift);
+			words[wordIndex + 1] = (words[wordIndex + 1] & mask) | (word << (Long.SIZE - shift));
 		}
 	}
 	
@@ -844,56 +919,93 @@ public class ByteArray implements Externalizable,Cloneable {
 	
 	public void writeLongs(int position, long[] words) {
 		int numWords = words.length;
-		int numBytesInLong = Long.SIZE / Byte.SIZE;
-		int maxPosition = position + numWords * numBytesInLong;
+		int maxPosition = position + numWords * NUM_BYTES_IN_WORD;
 		
-		if (array.length < maxPosition) {
+		if (numBytes < maxPosition) {
 			throw new InvalidArgumentError(
-				"ByteArray is too small (" + array.length + ") to write longs from " 
+				"ByteArray is too small (" + numBytes + ") to write longs from " 
 				+ position + " to " + maxPosition + "."
 			);
 		}
 		
+		if (position % NUM_BYTES_IN_WORD == 0) {
+			System.arraycopy(words, 0, this.words, position / NUM_BYTES_IN_WORD, numWords);
+			return;
+		}
+		
 		for (int i = 0; i < numWords; i++) {
-			long word = words[i];
-			
-			for (int j = numBytesInLong - 1; j >= 0; j--) {
-				array[position + i * numBytesInLong + j] = (short)(word & 0xff);
-				word >>= 8;
-			}
+			writeLong(position + i * NUM_BYTES_IN_WORD, words[i]);
+		}
+	}
+	
+	/**
+	 * Overwrites all bytes with the first {@link #getNumWords()} words of the given array, 
+	 * which are interpreted as in {@link #getWord(int)}. Bytes of the last word which exceed 
+	 * the length of the byte array are ignored. 
+	 */
+	public void writeWords(long[] source) {
+		System.arraycopy(source, 0, words, 0, words.length);
+		
+		if (words.length > 0) {
+			setWord(words.length - 1, words[words.length - 1]);
 		}
 	}
 	
 	public ByteArray xor(ByteArray other) {
-		if (array.length <= other.array.length) {
-			return xor(other, 0, array.length);
+		if (numBytes <= other.numBytes) {
+			return xor(other, 0, numBytes);
 		} else {
-			return xor(other, 0, other.array.length);
+			return xor(other, 0, other.numBytes);
 		}
 	}
 	
 	public ByteArray xor(ByteArray other, int from, int to) {
-		for (int i = from; i < to; i++) {
-			array[i] ^= other.array[i];
-		}
-		
-		return this;
+		return xor(other, from, to, 0);
 	}
 	
 	public ByteArray xor(ByteArray other, int from, int to, int xorWithOffset) {
-		for (int i = from; i < to; i++) {
-			array[i] ^= other.get(i + xorWithOffset);
+		if (from >= to) {
+			return this;
 		}
 		
+		checkRange(from, to);
+		other.checkRange(from + xorWithOffset, to + xorWithOffset);
+		
+		if (xorWithOffset % NUM_BYTES_IN_WORD != 0) {
+			for (int i = from; i < to; i++) {
+				setUnchecked(i, getUnchecked(i) ^ other.getUnchecked(i + xorWithOffset));
+			}
+			
+			return this;
+		}
+		
+		final int wordOffset = xorWithOffset / NUM_BYTES_IN_WORD;
+		final int firstWord = from / NUM_BYTES_IN_WORD;
+		final int lastWord = (to - 1) / NUM_BYTES_IN_WORD;
+		final long firstMask = createByteRangeMask(from % NUM_BYTES_IN_WORD, NUM_BYTES_IN_WORD);
+		final long lastMask = createByteRangeMask(0, to - lastWord * NUM_BYTES_IN_WORD);
+		
+		if (firstWord == lastWord) {
+			words[firstWord] ^= other.words[firstWord + wordOffset] & firstMask & lastMask;
+			return this;
+		}
+		
+		words[firstWord] ^= other.words[firstWord + wordOffset] & firstMask;
+		
+		for (int i = firstWord + 1; i < lastWord; i++) {
+			words[i] ^= other.words[i + wordOffset];
+		}
+		
+		words[lastWord] ^= other.words[lastWord + wordOffset] & lastMask;
 		return this;
 	}
 	
 	public void xorByte(int xorWith, int position) {
-		array[position] ^= xorWith & 0xFF;
+		set(position, get(position) ^ (xorWith & 0xFF));
 	}
 	
 	public void xorByte(short xorWith, int position) {
-		array[position] ^= xorWith & 0xFF;
+		set(position, get(position) ^ (xorWith & 0xFF));
 	}
 	
 	private int getByteMaskWithOneActiveBit(int bitIndex) {
@@ -909,10 +1021,11 @@ public class ByteArray implements Externalizable,Cloneable {
 	}
 	
 	public int readUInt(int position) {
-		return (array[position] & 0xff) << 24 
-			| (array[position + 1] & 0xff) << 16
-			| (array[position + 2] & 0xff) << 8
-			| (array[position + 3] & 0xff);
+		checkRange(position, position + 4);
+		return getUnchecked(position) << 24 
+			| getUnchecked(position + 1) << 16
+			| getUnchecked(position + 2) << 8
+			| getUnchecked(position + 3);
 	}
 	
 	public void writeUInt(int value) {
@@ -920,21 +1033,19 @@ public class ByteArray implements Externalizable,Cloneable {
 	}
 	
 	public void writeUInt(int position, int value) {
-		array[position] = (short)((value >>> 24) & 0xff);
-		array[position + 1] = (short)((value >>> 16) & 0xff);
-		array[position + 2] = (short)((value >>> 8) & 0xff);
-		array[position + 3] = (short)(value & 0xff);
+		checkRange(position, position + 4);
+		setUnchecked(position, value >>> 24);
+		setUnchecked(position + 1, value >>> 16);
+		setUnchecked(position + 2, value >>> 8);
+		setUnchecked(position + 3, value);
 	}
 	
 	public int[] readUInts() {
-		final int numWords = array.length / 4;
+		final int numWords = numBytes / 4;
 		final int[] result = new int[numWords];
 		
-		for (int i = 0, index = 0; i < array.length; i += 4, index++) {
-			result[index] = (array[i] & 0xff) << 24
-				| (array[i + 1] & 0xff) << 16
-				| (array[i + 2] & 0xff) << 8
-				| (array[i + 3] & 0xff);
+		for (int i = 0; i < numWords; i++) {
+			result[i] = readUInt(4 * i);
 		}
 		
 		return result;
@@ -963,39 +1074,144 @@ public class ByteArray implements Externalizable,Cloneable {
 	}
 	
 	public void invertIntwise() {
-		int word;
-		
-		for (int i = 0; i < array.length; i += 4) {
-			word = (array[i] & 0xff) 
-				| (array[i + 1] & 0xff) << 8
-				| (array[i + 2] & 0xff) << 16
-				| (array[i + 3] & 0xff) << 24;
-			array[i] = (short)((word >>> 24) & 0xff);
-			array[i + 1] = (short)((word >>> 16) & 0xff);
-			array[i + 2] = (short)((word >>> 8) & 0xff);
-			array[i + 3] = (short)(word & 0xff);
+		for (int i = 0; i + 4 <= numBytes; i += 4) {
+			writeUInt(i, Integer.reverseBytes(readUInt(i)));
 		}
 	}
 	
 	public void readExternal(ObjectInput input) throws IOException, ClassNotFoundException {
 		final int length = input.readInt();
-		array = new short[length];
+		allocate(length);
 		
 		for (int i = 0; i < length; i++) {
-			array[i] = input.readShort();
+			setUnchecked(i, input.readShort());
 		}
 	}
 	
 	public void writeExternal(ObjectOutput output) throws IOException {
-		if (array == null) {
-			output.writeInt(0);
-		} else {
-			output.writeInt(array.length);
+		output.writeInt(numBytes);
+		
+		for (int i = 0; i < numBytes; i++) {
+			output.writeShort(getUnchecked(i));
+		}
+	}
+	
+	/**
+	 * Replaces the internal words with <code>numBytes</code> zero bytes.
+	 */
+	private void allocate(int numBytes) {
+		if (numBytes < 0) {
+			throw new NegativeArraySizeException(Integer.toString(numBytes));
+		}
+		
+		this.numBytes = numBytes;
+		this.words = new long[computeNumWords(numBytes)];
+	}
+	
+	/**
+	 * Changes the length to <code>newLength</code> bytes and keeps all values that fit in it.
+	 */
+	private void resize(int newLength) {
+		if (newLength < numBytes) {
+			for (int i = newLength; i < numBytes; i++) {
+				setUnchecked(i, 0);
+			}
+		}
+		
+		words = Arrays.copyOf(words, computeNumWords(newLength));
+		numBytes = newLength;
+	}
+	
+	private void checkPosition(int position) {
+		if (position < 0 || position >= numBytes) {
+			throw new ArrayIndexOutOfBoundsException(position);
+		}
+	}
+	
+	private void checkRange(int from, int to) {
+		if (from < 0 || to > numBytes) {
+			throw new ArrayIndexOutOfBoundsException(from < 0 ? from : to);
+		}
+	}
+	
+	private short getUnchecked(int position) {
+		final int shift = (NUM_BYTES_IN_WORD - 1 - (position % NUM_BYTES_IN_WORD)) * Byte.SIZE;
+		return (short)((words[position / NUM_BYTES_IN_WORD] >>> shift) & 0xFF);
+	}
+	
+	private void setUnchecked(int position, int value) {
+		final int index = position / NUM_BYTES_IN_WORD;
+		final int shift = (NUM_BYTES_IN_WORD - 1 - (position % NUM_BYTES_IN_WORD)) * Byte.SIZE;
+		words[index] = (words[index] & ~(0xFFL << shift)) | ((long)(value & 0xFF) << shift);
+	}
+	
+	/**
+	 * Copies <code>numBytes</code> bytes from the packed words <code>source</code> to the 
+	 * packed words <code>destination</code>. Copies whole words if both positions are aligned. 
+	 */
+	private static void copyRange(long[] source, int sourceFrom, long[] destination, int destinationFrom, int numBytes) {
+		if (numBytes <= 0) {
+			return;
+		}
+		
+		if (sourceFrom % NUM_BYTES_IN_WORD == 0 && destinationFrom % NUM_BYTES_IN_WORD == 0) {
+			final int numWords = numBytes / NUM_BYTES_IN_WORD;
+			final int firstSourceWord = sourceFrom / NUM_BYTES_IN_WORD;
+			final int firstDestinationWord = destinationFrom / NUM_BYTES_IN_WORD;
+			System.arraycopy(source, firstSourceWord, destination, firstDestinationWord, numWords);
+			
+			final int numRemainingBytes = numBytes % NUM_BYTES_IN_WORD;
 			
-			for (int i = 0; i < array.length; i++) {
-				output.writeShort(array[i]);
+			if (numRemainingBytes != 0) {
+				final long mask = createByteRangeMask(0, numRemainingBytes);
+				final int lastWord = firstDestinationWord + numWords;
+				destination[lastWord] = (destination[lastWord] & ~mask) | (source[firstSourceWord + numWords] & mask);
 			}
+			
+			return;
 		}
+		
+		int sourceShift, destinationShift, value;
+		int destinationIndex;
+		
+		for (int i = 0; i < numBytes; i++) {
+			sourceShift = (NUM_BYTES_IN_WORD - 1 - ((sourceFrom + i) % NUM_BYTES_IN_WORD)) * Byte.SIZE;
+			destinationShift = (NUM_BYTES_IN_WORD - 1 - ((destinationFrom + i) % NUM_BYTES_IN_WORD)) * Byte.SIZE;
+			destinationIndex = (destinationFrom + i) / NUM_BYTES_IN_WORD;
+			value = (int)(source[(sourceFrom + i) / NUM_BYTES_IN_WORD] >>> sourceShift) & 0xFF;
+			destination[destinationIndex] = (destination[destinationIndex] & ~(0xFFL << destinationShift)) 
+				| ((long)value << destinationShift);
+		}
+	}
+	
+	private static int computeNumWords(int numBytes) {
+		return (numBytes + NUM_BYTES_IN_WORD - 1) / NUM_BYTES_IN_WORD;
+	}
+	
+	/**
+	 * Returns a mask in which the bytes from position <code>from</code> (inclusive) to 
+	 * <code>to</code> (exclusive) of a word are set.
+	 */
+	private static long createByteRangeMask(int from, int to) {
+		final long high = (from == 0) ? -1L : (-1L >>> (from * Byte.SIZE));
+		final long low = (to == NUM_BYTES_IN_WORD) ? 0L : (-1L >>> (to * Byte.SIZE));
+		return high & ~low;
+	}
+	
+	/**
+	 * Returns a word in which the most significant bit of every non-zero byte of the given 
+	 * word is set, and all other bits are zero.
+	 */
+	private static long findActiveBytes(long word) {
+		return (((word & LOW_BITS_OF_BYTES) + LOW_BITS_OF_BYTES) | word) & HIGH_BITS_OF_BYTES;
+	}
+	
+	/**
+	 * Returns a word in which the most significant bit of every non-zero nibble of the given 
+	 * word is set, and all other bits are zero.
+	 */
+	private static long findActiveNibbles(long word) {
+		return (((word & LOW_BITS_OF_NIBBLES) + LOW_BITS_OF_NIBBLES) | word) & HIGH_BITS_OF_NIBBLES;
 	}
 	
 }
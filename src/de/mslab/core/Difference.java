@@ -100,8 +100,7 @@ public class Difference implements Externalizable,Cloneable {
 	}
 
 	public int hashCode() {
-		assert false : "hashCode not implemented";
-		return -1;
+		return delta.hashCode();
 	}
 	
 	@XmlElement
@@ -132,6 +132,37 @@ public class Differential implements Externalizable,Cloneable {
 		return copy;
 	}
 	
+	/**
+	 * Returns a deep copy of the part of this differential in the given rounds, which must lie within 
+	 * the rounds of this differential. The whitening key differences before the first and after the last 
+	 * round are only kept if the respective round is kept. The secret keys and the key difference are 
+	 * copied as well. 
+	 * 
+	 * Since the differences of a round depend only on the previous rounds in encryption direction, 
+	 * a forward differential restricted to rounds [fromRound, r] equals the forward differential in 
+	 * these rounds with the same keys, and a backward differential restricted to rounds [r, toRound] 
+	 * equals the backward differential in these rounds. 
+	 */
+	public Differential restrict(int fromRound, int toRound) {
+		Differential result = new Differential(fromRound, toRound);
+		int firstRound = (fromRound == this.fromRound) ? fromRound - 1 : fromRound;
+		int lastRound = (toRound == this.toRound) ? toRound + 1 : toRound;
+		
+		for (int round = Math.max(0, firstRound); round <= lastRound; round++) {
+			result.keyDifferences.set(round, cloneDifference(keyDifferences, round));
+			result.intermediateStateDifferences.set(round, cloneDifference(intermediateStateDifferences, round));
+		}
+		
+		for (int round = fromRound - 1; round <= toRound; round++) {
+			result.stateDifferences.set(round, cloneDifference(stateDifferences, round));
+		}
+		
+		result.firstSecretKey = (firstSecretKey == null) ? null : firstSecretKey.clone();
+		result.secondSecretKey = (secondSecretKey == null) ? null : secondSecretKey.clone();
+		result.keyDifference = (keyDifference == null) ? null : keyDifference.clone();
+		return result;
+	}
+	
 	public boolean equals(Object object) {
 		try {
 			Differential other = (Differential)object;
@@ -139,11 +170,7 @@ public class Differential implements Externalizable,Cloneable {
 			if (other == null) {
 				return false;
 			} else {
-				return fromRound == other.fromRound
-					&& toRound == other.toRound
-					&& keyDifferences.equals(other.keyDifferences)
-					&& intermediateStateDifferences.equals(other.intermediateStateDifferences)
-					&& stateDifferences.equals(other.stateDifferences)
+				return hasSameDifferences(other)
 					&& firstSecretKey.equals(other.firstSecretKey)
 					&& secondSecretKey.equals(other.secondSecretKey);
 			}
@@ -152,9 +179,30 @@ public class Differential implements Externalizable,Cloneable {
 		}
 	}
 	
+	/**
+	 * Returns <code>true</code> if the given differential covers the same rounds and contains the same 
+	 * key, state and intermediate state differences as this one. In contrast to {@link #equals(Object)}, 
+	 * the secret keys, from which both differentials were created, are ignored.
+	 */
+	public boolean hasSameDifferences(Differential other) {
+		return other != null
+			&& fromRound == other.fromRound
+			&& toRound == other.toRound
+			&& keyDifferences.equals(other.keyDifferences)
+			&& intermediateStateDifferences.equals(other.intermediateStateDifferences)
+			&& stateDifferences.equals(other.stateDifferences);
+	}
+	
+	/**
+	 * Returns a hash code, which depends only on the rounds and the differences of this differential, 
+	 * so that it is consistent with both {@link #equals(Object)} and {@link #hasSameDifferences(Differential)}.
+	 */
 	public int hashCode() {
-		assert false : "hashCode not implemented";
-		return -1;
+		int result = 31 * fromRound + toRound;
+		result = 31 * result + keyDifferences.hashCode();
+		result = 31 * result + intermediateStateDifferences.hashCode();
+		result = 31 * result + stateDifferences.hashCode();
+		return result;
 	}
 	
 	/**
@@ -308,6 +356,14 @@ public class Differential implements Externalizable,Cloneable {
 		return this;
 	}
 	
+	private Difference cloneDifference(Vector<Difference> differences, int index) {
+		if (index >= differences.size() || differences.get(index) == null) {
+			return null;
+		}
+		
+		return differences.get(index).clone();
+	}
+	
 	private void andElementsIfNotZeroAt(Vector<Difference> first, Vector<Difference> second, int index) {
 		if (first.get(index) != null && second.get(index) != null) {
 			first.get(index).and(second.get(index));
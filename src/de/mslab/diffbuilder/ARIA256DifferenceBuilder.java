@@ -1,6 +1,7 @@
 package de.mslab.diffbuilder;
 
 import de.mslab.ciphers.ARIA;
+import de.mslab.core.ByteArray;
 
 /**
  * <p>
@@ -21,7 +22,7 @@ public class ARIA256DifferenceBuilder extends BytewiseDifferenceBuilder {
 	
 	public ARIA cipher;
 	
-	protected DifferenceIterator storeNextValue() {
+	protected DifferenceIterator createIterator(ByteArray value, int[] bitPositions) {
 		return new ARIA256DifferenceIterator(value, dimension, bitPositions, cipher);
 	}
 	
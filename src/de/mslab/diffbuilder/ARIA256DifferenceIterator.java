@@ -21,9 +21,16 @@ public class ARIA256DifferenceIterator extends AbstractDifferenceIterator {
 		this.cipher = cipher;
 	}
 	
-	protected void updateDifference() {
-		index++;
-		difference = new ByteArray(cipher.getKeySize());
+	/**
+	 * Returns <code>null</code>, since the differences pass through the non-linear key expansion 
+	 * function of ARIA. 
+	 */
+	public GrayCodeDifferenceIterator createGrayCodeIterator() {
+		return null;
+	}
+	
+	protected ByteArray computeDifference(long index) {
+		ByteArray difference = new ByteArray(cipher.getKeySize());
 		int shift = 0;
 		int mask = 0xff;
 		
@@ -40,6 +47,8 @@ public class ARIA256DifferenceIterator extends AbstractDifferenceIterator {
 			kr2.xor(kr);
 			difference.copyBytes(kr2, 0, 16);
 		}
+		
+		return difference;
 	}
 	
 }
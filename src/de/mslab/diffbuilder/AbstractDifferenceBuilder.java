@@ -1,5 +1,7 @@
 package de.mslab.diffbuilder;
 
+import java.util.Iterator;
+
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidArgumentError;
 import de.mslab.utils.Logger;
@@ -40,6 +42,32 @@ abstract class AbstractDifferenceBuilder implements DifferenceBuilder {
 	protected volatile boolean isFirst;
 	protected Logger logger = new Logger();
 	
+	/**
+	 * {@inheritDoc}
+	 * The ranks follow the lexicographic order of the combinations of active positions, in which 
+	 * {@link #next()} iterates over them. The positions for a rank are derived with the 
+	 * combinatorial number system. 
+	 */
+	public DifferenceIterator get(long rank) throws InvalidArgumentError {
+		if (rank < 0 || rank >= numResults) {
+			throw new InvalidArgumentError("Rank needs to be in [0, " + numResults + "). Given rank = " + rank + ".");
+		}
+		
+		int[] positions = new int[dimension + 1];
+		ByteArray startValue = new ByteArray(numBytes);
+		computePositionsForRank(rank, positions);
+		
+		for (int i = 1; i <= dimension; ++i) {
+			if (i <= weight) {
+				setValueAtPosition(startValue, positions[i] - 1, true);
+			} else {
+				positions[i] = -1;
+			}
+		}
+		
+		return createIterator(startValue, positions);
+	}
+	
 	public int getCurrentWeight() {
 		return weight;
 	}
@@ -50,6 +78,10 @@ abstract class AbstractDifferenceBuilder implements DifferenceBuilder {
 	
 	public abstract long initializeAndGetNumDifferences(int maxWeight, int numComponents) throws InvalidArgumentError;
 	
+	public Iterator<DifferenceIterator> iterator(long fromRank, long toRank) {
+		return new DifferenceRankIterator(this, fromRank, toRank);
+	}
+	
 	public synchronized DifferenceIterator next() {
 		if (isFirst) {
 			isFirst = false;
@@ -81,6 +113,53 @@ abstract class AbstractDifferenceBuilder implements DifferenceBuilder {
 		return storeNextValue();
 	}
 
+	/**
+	 * Computes the one-based positions of the <code>weight</code> active units for the given rank, 
+	 * and stores them at the indices 1 to weight in the given array.
+	 */
+	protected void computePositionsForRank(long rank, int[] positions) {
+		long numCombinations = computeNumCombinations(numUnits, weight);
+		
+		if (rank >= numCombinations) {
+			// next() repeats the last combination after all combinations have been returned
+			rank = numCombinations - 1;
+		}
+		
+		int position = 0;
+		long numCombinationsWithPosition;
+		
+		for (int i = 1; i <= weight; ++i) {
+			position++;
+			numCombinationsWithPosition = computeNumCombinations(numUnits - position, weight - i);
+			
+			while (rank >= numCombinationsWithPosition) {
+				rank -= numCombinationsWithPosition;
+				position++;
+				numCombinationsWithPosition = computeNumCombinations(numUnits - position, weight - i);
+			}
+			
+			positions[i] = position;
+		}
+	}
+	
+	/**
+	 * Returns the number of possibilities to choose k out of n elements. In contrast to 
+	 * {@link de.mslab.utils.MathUtil#computeBinomialCoefficient(int, int)}, returns 1 for k = 0 and k = n.
+	 */
+	protected static long computeNumCombinations(int n, int k) {
+		if (k < 0 || k > n) {
+			return 0;
+		}
+		
+		long result = 1;
+		
+		for (int i = 0; i < k; i++) {
+			result = result * (n - i) / (i + 1);
+		}
+		
+		return result;
+	}
+	
 	protected void resetBitPositionsAndValue() {
 		// Set value = 0
 		value = new ByteArray(numBytes);
@@ -136,8 +215,16 @@ abstract class AbstractDifferenceBuilder implements DifferenceBuilder {
 		setValueAtPosition(bitPositions[weight] - 1, true);
 	}
 	
-	protected abstract DifferenceIterator storeNextValue();
+	protected DifferenceIterator storeNextValue() {
+		return createIterator(value, bitPositions);
+	}
+	
+	protected void setValueAtPosition(int position, boolean v) {
+		setValueAtPosition(value, position, v);
+	}
+	
+	protected abstract DifferenceIterator createIterator(ByteArray value, int[] bitPositions);
 	
-	protected abstract void setValueAtPosition(int position, boolean v); 
+	protected abstract void setValueAtPosition(ByteArray value, int position, boolean v); 
 	
 }
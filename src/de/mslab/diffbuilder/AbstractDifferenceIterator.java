@@ -7,6 +7,7 @@ import de.mslab.core.ByteArray;
 public abstract class AbstractDifferenceIterator implements DifferenceIterator {
 	
 	protected ByteArray difference;
+	protected int dimension;
 	protected long index = 0;
 	protected long maximum;
 	protected int numBytes;
@@ -21,6 +22,25 @@ public abstract class AbstractDifferenceIterator implements DifferenceIterator {
 		this.activePositions = cleanActivePositions(activePositions);
 	}
 
+	/**
+	 * Creates an iterator over the same differences in Gray-code order, or returns <code>null</code> if 
+	 * the differences of this iterator are not linear in their index. The state of this iterator is 
+	 * not modified. 
+	 */
+	public GrayCodeDifferenceIterator createGrayCodeIterator() {
+		if (dimension < 1) {
+			return null;
+		}
+		
+		ByteArray[] unitDifferences = new ByteArray[dimension];
+		
+		for (int bit = 0; bit < dimension; bit++) {
+			unitDifferences[bit] = computeDifference(1L << bit);
+		}
+		
+		return new GrayCodeDifferenceIterator(unitDifferences);
+	}
+	
 	public boolean hasNext() {
 		return index < maximum;
 	}
@@ -41,6 +61,7 @@ public abstract class AbstractDifferenceIterator implements DifferenceIterator {
 	protected void init(ByteArray difference, int dimension) {
 		this.difference = difference.clone();
 		this.numBytes = difference.length();
+		this.dimension = dimension;
 		this.maximum = (1L << dimension) - 1;
 		this.index = 0;
 	}
@@ -58,6 +79,14 @@ public abstract class AbstractDifferenceIterator implements DifferenceIterator {
 		return Arrays.copyOfRange(newActivePositions, 0, numActivePositions);
 	}
 	
-	protected abstract void updateDifference();
+	/**
+	 * Returns the difference with the given index. 
+	 */
+	protected abstract ByteArray computeDifference(long index);
+	
+	protected void updateDifference() {
+		index++;
+		difference = computeDifference(index);
+	}
 	
 }
@@ -1,16 +1,29 @@
 package de.mslab.diffbuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.mslab.ciphers.BitslicedRoundBasedBlockCipher;
+import de.mslab.ciphers.LinearKeyScheduleCipher;
+import de.mslab.ciphers.PrimitiveRoundBasedBlockCipher;
 import de.mslab.ciphers.RoundBasedBlockCipher;
 import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
 import de.mslab.core.Differential;
+import de.mslab.utils.BitsliceUtil;
 import de.mslab.utils.Logger;
 
 public abstract class AbstractDifferentialBuilder implements DifferentialBuilder {
 
 	protected BackwardDifferentialsHelper backwardDifferentialsHelper;
+	protected boolean bitslicingEnabled = true;
+	protected DifferentialCache cache;
 	protected RoundBasedBlockCipher cipher;
 	protected ForwardDifferentialsHelper forwardDifferentialsHelper;
+	protected boolean grayCodeEnabled = true;
 	protected Logger logger;
+	protected boolean primitiveStatesEnabled = true;
 	
 	protected AbstractDifferentialBuilder() {
 		logger = Logger.getLogger();
@@ -18,17 +31,69 @@ public abstract class AbstractDifferentialBuilder implements DifferentialBuilder
 		backwardDifferentialsHelper = new BackwardDifferentialsHelper();
 	}
 
+	public DifferentialCache getCache() {
+		return cache;
+	}
+	
 	public RoundBasedBlockCipher getCipher() {
 		return cipher;
 	}
 	
+	public boolean isBitslicingEnabled() {
+		return bitslicingEnabled;
+	}
+	
+	public boolean isGrayCodeEnabled() {
+		return grayCodeEnabled;
+	}
+	
+	public boolean isPrimitiveStatesEnabled() {
+		return primitiveStatesEnabled;
+	}
+	
+	/**
+	 * Enables or disables the evaluation of 64 key differences at once for ciphers, which implement 
+	 * {@link BitslicedRoundBasedBlockCipher}. Enabled by default. The resulting differentials are 
+	 * equal in both modes. 
+	 */
+	public void setBitslicingEnabled(boolean bitslicingEnabled) {
+		this.bitslicingEnabled = bitslicingEnabled;
+	}
+	
+	/**
+	 * Sets a cache, from which forward and backward differentials are loaded instead of computing 
+	 * them, and in which computed differentials are stored. The cipher is not keyed if a differential 
+	 * is loaded from the cache. Optional, <code>null</code> by default.
+	 */
+	public void setCache(DifferentialCache cache) {
+		this.cache = cache;
+	}
+	
+	/**
+	 * Enables or disables iterating the key differences in Gray-code order, if the difference iterator 
+	 * supports it, so that the expanded keys of ciphers, which implement {@link LinearKeyScheduleCipher}, 
+	 * are updated incrementally. Enabled by default. The resulting differentials are equal in both modes. 
+	 */
+	public void setGrayCodeEnabled(boolean grayCodeEnabled) {
+		this.grayCodeEnabled = grayCodeEnabled;
+	}
+	
+	/**
+	 * Enables or disables the computation of differentials on states and keys of 64-bit words for 
+	 * ciphers, which implement {@link PrimitiveRoundBasedBlockCipher}. Enabled by default. The 
+	 * resulting differentials are equal in both modes. 
+	 */
+	public void setPrimitiveStatesEnabled(boolean primitiveStatesEnabled) {
+		this.primitiveStatesEnabled = primitiveStatesEnabled;
+	}
+	
 	public void setCipher(RoundBasedBlockCipher cipher) {
-		this.cipher = 
-		this.forwardDifferentialsHelper.cipher = 
-		this.backwardDifferentialsHelper.cipher = cipher;
+		this.cipher = cipher;
+		this.forwardDifferentialsHelper.setCipher(cipher);
+		this.backwardDifferentialsHelper.setCipher(cipher);
 	}
 	
-	public synchronized Differential computeBackwardDifferential(int fromRound, int toRound, 
+	public Differential computeBackwardDifferential(int fromRound, int toRound, 
 		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound) {
 		
 		return computeDifferential(
@@ -37,7 +102,141 @@ public abstract class AbstractDifferentialBuilder implements DifferentialBuilder
 		);
 	}
 	
-	public synchronized Differential computeForwardDifferential(int fromRound, int toRound, 
+	/**
+	 * Computes the same backward differential as {@link #computeBackwardDifferential(int, int, 
+	 * DifferenceIterator, ByteArray, int)}, but decrypts the states of all keys round by round, and 
+	 * passes the accumulated differential to the given filter after each round. The differences of 
+	 * the rounds, which have not been decrypted yet, are zero, and the second secret key of a partial 
+	 * differential equals the first one. Returns <code>null</code> as soon as the filter rejects the 
+	 * differential, so that its remaining rounds are not computed. 
+	 * 
+	 * If the differential is computed on bitsliced or primitive states, the keys are iterated in the 
+	 * outer loop instead, and the filter is passed the differential over all rounds, but over the first 
+	 * keys only. If the differential is cached, the filter is passed only the cached differential. 
+	 */
+	public Differential computeBackwardDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		PartialDifferentialFilter filter) {
+		
+		if (cache == null) {
+			return computeFilteredBackwardDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, filter
+			);
+		}
+		
+		byte[] key = cache.computeKey(
+			cipher, true, fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound
+		);
+		Differential differential = cache.get(key);
+		
+		if (differential != null) {
+			return filter.accept(differential) ? differential : null;
+		}
+		
+		differential = computeFilteredBackwardDifferential(
+			fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, filter
+		);
+		
+		if (differential != null) {
+			cache.put(key, differential);
+		}
+		
+		return differential;
+	}
+	
+	protected Differential computeFilteredBackwardDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		PartialDifferentialFilter filter) {
+		
+		DifferentialsHelper differentialHelper = backwardDifferentialsHelper;
+		
+		if (bitslicingEnabled && differentialHelper.bitslicedCipher != null) {
+			return computeBitslicedDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+				differentialHelper, filter
+			);
+		}
+		
+		if (primitiveStatesEnabled && differentialHelper.primitiveCipher != null) {
+			return computePrimitiveDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+				differentialHelper, filter
+			);
+		}
+		
+		ExpandedKeyIterator secondExpandedKeys = new ExpandedKeyIterator(
+			cipher, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, grayCodeEnabled
+		);
+		List<ByteArray> expandedKeys = new ArrayList<ByteArray>();
+		ByteArray expandedKey;
+		expandedKeys.add(firstExpandedKey);
+		
+		while(secondExpandedKeys.hasNext()) {
+			expandedKey = secondExpandedKeys.next();
+			
+			if (secondExpandedKeys.reusesExpandedKeys()) {
+				expandedKey = expandedKey.clone();
+			}
+			
+			expandedKeys.add(expandedKey);
+		}
+		
+		int numKeys = expandedKeys.size();
+		ByteArray[] states = new ByteArray[numKeys];
+		int key, round;
+		
+		Differential accumulated = new Differential(fromRound, toRound);
+		Differential current = new Differential(fromRound, toRound);
+		Differential first = new Differential(fromRound, toRound);
+		
+		fillDifferential(accumulated);
+		accumulated.firstSecretKey = firstExpandedKey.splice(0, cipher.getKeySize());
+		accumulated.secondSecretKey = accumulated.firstSecretKey;
+		accumulated.keyDifference = secondExpandedKeys.getKeyDifference();
+		
+		for (key = 0; key < numKeys; key++) {
+			states[key] = new ByteArray(cipher.getStateSize());
+			cipher.setExpandedKey(expandedKeys.get(key));
+			backwardDifferentialsHelper.computeLastKeyInjection(key == 0 ? first : current, states[key]);
+			
+			if (key > 0) {
+				orDifferences(accumulated, first, current, toRound + 1, toRound);
+			}
+		}
+		
+		for (round = toRound; round >= fromRound; round--) {
+			if (!filter.accept(accumulated)) {
+				return null;
+			}
+			
+			for (key = 0; key < numKeys; key++) {
+				cipher.setExpandedKey(expandedKeys.get(key));
+				states[key] = backwardDifferentialsHelper.computeRound(key == 0 ? first : current, states[key], round);
+				
+				if (key > 0) {
+					orDifferences(accumulated, first, current, round, round - 1);
+				}
+			}
+		}
+		
+		for (key = 0; key < numKeys; key++) {
+			cipher.setExpandedKey(expandedKeys.get(key));
+			backwardDifferentialsHelper.computeFirstKeyInjection(key == 0 ? first : current, states[key]);
+			
+			if (key > 0) {
+				orDifferences(accumulated, first, current, 0, -1);
+			}
+		}
+		
+		if (!filter.accept(accumulated)) {
+			return null;
+		}
+		
+		accumulated.secondSecretKey = secondExpandedKeys.finish().splice(0, cipher.getKeySize());
+		return accumulated;
+	}
+	
+	public Differential computeForwardDifferential(int fromRound, int toRound, 
 		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound) {
 		
 		return computeDifferential(
@@ -46,14 +245,57 @@ public abstract class AbstractDifferentialBuilder implements DifferentialBuilder
 		);
 	}
 	
+	/**
+	 * Loads the differential from the cache, if there is one, or computes and caches it otherwise. 
+	 */
 	protected Differential computeDifferential(int fromRound, int toRound, 
 		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
 		DifferentialsHelper differentialHelper) {
 		
+		if (cache == null) {
+			return computeUncachedDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, differentialHelper
+			);
+		}
+		
+		byte[] key = cache.computeKey(
+			cipher, differentialHelper == backwardDifferentialsHelper, fromRound, toRound, 
+			keyDifferenceIterator, firstExpandedKey, keyDifferenceRound
+		);
+		Differential differential = cache.get(key);
+		
+		if (differential == null) {
+			differential = computeUncachedDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, differentialHelper
+			);
+			cache.put(key, differential);
+		}
+		
+		return differential;
+	}
+	
+	protected Differential computeUncachedDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		DifferentialsHelper differentialHelper) {
+		
+		if (bitslicingEnabled && differentialHelper.bitslicedCipher != null && differentialHelper.propagator == null) {
+			return computeBitslicedDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+				differentialHelper, null
+			);
+		}
+		
+		if (primitiveStatesEnabled && differentialHelper.primitiveCipher != null && differentialHelper.propagator == null) {
+			return computePrimitiveDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+				differentialHelper, null
+			);
+		}
+		
 		ByteArray state = new ByteArray(cipher.getStateSize());
-		ByteArray secondKeyPart;
-		ByteArray secondExpandedKey = null;
-		ByteArray firstKeyPart = cipher.computeKeyPart(firstExpandedKey, keyDifferenceRound);
+		ExpandedKeyIterator secondExpandedKeys = new ExpandedKeyIterator(
+			cipher, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, grayCodeEnabled
+		);
 		
 		Differential accumulated = new Differential(fromRound, toRound);
 		Differential current = new Differential(fromRound, toRound);
@@ -64,26 +306,155 @@ public abstract class AbstractDifferentialBuilder implements DifferentialBuilder
 		differentialHelper.computeDifferential(first, state);
 		
 		accumulated.firstSecretKey = firstExpandedKey.splice(0, cipher.getKeySize());
-		accumulated.keyDifference = new ByteArray(cipher.getKeySize());
 		
-		while(keyDifferenceIterator.hasNext()) {
-			secondKeyPart = keyDifferenceIterator.next();
-			accumulated.keyDifference.or(secondKeyPart);
-			
-			secondKeyPart.xor(firstKeyPart);
-			secondExpandedKey = cipher.computeExpandedKey(secondKeyPart, keyDifferenceRound);
-			
-			cipher.setExpandedKey(secondExpandedKey);
+		while(secondExpandedKeys.hasNext()) {
+			cipher.setExpandedKey(secondExpandedKeys.next());
 			differentialHelper.computeDifferential(current, state);
 			
 			current.xor(first);
 			accumulated.or(current);
 		}
 		
-		accumulated.secondSecretKey = secondExpandedKey.splice(0, cipher.getKeySize());
+		accumulated.keyDifference = secondExpandedKeys.getKeyDifference();
+		accumulated.secondSecretKey = secondExpandedKeys.finish().splice(0, cipher.getKeySize());
 		return accumulated;
 	}
 	
+	/**
+	 * Computes the same differential as {@link #computeDifferential(int, int, DifferenceIterator, 
+	 * ByteArray, int, DifferentialsHelper)}, but encrypts the first key in lane 0 and up to 63 second 
+	 * keys in the other lanes of a bitsliced state at once. Unused lanes are filled with the first key. 
+	 * If a filter is given, the accumulated differential is passed to it after every bitsliced 
+	 * encryption, and <code>null</code> is returned as soon as the filter rejects it. 
+	 */
+	protected Differential computeBitslicedDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		DifferentialsHelper differentialHelper, PartialDifferentialFilter filter) {
+		
+		final int numLanes = BitslicedRoundBasedBlockCipher.NUM_LANES;
+		long[] state = new long[cipher.getStateSize() * Byte.SIZE];
+		long[][] roundKeys = new long[cipher.getNumRounds() + 2][];
+		long[] matrix = new long[numLanes];
+		ByteArray[] expandedKeys = new ByteArray[numLanes];
+		ByteArray secondExpandedKey;
+		ExpandedKeyIterator secondExpandedKeys = new ExpandedKeyIterator(
+			cipher, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, grayCodeEnabled
+		);
+		int numKeys;
+		
+		Differential accumulated = new Differential(fromRound, toRound);
+		Differential current = new Differential(fromRound, toRound);
+		
+		fillDifferential(accumulated);
+		expandedKeys[0] = firstExpandedKey;
+		
+		accumulated.firstSecretKey = firstExpandedKey.splice(0, cipher.getKeySize());
+		accumulated.secondSecretKey = accumulated.firstSecretKey;
+		accumulated.keyDifference = secondExpandedKeys.getKeyDifference();
+		
+		while(secondExpandedKeys.hasNext()) {
+			numKeys = 1;
+			
+			while (numKeys < numLanes && secondExpandedKeys.hasNext()) {
+				secondExpandedKey = secondExpandedKeys.next();
+				
+				if (secondExpandedKeys.reusesExpandedKeys()) {
+					secondExpandedKey = secondExpandedKey.clone();
+				}
+				
+				expandedKeys[numKeys++] = secondExpandedKey;
+			}
+			
+			Arrays.fill(expandedKeys, numKeys, numLanes, firstExpandedKey);
+			sliceRoundKeys(roundKeys, matrix, expandedKeys, numKeys, fromRound, toRound);
+			Arrays.fill(state, 0L);
+			
+			differentialHelper.computeBitslicedDifferential(current, state, roundKeys);
+			accumulated.or(current);
+			
+			if (filter != null && !filter.accept(accumulated)) {
+				return null;
+			}
+		}
+		
+		accumulated.secondSecretKey = secondExpandedKeys.finish().splice(0, cipher.getKeySize());
+		return accumulated;
+	}
+	
+	/**
+	 * Computes the same differential as {@link #computeDifferential(int, int, DifferenceIterator, 
+	 * ByteArray, int, DifferentialsHelper)}, but expands the keys and encrypts the states as arrays 
+	 * of 64-bit words, and accumulates the differences in reused arrays. Only the result is converted 
+	 * to byte arrays. 
+	 * 
+	 * If a filter is given, the accumulated differences are converted to a differential and passed to 
+	 * it, each time after the second keys 1, 2, 4, 8, ... and after the last one. Since the differential 
+	 * over the first keys only becomes more active with every further key, the accumulation is stopped, 
+	 * and <code>null</code> is returned, as soon as the filter rejects it. So, differentials, which 
+	 * saturate after a few keys, are dropped early, while the filter is called only a logarithmic 
+	 * number of times. 
+	 */
+	protected Differential computePrimitiveDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		DifferentialsHelper differentialHelper, PartialDifferentialFilter filter) {
+		
+		PrimitiveRoundBasedBlockCipher primitiveCipher = differentialHelper.primitiveCipher;
+		ByteArray firstKeyPartBytes = cipher.computeKeyPart(firstExpandedKey, keyDifferenceRound);
+		long[] state = new long[primitiveCipher.getNumStateWords()];
+		long[] firstKeyPart = new long[firstKeyPartBytes.getNumWords()];
+		long[] secondKeyPart = new long[firstKeyPart.length];
+		long[] secondExpandedKey = new long[primitiveCipher.getNumExpandedKeyWords()];
+		ByteArray keyDifference = new ByteArray(cipher.getKeySize());
+		ByteArray secondKeyPartBytes;
+		int numRounds = cipher.getNumRounds();
+		long numSecondKeys = 0;
+		
+		PrimitiveDifferential accumulated = new PrimitiveDifferential(fromRound, toRound, numRounds);
+		PrimitiveDifferential current = new PrimitiveDifferential(fromRound, toRound, numRounds);
+		PrimitiveDifferential first = new PrimitiveDifferential(fromRound, toRound, numRounds);
+		
+		firstKeyPartBytes.readWords(firstKeyPart);
+		cipher.setExpandedKey(firstExpandedKey);
+		differentialHelper.computePrimitiveDifferential(first, state);
+		
+		while(keyDifferenceIterator.hasNext()) {
+			secondKeyPartBytes = keyDifferenceIterator.next();
+			keyDifference.or(secondKeyPartBytes);
+			secondKeyPartBytes.readWords(secondKeyPart);
+			
+			for (int i = 0; i < secondKeyPart.length; i++) {
+				secondKeyPart[i] ^= firstKeyPart[i];
+			}
+			
+			primitiveCipher.computeExpandedKeyWords(secondKeyPart, keyDifferenceRound, secondExpandedKey);
+			primitiveCipher.setExpandedKeyWords(secondExpandedKey);
+			
+			Arrays.fill(state, 0L);
+			differentialHelper.computePrimitiveDifferential(current, state);
+			accumulated.orDifference(first, current);
+			numSecondKeys++;
+			
+			if (filter != null && isPowerOfTwo(numSecondKeys)) {
+				Differential partial = createDifferential(accumulated, firstExpandedKey, keyDifference.clone());
+				partial.secondSecretKey = partial.firstSecretKey;
+				
+				if (!filter.accept(partial)) {
+					return null;
+				}
+			}
+		}
+		
+		Differential result = createDifferential(accumulated, firstExpandedKey, keyDifference);
+		result.secondSecretKey = new ByteArray(cipher.getKeySize());
+		result.secondSecretKey.writeWords(secondExpandedKey);
+		
+		if (filter != null && !isPowerOfTwo(numSecondKeys) && !filter.accept(result)) {
+			return null;
+		}
+		
+		return result;
+	}
+	
 	protected void fillDifferential(Differential differential) {
 		ByteArray key = new ByteArray(cipher.getStateSize());
 		ByteArray state = new ByteArray(cipher.getStateSize());
@@ -117,103 +488,104 @@ public abstract class AbstractDifferentialBuilder implements DifferentialBuilder
 		differential.setIntermediateStateDifference(round, state);
 	}
 	
-}
-
-abstract class DifferentialsHelper {
-	
-	RoundBasedBlockCipher cipher;
-	
-	abstract void computeDifferential(Differential differential, ByteArray startingState);
-	
-	void storeIntermediateState(Differential differential, ByteArray state, ByteArray key, int round) {
-		state = state.clone().xor(key);
-		differential.setIntermediateStateDifference(round, state);
+	/**
+	 * Converts the given differences to a differential with the given first key and key difference. 
+	 */
+	private Differential createDifferential(PrimitiveDifferential primitiveDifferential, ByteArray firstExpandedKey, 
+		ByteArray keyDifference) {
+		
+		Differential differential = new Differential(primitiveDifferential.fromRound, primitiveDifferential.toRound);
+		fillDifferential(differential);
+		primitiveDifferential.writeTo(differential, cipher.getStateSize());
+		
+		differential.firstSecretKey = firstExpandedKey.splice(0, cipher.getKeySize());
+		differential.keyDifference = keyDifference;
+		return differential;
 	}
 	
-}
-
-class ForwardDifferentialsHelper extends DifferentialsHelper {
+	private static boolean isPowerOfTwo(long value) {
+		return (value & (value - 1)) == 0;
+	}
 	
-	synchronized void computeDifferential(Differential differential, ByteArray startingState) {
-		ByteArray key = null;
-		ByteArray state = startingState.clone();
-		int fromRound = differential.fromRound;
-		int toRound = differential.toRound;
+	/**
+	 * ORs the XOR of the key and intermediate state differences of the given round, and of the state 
+	 * differences of the given state round, of the first and current differential into the accumulated 
+	 * one. In contrast to {@link Differential#xor(Differential)}, the current differential is not modified, 
+	 * since its states are still decrypted further. 
+	 */
+	protected void orDifferences(Differential accumulated, Differential first, Differential current, 
+		int round, int stateRound) {
 		
-		differential.setStateDifference(fromRound - 1, state);
+		orDifference(accumulated.keyDifferences, first.keyDifferences, current.keyDifferences, round);
+		orDifference(
+			accumulated.intermediateStateDifferences, first.intermediateStateDifferences, 
+			current.intermediateStateDifferences, round
+		);
 		
-		if (fromRound == 1 && cipher.hasKeyInjectionInRound(0)) {
-			key = cipher.getRoundKey(0);
-			differential.setKeyDifference(0, key);
-			storeIntermediateState(differential, state, key, 0);
+		if (stateRound >= 0) {
+			orDifference(accumulated.stateDifferences, first.stateDifferences, current.stateDifferences, stateRound);
 		}
+	}
+	
+	private void orDifference(List<Difference> accumulated, List<Difference> first, List<Difference> current, 
+		int round) {
 		
-		for (int round = fromRound; round <= toRound; round++) {
-			if (cipher.hasKeyInjectionInRound(round)) {
-				key = cipher.getRoundKey(round);
-				differential.setKeyDifference(round, key);
-				
-				if (cipher.injectsKeyAtRoundBegin(round)) {
-					storeIntermediateState(differential, state, key, round);
-				}
-			}
-			
-			state = cipher.encryptRound(state, round);
-			differential.setStateDifference(round, state);
-			
-			if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundEnd(round)) {
-				storeIntermediateState(differential, state, key, round);
-			}
+		if (round >= accumulated.size() || accumulated.get(round) == null 
+			|| first.get(round) == null || current.get(round) == null) {
+			return;
 		}
 		
-		if (toRound == cipher.getNumRounds() && cipher.hasKeyInjectionInRound(toRound + 1)) {
-			key = cipher.getRoundKey(toRound + 1);
-			differential.setKeyDifference(toRound + 1, key);
-			storeIntermediateState(differential, state, key, toRound + 1);
-		}
+		accumulated.get(round).or(current.get(round).getDelta().clone().xor(first.get(round).getDelta()));
 	}
 	
-}
-
-class BackwardDifferentialsHelper extends DifferentialsHelper {
 	
-	synchronized void computeDifferential(Differential differential, ByteArray startingState) {
-		ByteArray key = null;
-		ByteArray state = startingState.clone();
-		int fromRound = differential.fromRound;
-		int toRound = differential.toRound;
+	/**
+	 * Slices the round keys of the given expanded keys, one per lane, for all rounds from 
+	 * <code>fromRound</code> to <code>toRound</code>, and the whitening keys before the first and 
+	 * after the last round of the cipher if needed. The cipher is keyed with every expanded key up 
+	 * to the given number of keys; the remaining lanes repeat the first lane. 
+	 */
+	private void sliceRoundKeys(long[][] roundKeys, long[] matrix, ByteArray[] expandedKeys, int numKeys, 
+		int fromRound, int toRound) {
 		
-		if (toRound == cipher.getNumRounds() && cipher.hasKeyInjectionInRound(toRound + 1)) {
-			key = cipher.getRoundKey(toRound + 1);
-			differential.setKeyDifference(toRound + 1, key);
-			storeIntermediateState(differential, state, key, toRound + 1);
-		}
+		final int numLanes = BitslicedRoundBasedBlockCipher.NUM_LANES;
+		final int firstRound = (fromRound == 1) ? 0 : fromRound;
+		final int lastRound = (toRound == cipher.getNumRounds()) ? toRound + 1 : toRound;
+		ByteArray[][] laneRoundKeys = new ByteArray[lastRound + 1][numLanes];
+		int round, lane, word, numBits;
 		
-		differential.setStateDifference(toRound, state);
+		for (lane = 0; lane < numKeys; lane++) {
+			cipher.setExpandedKey(expandedKeys[lane]);
+			
+			for (round = firstRound; round <= lastRound; round++) {
+				if (cipher.hasKeyInjectionInRound(round)) {
+					laneRoundKeys[round][lane] = cipher.getRoundKey(round);
+				}
+			}
+		}
 		
-		for (int round = toRound; round >= fromRound; round--) {
-			if (cipher.hasKeyInjectionInRound(round)) {
-				key = cipher.getRoundKey(round);
-				differential.setKeyDifference(round, key);
+		for (round = firstRound; round <= lastRound; round++) {
+			if (!cipher.hasKeyInjectionInRound(round)) {
+				continue;
 			}
 			
-			if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundEnd(round)) {
-				storeIntermediateState(differential, state, key, round);
-			}
+			numBits = laneRoundKeys[round][0].length() * Byte.SIZE;
 			
-			state = cipher.decryptRound(state, round);
-			differential.setStateDifference(round - 1, state);
+			if (roundKeys[round] == null) {
+				roundKeys[round] = new long[numBits];
+			}
 			
-			if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundBegin(round)) {
-				storeIntermediateState(differential, state, key, round);
+			for (word = 0; word * numLanes < numBits; word++) {
+				for (lane = 0; lane < numLanes; lane++) {
+					matrix[numLanes - 1 - lane] = laneRoundKeys[round][lane < numKeys ? lane : 0].getWord(word);
+				}
+				
+				BitsliceUtil.transpose(matrix, 0);
+				System.arraycopy(
+					matrix, 0, roundKeys[round], word * numLanes, Math.min(numLanes, numBits - word * numLanes)
+				);
 			}
 		}
-		
-		if (fromRound == 1 && cipher.hasKeyInjectionInRound(0)) {
-			key = cipher.getRoundKey(0);
-			differential.setKeyDifference(0, key);
-			storeIntermediateState(differential, state, key, 0);
-		}
 	}
 	
 }
@@ -12,7 +12,7 @@ public class BKRDifferentialBuilder {
 		
 	}
 	
-	public synchronized Differential computeBackwardDifferentialFromRoundKeys(int fromRound, int toRound, 
+	public Differential computeBackwardDifferentialFromRoundKeys(int fromRound, int toRound, 
 		ByteArray startingStateDifference, ByteArray startingKeyDifference, ByteArray firstExpandedKey) {
 		
 		ByteArray secondState = startingStateDifference;
@@ -58,7 +58,7 @@ public class BKRDifferentialBuilder {
 	 * @param secondExpandedKey The expanded key which is used for the second computation.
 	 * @return The forward differential.
 	 */
-	public synchronized Differential computeBackwardDifferentialFromRoundKeys(int fromRound, int toRound, 
+	public Differential computeBackwardDifferentialFromRoundKeys(int fromRound, int toRound, 
 		ByteArray firstStartingState, ByteArray secondStartingState, 
 		ByteArray firstExpandedKey, ByteArray secondExpandedKey) {
 		
@@ -74,7 +74,7 @@ public class BKRDifferentialBuilder {
 		return differential;
 	}
 	
-	public synchronized Differential computeForwardDifferentialFromRoundKeys(int fromRound, int toRound, 
+	public Differential computeForwardDifferentialFromRoundKeys(int fromRound, int toRound, 
 		ByteArray startingStateDifference, ByteArray startingKeyDifference, ByteArray firstExpandedKey) {
 		
 		ByteArray secondState = startingStateDifference;
@@ -122,7 +122,7 @@ public class BKRDifferentialBuilder {
 	 * @param secondExpandedKey The expanded key which is used for the second computation.
 	 * @return The backward differential.
 	 */
-	public synchronized Differential computeForwardDifferentialFromRoundKeys(int fromRound, int toRound, 
+	public Differential computeForwardDifferentialFromRoundKeys(int fromRound, int toRound, 
 		ByteArray firstStartingState, ByteArray secondStartingState, ByteArray firstExpandedKey, ByteArray secondExpandedKey) {
 		
 		Differential differential = new Differential(fromRound, toRound);
@@ -1,5 +1,7 @@
 package de.mslab.diffbuilder;
 
+import java.util.Iterator;
+
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidArgumentError;
 
@@ -35,6 +37,26 @@ public class BitwiseDifferenceBuilder implements DifferenceBuilder {
 		return numResults;
 	}
 	
+	public DifferenceIterator get(long rank) throws InvalidArgumentError {
+		if (rank < 0 || rank >= numResults) {
+			throw new InvalidArgumentError("Rank needs to be in [0, " + numResults + "). Given rank = " + rank + ".");
+		}
+		
+		int[] positions = new int[dimension];
+		ByteArray startValue = new ByteArray(numBytes);
+		
+		for (int i = 0; i < dimension; i++) {
+			positions[i] = (int)rank + i;
+			startValue.setBit(positions[i], true);
+		}
+		
+		return new BitwiseDifferenceIterator(startValue, dimension, positions);
+	}
+	
+	public Iterator<DifferenceIterator> iterator(long fromRank, long toRank) {
+		return new DifferenceRankIterator(this, fromRank, toRank);
+	}
+	
 	public synchronized DifferenceIterator next() {
 		if (index >= numResults) {
 			return null;
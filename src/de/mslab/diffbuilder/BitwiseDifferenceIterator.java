@@ -9,9 +9,8 @@ public class BitwiseDifferenceIterator extends AbstractDifferenceIterator {
 		this.activePositions = activePositions;
 	}
 	
-	protected void updateDifference() {
-		index++;
-		difference = new ByteArray(numBytes);
+	protected ByteArray computeDifference(long index) {
+		ByteArray difference = new ByteArray(numBytes);
 		int shift = 0;
 		int mask = 1;
 		
@@ -19,6 +18,8 @@ public class BitwiseDifferenceIterator extends AbstractDifferenceIterator {
 			difference.setBit(activePositions[i], ((index >>> shift) & mask) == 1);
 			shift++;
 		}
+		
+		return difference;
 	}
 	
 }
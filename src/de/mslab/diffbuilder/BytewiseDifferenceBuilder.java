@@ -1,5 +1,6 @@
 package de.mslab.diffbuilder;
 
+import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidArgumentError;
 import de.mslab.utils.MathUtil;
 
@@ -29,12 +30,12 @@ public class BytewiseDifferenceBuilder extends AbstractDifferenceBuilder {
 		return numResults;
 	}
 	
-	protected void setValueAtPosition(int position, boolean v) {
-		value.setAtEnd(position, v);
+	protected DifferenceIterator createIterator(ByteArray value, int[] bitPositions) {
+		return new BytewiseDifferenceIterator(value, dimension, bitPositions);
 	}
 	
-	protected DifferenceIterator storeNextValue() {
-		return new BytewiseDifferenceIterator(value, dimension, bitPositions);
+	protected void setValueAtPosition(ByteArray value, int position, boolean v) {
+		value.setAtEnd(position, v);
 	}
 	
 }
@@ -29,9 +29,8 @@ public class BytewiseDifferenceIterator extends AbstractDifferenceIterator {
 		return activePositions;
 	}
 	
-	protected void updateDifference() {
-		index++;
-		difference = new ByteArray(numBytes);
+	protected ByteArray computeDifference(long index) {
+		ByteArray difference = new ByteArray(numBytes);
 		int shift = 0;
 		int mask = 0xff;
 		
@@ -39,6 +38,8 @@ public class BytewiseDifferenceIterator extends AbstractDifferenceIterator {
 			difference.set(activePositions[i], (short)((index >>> shift) & mask));
 			shift += Byte.SIZE;
 		}
+		
+		return difference;
 	}
 	
 }
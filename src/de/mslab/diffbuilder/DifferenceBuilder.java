@@ -1,5 +1,7 @@
 package de.mslab.diffbuilder;
 
+import java.util.Iterator;
+
 import de.mslab.errors.InvalidArgumentError;
 
 /**
@@ -9,6 +11,15 @@ import de.mslab.errors.InvalidArgumentError;
  * 
  */
 public interface DifferenceBuilder {
+	/**
+	 * Returns the difference iterator with the given rank, that is the same iterator which the 
+	 * <code>(rank + 1)</code>-th call of {@link DifferenceBuilder#next()} returns after the builder 
+	 * was initialized. In contrast to {@link DifferenceBuilder#next()}, this method does not modify 
+	 * the state of the builder, so that multiple threads can create their own ranges of differences 
+	 * concurrently. 
+	 * @throws InvalidArgumentError If the rank is negative or not less than {@link DifferenceBuilder#getNumResults()}.
+	 */
+	DifferenceIterator get(long rank) throws InvalidArgumentError;
 	/**
 	 * Returns the hamming weight of the last computed value. 
 	 */
@@ -27,6 +38,12 @@ public interface DifferenceBuilder {
 	 * only 0 will be valid, thus exception is thrown. 
 	 */
 	long initializeAndGetNumDifferences(int dimension, int numBytes) throws InvalidArgumentError;
+	/**
+	 * Returns an iterator over the difference iterators with the ranks from <code>fromRank</code>
+	 * (inclusive) to <code>toRank</code> (exclusive). 
+	 * @see DifferenceBuilder#get(long)
+	 */
+	Iterator<DifferenceIterator> iterator(long fromRank, long toRank);
 	/**
 	 * Computes the next n-bit/n-byte value with n bits/n bytes and less or equal '1' bytes as specified in the 
 	 * {@link DifferenceBuilder#initializeAndGetNumDifferences(int, int)} method before.
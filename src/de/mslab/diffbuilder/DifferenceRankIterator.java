@@ -0,0 +1,39 @@
+package de.mslab.diffbuilder;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a range of ranks of a {@link DifferenceBuilder}, and returns the difference 
+ * iterator for each rank. Does not share any mutable state with the builder, so that every thread 
+ * can use its own instance.
+ */
+class DifferenceRankIterator implements Iterator<DifferenceIterator> {
+	
+	private DifferenceBuilder builder;
+	private long rank;
+	private long toRank;
+	
+	DifferenceRankIterator(DifferenceBuilder builder, long fromRank, long toRank) {
+		this.builder = builder;
+		this.rank = fromRank;
+		this.toRank = Math.min(toRank, builder.getNumResults());
+	}
+	
+	public boolean hasNext() {
+		return rank < toRank;
+	}
+	
+	public DifferenceIterator next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		
+		return builder.get(rank++);
+	}
+	
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+	
+}
@@ -4,6 +4,11 @@ import de.mslab.ciphers.RoundBasedBlockCipher;
 import de.mslab.core.ByteArray;
 import de.mslab.core.Differential;
 
+/**
+ * Computes differentials for a cipher. A builder encrypts with its cipher, and is therefore not 
+ * thread-safe. Concurrent threads should use a builder each, with their own copy of the cipher, 
+ * which is created by {@link RoundBasedBlockCipher#copy()}. 
+ */
 public interface DifferentialBuilder {
 	
 	RoundBasedBlockCipher getCipher();
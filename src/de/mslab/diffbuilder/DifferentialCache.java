@@ -0,0 +1,442 @@
+package de.mslab.diffbuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.TweakableCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+import de.mslab.errors.StorageError;
+import de.mslab.utils.ChecksummedFileFormat;
+import de.mslab.utils.Logger;
+
+/**
+ * Stores computed differentials in a directory, so that they can be reused by later searches.
+ * Each differential is stored in a file of its own, which is named after the SHA-256 digest of all
+ * inputs of its computation: the cipher name, sizes and tweak, the direction, the rounds,
+ * the round of the key difference, the first expanded key, and the key differences. So, a cached
+ * differential is only reused for exactly the same computation, no matter which search or run
+ * requested it first.
+ *
+ * Every file is written in the {@link ChecksummedFileFormat}, with the digest as its key and the
+ * deflated differential as its payload. Files, which are truncated or corrupted, are deleted and
+ * treated as if they were not cached. If the total size of all files exceeds the maximum size, the
+ * least recently used files are deleted. The time of the last use is kept in the modification time
+ * of each file, so that it is preserved across runs.
+ *
+ * The cache can be used concurrently by multiple threads and builders.
+ */
+public class DifferentialCache {
+	
+	private static final int MAGIC = 0x4A445643;
+	private static final int VERSION = 1;
+	private static final ChecksummedFileFormat FORMAT = new ChecksummedFileFormat(MAGIC, VERSION, false);
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String ENTRY_SUFFIX = ".bin";
+	
+	private File directory;
+	/**
+	 * The size in bytes of every cached file by its name, in the order of their last use.
+	 */
+	private LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private Logger logger = Logger.getLogger();
+	private long maxSize;
+	private AtomicLong numHits = new AtomicLong();
+	private AtomicLong numMisses = new AtomicLong();
+	private long size;
+	
+	/**
+	 * Opens the cache in the given directory, which is created if it does not exist, and deletes the
+	 * least recently used files until their total size does not exceed the given size in bytes.
+	 * @throws StorageError If the directory could not be created.
+	 */
+	public DifferentialCache(File directory, long maxSize) throws StorageError {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new StorageError("Could not create a differential cache in " + directory,
+				new IOException("Could not create directory " + directory)
+			);
+		}
+		
+		loadEntries();
+	}
+	
+	/**
+	 * Deletes all cached differentials.
+	 */
+	public synchronized void clear() {
+		for (String name : entries.keySet()) {
+			getFile(name).delete();
+		}
+		
+		entries.clear();
+		size = 0;
+	}
+	
+	/**
+	 * Returns the digest of the given inputs of a differential computation, which identifies the
+	 * differential in the cache. The difference iterator is reset afterwards.
+	 */
+	public byte[] computeKey(RoundBasedBlockCipher cipher, boolean isBackward,
+		int fromRound, int toRound, DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey,
+		int keyDifferenceRound) {
+		
+		MessageDigest digest = createDigest();
+		updateDigest(digest, "v" + VERSION);
+		updateDigest(digest, cipher.getName());
+		updateDigest(digest, cipher.getStateSize());
+		updateDigest(digest, cipher.getKeySize());
+		
+		if (cipher instanceof TweakableCipher) {
+			updateDigest(digest, ((TweakableCipher)cipher).getTweak());
+		}
+		
+		updateDigest(digest, isBackward ? 1 : 0);
+		updateDigest(digest, fromRound);
+		updateDigest(digest, toRound);
+		updateDigest(digest, keyDifferenceRound);
+		updateDigest(digest, firstExpandedKey);
+		updateDigest(digest, keyDifferenceIterator);
+		return digest.digest();
+	}
+	
+	/**
+	 * Returns a new instance of the differential with the given key, or <code>null</code> if it is
+	 * not cached or its file is corrupted.
+	 */
+	public Differential get(byte[] key) {
+		String name = toHexString(key);
+		
+		synchronized (this) {
+			if (entries.get(name) == null) {
+				numMisses.incrementAndGet();
+				return null;
+			}
+		}
+		
+		File file = getFile(name);
+		Differential differential;
+		
+		try {
+			differential = readEntry(file, key);
+		} catch (FileNotFoundException e) {
+			// The file was evicted by another thread, or deleted by another process.
+			removeIfDeleted(name);
+			numMisses.incrementAndGet();
+			return null;
+		} catch (IOException e) {
+			differential = null;
+		}
+		
+		if (differential == null) {
+			logger.warn("Removing corrupted differential {0} from the cache", name);
+			remove(name);
+			numMisses.incrementAndGet();
+			return null;
+		}
+		
+		file.setLastModified(System.currentTimeMillis());
+		numHits.incrementAndGet();
+		return differential;
+	}
+	
+	public File getDirectory() {
+		return directory;
+	}
+	
+	public long getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * Returns the number of differentials, which were found in the cache.
+	 */
+	public long getNumHits() {
+		return numHits.get();
+	}
+	
+	/**
+	 * Returns the number of differentials, which were requested but not found in the cache.
+	 */
+	public long getNumMisses() {
+		return numMisses.get();
+	}
+	
+	/**
+	 * Returns the number of cached differentials.
+	 */
+	public synchronized int getNumEntries() {
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the total size in bytes of all cached differentials.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+	
+	/**
+	 * Stores the given differential with the given key, and deletes the least recently used
+	 * differentials if the maximum size is exceeded.
+	 * @throws StorageError If the differential could not be written.
+	 */
+	public void put(byte[] key, Differential differential) throws StorageError {
+		String name = toHexString(key);
+		long length;
+		
+		try {
+			length = FORMAT.write(getFile(name), key, serialize(differential));
+		} catch (IOException e) {
+			throw new StorageError("Could not store a differential in the cache in " + directory, e);
+		}
+		
+		synchronized (this) {
+			Long previousLength = entries.put(name, length);
+			
+			if (previousLength != null) {
+				size -= previousLength;
+			}
+			
+			size += length;
+			evict();
+		}
+	}
+	
+	/**
+	 * Deletes the least recently used files, until the total size does not exceed the maximum size.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+		Map.Entry<String, Long> entry;
+		
+		while (size > maxSize && iterator.hasNext()) {
+			entry = iterator.next();
+			getFile(entry.getKey()).delete();
+			size -= entry.getValue();
+			iterator.remove();
+		}
+	}
+	
+	private File getFile(String name) {
+		return new File(new File(directory, name.substring(0, 2)), name + ENTRY_SUFFIX);
+	}
+	
+	/**
+	 * Registers all files in the directory in the order of their modification times, and deletes
+	 * temporary files, which were left by interrupted runs.
+	 */
+	private synchronized void loadEntries() {
+		List<File> files = new ArrayList<File>();
+		File[] subdirectories = directory.listFiles();
+		
+		if (subdirectories == null) {
+			return;
+		}
+		
+		for (File subdirectory : subdirectories) {
+			File[] subdirectoryFiles = subdirectory.isDirectory() ? subdirectory.listFiles() : null;
+			
+			if (subdirectoryFiles == null) {
+				continue;
+			}
+			
+			for (File file : subdirectoryFiles) {
+				if (file.getName().endsWith(ENTRY_SUFFIX)) {
+					files.add(file);
+				} else if (file.getName().endsWith(ChecksummedFileFormat.TEMPORARY_SUFFIX)) {
+					file.delete();
+				}
+			}
+		}
+		
+		Collections.sort(files, new Comparator<File>() {
+			public int compare(File first, File second) {
+				long firstTime = first.lastModified();
+				long secondTime = second.lastModified();
+				return firstTime < secondTime ? -1 : (firstTime == secondTime ? 0 : 1);
+			}
+		});
+		
+		String name;
+		long length;
+		
+		for (File file : files) {
+			name = file.getName().substring(0, file.getName().length() - ENTRY_SUFFIX.length());
+			length = file.length();
+			entries.put(name, length);
+			size += length;
+		}
+		
+		evict();
+	}
+	
+	/**
+	 * Reads the differential from the given file, or returns <code>null</code> if the file is not
+	 * a valid entry for the given key.
+	 */
+	private Differential readEntry(File file, byte[] key) throws IOException {
+		byte[] payload = FORMAT.read(file, key);
+		return payload == null ? null : deserialize(payload);
+	}
+	
+	private synchronized void remove(String name) {
+		Long length = entries.remove(name);
+		
+		if (length != null) {
+			size -= length;
+		}
+		
+		getFile(name).delete();
+	}
+	
+	/**
+	 * Removes the entry with the given name, if its file does not exist anymore.
+	 */
+	private synchronized void removeIfDeleted(String name) {
+		if (!getFile(name).exists()) {
+			Long length = entries.remove(name);
+			
+			if (length != null) {
+				size -= length;
+			}
+		}
+	}
+	
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(DIGEST_ALGORITHM + " is required by every Java platform", e);
+		}
+	}
+	
+	private static Differential deserialize(byte[] payload) throws IOException {
+		ObjectInputStream input = ChecksummedFileFormat.createInflatedInput(payload);
+		Differential differential = new Differential();
+		
+		try {
+			differential.readExternal(input);
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} finally {
+			input.close();
+		}
+		
+		return differential;
+	}
+	
+	/**
+	 * Returns the deflated external form of the given differential. Since most differences are zero,
+	 * the differentials are compressed well.
+	 */
+	private static byte[] serialize(Differential differential) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = ChecksummedFileFormat.createDeflatedOutput(bytes);
+		
+		try {
+			differential.writeExternal(output);
+		} finally {
+			output.close();
+		}
+		
+		return bytes.toByteArray();
+	}
+	
+	private static String toHexString(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		
+		for (byte value : bytes) {
+			builder.append(Character.forDigit((value >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(value & 0xF, 16));
+		}
+		
+		return builder.toString();
+	}
+	
+	private static void updateDigest(MessageDigest digest, int value) {
+		digest.update((byte)(value >>> 24));
+		digest.update((byte)(value >>> 16));
+		digest.update((byte)(value >>> 8));
+		digest.update((byte)value);
+	}
+	
+	private static void updateDigest(MessageDigest digest, long value) {
+		updateDigest(digest, (int)(value >>> 32));
+		updateDigest(digest, (int)value);
+	}
+	
+	private static void updateDigest(MessageDigest digest, String value) {
+		updateDigest(digest, value.length());
+		
+		for (int i = 0; i < value.length(); i++) {
+			updateDigest(digest, (int)value.charAt(i));
+		}
+	}
+	
+	private static void updateDigest(MessageDigest digest, ByteArray value) {
+		if (value == null) {
+			updateDigest(digest, -1);
+			return;
+		}
+		
+		updateDigest(digest, value.length());
+		
+		for (int i = 0; i < value.getNumWords(); i++) {
+			updateDigest(digest, value.getWord(i));
+		}
+	}
+	
+	/**
+	 * Adds the key differences to the digest. The differences of an iterator, which can walk them in
+	 * Gray-code order, are determined by its class, number of differences, and unit differences; so,
+	 * only those are added.
+	 */
+	private static void updateDigest(MessageDigest digest, DifferenceIterator keyDifferenceIterator) {
+		GrayCodeDifferenceIterator grayCodeIterator = null;
+		updateDigest(digest, keyDifferenceIterator.getClass().getName());
+		
+		if (keyDifferenceIterator instanceof AbstractDifferenceIterator) {
+			AbstractDifferenceIterator iterator = (AbstractDifferenceIterator)keyDifferenceIterator;
+			grayCodeIterator = iterator.createGrayCodeIterator();
+			updateDigest(digest, iterator.maximum);
+		}
+		
+		if (grayCodeIterator != null) {
+			int numUnitDifferences = grayCodeIterator.getNumUnitDifferences();
+			updateDigest(digest, 0);
+			updateDigest(digest, numUnitDifferences);
+			
+			for (int bit = 0; bit < numUnitDifferences; bit++) {
+				updateDigest(digest, grayCodeIterator.getUnitDifference(bit));
+			}
+		} else {
+			updateDigest(digest, 1);
+			keyDifferenceIterator.reset();
+			
+			while (keyDifferenceIterator.hasNext()) {
+				updateDigest(digest, keyDifferenceIterator.next());
+			}
+			
+			keyDifferenceIterator.reset();
+		}
+	}
+	
+}
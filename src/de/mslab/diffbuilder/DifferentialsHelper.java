@@ -0,0 +1,138 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.ciphers.BitslicedRoundBasedBlockCipher;
+import de.mslab.ciphers.InPlaceRoundBasedBlockCipher;
+import de.mslab.ciphers.PrimitiveRoundBasedBlockCipher;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.truncated.TruncatedDifferentialPropagator;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+import de.mslab.utils.BitsliceUtil;
+
+abstract class DifferentialsHelper {
+	
+	RoundBasedBlockCipher cipher;
+	/**
+	 * Set if the cipher can transform primitive states in place. Then, rounds are computed 
+	 * on the reused {@link #words}, so that only the resulting states are allocated.  
+	 */
+	InPlaceRoundBasedBlockCipher inPlaceCipher;
+	long[] words;
+	/**
+	 * If set, rounds and keys are taken from the propagator instead of the cipher, so that the 
+	 * helper computes a truncated differential. 
+	 */
+	TruncatedDifferentialPropagator propagator;
+	
+	/**
+	 * Set if the cipher can encrypt 64 differently keyed states at once. 
+	 */
+	BitslicedRoundBasedBlockCipher bitslicedCipher;
+	/**
+	 * Set if the cipher can also expand and inject keys as 64-bit words.
+	 */
+	PrimitiveRoundBasedBlockCipher primitiveCipher;
+	
+	abstract void computeDifferential(Differential differential, ByteArray startingState);
+	
+	/**
+	 * Computes the differential of all lanes of the given bitsliced starting state against lane 0, 
+	 * with the given sliced round keys. The state is modified.
+	 */
+	abstract void computeBitslicedDifferential(Differential differential, long[] state, long[][] roundKeys);
+	
+	/**
+	 * Computes the differential of the given starting state of 64-bit words with the current key 
+	 * of the cipher, on the words of the round keys. The state is modified.
+	 */
+	abstract void computePrimitiveDifferential(PrimitiveDifferential differential, long[] state);
+	
+	ByteArray decryptRound(ByteArray state, int round) {
+		if (propagator != null) {
+			return propagator.decryptRound(state, round);
+		} else if (inPlaceCipher != null) {
+			state.readWords(words);
+			inPlaceCipher.decryptRoundsInPlace(words, round, round);
+			return createState(state.length());
+		} else {
+			return cipher.decryptRound(state, round);
+		}
+	}
+	
+	ByteArray encryptRound(ByteArray state, int round) {
+		if (propagator != null) {
+			return propagator.encryptRound(state, round);
+		} else if (inPlaceCipher != null) {
+			state.readWords(words);
+			inPlaceCipher.encryptRoundsInPlace(words, round, round);
+			return createState(state.length());
+		} else {
+			return cipher.encryptRound(state, round);
+		}
+	}
+	
+	ByteArray getRoundKey(int round) {
+		if (propagator == null) {
+			return cipher.getRoundKey(round);
+		} else {
+			return propagator.getRoundKey(round);
+		}
+	}
+	
+	void setCipher(RoundBasedBlockCipher cipher) {
+		this.cipher = cipher;
+		
+		if (cipher instanceof InPlaceRoundBasedBlockCipher) {
+			inPlaceCipher = (InPlaceRoundBasedBlockCipher)cipher;
+			words = new long[inPlaceCipher.getNumStateWords()];
+		} else {
+			inPlaceCipher = null;
+			words = null;
+		}
+		
+		if (cipher instanceof PrimitiveRoundBasedBlockCipher) {
+			primitiveCipher = (PrimitiveRoundBasedBlockCipher)cipher;
+		} else {
+			primitiveCipher = null;
+		}
+		
+		if (cipher instanceof BitslicedRoundBasedBlockCipher) {
+			bitslicedCipher = (BitslicedRoundBasedBlockCipher)cipher;
+		} else {
+			bitslicedCipher = null;
+		}
+	}
+	
+	void storeBitslicedIntermediateState(Differential differential, long[] state, long[] key, int round) {
+		differential.setIntermediateStateDifference(
+			round, BitsliceUtil.computeActivity(state, key, cipher.getStateSize())
+		);
+	}
+	
+	void storeBitslicedKey(Differential differential, long[][] roundKeys, int round) {
+		differential.setKeyDifference(
+			round, BitsliceUtil.computeActivity(roundKeys[round], roundKeys[round].length / Byte.SIZE)
+		);
+	}
+	
+	void storeBitslicedState(Differential differential, long[] state, int round) {
+		differential.setStateDifference(round, BitsliceUtil.computeActivity(state, cipher.getStateSize()));
+	}
+	
+	void storeIntermediateState(Differential differential, ByteArray state, ByteArray key, int round) {
+		if (propagator == null) {
+			state = state.clone().xor(key);
+		} else {
+			state = state.clone().or(key);
+		}
+		
+		differential.setIntermediateStateDifference(round, state);
+	}
+	
+	private ByteArray createState(int length) {
+		ByteArray state = new ByteArray(length);
+		state.writeWords(words);
+		return state;
+	}
+	
+}
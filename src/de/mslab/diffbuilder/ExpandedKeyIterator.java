@@ -0,0 +1,131 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.ciphers.LinearKeyScheduleCipher;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+
+/**
+ * Iterates over the second expanded keys of a differential, which are derived from the key part of
+ * the first expanded key XOR the differences of a difference iterator.
+ *
+ * If the difference iterator can walk its differences in Gray-code order, consecutive differences
+ * only differ in the difference of a single index bit. If further the cipher has a linear key
+ * schedule, every expanded key is derived from its predecessor by XORing the precomputed expanded
+ * difference of that bit, instead of expanding the key from scratch.
+ */
+class ExpandedKeyIterator {
+	
+	private RoundBasedBlockCipher cipher;
+	private DifferenceIterator differences;
+	private ByteArray expandedKey;
+	/**
+	 * The expanded difference of every index bit, if the expanded keys are updated incrementally.
+	 */
+	private ByteArray[] expandedKeyDifferences;
+	private ByteArray firstKeyPart;
+	private GrayCodeDifferenceIterator grayCodeDifferences;
+	private ByteArray keyDifference;
+	private int round;
+	
+	ExpandedKeyIterator(RoundBasedBlockCipher cipher, DifferenceIterator differences, ByteArray firstExpandedKey,
+		int round, boolean grayCodeEnabled) {
+		
+		this.cipher = cipher;
+		this.differences = differences;
+		this.firstKeyPart = cipher.computeKeyPart(firstExpandedKey, round);
+		this.keyDifference = new ByteArray(cipher.getKeySize());
+		this.round = round;
+		
+		if (grayCodeEnabled && differences instanceof AbstractDifferenceIterator) {
+			grayCodeDifferences = ((AbstractDifferenceIterator)differences).createGrayCodeIterator();
+		}
+		
+		if (grayCodeDifferences != null && cipher instanceof LinearKeyScheduleCipher) {
+			LinearKeyScheduleCipher linearCipher = (LinearKeyScheduleCipher)cipher;
+			int numBits = grayCodeDifferences.getNumUnitDifferences();
+			expandedKeyDifferences = new ByteArray[numBits];
+			
+			for (int bit = 0; bit < numBits; bit++) {
+				expandedKeyDifferences[bit] = linearCipher.computeExpandedKeyDifference(
+					grayCodeDifferences.getUnitDifference(bit), round
+				);
+			}
+			
+			expandedKey = cipher.computeExpandedKey(firstKeyPart, round).clone();
+		}
+	}
+	
+	/**
+	 * Returns the expanded key for the last difference of the difference iterator in its original
+	 * order, or <code>null</code> if there was no difference, and keys the cipher with it, as if the
+	 * differences had been iterated in their original order. Every bit of a difference, which can
+	 * be walked in Gray-code order, is selected by a single bit of its index; so, the last difference
+	 * in original order, whose index has all bits set, equals the OR of all differences.
+	 */
+	ByteArray finish() {
+		if (grayCodeDifferences == null) {
+			return expandedKey;
+		} else if (grayCodeDifferences.getFlippedBit() == -1) {
+			return null;
+		}
+		
+		ByteArray keyPart = keyDifference.clone();
+		keyPart.xor(firstKeyPart);
+		
+		ByteArray lastExpandedKey = cipher.computeExpandedKey(keyPart, round);
+		cipher.setExpandedKey(lastExpandedKey);
+		return lastExpandedKey;
+	}
+	
+	/**
+	 * Returns the OR of all differences, which have been iterated so far.
+	 */
+	ByteArray getKeyDifference() {
+		return keyDifference;
+	}
+	
+	boolean hasNext() {
+		if (grayCodeDifferences == null) {
+			return differences.hasNext();
+		} else {
+			return grayCodeDifferences.hasNext();
+		}
+	}
+	
+	/**
+	 * Returns the next expanded key. If the expanded keys are updated incrementally, the returned
+	 * array is reused by all calls and must not be modified.
+	 */
+	ByteArray next() {
+		ByteArray difference;
+		
+		if (grayCodeDifferences == null) {
+			difference = differences.next();
+			keyDifference.or(difference);
+			
+			difference.xor(firstKeyPart);
+			expandedKey = cipher.computeExpandedKey(difference, round);
+			return expandedKey;
+		}
+		
+		difference = grayCodeDifferences.next();
+		keyDifference.or(difference);
+		
+		if (expandedKeyDifferences != null) {
+			expandedKey.xor(expandedKeyDifferences[grayCodeDifferences.getFlippedBit()]);
+			return expandedKey;
+		}
+		
+		ByteArray keyPart = difference.clone();
+		keyPart.xor(firstKeyPart);
+		return cipher.computeExpandedKey(keyPart, round);
+	}
+	
+	/**
+	 * Returns true if {@link #next()} reuses the same array for all expanded keys.
+	 */
+	boolean reusesExpandedKeys() {
+		return expandedKeyDifferences != null;
+	}
+	
+}
@@ -0,0 +1,144 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+class ForwardDifferentialsHelper extends DifferentialsHelper {
+	
+	void computeDifferential(Differential differential, ByteArray startingState) {
+		ByteArray state = startingState.clone();
+		computeFirstKeyInjection(differential, state);
+		
+		for (int round = differential.fromRound; round <= differential.toRound; round++) {
+			state = computeRound(differential, state, round);
+		}
+		
+		computeLastKeyInjection(differential, state);
+	}
+	
+	/**
+	 * Stores the given state as state before the first round of the differential, and the key and 
+	 * intermediate state of the whitening before the first round, if needed. 
+	 */
+	void computeFirstKeyInjection(Differential differential, ByteArray state) {
+		differential.setStateDifference(differential.fromRound - 1, state);
+		
+		if (differential.fromRound == 1 && cipher.hasKeyInjectionInRound(0)) {
+			ByteArray key = getRoundKey(0);
+			differential.setKeyDifference(0, key);
+			storeIntermediateState(differential, state, key, 0);
+		}
+	}
+	
+	/**
+	 * Stores the key and intermediate state of the whitening after the last round, if needed. 
+	 */
+	void computeLastKeyInjection(Differential differential, ByteArray state) {
+		int toRound = differential.toRound;
+		
+		if (toRound == cipher.getNumRounds() && cipher.hasKeyInjectionInRound(toRound + 1)) {
+			ByteArray key = getRoundKey(toRound + 1);
+			differential.setKeyDifference(toRound + 1, key);
+			storeIntermediateState(differential, state, key, toRound + 1);
+		}
+	}
+	
+	/**
+	 * Encrypts the given state by the given round, stores the key and the intermediate and resulting 
+	 * states of the round, and returns the resulting state. The given state is not modified. 
+	 */
+	ByteArray computeRound(Differential differential, ByteArray state, int round) {
+		ByteArray key = null;
+		
+		if (cipher.hasKeyInjectionInRound(round)) {
+			key = getRoundKey(round);
+			differential.setKeyDifference(round, key);
+			
+			if (cipher.injectsKeyAtRoundBegin(round)) {
+				storeIntermediateState(differential, state, key, round);
+			}
+		}
+		
+		state = encryptRound(state, round);
+		differential.setStateDifference(round, state);
+		
+		if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundEnd(round)) {
+			storeIntermediateState(differential, state, key, round);
+		}
+		
+		return state;
+	}
+	
+	void computeBitslicedDifferential(Differential differential, long[] state, long[][] roundKeys) {
+		int fromRound = differential.fromRound;
+		int toRound = differential.toRound;
+		
+		storeBitslicedState(differential, state, fromRound - 1);
+		
+		if (fromRound == 1 && cipher.hasKeyInjectionInRound(0)) {
+			storeBitslicedKey(differential, roundKeys, 0);
+			storeBitslicedIntermediateState(differential, state, roundKeys[0], 0);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			if (cipher.hasKeyInjectionInRound(round)) {
+				storeBitslicedKey(differential, roundKeys, round);
+				
+				if (cipher.injectsKeyAtRoundBegin(round)) {
+					storeBitslicedIntermediateState(differential, state, roundKeys[round], round);
+				}
+			}
+			
+			bitslicedCipher.encryptRoundBitsliced(state, roundKeys, round);
+			storeBitslicedState(differential, state, round);
+			
+			if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundEnd(round)) {
+				storeBitslicedIntermediateState(differential, state, roundKeys[round], round);
+			}
+		}
+		
+		if (toRound == cipher.getNumRounds() && cipher.hasKeyInjectionInRound(toRound + 1)) {
+			storeBitslicedKey(differential, roundKeys, toRound + 1);
+			storeBitslicedIntermediateState(differential, state, roundKeys[toRound + 1], toRound + 1);
+		}
+	}
+	
+	void computePrimitiveDifferential(PrimitiveDifferential differential, long[] state) {
+		long[] key = null;
+		int fromRound = differential.fromRound;
+		int toRound = differential.toRound;
+		
+		differential.storeState(fromRound - 1, state);
+		
+		if (fromRound == 1 && cipher.hasKeyInjectionInRound(0)) {
+			key = primitiveCipher.getRoundKeyWords(0);
+			differential.storeKey(0, key);
+			differential.storeIntermediateState(0, state, key);
+		}
+		
+		for (int round = fromRound; round <= toRound; round++) {
+			if (cipher.hasKeyInjectionInRound(round)) {
+				key = primitiveCipher.getRoundKeyWords(round);
+				differential.storeKey(round, key);
+				
+				if (cipher.injectsKeyAtRoundBegin(round)) {
+					differential.storeIntermediateState(round, state, key);
+				}
+			}
+			
+			primitiveCipher.encryptRoundsInPlace(state, round, round);
+			differential.storeState(round, state);
+			
+			if (cipher.hasKeyInjectionInRound(round) && cipher.injectsKeyAtRoundEnd(round)) {
+				differential.storeIntermediateState(round, state, key);
+			}
+		}
+		
+		if (toRound == cipher.getNumRounds() && cipher.hasKeyInjectionInRound(toRound + 1)) {
+			key = primitiveCipher.getRoundKeyWords(toRound + 1);
+			differential.storeKey(toRound + 1, key);
+			differential.storeIntermediateState(toRound + 1, state, key);
+		}
+	}
+	
+}
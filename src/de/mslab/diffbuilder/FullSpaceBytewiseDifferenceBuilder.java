@@ -1,5 +1,7 @@
 package de.mslab.diffbuilder;
 
+import java.util.Iterator;
+
 import de.mslab.core.ByteArray;
 import de.mslab.errors.InvalidArgumentError;
 
@@ -21,6 +23,26 @@ public class FullSpaceBytewiseDifferenceBuilder implements DifferenceBuilder {
 	protected int weight;
 	protected volatile boolean isFirst;
 	
+	/**
+	 * {@inheritDoc}
+	 * The bytes of the difference with rank r are active where the bits of r + 1 are set.
+	 */
+	public DifferenceIterator get(long rank) throws InvalidArgumentError {
+		if (rank < 0 || rank >= numResults) {
+			throw new InvalidArgumentError("Rank needs to be in [0, " + numResults + "). Given rank = " + rank + ".");
+		}
+		
+		long j = rank + 1;
+		ByteArray startValue = new ByteArray(numBytes);
+		
+		for (int i = 0; i < numBytes; i++) {
+			startValue.set(i, (int)(j & 1));
+			j >>>= 1;
+		}
+		
+		return new BytewiseDifferenceIterator(startValue, dimension);
+	}
+	
 	public int getCurrentWeight() {
 		return 0;
 	}
@@ -52,6 +74,10 @@ public class FullSpaceBytewiseDifferenceBuilder implements DifferenceBuilder {
 		return numResults;
 	}
 	
+	public Iterator<DifferenceIterator> iterator(long fromRank, long toRank) {
+		return new DifferenceRankIterator(this, fromRank, toRank);
+	}
+	
 	public synchronized DifferenceIterator next() {
 		index++;
 		int j = index;
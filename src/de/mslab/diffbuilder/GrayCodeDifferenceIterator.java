@@ -0,0 +1,70 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Iterates over the same differences as a difference iterator, whose differences are linear in their
+ * index, but in Gray-code order. Then, consecutive differences differ only in the difference of a
+ * single bit of the index, which is XORed to a single reused array. The i-th difference is the XOR
+ * of the unit differences of the bits of <code>i ^ (i >>> 1)</code>.
+ */
+public class GrayCodeDifferenceIterator implements DifferenceIterator {
+	
+	private ByteArray difference;
+	private int flippedBit = -1;
+	private long index = 0;
+	private long maximum;
+	private ByteArray[] unitDifferences;
+	
+	/**
+	 * Creates an iterator over the 2^n - 1 non-zero combinations of the given n unit differences,
+	 * where unit difference i is the difference for the index with only bit i set.
+	 */
+	public GrayCodeDifferenceIterator(ByteArray[] unitDifferences) {
+		this.unitDifferences = unitDifferences;
+		this.maximum = (1L << unitDifferences.length) - 1;
+		this.difference = new ByteArray(unitDifferences[0].length());
+	}
+	
+	/**
+	 * Returns the index bit, whose unit difference was XORed to the difference by the last call of
+	 * {@link #next()}, or -1 if {@link #next()} has not been called since the last reset.
+	 */
+	public int getFlippedBit() {
+		return flippedBit;
+	}
+	
+	public int getNumUnitDifferences() {
+		return unitDifferences.length;
+	}
+	
+	public ByteArray getUnitDifference(int bit) {
+		return unitDifferences[bit];
+	}
+	
+	public boolean hasNext() {
+		return index < maximum;
+	}
+	
+	/**
+	 * Returns the next difference. The returned array is reused by all calls, and must not be
+	 * modified by the caller.
+	 */
+	public ByteArray next() {
+		if (hasNext()) {
+			index++;
+			flippedBit = Long.numberOfTrailingZeros(index);
+			difference.xor(unitDifferences[flippedBit]);
+			return difference;
+		} else {
+			return null;
+		}
+	}
+	
+	public void reset() {
+		index = 0;
+		flippedBit = -1;
+		difference = new ByteArray(difference.length());
+	}
+	
+}
@@ -1,5 +1,8 @@
 package de.mslab.diffbuilder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.mslab.core.ByteArray;
 import de.mslab.core.Differential;
 
@@ -9,7 +12,7 @@ public class MatchingDifferentialBuilder extends AbstractDifferentialBuilder {
 		super();
 	}
 	
-	public synchronized Differential computeBackwardDifferentialFromMiddle(int fromRound, int toRound,
+	public Differential computeBackwardDifferentialFromMiddle(int fromRound, int toRound,
 		ByteArray firstStartingState, DifferenceIterator stateBitsIterator, ByteArray expandedKey) {
 		
 		return computeDifferentialFromMiddle(
@@ -18,7 +21,7 @@ public class MatchingDifferentialBuilder extends AbstractDifferentialBuilder {
 		);
 	}
 	
-	public synchronized Differential computeForwardDifferentialFromMiddle(int fromRound, int toRound, 
+	public Differential computeForwardDifferentialFromMiddle(int fromRound, int toRound, 
 		ByteArray firstStartingState, DifferenceIterator stateBitsIterator, ByteArray expandedKey) {
 		
 		return computeDifferentialFromMiddle(
@@ -27,6 +30,114 @@ public class MatchingDifferentialBuilder extends AbstractDifferentialBuilder {
 		);
 	}
 	
+	/**
+	 * Computes the same differential as {@link #computeBackwardDifferentialFromMiddle(int, int, 
+	 * ByteArray, DifferenceIterator, ByteArray)}, but decrypts all starting states round by round, 
+	 * and passes the accumulated differential to the given filter before each round. The differences 
+	 * of the rounds, which have not been decrypted yet, are zero. Returns <code>null</code> as soon 
+	 * as the filter rejects the differential, so that its remaining rounds are not computed. 
+	 */
+	public Differential computeBackwardDifferentialFromMiddle(int fromRound, int toRound,
+		ByteArray firstStartingState, DifferenceIterator stateBitsIterator, ByteArray expandedKey, 
+		PartialDifferentialFilter filter) {
+		
+		Differential accumulated = new Differential(fromRound, toRound);
+		Differential current = new Differential(fromRound, toRound);
+		Differential first = new Differential(fromRound, toRound);
+		ByteArray[] states = collectStartingStates(firstStartingState, stateBitsIterator);
+		int numStates = states.length;
+		int index, round;
+		
+		fillDifferential(accumulated);
+		cipher.setExpandedKey(expandedKey);
+		
+		for (index = 0; index < numStates; index++) {
+			backwardDifferentialsHelper.computeLastKeyInjection(index == 0 ? first : current, states[index]);
+			
+			if (index > 0) {
+				orDifferences(accumulated, first, current, toRound + 1, toRound);
+			}
+		}
+		
+		for (round = toRound; round >= fromRound; round--) {
+			if (!filter.accept(accumulated)) {
+				return null;
+			}
+			
+			for (index = 0; index < numStates; index++) {
+				states[index] = backwardDifferentialsHelper.computeRound(index == 0 ? first : current, states[index], round);
+				
+				if (index > 0) {
+					orDifferences(accumulated, first, current, round, round - 1);
+				}
+			}
+		}
+		
+		for (index = 0; index < numStates; index++) {
+			backwardDifferentialsHelper.computeFirstKeyInjection(index == 0 ? first : current, states[index]);
+			
+			if (index > 0) {
+				orDifferences(accumulated, first, current, 0, -1);
+			}
+		}
+		
+		return accumulated;
+	}
+	
+	/**
+	 * Computes the same differential as {@link #computeForwardDifferentialFromMiddle(int, int, 
+	 * ByteArray, DifferenceIterator, ByteArray)}, but encrypts all starting states round by round, 
+	 * and passes the accumulated differential to the given filter before each round. The differences 
+	 * of the rounds, which have not been encrypted yet, are zero. Returns <code>null</code> as soon 
+	 * as the filter rejects the differential, so that its remaining rounds are not computed. 
+	 */
+	public Differential computeForwardDifferentialFromMiddle(int fromRound, int toRound,
+		ByteArray firstStartingState, DifferenceIterator stateBitsIterator, ByteArray expandedKey, 
+		PartialDifferentialFilter filter) {
+		
+		Differential accumulated = new Differential(fromRound, toRound);
+		Differential current = new Differential(fromRound, toRound);
+		Differential first = new Differential(fromRound, toRound);
+		ByteArray[] states = collectStartingStates(firstStartingState, stateBitsIterator);
+		int numStates = states.length;
+		int index, round;
+		
+		fillDifferential(accumulated);
+		cipher.setExpandedKey(expandedKey);
+		
+		for (index = 0; index < numStates; index++) {
+			forwardDifferentialsHelper.computeFirstKeyInjection(index == 0 ? first : current, states[index]);
+			
+			if (index > 0) {
+				orDifferences(accumulated, first, current, 0, fromRound - 1);
+			}
+		}
+		
+		for (round = fromRound; round <= toRound; round++) {
+			if (!filter.accept(accumulated)) {
+				return null;
+			}
+			
+			for (index = 0; index < numStates; index++) {
+				states[index] = forwardDifferentialsHelper.computeRound(index == 0 ? first : current, states[index], round);
+				
+				if (index > 0) {
+					orDifferences(accumulated, first, current, round, round);
+				}
+			}
+		}
+		
+		for (index = 0; index < numStates; index++) {
+			forwardDifferentialsHelper.computeLastKeyInjection(index == 0 ? first : current, states[index]);
+			
+			if (index > 0) {
+				orDifferences(accumulated, first, current, toRound + 1, -1);
+			}
+		}
+		
+		return accumulated;
+	}
+	
 	protected Differential computeDifferentialFromMiddle(int fromRound, int toRound, 
 		ByteArray firstStartingState, DifferenceIterator stateBitsIterator, ByteArray expandedKey, 
 		DifferentialsHelper differentialsHelper) {
@@ -52,4 +163,19 @@ public class MatchingDifferentialBuilder extends AbstractDifferentialBuilder {
 		return accumulated;
 	}
 	
+	/**
+	 * Returns the first starting state, followed by the starting states of the given iterator. 
+	 */
+	private ByteArray[] collectStartingStates(ByteArray firstStartingState, DifferenceIterator stateBitsIterator) {
+		List<ByteArray> states = new ArrayList<ByteArray>();
+		states.add(firstStartingState.clone());
+		stateBitsIterator.reset();
+		
+		while(stateBitsIterator.hasNext()) {
+			states.add(stateBitsIterator.next().clone());
+		}
+		
+		return states.toArray(new ByteArray[states.size()]);
+	}
+	
 }
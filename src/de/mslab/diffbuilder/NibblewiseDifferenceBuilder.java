@@ -37,12 +37,12 @@ public class NibblewiseDifferenceBuilder extends AbstractDifferenceBuilder {
 		return numResults;
 	}
 	
-	protected void setValueAtPosition(int position, boolean v) {
-		value.setNibbleAtEnd(position, v);
+	protected DifferenceIterator createIterator(ByteArray value, int[] bitPositions) {
+		return new NibblewiseDifferenceIterator(value, dimension, bitPositions);
 	}
 	
-	protected DifferenceIterator storeNextValue() {
-		return new NibblewiseDifferenceIterator(value, dimension, bitPositions);
+	protected void setValueAtPosition(ByteArray value, int position, boolean v) {
+		value.setNibbleAtEnd(position, v);
 	}
 	
 }
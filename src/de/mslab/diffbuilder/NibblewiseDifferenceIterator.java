@@ -9,9 +9,8 @@ public class NibblewiseDifferenceIterator extends AbstractDifferenceIterator {
 		super(difference, dimension, bitPositions);
 	}
 	
-	protected void updateDifference() {
-		index++;
-		difference = new ByteArray(numBytes);
+	protected ByteArray computeDifference(long index) {
+		ByteArray difference = new ByteArray(numBytes);
 		int shift = 0;
 		int mask = 0xF;
 		
@@ -22,6 +21,7 @@ public class NibblewiseDifferenceIterator extends AbstractDifferenceIterator {
 		
 		//Logger.getLogger().info("{3} difference {0}, index {1} activePositions {2}", difference, index, 
 		//	Arrays.toString(activePositions), ID);
+		return difference;
 	}
 	
 }
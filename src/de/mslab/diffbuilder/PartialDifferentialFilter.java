@@ -0,0 +1,25 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.core.Differential;
+
+/**
+ * Decides after each round, whether a differential, which is computed round by round, is still
+ * of interest. The differences of the rounds, which have not been computed yet, are zero, and
+ * only become more active in the following rounds. So, a filter can reject a differential as soon
+ * as its partial differences already conflict with all differentials it could be combined with.
+ *
+ * There is no fixed saturation marker, which would drop a differential once all its differences are
+ * fully active, since this practically never happens for the supported ciphers. Instead, saturation
+ * is relative: the {@link de.mslab.bicliquesearch.BicliqueFinder} only filters nabla differentials,
+ * and rejects them as soon as they share active components with every delta differential. The delta
+ * differentials themselves are always computed completely.
+ */
+public interface PartialDifferentialFilter {
+	
+	/**
+	 * Returns <code>false</code> if the given partially computed differential can be dropped,
+	 * so that its remaining rounds are not computed.
+	 */
+	boolean accept(Differential differential);
+	
+}
@@ -0,0 +1,122 @@
+package de.mslab.diffbuilder;
+
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+/**
+ * Holds the state, key and intermediate state differences of a differential as arrays of 64-bit
+ * words, which are interpreted as in {@link ByteArray#getWord(int)}. The arrays are reused for
+ * all keys, so that differentials can be computed and accumulated without allocating memory.
+ */
+class PrimitiveDifferential {
+	
+	final int fromRound;
+	final int toRound;
+	final long[][] intermediateStateDifferences;
+	final long[][] keyDifferences;
+	final long[][] stateDifferences;
+	
+	PrimitiveDifferential(int fromRound, int toRound, int numRounds) {
+		this.fromRound = fromRound;
+		this.toRound = toRound;
+		this.intermediateStateDifferences = new long[numRounds + 2][];
+		this.keyDifferences = new long[numRounds + 2][];
+		this.stateDifferences = new long[numRounds + 2][];
+	}
+	
+	/**
+	 * ORs the XOR of the given differentials into this differential.
+	 */
+	void orDifference(PrimitiveDifferential first, PrimitiveDifferential second) {
+		orDifference(intermediateStateDifferences, first.intermediateStateDifferences, second.intermediateStateDifferences);
+		orDifference(keyDifferences, first.keyDifferences, second.keyDifferences);
+		orDifference(stateDifferences, first.stateDifferences, second.stateDifferences);
+	}
+	
+	/**
+	 * Stores the XOR of the given state and key as intermediate state of the given round. If the key
+	 * has fewer words than the state, only the first words are XORed, as in {@link ByteArray#xor(ByteArray)}.
+	 */
+	void storeIntermediateState(int round, long[] state, long[] key) {
+		long[] intermediateState = copy(state, intermediateStateDifferences[round]);
+		int length = Math.min(state.length, key.length);
+		
+		for (int i = 0; i < length; i++) {
+			intermediateState[i] ^= key[i];
+		}
+		
+		intermediateStateDifferences[round] = intermediateState;
+	}
+	
+	void storeKey(int round, long[] key) {
+		keyDifferences[round] = copy(key, keyDifferences[round]);
+	}
+	
+	void storeState(int round, long[] state) {
+		stateDifferences[round] = copy(state, stateDifferences[round]);
+	}
+	
+	/**
+	 * Sets all stored differences in the given differential, where states consist of the given
+	 * number of bytes, and keys of all bytes of their words.
+	 */
+	void writeTo(Differential differential, int stateSize) {
+		for (int round = 0; round < stateDifferences.length; round++) {
+			if (stateDifferences[round] != null) {
+				differential.setStateDifference(round, createByteArray(stateDifferences[round], stateSize));
+			}
+			
+			if (keyDifferences[round] != null) {
+				differential.setKeyDifference(round, createByteArray(
+					keyDifferences[round], keyDifferences[round].length * (Long.SIZE / Byte.SIZE)
+				));
+			}
+			
+			if (intermediateStateDifferences[round] != null) {
+				differential.setIntermediateStateDifference(
+					round, createByteArray(intermediateStateDifferences[round], stateSize)
+				);
+			}
+		}
+	}
+	
+	private static long[] copy(long[] source, long[] target) {
+		if (target == null || target.length != source.length) {
+			target = new long[source.length];
+		}
+		
+		System.arraycopy(source, 0, target, 0, source.length);
+		return target;
+	}
+	
+	private static ByteArray createByteArray(long[] words, int length) {
+		ByteArray result = new ByteArray(length);
+		result.writeWords(words);
+		return result;
+	}
+	
+	private static void orDifference(long[][] accumulated, long[][] first, long[][] second) {
+		long[] words, firstWords, secondWords;
+		
+		for (int round = 0; round < accumulated.length; round++) {
+			firstWords = first[round];
+			secondWords = second[round];
+			
+			if (firstWords == null || secondWords == null) {
+				continue;
+			}
+			
+			words = accumulated[round];
+			
+			if (words == null) {
+				words = new long[firstWords.length];
+				accumulated[round] = words;
+			}
+			
+			for (int i = 0; i < words.length; i++) {
+				words[i] |= firstWords[i] ^ secondWords[i];
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,192 @@
+package de.mslab.diffbuilder;
+
+import java.util.Vector;
+
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.truncated.TruncatedDifferentialPropagator;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
+import de.mslab.core.Differential;
+import de.mslab.errors.DifferentialMismatchError;
+
+/**
+ * Builds differentials by propagating truncated differences instead of encrypting with every 
+ * key difference. The key differences of the iterator are only joined to a truncated key difference, 
+ * which is then expanded and propagated through the rounds in a single pass. The result marks 
+ * every byte or nibble as fully active, which may be active in the differential of the 
+ * {@link BicliqueDifferentialBuilder}. It may contain further active components, since 
+ * cancellations of differences are not modeled. 
+ * 
+ * In cross-check mode, the builder computes also the concrete differential, and throws a 
+ * {@link DifferentialMismatchError} if the truncated differential does not cover it.  
+ */
+public class TruncatedDifferentialBuilder extends AbstractDifferentialBuilder {
+	
+	private boolean crossCheckEnabled = false;
+	private TruncatedDifferentialPropagator propagator;
+	private BackwardDifferentialsHelper truncatedBackwardDifferentialsHelper;
+	private ForwardDifferentialsHelper truncatedForwardDifferentialsHelper;
+	
+	public TruncatedDifferentialBuilder(TruncatedDifferentialPropagator propagator) {
+		super();
+		this.propagator = propagator;
+		truncatedForwardDifferentialsHelper = new ForwardDifferentialsHelper();
+		truncatedForwardDifferentialsHelper.propagator = propagator;
+		truncatedBackwardDifferentialsHelper = new BackwardDifferentialsHelper();
+		truncatedBackwardDifferentialsHelper.propagator = propagator;
+		
+		if (propagator.getCipher() != null) {
+			setCipher(propagator.getCipher());
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code>, if every active bit in the given concrete differential is also 
+	 * active in the given truncated differential. 
+	 */
+	public static boolean covers(Differential truncated, Differential concrete) {
+		return covers(truncated.keyDifferences, concrete.keyDifferences)
+			&& covers(truncated.stateDifferences, concrete.stateDifferences)
+			&& covers(truncated.intermediateStateDifferences, concrete.intermediateStateDifferences);
+	}
+	
+	public Differential computeBackwardDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound) {
+		
+		return computeTruncatedDifferential(
+			fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+			backwardDifferentialsHelper, truncatedBackwardDifferentialsHelper
+		);
+	}
+	
+	/**
+	 * Computes the truncated differential in a single pass, and passes it to the given filter only once. 
+	 */
+	public Differential computeBackwardDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		PartialDifferentialFilter filter) {
+		
+		Differential differential = computeBackwardDifferential(
+			fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound
+		);
+		return filter.accept(differential) ? differential : null;
+	}
+	
+	public Differential computeForwardDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound) {
+		
+		return computeTruncatedDifferential(
+			fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+			forwardDifferentialsHelper, truncatedForwardDifferentialsHelper
+		);
+	}
+	
+	public TruncatedDifferentialPropagator getPropagator() {
+		return propagator;
+	}
+	
+	public boolean isCrossCheckEnabled() {
+		return crossCheckEnabled;
+	}
+	
+	public void setCipher(RoundBasedBlockCipher cipher) {
+		super.setCipher(cipher);
+		truncatedForwardDifferentialsHelper.setCipher(cipher);
+		truncatedBackwardDifferentialsHelper.setCipher(cipher);
+		
+		if (propagator.getCipher() != cipher) {
+			propagator.setCipher(cipher);
+		}
+	}
+	
+	/**
+	 * Enables or disables the cross-check mode. Disabled by default. 
+	 */
+	public void setCrossCheckEnabled(boolean crossCheckEnabled) {
+		this.crossCheckEnabled = crossCheckEnabled;
+	}
+	
+	protected Differential computeTruncatedDifferential(int fromRound, int toRound, 
+		DifferenceIterator keyDifferenceIterator, ByteArray firstExpandedKey, int keyDifferenceRound, 
+		DifferentialsHelper differentialHelper, DifferentialsHelper truncatedDifferentialHelper) {
+		
+		ByteArray keyDifference = new ByteArray(cipher.getKeySize());
+		ByteArray lastKeyDifference = null;
+		
+		while(keyDifferenceIterator.hasNext()) {
+			lastKeyDifference = keyDifferenceIterator.next();
+			keyDifference.or(lastKeyDifference);
+		}
+		
+		Differential accumulated = new Differential(fromRound, toRound);
+		Differential truncated = new Differential(fromRound, toRound);
+		
+		fillDifferential(accumulated);
+		propagator.setExpandedKey(propagator.computeExpandedKey(keyDifference, keyDifferenceRound));
+		truncatedDifferentialHelper.computeDifferential(truncated, new ByteArray(cipher.getStateSize()));
+		accumulated.or(truncated);
+		
+		accumulated.firstSecretKey = firstExpandedKey.splice(0, cipher.getKeySize());
+		accumulated.keyDifference = keyDifference;
+		
+		if (lastKeyDifference != null) {
+			ByteArray secondKeyPart = lastKeyDifference.clone();
+			secondKeyPart.xor(cipher.computeKeyPart(firstExpandedKey, keyDifferenceRound));
+			accumulated.secondSecretKey = cipher.computeExpandedKey(secondKeyPart, keyDifferenceRound)
+				.splice(0, cipher.getKeySize());
+		}
+		
+		if (crossCheckEnabled) {
+			keyDifferenceIterator.reset();
+			Differential concrete = computeDifferential(
+				fromRound, toRound, keyDifferenceIterator, firstExpandedKey, keyDifferenceRound, 
+				differentialHelper
+			);
+			
+			if (!covers(accumulated, concrete)) {
+				throw new DifferentialMismatchError(
+					"Truncated differential of " + cipher.getName() + " in rounds " + fromRound + " - " + toRound 
+					+ " does not cover the concrete differential for key difference " + keyDifference 
+					+ " in round " + keyDifferenceRound 
+				);
+			}
+		}
+		
+		return accumulated;
+	}
+	
+	private static boolean covers(Vector<Difference> truncated, Vector<Difference> concrete) {
+		Difference concreteDifference, truncatedDifference;
+		ByteArray concreteDelta, truncatedDelta;
+		
+		for (int i = 0; i < concrete.size(); i++) {
+			concreteDifference = concrete.get(i);
+			
+			if (concreteDifference == null) {
+				continue;
+			}
+			
+			concreteDelta = concreteDifference.getDelta();
+			truncatedDifference = i < truncated.size() ? truncated.get(i) : null;
+			
+			if (truncatedDifference == null) {
+				if (concreteDelta.countNumActiveBits() > 0) {
+					return false;
+				}
+				
+				continue;
+			}
+			
+			truncatedDelta = truncatedDifference.getDelta();
+			
+			for (int j = 0; j < concreteDelta.getNumWords(); j++) {
+				if ((concreteDelta.getWord(j) & ~truncatedDelta.getWord(j)) != 0) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+}
@@ -0,0 +1,19 @@
+package de.mslab.errors;
+
+import de.mslab.diffbuilder.TruncatedDifferentialBuilder;
+
+/**
+ * Thrown in case a truncated differential does not cover the concrete differential which was 
+ * computed for the same key differences. For instance, this error is thrown by the 
+ * {@link TruncatedDifferentialBuilder} in cross-check mode. It indicates a wrong propagation rule.
+ * 
+ */
+public class DifferentialMismatchError extends Error {
+	
+	private static final long serialVersionUID = -2305143391268377425L;
+	
+	public DifferentialMismatchError(String message) {
+		super(message);
+	}
+	
+}
@@ -0,0 +1,20 @@
+package de.mslab.errors;
+
+/**
+ * Thrown in case intermediate results could not be written to or read from a file,
+ * for instance if the disk is full or the file was removed during a search.
+ *
+ */
+public class StorageError extends Error {
+	
+	private static final long serialVersionUID = 6184390532779614823L;
+	
+	public StorageError(String message) {
+		super(message);
+	}
+	
+	public StorageError(String message, Throwable cause) {
+		super(message, cause);
+	}
+	
+}
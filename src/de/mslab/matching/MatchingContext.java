@@ -67,6 +67,18 @@ public class MatchingContext {
 	 * Thus, the more bytes are used, the higher the computational complexity.  
 	 */
 	public int numMatchingBits = Byte.SIZE;
+	/**
+	 * The number of worker threads, over which the MatchingFinder distributes the pairs of matching 
+	 * rounds and matching state differences. Defaults to the number of processors available to the JVM.
+	 */
+	public int numThreads = Runtime.getRuntime().availableProcessors();
+	/**
+	 * If set, the MatchingFinder computes the differentials of a matching round by round, starting 
+	 * with the direction over fewer rounds, and abandons the matching as soon as a lower bound of its 
+	 * recomputed operations exceeds the minimum of all matchings found so far. The best matching is 
+	 * the same as if all matchings were computed completely. <code>True</code> by default.
+	 */
+	public boolean abandonMatchingsEarly = true;
 	/**
 	 * The current iteration of the MatchingDifferentialBuilder.
 	 */
@@ -1,7 +1,12 @@
 package de.mslab.matching;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.mslab.ciphers.RoundBasedBlockCipher;
 import de.mslab.ciphers.helpers.RecomputedOperationsCounter;
@@ -16,6 +21,7 @@ import de.mslab.diffbuilder.DifferenceBuilder;
 import de.mslab.diffbuilder.DifferenceIterator;
 import de.mslab.diffbuilder.MatchingDifferentialBuilder;
 import de.mslab.diffbuilder.NibblewiseDifferenceBuilder;
+import de.mslab.diffbuilder.PartialDifferentialFilter;
 import de.mslab.errors.InvalidArgumentError;
 import de.mslab.utils.Logger;
 
@@ -27,6 +33,12 @@ import de.mslab.utils.Logger;
  */
 public class MatchingFinder {
 	
+	/**
+	 * The number of chunks per worker thread, into which the matching state differences of a 
+	 * matching round are split at most, so that idle workers can steal them. 
+	 */
+	private static final int NUM_CHUNKS_PER_THREAD = 16;
+	
 	private Logger logger = Logger.getLogger();
 	private MatchingContext context;
 	private MatchingFinderResult result;
@@ -42,6 +54,17 @@ public class MatchingFinder {
 	private DifferenceBuilder matchingDifferenceBuilder;
 	
 	private MatchingDifferentialBuilder matchingDifferentialBuilder;
+	/**
+	 * A builder per worker thread, each with its own copy of the cipher, so that the threads 
+	 * compute differentials without any synchronization. 
+	 */
+	private ThreadLocal<MatchingDifferentialBuilder> matchingDifferentialBuilders;
+	/**
+	 * The minimum number of recomputed operations of all completely computed matchings, which is 
+	 * shared by all worker threads to abandon worse matchings early. 
+	 */
+	private AtomicInteger minNumRecomputedOperations = new AtomicInteger();
+	private AtomicLong numAbandonedMatchings = new AtomicLong();
 	
 	/**
 	 * Calculates the complexity for the matching part of a biclique attack on a given cipher
@@ -82,6 +105,18 @@ public class MatchingFinder {
 		this.result = new MatchingFinderResult();
 		this.matchingDifferentialBuilder = new MatchingDifferentialBuilder();
 		this.matchingDifferentialBuilder.setCipher(cipher);
+		
+		this.matchingDifferentialBuilders = new ThreadLocal<MatchingDifferentialBuilder>() {
+			protected MatchingDifferentialBuilder initialValue() {
+				return createMatchingDifferentialBuilder();
+			}
+		};
+	}
+	
+	private MatchingDifferentialBuilder createMatchingDifferentialBuilder() {
+		MatchingDifferentialBuilder builder = new MatchingDifferentialBuilder();
+		builder.setCipher(cipher.copy());
+		return builder;
 	}
 	
 	private void tearDown() {
@@ -91,6 +126,7 @@ public class MatchingFinder {
 		this.context = null;
 		this.matchingDifferentialBuilder.setCipher(null);
 		this.matchingDifferentialBuilder = null;
+		this.matchingDifferentialBuilders = null;
 	}
 	
 	/**
@@ -138,15 +174,16 @@ public class MatchingFinder {
 		ki0diff.xor(keys[i][0]);
 		k0jdiff.xor(keys[0][j]);
 		
-		int[] deltaActivePositions = findActiveBitPositionsInDifference(delta.keyDifference);
-		int[] nablaActivePositions = findActiveBitPositionsInDifference(nabla.keyDifference);
-		
-		deltaDifferenceIterator = new BitwiseDifferenceIterator(
-			delta.keyDifference, biclique.dimension, deltaActivePositions
-		);
-		nablaDifferenceIterator = new BitwiseDifferenceIterator(
-			nabla.keyDifference, biclique.dimension, nablaActivePositions
-		);
+		deltaDifferenceIterator = createKeyDifferenceIterator(delta);
+		nablaDifferenceIterator = createKeyDifferenceIterator(nabla);
+	}
+	
+	/**
+	 * Creates an iterator over the key differences of the given differential of the biclique. 
+	 */
+	private BitwiseDifferenceIterator createKeyDifferenceIterator(Differential differential) {
+		int[] activePositions = findActiveBitPositionsInDifference(differential.keyDifference);
+		return new BitwiseDifferenceIterator(differential.keyDifference, biclique.dimension, activePositions);
 	}
 	
 	private ByteArray computeExpandedKeyFromSecretKey(ByteArray secretKey) {
@@ -273,75 +310,158 @@ public class MatchingFinder {
 			biclique.deltaDifferential.fromRound
 		);
 		
-		computeDifferentialsFromMiddleAndMerge(context.matchingRound, matchingBitsIterator, p_to_v, s_to_v);
+		Matching matching = computeDifferentialsFromMiddleAndMerge(
+			matchingDifferentialBuilder, context.matchingRound, 0, matchingBitsIterator, p_to_v, s_to_v, false
+		);
+		matching.storeIn(result);
 		logProgress(context.matchingRound);
 	}
 	
+	/**
+	 * Computes the matchings for all pairs of matching rounds and matching state differences in a 
+	 * pool of worker threads. The best matching is the one with the minimum number of recomputed 
+	 * operations, and of those the first in the order of rounds and differences. 
+	 */
 	private void computeDifferentialsForAllRoundsAndBits() {
+		long numStateDifferences = matchingDifferenceBuilder.initializeAndGetNumDifferences(
+			context.numMatchingBits, cipher.getStateSize()
+		);
+		int numThreads = Math.max(1, context.numThreads);
+		long chunkSize = Math.max(1, numStateDifferences / ((long)numThreads * NUM_CHUNKS_PER_THREAD));
+		List<RoundTask> tasks = new ArrayList<RoundTask>();
+		
 		for (int matchingRound = result.matchingFromRound; matchingRound < result.matchingToRound; matchingRound++) {
-			deltaDifferenceIterator.reset();
-			nablaDifferenceIterator.reset();
-			
-			Differential p_to_v = matchingDifferentialBuilder.computeForwardDifferential(
-				result.matchingFromRound, matchingRound, nablaDifferenceIterator, keys[0][0], 
-				biclique.nablaDifferential.toRound
-			);
-			Differential s_to_v = matchingDifferentialBuilder.computeBackwardDifferential(
-				matchingRound + 1, result.matchingToRound, deltaDifferenceIterator, keys[0][0], 
-				biclique.deltaDifferential.fromRound
-			);
-			
-			//logger.info("p -> v {0}", p_to_v);
-			//logger.info("s <- v {0}", s_to_v);
-			
-			long numStateDifferences = matchingDifferenceBuilder.initializeAndGetNumDifferences(
-				context.numMatchingBits, cipher.getStateSize()
-			);
-			
-			for (int i = 0; i < numStateDifferences; i++) {
-				computeDifferentialsFromMiddleAndMerge(matchingRound, matchingDifferenceBuilder.next(), p_to_v, s_to_v);
+			tasks.add(new RoundTask(matchingRound, numStateDifferences, chunkSize));
+		}
+		
+		minNumRecomputedOperations.set(Integer.MAX_VALUE);
+		numAbandonedMatchings.set(0);
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		Matching matching;
+		
+		try {
+			matching = pool.invoke(new RoundsTask(tasks));
+		} finally {
+			pool.shutdown();
+		}
+		
+		if (matching != null) {
+			matching.storeIn(result);
+		}
+		
+		result.numAbandonedMatchings = numAbandonedMatchings.get();
+		logAbandonedMatchings(numStateDifferences * tasks.size());
+	}
+	
+	/**
+	 * Computes the differentials from the matching state in both directions, merges them with the 
+	 * given ones, and counts the recomputed operations. The direction over fewer rounds is computed 
+	 * first. If the given flag is set, both directions are computed round by round, and the matching 
+	 * is abandoned as soon as a lower bound of its recomputed operations exceeds the minimum of all 
+	 * matchings so far. Then, <code>null</code> is returned. 
+	 */
+	private Matching computeDifferentialsFromMiddleAndMerge(MatchingDifferentialBuilder matchingDifferentialBuilder, 
+		int matchingRound, long rank, DifferenceIterator matchingBitsIterator, Differential p_to_v, Differential s_to_v, 
+		boolean canAbandon) {
+		Matching matching = new Matching();
+		matching.matchingRound = matchingRound;
+		matching.rank = rank;
+		matching.p_to_v = p_to_v;
+		matching.s_to_v = s_to_v;
+		
+		boolean isBackwardFirst = matchingRound - result.matchingFromRound < result.matchingToRound - matchingRound;
+		int numRecomputedOperations = 0;
+		
+		for (int direction = 0; direction < 2; direction++) {
+			if (isBackwardFirst == (direction == 0)) {
+				numRecomputedOperations = computeBackwardFromMiddleAndMerge(
+					matchingDifferentialBuilder, matching, matchingBitsIterator, numRecomputedOperations, canAbandon
+				);
+			} else {
+				numRecomputedOperations = computeForwardFromMiddleAndMerge(
+					matchingDifferentialBuilder, matching, matchingBitsIterator, numRecomputedOperations, canAbandon
+				);
 			}
 			
-			logProgress(matchingRound);
+			if (numRecomputedOperations < 0) {
+				numAbandonedMatchings.incrementAndGet();
+				return null;
+			}
 		}
+		
+		//logger.info("p <- v {0}", matching.v_to_p);
+		//logger.info("s -> v {0}", matching.v_to_s);
+		
+		matching.numRecomputedOperations = numRecomputedOperations;
+		lowerMinNumRecomputedOperations(numRecomputedOperations);
+		return matching;
 	}
 	
-	private void computeDifferentialsFromMiddleAndMerge(int matchingRound, DifferenceIterator matchingBitsIterator, 
-		Differential p_to_v, Differential s_to_v) {
+	/**
+	 * Computes the differential from the matching state to the plaintext, merges it into p -> v, 
+	 * and returns the given number of recomputed operations of the other direction plus those in 
+	 * the merged differential, or -1 if the matching was abandoned. 
+	 */
+	private int computeBackwardFromMiddleAndMerge(MatchingDifferentialBuilder matchingDifferentialBuilder, 
+		Matching matching, DifferenceIterator matchingBitsIterator, int numRecomputedOperations, boolean canAbandon) {
 		final int i = 1;
 		final int j = 1;
 		
-		Differential v_to_p = matchingDifferentialBuilder.computeBackwardDifferentialFromMiddle(
-			result.matchingFromRound, matchingRound, emptyState, matchingBitsIterator, keys[i][j] 
-		);
-		Differential v_to_s = matchingDifferentialBuilder.computeForwardDifferentialFromMiddle(
-			matchingRound + 1, result.matchingToRound, emptyState, matchingBitsIterator, keys[i][j]
-		);
-		
-		//logger.info("p <- v {0}", v_to_p);
-		//logger.info("s -> v {0}", v_to_s);
-		
-		Differential p_mergedto_v = mergeIntoForwardDifferential(p_to_v, v_to_p);
-		Differential s_mergedto_v = mergeIntoBackwardDifferential(s_to_v, v_to_s);
+		if (canAbandon) {
+			matching.v_to_p = matchingDifferentialBuilder.computeBackwardDifferentialFromMiddle(
+				result.matchingFromRound, matching.matchingRound, emptyState, matchingBitsIterator, keys[i][j], 
+				new MatchingFilter(matching.p_to_v, true, numRecomputedOperations)
+			);
+			
+			if (matching.v_to_p == null) {
+				return -1;
+			}
+		} else {
+			matching.v_to_p = matchingDifferentialBuilder.computeBackwardDifferentialFromMiddle(
+				result.matchingFromRound, matching.matchingRound, emptyState, matchingBitsIterator, keys[i][j] 
+			);
+		}
 		
-		int numRecomputedOperations = counter.countRecomputedOperations(p_mergedto_v) 
-			+ counter.countRecomputedOperations(s_mergedto_v);
+		matching.p_mergedto_v = mergeIntoForwardDifferential(matching.p_to_v, matching.v_to_p);
+		return numRecomputedOperations + counter.countRecomputedOperations(matching.p_mergedto_v);
+	}
+	
+	/**
+	 * Computes the differential from the matching state to the ciphertext, merges it into v <- S, 
+	 * and returns the given number of recomputed operations of the other direction plus those in 
+	 * the merged differential, or -1 if the matching was abandoned. 
+	 */
+	private int computeForwardFromMiddleAndMerge(MatchingDifferentialBuilder matchingDifferentialBuilder, 
+		Matching matching, DifferenceIterator matchingBitsIterator, int numRecomputedOperations, boolean canAbandon) {
+		final int i = 1;
+		final int j = 1;
 		
-		if (result.minRecomputedOperations == -1 || numRecomputedOperations < result.minRecomputedOperations) {
-			result.minRecomputedOperations = numRecomputedOperations;
-			result.bestMatchingRound = matchingRound;
-			
-			result.p_to_v = p_to_v;
-			result.s_to_v = s_to_v;
-			result.v_to_p = v_to_p;
-			result.v_to_s = v_to_s;
+		if (canAbandon) {
+			matching.v_to_s = matchingDifferentialBuilder.computeForwardDifferentialFromMiddle(
+				matching.matchingRound + 1, result.matchingToRound, emptyState, matchingBitsIterator, keys[i][j], 
+				new MatchingFilter(matching.s_to_v, false, numRecomputedOperations)
+			);
 			
-			result.p_mergedto_v = p_mergedto_v;
-			result.s_mergedto_v = s_mergedto_v;
+			if (matching.v_to_s == null) {
+				return -1;
+			}
+		} else {
+			matching.v_to_s = matchingDifferentialBuilder.computeForwardDifferentialFromMiddle(
+				matching.matchingRound + 1, result.matchingToRound, emptyState, matchingBitsIterator, keys[i][j]
+			);
 		}
 		
-		result.minRecomputedOperations = counter.countRecomputedOperations(result.p_mergedto_v)
-			+ counter.countRecomputedOperations(result.s_mergedto_v);
+		matching.s_mergedto_v = mergeIntoBackwardDifferential(matching.s_to_v, matching.v_to_s);
+		return numRecomputedOperations + counter.countRecomputedOperations(matching.s_mergedto_v);
+	}
+	
+	private void lowerMinNumRecomputedOperations(int numRecomputedOperations) {
+		int current = minNumRecomputedOperations.get();
+		
+		while (numRecomputedOperations < current 
+			&& !minNumRecomputedOperations.compareAndSet(current, numRecomputedOperations)) {
+			current = minNumRecomputedOperations.get();
+		}
 	}
 	
 	private int[] findActiveBitPositionsInDifference(ByteArray keyDifference) {
@@ -399,9 +519,17 @@ public class MatchingFinder {
 		}
 	}
 	
+	private void logAbandonedMatchings(long numMatchings) {
+		logger.info("Abandoned {0}/{1} matchings early", numAbandonedMatchings.get(), numMatchings);
+	}
+	
 	private void logProgress(int matchingRound) {
+		logProgress(matchingRound, result.minRecomputedOperations);
+	}
+	
+	private void logProgress(int matchingRound, int minRecomputedOperations) {
 		logger.info("Searched matching for {0} in round {1}. Minimum # recomputed operations: {2}", 
-			cipher.getName(), matchingRound, result.minRecomputedOperations);
+			cipher.getName(), matchingRound, minRecomputedOperations);
 	}
 	
 	private void logStart() {
@@ -409,6 +537,223 @@ public class MatchingFinder {
 			result.matchingFromRound, result.matchingToRound, cipher.getName());
 	}
 	
+	/**
+	 * The differentials of the matching at a matching round with the matching state difference of 
+	 * a given rank, and the number of operations to recompute. 
+	 */
+	private static class Matching {
+		
+		int matchingRound;
+		int numRecomputedOperations;
+		long rank;
+		
+		Differential p_to_v;
+		Differential s_to_v;
+		Differential v_to_p;
+		Differential v_to_s;
+		Differential p_mergedto_v;
+		Differential s_mergedto_v;
+		
+		/**
+		 * Returns the better of both matchings, which may be <code>null</code>: the one with fewer 
+		 * recomputed operations, or the first one in the order of rounds and ranks. The order of 
+		 * reductions does therefore not change the result. 
+		 */
+		static Matching min(Matching first, Matching second) {
+			if (first == null) {
+				return second;
+			} else if (second == null) {
+				return first;
+			} else if (first.numRecomputedOperations != second.numRecomputedOperations) {
+				return first.numRecomputedOperations < second.numRecomputedOperations ? first : second;
+			} else if (first.matchingRound != second.matchingRound) {
+				return first.matchingRound < second.matchingRound ? first : second;
+			} else {
+				return first.rank <= second.rank ? first : second;
+			}
+		}
+		
+		void storeIn(MatchingFinderResult result) {
+			result.minRecomputedOperations = numRecomputedOperations;
+			result.bestMatchingRound = matchingRound;
+			
+			result.p_to_v = p_to_v;
+			result.s_to_v = s_to_v;
+			result.v_to_p = v_to_p;
+			result.v_to_s = v_to_s;
+			
+			result.p_mergedto_v = p_mergedto_v;
+			result.s_mergedto_v = s_mergedto_v;
+		}
+		
+	}
+	
+	/**
+	 * Rejects a partially computed differential from the matching state, as soon as the recomputed 
+	 * operations, which were counted in the other direction, plus a lower bound of those in the 
+	 * partial differential merged into the given one, exceed the minimum of all matchings so far. 
+	 * Matchings with an equal number of operations are kept, since they may be preferred by their 
+	 * round or rank. 
+	 */
+	private class MatchingFilter implements PartialDifferentialFilter {
+		
+		private Differential original;
+		private boolean isBackward;
+		private int numRecomputedOperations;
+		
+		public MatchingFilter(Differential original, boolean isBackward, int numRecomputedOperations) {
+			this.original = original;
+			this.isBackward = isBackward;
+			this.numRecomputedOperations = numRecomputedOperations;
+		}
+		
+		public boolean accept(Differential differential) {
+			Differential merged;
+			
+			if (isBackward) {
+				merged = mergeIntoForwardDifferential(original, differential);
+			} else {
+				merged = mergeIntoBackwardDifferential(original, differential);
+			}
+			
+			return numRecomputedOperations + counter.countMinRecomputedOperations(merged) 
+				<= minNumRecomputedOperations.get();
+		}
+		
+	}
+	
+	/**
+	 * Task to search all matching rounds at once, which returns the best matching of all rounds.
+	 */
+	private class RoundsTask extends RecursiveTask<Matching> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final List<RoundTask> tasks;
+		
+		public RoundsTask(List<RoundTask> tasks) {
+			this.tasks = tasks;
+		}
+		
+		protected Matching compute() {
+			invokeAll(tasks);
+			Matching best = null;
+			
+			for (RoundTask task : tasks) {
+				best = Matching.min(best, task.getRawResult());
+			}
+			
+			return best;
+		}
+		
+	}
+	
+	/**
+	 * Task to compute the differentials from the plaintext and the ciphertext to the state after 
+	 * a matching round, and to search the best matching state difference in this round.
+	 */
+	private class RoundTask extends RecursiveTask<Matching> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final long chunkSize;
+		private final int matchingRound;
+		private final long numStateDifferences;
+		
+		public RoundTask(int matchingRound, long numStateDifferences, long chunkSize) {
+			this.matchingRound = matchingRound;
+			this.numStateDifferences = numStateDifferences;
+			this.chunkSize = chunkSize;
+		}
+		
+		protected Matching compute() {
+			MatchingDifferentialBuilder matchingDifferentialBuilder = matchingDifferentialBuilders.get();
+			DifferenceIterator deltaDifferenceIterator = createKeyDifferenceIterator(biclique.deltaDifferential);
+			DifferenceIterator nablaDifferenceIterator = createKeyDifferenceIterator(biclique.nablaDifferential);
+			
+			Differential p_to_v = matchingDifferentialBuilder.computeForwardDifferential(
+				result.matchingFromRound, matchingRound, nablaDifferenceIterator, keys[0][0], 
+				biclique.nablaDifferential.toRound
+			);
+			Differential s_to_v = matchingDifferentialBuilder.computeBackwardDifferential(
+				matchingRound + 1, result.matchingToRound, deltaDifferenceIterator, keys[0][0], 
+				biclique.deltaDifferential.fromRound
+			);
+			
+			//logger.info("p -> v {0}", p_to_v);
+			//logger.info("s <- v {0}", s_to_v);
+			
+			Matching best = null;
+			
+			if (numStateDifferences > 0) {
+				best = new DifferencesTask(matchingRound, p_to_v, s_to_v, 0, numStateDifferences, chunkSize).invoke();
+			}
+			
+			if (best != null) {
+				logProgress(matchingRound, best.numRecomputedOperations);
+			} else {
+				logProgress(matchingRound, minNumRecomputedOperations.get());
+			}
+			
+			return best;
+		}
+		
+	}
+	
+	/**
+	 * Task to search the best matching state difference in a range of ranks in a matching round. 
+	 * Splits itself in halves until its range is not larger than the given chunk size. 
+	 */
+	private class DifferencesTask extends RecursiveTask<Matching> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final long chunkSize;
+		private final long endIndex;
+		private final int matchingRound;
+		private final Differential p_to_v;
+		private final Differential s_to_v;
+		private final long startIndex;
+		
+		public DifferencesTask(int matchingRound, Differential p_to_v, Differential s_to_v, 
+			long startIndex, long endIndex, long chunkSize) {
+			this.matchingRound = matchingRound;
+			this.p_to_v = p_to_v;
+			this.s_to_v = s_to_v;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.chunkSize = chunkSize;
+		}
+		
+		protected Matching compute() {
+			if (endIndex - startIndex <= chunkSize) {
+				return computeRange();
+			}
+			
+			long middleIndex = startIndex + (endIndex - startIndex) / 2;
+			DifferencesTask first = new DifferencesTask(matchingRound, p_to_v, s_to_v, startIndex, middleIndex, chunkSize);
+			DifferencesTask second = new DifferencesTask(matchingRound, p_to_v, s_to_v, middleIndex, endIndex, chunkSize);
+			invokeAll(first, second);
+			return Matching.min(first.getRawResult(), second.getRawResult());
+		}
+		
+		private Matching computeRange() {
+			MatchingDifferentialBuilder matchingDifferentialBuilder = matchingDifferentialBuilders.get();
+			Iterator<DifferenceIterator> iterator = matchingDifferenceBuilder.iterator(startIndex, endIndex);
+			Matching best = null;
+			
+			for (long rank = startIndex; iterator.hasNext(); rank++) {
+				best = Matching.min(best, computeDifferentialsFromMiddleAndMerge(
+					matchingDifferentialBuilder, matchingRound, rank, iterator.next(), p_to_v, s_to_v, 
+					context.abandonMatchingsEarly
+				));
+			}
+			
+			return best;
+		}
+		
+	}
+	
 }
 
 
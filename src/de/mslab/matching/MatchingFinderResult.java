@@ -15,6 +15,7 @@ public class MatchingFinderResult {
 	public int minRecomputedOperations;
 	public int numBicliqueRounds;
 	public int numRounds;
+	public long numAbandonedMatchings;
 	
 	public Differential p_to_v;
 	public Differential s_to_v;
@@ -0,0 +1,320 @@
+package de.mslab.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Vector;
+
+import de.mslab.core.Biclique;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
+import de.mslab.core.Differential;
+
+/**
+ * Serializes bicliques into a compact, versioned binary format, and reconstructs them from it.
+ *
+ * In contrast to {@link BicliqueSerializer}, no Java object stream is used. Integers are stored as
+ * variable-length quantities, the slots of the difference vectors, which are set, as one packed
+ * bitmask per vector, and every byte array as alternating runs of zero bytes and non-zero bytes,
+ * where only the lengths of the zero runs are stored. Since the differences of a biclique are
+ * mostly zero, a biclique takes only a small fraction of the space of its XML or object stream.
+ *
+ * Instances hold no state, and can be used concurrently by multiple threads.
+ */
+public class BicliqueBinarySerializer {
+	
+	/**
+	 * The version of the format, which is stored in front of every biclique.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * Serializes the given biclique into a byte array.
+	 */
+	public byte[] serialize(Biclique biclique) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try {
+			serialize(biclique, new DataOutputStream(bytes));
+		} catch (IOException e) {
+			// Cannot occur, since the bytes are written to memory.
+			throw new IllegalStateException(e);
+		}
+		
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Serializes the given biclique to the given output.
+	 * @throws IOException If writing to the output fails.
+	 */
+	public void serialize(Biclique biclique, DataOutput output) throws IOException {
+		output.writeByte(VERSION);
+		writeString(biclique.cipherName, output);
+		writeSignedVarInt(biclique.dimension, output);
+		writeDifferential(biclique.deltaDifferential, output);
+		writeDifferential(biclique.nablaDifferential, output);
+	}
+	
+	/**
+	 * Reconstructs a biclique from the given bytes.
+	 * @throws IOException If the bytes do not contain a valid biclique of a supported version.
+	 */
+	public Biclique deserialize(byte[] bytes) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+		Biclique biclique = deserialize(input);
+		
+		if (input.read() != -1) {
+			throw new IOException("Trailing bytes after the biclique");
+		}
+		
+		return biclique;
+	}
+	
+	/**
+	 * Reads a biclique from the given input.
+	 * @throws IOException If the input does not contain a valid biclique of a supported version.
+	 */
+	public Biclique deserialize(DataInput input) throws IOException {
+		int version = input.readUnsignedByte();
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version);
+		}
+		
+		Biclique biclique = new Biclique();
+		biclique.cipherName = readString(input);
+		biclique.dimension = readSignedVarInt(input);
+		biclique.deltaDifferential = readDifferential(input);
+		biclique.nablaDifferential = readDifferential(input);
+		return biclique;
+	}
+	
+	private ByteArray readByteArray(DataInput input) throws IOException {
+		int length = readVarInt(input) - 1;
+		
+		if (length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		int position = 0;
+		int runLength;
+		
+		while (position < length) {
+			position += readLength(input, length - position);
+			
+			if (position < length) {
+				runLength = readLength(input, length - position);
+				
+				// The writer never emits an empty run of non-zero bytes, which would not advance.
+				if (runLength == 0) {
+					throw new IOException("Empty run of non-zero bytes");
+				}
+				
+				input.readFully(bytes, position, runLength);
+				position += runLength;
+			}
+		}
+		
+		return new ByteArray(bytes);
+	}
+	
+	private Differential readDifferential(DataInput input) throws IOException {
+		if (!input.readBoolean()) {
+			return null;
+		}
+		
+		Differential differential = new Differential();
+		differential.fromRound = readSignedVarInt(input);
+		differential.toRound = readSignedVarInt(input);
+		differential.firstSecretKey = readByteArray(input);
+		differential.secondSecretKey = readByteArray(input);
+		differential.keyDifference = readByteArray(input);
+		differential.intermediateStateDifferences = readVector(input);
+		differential.keyDifferences = readVector(input);
+		differential.stateDifferences = readVector(input);
+		return differential;
+	}
+	
+	/**
+	 * Reads a run length, which must neither be negative nor exceed the given number of remaining bytes.
+	 */
+	private int readLength(DataInput input, int maxLength) throws IOException {
+		int length = readVarInt(input);
+		
+		if (length < 0 || length > maxLength) {
+			throw new IOException("Run of " + length + " bytes exceeds the byte array");
+		}
+		
+		return length;
+	}
+	
+	private int readSignedVarInt(DataInput input) throws IOException {
+		int value = readVarInt(input);
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	private String readString(DataInput input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+	
+	private int readVarInt(DataInput input) throws IOException {
+		int value = 0;
+		int current;
+		
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			current = input.readUnsignedByte();
+			value |= (current & 0x7F) << shift;
+			
+			if ((current & 0x80) == 0) {
+				return value;
+			}
+		}
+		
+		throw new IOException("Variable-length integer exceeds 32 bits");
+	}
+	
+	private Vector<Difference> readVector(DataInput input) throws IOException {
+		int size = readVarInt(input) - 1;
+		
+		if (size < 0) {
+			return null;
+		}
+		
+		byte[] mask = new byte[(size + 7) / 8];
+		input.readFully(mask);
+		
+		Vector<Difference> vector = new Vector<Difference>();
+		vector.setSize(size);
+		ByteArray delta;
+		
+		for (int i = 0; i < size; i++) {
+			if ((mask[i / 8] & (1 << (i % 8))) != 0) {
+				delta = readByteArray(input);
+				
+				if (delta == null) {
+					throw new IOException("Missing difference at index " + i);
+				}
+				
+				vector.set(i, new Difference(delta));
+			}
+		}
+		
+		return vector;
+	}
+	
+	/**
+	 * Writes the length plus one, so that zero denotes <code>null</code>, followed by alternating
+	 * runs of zero bytes, of which only the length is written, and of non-zero bytes.
+	 */
+	private void writeByteArray(ByteArray array, DataOutput output) throws IOException {
+		if (array == null) {
+			writeVarInt(0, output);
+			return;
+		}
+		
+		int length = array.length();
+		int position = 0;
+		int start;
+		writeVarInt(length + 1, output);
+		
+		while (position < length) {
+			start = position;
+			
+			while (position < length && array.get(position) == 0) {
+				position++;
+			}
+			
+			writeVarInt(position - start, output);
+			
+			if (position == length) {
+				break;
+			}
+			
+			start = position;
+			
+			while (position < length && array.get(position) != 0) {
+				position++;
+			}
+			
+			writeVarInt(position - start, output);
+			
+			for (int i = start; i < position; i++) {
+				output.writeByte(array.get(i));
+			}
+		}
+	}
+	
+	private void writeDifferential(Differential differential, DataOutput output) throws IOException {
+		output.writeBoolean(differential != null);
+		
+		if (differential == null) {
+			return;
+		}
+		
+		writeSignedVarInt(differential.fromRound, output);
+		writeSignedVarInt(differential.toRound, output);
+		writeByteArray(differential.firstSecretKey, output);
+		writeByteArray(differential.secondSecretKey, output);
+		writeByteArray(differential.keyDifference, output);
+		writeVector(differential.intermediateStateDifferences, output);
+		writeVector(differential.keyDifferences, output);
+		writeVector(differential.stateDifferences, output);
+	}
+	
+	private void writeSignedVarInt(int value, DataOutput output) throws IOException {
+		writeVarInt((value << 1) ^ (value >> 31), output);
+	}
+	
+	private void writeString(String value, DataOutput output) throws IOException {
+		output.writeBoolean(value != null);
+		
+		if (value != null) {
+			output.writeUTF(value);
+		}
+	}
+	
+	private void writeVarInt(int value, DataOutput output) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			output.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		output.writeByte(value);
+	}
+	
+	/**
+	 * Writes the size plus one, so that zero denotes <code>null</code>, a bitmask of the slots,
+	 * which are set, and the differences in these slots.
+	 */
+	private void writeVector(Vector<Difference> vector, DataOutput output) throws IOException {
+		if (vector == null) {
+			writeVarInt(0, output);
+			return;
+		}
+		
+		int size = vector.size();
+		byte[] mask = new byte[(size + 7) / 8];
+		writeVarInt(size + 1, output);
+		
+		for (int i = 0; i < size; i++) {
+			if (vector.get(i) != null) {
+				mask[i / 8] |= 1 << (i % 8);
+			}
+		}
+		
+		output.write(mask);
+		
+		for (int i = 0; i < size; i++) {
+			if (vector.get(i) != null) {
+				writeByteArray(vector.get(i).getDelta(), output);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,413 @@
+package de.mslab.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import de.mslab.core.Biclique;
+import de.mslab.errors.InvalidArgumentError;
+import de.mslab.errors.StorageError;
+
+/**
+ * An append-only database of bicliques in a single file, which is memory-mapped for reading.
+ * Every biclique is stored in the format of the {@link BicliqueBinarySerializer}, behind a header
+ * with its cipher, round interval, dimension and score. When the store is opened, only the headers
+ * are read into an in-memory index, which is grouped by cipher. So, queries are answered from
+ * memory, and only the bicliques, which match a query, are decoded from the mapped file.
+ *
+ * Every record contains a CRC32 checksum. If the last record was not written completely, for
+ * instance since the process was killed while appending, it is cut off when the store is opened.
+ * A record, which is complete, but corrupted, is never cut off, but the store cannot be opened.
+ *
+ * The file is mapped as a whole, so that a store holds at most 2 GB, or a lower maximum size given
+ * when it is opened. An append, which would exceed this size, is rejected, and the store remains
+ * usable.
+ *
+ * The store can be used concurrently by multiple threads, but only by one process at a time.
+ */
+public class BicliqueStore {
+	
+	private static final int MAGIC = 0x4A425354;
+	private static final int VERSION = 1;
+	private static final int FILE_HEADER_LENGTH = 8;
+	/**
+	 * The length and checksum in front of every record.
+	 */
+	private static final int RECORD_HEADER_LENGTH = 8;
+	/**
+	 * The maximum size of the file, as a mapped buffer and its positions are addressed by int.
+	 */
+	private static final long MAX_SIZE = Integer.MAX_VALUE;
+	
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	private File file;
+	private MappedByteBuffer buffer;
+	private long size;
+	private long maxSize;
+	
+	private List<Entry> entries = new ArrayList<Entry>();
+	private Map<String, List<Entry>> entriesByCipher = new HashMap<String, List<Entry>>();
+	private Logger logger = Logger.getLogger();
+	private BicliqueBinarySerializer serializer = new BicliqueBinarySerializer();
+	
+	/**
+	 * Opens the store in the given file, or creates it if the file does not exist.
+	 * @throws StorageError If the file could not be opened or created, is no biclique store, or contains a corrupted record.
+	 */
+	public BicliqueStore(File file) throws StorageError {
+		this(file, MAX_SIZE);
+	}
+	
+	/**
+	 * Opens the store in the given file, or creates it if the file does not exist. Appends are
+	 * rejected, if the file would exceed the given size in bytes.
+	 * @throws InvalidArgumentError If the given size exceeds 2 GB.
+	 * @throws StorageError If the file could not be opened or created, is no biclique store, or contains a corrupted record.
+	 */
+	public BicliqueStore(File file, long maxSize) throws StorageError {
+		if (maxSize > MAX_SIZE) {
+			throw new InvalidArgumentError("The maximum size of a biclique store must not exceed " + MAX_SIZE + " bytes");
+		}
+		
+		this.file = file;
+		this.maxSize = maxSize;
+		
+		try {
+			File directory = file.getAbsoluteFile().getParentFile();
+			
+			if (directory != null) {
+				directory.mkdirs();
+			}
+			
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			channel = randomAccessFile.getChannel();
+			
+			if (channel.size() == 0) {
+				writeFileHeader();
+			} else {
+				loadEntries();
+			}
+		} catch (IOException e) {
+			close();
+			throw new StorageError("Could not open the biclique store " + file, e);
+		}
+	}
+	
+	/**
+	 * Appends the given biclique with the given score, as determined by a
+	 * {@link de.mslab.bicliquesearch.helpers.BicliqueRater}, and returns its index entry.
+	 * @throws StorageError If the biclique could not be written, or the file would exceed the maximum size.
+	 */
+	public synchronized Entry append(Biclique biclique, int score) throws StorageError {
+		Entry entry = new Entry();
+		entry.index = entries.size();
+		entry.cipherName = biclique.cipherName == null ? "" : biclique.cipherName;
+		entry.dimension = biclique.dimension;
+		entry.score = score;
+		
+		if (biclique.deltaDifferential != null) {
+			entry.fromRound = biclique.deltaDifferential.fromRound;
+			entry.toRound = biclique.deltaDifferential.toRound;
+		}
+		
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			output.writeUTF(entry.cipherName);
+			output.writeInt(entry.fromRound);
+			output.writeInt(entry.toRound);
+			output.writeInt(entry.dimension);
+			output.writeInt(entry.score);
+			int headerLength = bytes.size();
+			serializer.serialize(biclique, output);
+			output.flush();
+			
+			byte[] record = bytes.toByteArray();
+			ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_HEADER_LENGTH + record.length);
+			recordBuffer.putInt(record.length);
+			recordBuffer.putInt((int)computeChecksum(record, 0, record.length));
+			recordBuffer.put(record);
+			recordBuffer.flip();
+			
+			if (size + recordBuffer.limit() > maxSize) {
+				throw new StorageError(
+					"Could not append to the biclique store " + file + ", which would exceed " + maxSize + " bytes"
+				);
+			}
+			
+			entry.offset = size + RECORD_HEADER_LENGTH + headerLength;
+			entry.length = record.length - headerLength;
+			writeFully(recordBuffer, size);
+			size += recordBuffer.limit();
+		} catch (IOException e) {
+			throw new StorageError("Could not append to the biclique store " + file, e);
+		}
+		
+		addEntry(entry);
+		return entry;
+	}
+	
+	/**
+	 * Closes the file of the store. The store must not be used afterwards.
+	 */
+	public synchronized void close() {
+		buffer = null;
+		
+		try {
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Could not close the biclique store {0}: {1}", file, e);
+		}
+	}
+	
+	/**
+	 * Returns the index entries of all bicliques, which match the given criteria, by descending
+	 * score, and by ascending index for equal scores.
+	 * @param cipherName The name of the cipher, or <code>null</code> for all ciphers.
+	 * @param fromRound The first round of the biclique, or -1 for all rounds.
+	 * @param toRound The last round of the biclique, or -1 for all rounds.
+	 * @param dimension The dimension of the biclique, or -1 for all dimensions.
+	 * @param minScore The minimum score.
+	 */
+	public synchronized List<Entry> find(String cipherName, int fromRound, int toRound, int dimension, int minScore) {
+		List<Entry> candidates = cipherName == null ? entries : entriesByCipher.get(cipherName);
+		List<Entry> result = new ArrayList<Entry>();
+		
+		if (candidates == null) {
+			return result;
+		}
+		
+		for (Entry entry : candidates) {
+			if ((fromRound == -1 || entry.fromRound == fromRound)
+				&& (toRound == -1 || entry.toRound == toRound)
+				&& (dimension == -1 || entry.dimension == dimension)
+				&& entry.score >= minScore) {
+				result.add(entry);
+			}
+		}
+		
+		Collections.sort(result, new Comparator<Entry>() {
+			public int compare(Entry first, Entry second) {
+				if (first.score != second.score) {
+					return first.score > second.score ? -1 : 1;
+				}
+				
+				return first.index < second.index ? -1 : (first.index == second.index ? 0 : 1);
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * Makes sure, that all appended bicliques are written to the disk.
+	 * @throws StorageError If the file could not be synchronized.
+	 */
+	public synchronized void flush() throws StorageError {
+		try {
+			channel.force(false);
+		} catch (IOException e) {
+			throw new StorageError("Could not flush the biclique store " + file, e);
+		}
+	}
+	
+	/**
+	 * Returns the index entries of all bicliques in the order, in which they were appended.
+	 */
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<Entry>(entries);
+	}
+	
+	public synchronized int getNumEntries() {
+		return entries.size();
+	}
+	
+	/**
+	 * Decodes the biclique of the given entry from the mapped file.
+	 * @throws StorageError If the file could not be mapped, or the biclique could not be decoded.
+	 */
+	public synchronized Biclique load(Entry entry) throws StorageError {
+		try {
+			if (buffer == null || entry.offset + entry.length > buffer.capacity()) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			
+			byte[] bytes = new byte[entry.length];
+			ByteBuffer view = buffer.duplicate();
+			view.position((int)entry.offset);
+			view.get(bytes);
+			return serializer.deserialize(bytes);
+		} catch (IOException e) {
+			throw new StorageError("Could not load biclique " + entry.index + " from the biclique store " + file, e);
+		}
+	}
+	
+	/**
+	 * Decodes the bicliques of the given entries from the mapped file, in the same order.
+	 * @throws StorageError If the file could not be mapped, or a biclique could not be decoded.
+	 */
+	public synchronized List<Biclique> load(List<Entry> entries) throws StorageError {
+		List<Biclique> bicliques = new ArrayList<Biclique>(entries.size());
+		
+		for (Entry entry : entries) {
+			bicliques.add(load(entry));
+		}
+		
+		return bicliques;
+	}
+	
+	private void addEntry(Entry entry) {
+		entries.add(entry);
+		List<Entry> cipherEntries = entriesByCipher.get(entry.cipherName);
+		
+		if (cipherEntries == null) {
+			cipherEntries = new ArrayList<Entry>();
+			entriesByCipher.put(entry.cipherName, cipherEntries);
+		}
+		
+		cipherEntries.add(entry);
+	}
+	
+	private static long computeChecksum(byte[] bytes, int offset, int length) {
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes, offset, length);
+		return checksum.getValue();
+	}
+	
+	/**
+	 * Reads the headers of all records into the index. Cuts off the file at the first record,
+	 * which runs past the end of the file.
+	 * @throws IOException If a complete record is corrupted.
+	 */
+	private void loadEntries() throws IOException {
+		size = channel.size();
+		
+		if (size < FILE_HEADER_LENGTH || size > MAX_SIZE) {
+			throw new IOException("Invalid size " + size);
+		}
+		
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("No biclique store of version " + VERSION);
+		}
+		
+		long position = FILE_HEADER_LENGTH;
+		Entry entry;
+		
+		while (position < size) {
+			entry = readEntry(position);
+			
+			if (entry == null) {
+				logger.warn("Cut off the incomplete end of the biclique store {0} at {1} bytes", file, position);
+				buffer = null;
+				channel.truncate(position);
+				size = position;
+				break;
+			}
+			
+			addEntry(entry);
+			position = entry.offset + entry.length;
+		}
+	}
+	
+	/**
+	 * Reads the entry of the record at the given position, or returns <code>null</code> if the
+	 * record runs past the end of the file.
+	 * @throws IOException If the record is complete, but its checksum or header is invalid.
+	 */
+	private Entry readEntry(long position) throws IOException {
+		if (position + RECORD_HEADER_LENGTH > size) {
+			return null;
+		}
+		
+		int recordLength = buffer.getInt((int)position);
+		int checksum = buffer.getInt((int)position + 4);
+		long recordOffset = position + RECORD_HEADER_LENGTH;
+		
+		if (recordLength < 0 || recordOffset + recordLength > size) {
+			return null;
+		}
+		
+		byte[] record = new byte[recordLength];
+		ByteBuffer view = buffer.duplicate();
+		view.position((int)recordOffset);
+		view.get(record);
+		
+		if ((int)computeChecksum(record, 0, recordLength) != checksum) {
+			throw new IOException("Invalid checksum of the record at " + position + " bytes");
+		}
+		
+		ByteArrayInputStream bytes = new ByteArrayInputStream(record);
+		DataInputStream header = new DataInputStream(bytes);
+		Entry entry = new Entry();
+		entry.index = entries.size();
+		entry.cipherName = header.readUTF();
+		entry.fromRound = header.readInt();
+		entry.toRound = header.readInt();
+		entry.dimension = header.readInt();
+		entry.score = header.readInt();
+		entry.length = bytes.available();
+		entry.offset = recordOffset + recordLength - entry.length;
+		return entry;
+	}
+	
+	private void writeFileHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.flip();
+		writeFully(header, 0);
+		size = FILE_HEADER_LENGTH;
+	}
+	
+	private void writeFully(ByteBuffer source, long position) throws IOException {
+		while (source.hasRemaining()) {
+			position += channel.write(source, position);
+		}
+	}
+	
+	/**
+	 * The index entry of a biclique in the store.
+	 */
+	public static class Entry {
+		
+		/**
+		 * The position of the biclique in the order, in which the bicliques were appended.
+		 */
+		public int index;
+		public String cipherName;
+		public int fromRound;
+		public int toRound;
+		public int dimension;
+		public int score;
+		
+		/**
+		 * The position and length of the serialized biclique in the file.
+		 */
+		long offset;
+		int length;
+		
+		public String toString() {
+			return "[" + cipherName + " " + dimension + " [" + fromRound + " - " + toRound + "] " + score + "]";
+		}
+		
+	}
+	
+}
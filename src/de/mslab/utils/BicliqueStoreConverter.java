@@ -0,0 +1,94 @@
+package de.mslab.utils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+
+import de.mslab.bicliquesearch.helpers.BicliqueRater;
+import de.mslab.core.Biclique;
+import de.mslab.errors.StorageError;
+
+/**
+ * Converts between XML files of bicliques, as written by the {@link BicliqueXMLSerializer}, and a
+ * {@link BicliqueStore}.
+ */
+public class BicliqueStoreConverter {
+	
+	private BicliqueXMLSerializer serializer = new BicliqueXMLSerializer();
+	
+	/**
+	 * Writes the bicliques of the given entries into the given directory, one XML file per
+	 * biclique, which is named by the cipher, round interval and index of the biclique.
+	 * @return The written files, in the order of the entries.
+	 * @throws StorageError If a biclique could not be loaded from the store.
+	 */
+	public File[] exportXML(BicliqueStore store, List<BicliqueStore.Entry> entries, File directory)
+		throws JAXBException, IOException {
+		File[] files = new File[entries.size()];
+		BicliqueStore.Entry entry;
+		directory.mkdirs();
+		
+		for (int i = 0; i < files.length; i++) {
+			entry = entries.get(i);
+			files[i] = new File(directory, entry.cipherName + "_" + entry.fromRound + "_"
+				+ entry.toRound + "_" + entry.index + ".xml");
+			serializer.serialize(store.load(entry), files[i]);
+		}
+		
+		return files;
+	}
+	
+	/**
+	 * Appends the bicliques of the given XML file, or of all XML files in the given directory
+	 * sorted by name, to the given store, together with their scores determined by the given rater.
+	 * A file may contain a single biclique, or multiple bicliques as written by a
+	 * {@link BicliqueXMLStreamWriter}.
+	 * @return The number of appended bicliques.
+	 * @throws StorageError If a biclique could not be appended to the store.
+	 */
+	public int importXML(File fileOrDirectory, BicliqueStore store, BicliqueRater rater)
+		throws JAXBException, XMLStreamException, IOException {
+		File[] files;
+		
+		if (fileOrDirectory.isDirectory()) {
+			files = fileOrDirectory.listFiles(new FileFilter() {
+				public boolean accept(File file) {
+					return file.isFile() && file.getName().toLowerCase().endsWith(".xml");
+				}
+			});
+			
+			if (files == null) {
+				throw new IOException("Could not list the files in " + fileOrDirectory);
+			}
+			
+			Arrays.sort(files);
+		} else {
+			files = new File[]{ fileOrDirectory };
+		}
+		
+		BicliqueXMLStreamReader reader;
+		Biclique biclique;
+		int numBicliques = 0;
+		
+		for (File file : files) {
+			reader = new BicliqueXMLStreamReader(file);
+			
+			try {
+				while ((biclique = reader.read()) != null) {
+					store.append(biclique, rater.determineScoreForBiclique(biclique));
+					numBicliques++;
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		
+		return numBicliques;
+	}
+	
+}
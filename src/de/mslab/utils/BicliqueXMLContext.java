@@ -0,0 +1,43 @@
+package de.mslab.utils;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import de.mslab.core.Biclique;
+
+/**
+ * Holds the JAXB context for bicliques, which is shared by all XML parsers, serializers, readers
+ * and writers. Creating the context inspects the annotations of all bound classes, which takes
+ * much longer than reading or writing a single biclique. The context is thread-safe, whereas the
+ * marshallers and unmarshallers created from it are not, and are cheap to create per call.
+ */
+final class BicliqueXMLContext {
+	
+	/**
+	 * The name of the root element of a document with multiple bicliques.
+	 */
+	static final String BICLIQUES_ELEMENT = "bicliques";
+	/**
+	 * The name of the element of a biclique, as derived by JAXB from {@link Biclique}.
+	 */
+	static final String BICLIQUE_ELEMENT = "biclique";
+	
+	private static JAXBContext context;
+	
+	private BicliqueXMLContext() {
+		
+	}
+	
+	/**
+	 * Returns the shared context, which is created on the first call.
+	 * @throws JAXBException If the context could not be created.
+	 */
+	static synchronized JAXBContext getContext() throws JAXBException {
+		if (context == null) {
+			context = JAXBContext.newInstance(Biclique.class);
+		}
+		
+		return context;
+	}
+	
+}
@@ -2,7 +2,6 @@ package de.mslab.utils;
 
 import java.io.File;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 
@@ -14,7 +13,8 @@ import de.mslab.core.Differential;
 
 /**
  * Parses an XML which contains a serialized biclique and reconstructs the biclique. 
- * 
+ * All instances share one JAXB context, and can be used concurrently by multiple threads. 
+ * Documents with multiple bicliques are read by a {@link BicliqueXMLStreamReader}. 
  */
 public class BicliqueXMLParser {
 	
@@ -24,14 +24,21 @@ public class BicliqueXMLParser {
 	 * @throws JAXBException
 	 */
 	public Biclique parseXML(File file) throws JAXBException {
-		JAXBContext context = JAXBContext.newInstance(Biclique.class);
-	    Unmarshaller unmarshaller = context.createUnmarshaller();
+	    Unmarshaller unmarshaller = BicliqueXMLContext.getContext().createUnmarshaller();
 	    Biclique biclique = (Biclique)unmarshaller.unmarshal(file);
-	    
-	    CipherName cipherName = CipherFactory.toCipherName(biclique.cipherName);
-	    RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
-	    correctBiclique(biclique, cipher);
-	    return biclique;
+	    return correctBiclique(biclique);
+	}
+	
+	/**
+	 * Creates the cipher from the cipher name in the given biclique, which was created by JAXB, 
+	 * and calls {@link #correctBiclique(Biclique, RoundBasedBlockCipher)}. 
+	 * @return The given biclique. 
+	 */
+	Biclique correctBiclique(Biclique biclique) {
+		CipherName cipherName = CipherFactory.toCipherName(biclique.cipherName);
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		correctBiclique(biclique, cipher);
+		return biclique;
 	}
 	
 	/**
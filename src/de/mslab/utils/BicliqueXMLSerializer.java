@@ -3,7 +3,6 @@ package de.mslab.utils;
 import java.io.File;
 import java.io.IOException;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 
@@ -11,7 +10,8 @@ import de.mslab.core.Biclique;
 
 /**
  * Serializes a given biclique into an XML file using JAXB.
- * 
+ * All instances share one JAXB context, and can be used concurrently by multiple threads. 
+ * Multiple bicliques are written into one document by a {@link BicliqueXMLStreamWriter}. 
  */
 public class BicliqueXMLSerializer {
 	
@@ -23,8 +23,7 @@ public class BicliqueXMLSerializer {
 	 * @throws IOException If writing the file fails.
 	 */
 	public void serialize(Biclique biclique, File file) throws JAXBException, IOException {
-		JAXBContext context = JAXBContext.newInstance(Biclique.class);
-		Marshaller marshaller = context.createMarshaller();
+		Marshaller marshaller = BicliqueXMLContext.getContext().createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 		marshaller.marshal(biclique, file);
 	}
@@ -0,0 +1,88 @@
+package de.mslab.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.mslab.core.Biclique;
+
+/**
+ * Reads the bicliques of an XML file one after another, as written by a
+ * {@link BicliqueXMLStreamWriter}, or a single biclique, as written by a
+ * {@link BicliqueXMLSerializer}. The file is read through a StAX stream, and every
+ * <code>biclique</code> element is unmarshalled on its own, so that only the current biclique
+ * is kept in memory, no matter how many bicliques the file contains.
+ *
+ * The differences of every biclique are placed at their rounds like by the {@link BicliqueXMLParser}.
+ * A reader must not be used by multiple threads at the same time.
+ */
+public class BicliqueXMLStreamReader {
+	
+	private InputStream input;
+	private BicliqueXMLParser parser = new BicliqueXMLParser();
+	private XMLStreamReader reader;
+	private Unmarshaller unmarshaller;
+	
+	/**
+	 * Opens the given file.
+	 * @throws JAXBException If the JAXB context could not be created.
+	 * @throws XMLStreamException If the start of the document could not be read.
+	 * @throws IOException If the file could not be opened.
+	 */
+	public BicliqueXMLStreamReader(File file) throws JAXBException, XMLStreamException, IOException {
+		unmarshaller = BicliqueXMLContext.getContext().createUnmarshaller();
+		input = new BufferedInputStream(new FileInputStream(file));
+		
+		try {
+			// Bicliques do not use entities, so that external entities and DTDs are not resolved.
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			reader = factory.createXMLStreamReader(input);
+		} catch (XMLStreamException e) {
+			input.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Closes the file.
+	 * @throws XMLStreamException If the stream could not be closed.
+	 * @throws IOException If the file could not be closed.
+	 */
+	public void close() throws XMLStreamException, IOException {
+		try {
+			reader.close();
+		} finally {
+			input.close();
+		}
+	}
+	
+	/**
+	 * Reads the next biclique, or returns <code>null</code> if the end of the document is reached.
+	 * @throws JAXBException If the biclique could not be unmarshalled.
+	 * @throws XMLStreamException If the document is no well-formed XML.
+	 */
+	public Biclique read() throws JAXBException, XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.isStartElement() && BicliqueXMLContext.BICLIQUE_ELEMENT.equals(reader.getLocalName())) {
+				// Leaves the reader behind the end of the biclique element.
+				Biclique biclique = unmarshaller.unmarshal(reader, Biclique.class).getValue();
+				return parser.correctBiclique(biclique);
+			}
+			
+			reader.next();
+		}
+		
+		return null;
+	}
+	
+}
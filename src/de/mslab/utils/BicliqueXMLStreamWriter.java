@@ -0,0 +1,85 @@
+package de.mslab.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import de.mslab.core.Biclique;
+
+/**
+ * Writes multiple bicliques into one XML file, as children of a <code>bicliques</code> element.
+ * Every biclique is marshalled directly into the StAX stream of the file, so that the written
+ * bicliques need not be kept in memory. The file can be read by a {@link BicliqueXMLStreamReader}.
+ *
+ * A writer must be closed after the last biclique, to complete the document. Its methods are
+ * synchronized, so that multiple threads can write into the same file.
+ */
+public class BicliqueXMLStreamWriter {
+	
+	private Marshaller marshaller;
+	private int numBicliques = 0;
+	private OutputStream output;
+	private XMLStreamWriter writer;
+	
+	/**
+	 * Creates the given file and writes the start of the document.
+	 * @throws JAXBException If the JAXB context could not be created.
+	 * @throws XMLStreamException If the start of the document could not be written.
+	 * @throws IOException If the file could not be created.
+	 */
+	public BicliqueXMLStreamWriter(File file) throws JAXBException, XMLStreamException, IOException {
+		marshaller = BicliqueXMLContext.getContext().createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+		output = new BufferedOutputStream(new FileOutputStream(file));
+		
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement(BicliqueXMLContext.BICLIQUES_ELEMENT);
+		} catch (XMLStreamException e) {
+			output.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Writes the end of the document, and closes the file.
+	 * @throws XMLStreamException If the end of the document could not be written.
+	 * @throws IOException If the file could not be closed.
+	 */
+	public synchronized void close() throws XMLStreamException, IOException {
+		try {
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		} finally {
+			output.close();
+		}
+	}
+	
+	public synchronized int getNumBicliques() {
+		return numBicliques;
+	}
+	
+	/**
+	 * Appends the given biclique to the document.
+	 * @throws JAXBException If the biclique could not be marshalled.
+	 * @throws XMLStreamException If the biclique could not be written.
+	 */
+	public synchronized void write(Biclique biclique) throws JAXBException, XMLStreamException {
+		writer.writeCharacters("\n");
+		marshaller.marshal(biclique, writer);
+		numBicliques++;
+	}
+	
+}
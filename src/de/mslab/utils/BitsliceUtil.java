@@ -0,0 +1,164 @@
+package de.mslab.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mslab.core.ByteArray;
+
+/**
+ * Utility class for bitsliced states, which contain one 64-bit slice per bit of a block,
+ * where bit j of every slice belongs to the j-th of 64 instances. Lane 0 serves as reference
+ * instance, against which the activity of the other lanes is determined.
+ */
+public class BitsliceUtil {
+	
+	/**
+	 * Returns the bits, in which any lane of the given slices differs from lane 0, as an array
+	 * of the given number of bytes.
+	 */
+	public static ByteArray computeActivity(long[] slices, int numBytes) {
+		return computeActivity(slices, null, numBytes);
+	}
+	
+	/**
+	 * Returns the bits, in which any lane of the given slices XOR the given key slices differs from
+	 * lane 0, as an array of the given number of bytes. If there are fewer key slices than bits, only
+	 * the first bits are XORed with the key, as in {@link ByteArray#xor(ByteArray)}.
+	 */
+	public static ByteArray computeActivity(long[] slices, long[] keySlices, int numBytes) {
+		final int numBits = numBytes * Byte.SIZE;
+		final int numKeySlices = (keySlices == null) ? 0 : keySlices.length;
+		long[] words = new long[(numBytes + Long.SIZE / Byte.SIZE - 1) / (Long.SIZE / Byte.SIZE)];
+		long slice;
+		
+		for (int i = 0; i < numBits; i++) {
+			slice = slices[i];
+			
+			if (i < numKeySlices) {
+				slice ^= keySlices[i];
+			}
+			
+			if ((slice ^ -(slice & 1L)) != 0) {
+				words[i >>> 6] |= 1L << (Long.SIZE - 1 - (i & 63));
+			}
+		}
+		
+		ByteArray result = new ByteArray(numBytes);
+		result.writeWords(words);
+		return result;
+	}
+	
+	/**
+	 * Decomposes the given permutation into its cycles, which can then be applied with
+	 * {@link #permute(long[], int[][])}. Fixed points are omitted.
+	 */
+	public static int[][] computeCycles(int[] permutation) {
+		List<int[]> cycles = new ArrayList<int[]>();
+		boolean[] visited = new boolean[permutation.length];
+		int[] cycle = new int[permutation.length];
+		int length, position;
+		
+		for (int i = 0; i < permutation.length; i++) {
+			if (visited[i] || permutation[i] == i) {
+				continue;
+			}
+			
+			length = 0;
+			position = i;
+			
+			while (!visited[position]) {
+				visited[position] = true;
+				cycle[length++] = position;
+				position = permutation[position];
+			}
+			
+			int[] result = new int[length];
+			System.arraycopy(cycle, 0, result, 0, length);
+			cycles.add(result);
+		}
+		
+		return cycles.toArray(new int[cycles.size()][]);
+	}
+	
+	/**
+	 * Moves slice <code>permutation[i]</code> to slice i for all i, where the permutation is given
+	 * by its cycles, as computed by {@link #computeCycles(int[])}.
+	 */
+	public static void permute(long[] slices, int[][] cycles) {
+		int[] cycle;
+		long first;
+		int last;
+		
+		for (int i = 0; i < cycles.length; i++) {
+			cycle = cycles[i];
+			last = cycle.length - 1;
+			first = slices[cycle[0]];
+			
+			for (int j = 0; j < last; j++) {
+				slices[cycle[j]] = slices[cycle[j + 1]];
+			}
+			
+			slices[cycle[last]] = first;
+		}
+	}
+	
+	/**
+	 * Reverses the order of the slices from including <code>from</code> to excluding <code>to</code>.
+	 */
+	public static void reverse(long[] slices, int from, int to) {
+		long temp;
+		
+		for (to--; from < to; from++, to--) {
+			temp = slices[from];
+			slices[from] = slices[to];
+			slices[to] = temp;
+		}
+	}
+	
+	/**
+	 * Rotates the given number of slices starting at the given offset, so that the slice at position
+	 * <code>offset + i</code> moves to position <code>offset + (i + distance) mod length</code>.
+	 */
+	public static void rotate(long[] slices, int offset, int length, int distance) {
+		distance = ((distance % length) + length) % length;
+		
+		if (distance == 0) {
+			return;
+		}
+		
+		reverse(slices, offset, offset + length);
+		reverse(slices, offset, offset + distance);
+		reverse(slices, offset + distance, offset + length);
+	}
+	
+	/**
+	 * Transposes the 64 x 64 bit matrix, which is stored in the 64 words from the given offset on,
+	 * in place. Bit j of a word is column <code>63 - j</code> of its row, so that column j of row i
+	 * moves to column i of row j.
+	 */
+	public static void transpose(long[] matrix, int offset) {
+		long mask = 0x00000000FFFFFFFFL;
+		long temp;
+		int first, second;
+		
+		for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+			for (int k = 0; k < Long.SIZE; k = ((k | j) + 1) & ~j) {
+				first = offset + k;
+				second = offset + (k | j);
+				temp = (matrix[first] ^ (matrix[second] >>> j)) & mask;
+				matrix[first] ^= temp;
+				matrix[second] ^= temp << j;
+			}
+		}
+	}
+	
+	/**
+	 * XORs the given key slices onto the first slices of the given state.
+	 */
+	public static void xor(long[] slices, long[] keySlices) {
+		for (int i = 0; i < keySlices.length; i++) {
+			slices[i] ^= keySlices[i];
+		}
+	}
+	
+}
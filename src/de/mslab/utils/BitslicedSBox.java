@@ -0,0 +1,90 @@
+package de.mslab.utils;
+
+/**
+ * A 4-bit S-box, which is evaluated as boolean circuit on bitsliced states, so that it substitutes
+ * the nibbles of all 64 lanes at once. The circuit is derived from the algebraic normal form of
+ * every output bit, that means, an output bit is the XOR of the products of input bits, which are
+ * selected by the masks of this S-box.
+ */
+public class BitslicedSBox {
+	
+	private static final int NUM_BITS = 4;
+	private static final int NUM_VALUES = 1 << NUM_BITS;
+	
+	/**
+	 * Item <code>masks[NUM_VALUES * k + u]</code> is all-ones if output bit k, where bit 0 is the
+	 * least significant one, contains the product of the input bits in u. It is zero otherwise.
+	 */
+	private final long[] masks = new long[NUM_BITS * NUM_VALUES];
+	
+	/**
+	 * Creates the circuit for the given S-box, which maps the i-th nibble to <code>sbox[i]</code>.
+	 */
+	public BitslicedSBox(int[] sbox) {
+		int[] coefficients = new int[NUM_VALUES];
+		int u, x, step;
+		
+		for (int k = 0; k < NUM_BITS; k++) {
+			for (x = 0; x < NUM_VALUES; x++) {
+				coefficients[x] = (sbox[x] >>> k) & 1;
+			}
+			
+			// Moebius transform from the truth table to the algebraic normal form
+			for (step = 1; step < NUM_VALUES; step <<= 1) {
+				for (x = 0; x < NUM_VALUES; x++) {
+					if ((x & step) != 0) {
+						coefficients[x] ^= coefficients[x ^ step];
+					}
+				}
+			}
+			
+			for (u = 0; u < NUM_VALUES; u++) {
+				masks[NUM_VALUES * k + u] = -(long)coefficients[u];
+			}
+		}
+	}
+	
+	/**
+	 * Substitutes the nibble in the slices at the given positions, from the most significant to
+	 * the least significant bit, in place in all lanes.
+	 */
+	public void apply(long[] slices, int msb, int bit2, int bit1, int lsb) {
+		final long x0 = slices[lsb];
+		final long x1 = slices[bit1];
+		final long x2 = slices[bit2];
+		final long x3 = slices[msb];
+		final long x01 = x0 & x1;
+		final long x02 = x0 & x2;
+		final long x12 = x1 & x2;
+		final long x012 = x01 & x2;
+		
+		slices[lsb] = evaluate(0, x0, x1, x01, x2, x02, x12, x012, x3);
+		slices[bit1] = evaluate(1, x0, x1, x01, x2, x02, x12, x012, x3);
+		slices[bit2] = evaluate(2, x0, x1, x01, x2, x02, x12, x012, x3);
+		slices[msb] = evaluate(3, x0, x1, x01, x2, x02, x12, x012, x3);
+	}
+	
+	private long evaluate(int bit, long x0, long x1, long x01, long x2, long x02, long x12, long x012,
+		long x3) {
+		
+		final int i = NUM_VALUES * bit;
+		final long low = masks[i]
+			^ (x0 & masks[i + 1])
+			^ (x1 & masks[i + 2])
+			^ (x01 & masks[i + 3])
+			^ (x2 & masks[i + 4])
+			^ (x02 & masks[i + 5])
+			^ (x12 & masks[i + 6])
+			^ (x012 & masks[i + 7]);
+		final long high = masks[i + 8]
+			^ (x0 & masks[i + 9])
+			^ (x1 & masks[i + 10])
+			^ (x01 & masks[i + 11])
+			^ (x2 & masks[i + 12])
+			^ (x02 & masks[i + 13])
+			^ (x12 & masks[i + 14])
+			^ (x012 & masks[i + 15]);
+		return low ^ (x3 & high);
+	}
+	
+}
@@ -0,0 +1,178 @@
+package de.mslab.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The format of files, which each hold one payload of intermediate results, for instance a cached
+ * differential or the checkpoint of a search. Every file starts with a magic number and a version,
+ * followed by an optional key, which identifies the payload, the length and CRC32 checksum of the
+ * payload, and the payload itself. Files, which are truncated or corrupted, are detected when they
+ * are read.
+ *
+ * A file is written to a temporary file in the same directory first, which is renamed afterwards,
+ * so that an interruption while writing keeps the previous file. Payloads are usually the deflated
+ * external form of an object, as created by {@link #createDeflatedOutput(ByteArrayOutputStream)}.
+ *
+ * Instances hold no mutable state, and can be used concurrently by multiple threads.
+ */
+public class ChecksummedFileFormat {
+	
+	/**
+	 * The suffix of temporary files, which are left if a process is interrupted while writing.
+	 */
+	public static final String TEMPORARY_SUFFIX = ".tmp";
+	
+	private static final byte[] NO_KEY = new byte[0];
+	
+	private int magic;
+	private int version;
+	private boolean syncsToDisk;
+	
+	/**
+	 * Creates the format of files with the given magic number and version.
+	 * @param syncsToDisk <code>True</code> if every file is forced to the disk, before it replaces
+	 * the previous file, so that it even survives a crash of the operating system.
+	 */
+	public ChecksummedFileFormat(int magic, int version, boolean syncsToDisk) {
+		this.magic = magic;
+		this.version = version;
+		this.syncsToDisk = syncsToDisk;
+	}
+	
+	/**
+	 * Returns an object stream, which deflates everything written to it into the given bytes.
+	 * The stream must be closed, before the bytes are complete.
+	 */
+	public static ObjectOutputStream createDeflatedOutput(ByteArrayOutputStream bytes) throws IOException {
+		return new ObjectOutputStream(new DeflaterOutputStream(bytes));
+	}
+	
+	/**
+	 * Returns an object stream, which inflates the given payload.
+	 */
+	public static ObjectInputStream createInflatedInput(byte[] payload) throws IOException {
+		return new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)));
+	}
+	
+	/**
+	 * Reads the payload from the given file, which contains no key.
+	 * @see #read(File, byte[])
+	 */
+	public byte[] read(File file) throws IOException {
+		return read(file, NO_KEY);
+	}
+	
+	/**
+	 * Reads the payload from the given file, or returns <code>null</code> if the file is not a
+	 * valid file of this format for the given key.
+	 * @throws FileNotFoundException If the file does not exist.
+	 * @throws IOException If the file could not be read.
+	 */
+	public byte[] read(File file, byte[] key) throws IOException {
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+		
+		try {
+			if (input.readInt() != magic || input.readInt() != version) {
+				return null;
+			}
+			
+			byte[] storedKey = new byte[key.length];
+			input.readFully(storedKey);
+			
+			int payloadLength = input.readInt();
+			long checksum = input.readLong();
+			
+			if (!Arrays.equals(key, storedKey) || payloadLength < 0 || payloadLength > file.length()) {
+				return null;
+			}
+			
+			byte[] payload = new byte[payloadLength];
+			input.readFully(payload);
+			
+			if (input.read() != -1 || computeChecksum(payload) != checksum) {
+				return null;
+			}
+			
+			return payload;
+		} finally {
+			input.close();
+		}
+	}
+	
+	/**
+	 * Writes the given payload without a key to the given file.
+	 * @see #write(File, byte[], byte[])
+	 */
+	public long write(File file, byte[] payload) throws IOException {
+		return write(file, NO_KEY, payload);
+	}
+	
+	/**
+	 * Writes the given key and payload to the given file, which replaces the previous file, and
+	 * creates its directory if it does not exist.
+	 * @return The length of the written file in bytes.
+	 * @throws IOException If the file could not be written or renamed. The previous file is kept.
+	 */
+	public long write(File file, byte[] key, byte[] payload) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		directory.mkdirs();
+		File temporaryFile = File.createTempFile(file.getName() + ".", TEMPORARY_SUFFIX, directory);
+		
+		try {
+			writeFully(temporaryFile, key, payload);
+			long length = temporaryFile.length();
+			
+			// Renaming does not replace an existing file on all platforms.
+			if (!temporaryFile.renameTo(file) && !(file.delete() && temporaryFile.renameTo(file))) {
+				throw new IOException("Could not rename " + temporaryFile + " to " + file);
+			}
+			
+			return length;
+		} catch (IOException e) {
+			temporaryFile.delete();
+			throw e;
+		}
+	}
+	
+	private static long computeChecksum(byte[] payload) {
+		CRC32 checksum = new CRC32();
+		checksum.update(payload);
+		return checksum.getValue();
+	}
+	
+	private void writeFully(File file, byte[] key, byte[] payload) throws IOException {
+		FileOutputStream fileOutput = new FileOutputStream(file);
+		DataOutputStream output = new DataOutputStream(fileOutput);
+		
+		try {
+			output.writeInt(magic);
+			output.writeInt(version);
+			output.write(key);
+			output.writeInt(payload.length);
+			output.writeLong(computeChecksum(payload));
+			output.write(payload);
+			output.flush();
+			
+			if (syncsToDisk) {
+				fileOutput.getFD().sync();
+			}
+		} finally {
+			output.close();
+		}
+	}
+	
+}
@@ -0,0 +1,210 @@
+package de.mslab.applications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mslab.ciphers.AES128;
+import de.mslab.ciphers.helpers.AES128Helper;
+import de.mslab.core.Biclique;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+import de.mslab.matching.ComplexityCalculationResult;
+import de.mslab.matching.ComplexityCalculator;
+import de.mslab.matching.MatchingContext;
+import de.mslab.matching.MatchingFinder;
+import de.mslab.matching.MatchingFinderResult;
+import de.mslab.utils.BicliqueXMLParser;
+import de.mslab.utils.BicliqueXMLSerializer;
+
+public class BatchMatchingApplicationTest {
+	
+	private File directory;
+	private File inputDirectory;
+	
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("batchmatching", "");
+		directory.delete();
+		inputDirectory = new File(directory, "xml");
+		inputDirectory.mkdirs();
+		
+		try {
+			BicliqueXMLSerializer serializer = new BicliqueXMLSerializer();
+			serializer.serialize(createBiclique(0, 5), new File(inputDirectory, "aes128_8_9_10.xml"));
+			serializer.serialize(createBiclique(3, 12), new File(inputDirectory, "aes128_8_9_10_b.xml"));
+			
+			FileWriter writer = new FileWriter(new File(inputDirectory, "aes128_broken.xml"));
+			writer.write("<biclique><cipherName>AES128");
+			writer.close();
+		} catch (Exception e) {
+			delete(directory);
+			throw e;
+		}
+	}
+	
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+	
+	@Test
+	public void testCSVSummary() throws Exception {
+		File summaryFile = new File(directory, "summary.csv");
+		new BatchMatchingApplication(new String[]{
+			"-i", inputDirectory.getPath(), "-o", summaryFile.getPath(), "-t", "2"
+		});
+		
+		List<String> lines = readLines(summaryFile);
+		assertEquals(4, lines.size());
+		assertTrue(lines.get(0).startsWith("file,cipher,dimension,"));
+		
+		// The broken biclique is recorded with its error, and the others are matched nonetheless.
+		String[] values = lines.get(1).split(",", -1);
+		assertEquals("aes128_8_9_10.xml", values[0]);
+		assertMatching(new File(inputDirectory, values[0]), values);
+		
+		values = lines.get(2).split(",", -1);
+		assertEquals("aes128_8_9_10_b.xml", values[0]);
+		assertMatching(new File(inputDirectory, values[0]), values);
+		
+		values = lines.get(3).split(",", -1);
+		assertEquals("aes128_broken.xml", values[0]);
+		assertEquals("", values[1]);
+		assertTrue(values[values.length - 1].length() > 0);
+	}
+	
+	@Test
+	public void testJSONSummary() throws Exception {
+		File summaryFile = new File(directory, "summary.json");
+		new BatchMatchingApplication(new String[]{
+			"-i", inputDirectory.getPath(), "-o", summaryFile.getPath(), "-t", "1"
+		});
+		
+		List<String> lines = readLines(summaryFile);
+		assertEquals(5, lines.size());
+		assertEquals("[", lines.get(0));
+		assertTrue(lines.get(1).startsWith("  {\"file\": \"aes128_8_9_10.xml\", \"cipher\": \"AES128\", \"dimension\": 8,"));
+		assertTrue(lines.get(1).endsWith("\"error\": null},"));
+		assertTrue(lines.get(3).startsWith("  {\"file\": \"aes128_broken.xml\", \"cipher\": null,"));
+		assertTrue(!lines.get(3).endsWith("\"error\": null}"));
+		assertEquals("]", lines.get(4));
+	}
+	
+	/**
+	 * Checks the CSV columns of a biclique against a MatchingFinder, which matches the biclique
+	 * directly. The MatchingFinder XORs a random key into the keys of the biclique, which lets the
+	 * best matching round and the recomputed operations differ in rare cases. So, the columns of the
+	 * biclique and the matching rounds must be equal, the best matching round must lie within the
+	 * matching rounds, the complexity must follow from the recomputed operations of the row, and no
+	 * error is recorded.
+	 */
+	private void assertMatching(File file, String[] values) throws Exception {
+		Biclique biclique = new BicliqueXMLParser().parseXML(file);
+		AES128 cipher = new AES128();
+		MatchingContext context = new MatchingContext(biclique, cipher, new AES128Helper());
+		MatchingFinderResult expected = new MatchingFinder().findOptimalMatching(context);
+		
+		assertEquals(biclique.cipherName, values[1]);
+		assertEquals(Integer.toString(biclique.dimension), values[2]);
+		assertEquals(Integer.toString(biclique.deltaDifferential.fromRound), values[3]);
+		assertEquals(Integer.toString(biclique.deltaDifferential.toRound), values[4]);
+		assertEquals(Integer.toString(expected.matchingFromRound), values[5]);
+		assertEquals(Integer.toString(expected.matchingToRound), values[6]);
+		
+		int bestMatchingRound = Integer.parseInt(values[7]);
+		assertTrue(expected.matchingFromRound <= bestMatchingRound && bestMatchingRound <= expected.matchingToRound);
+		
+		ComplexityCalculationResult complexity = new ComplexityCalculator().computeComplexity(
+			cipher,
+			expected.dimension,
+			Integer.parseInt(values[8]),
+			expected.numBicliqueRounds,
+			expected.matchingToRound - expected.matchingFromRound + 1,
+			context.numMatchingBits
+		);
+		assertEquals(String.format(Locale.ENGLISH, "%.4f", complexity.totalComplexityLog), values[9]);
+		assertEquals("", values[values.length - 1]);
+	}
+	
+	/**
+	 * Creates a biclique of dimension 8 on the last two rounds of AES-128, whose delta and nabla
+	 * key differences are each one active byte at the given positions of the round key of round 9.
+	 * The matching depends only on the keys, and the XML parser only on the places of the
+	 * differences, which are set for every key injection and state.
+	 */
+	private Biclique createBiclique(int deltaByte, int nablaByte) {
+		Biclique biclique = new Biclique(createDifferential(deltaByte), createDifferential(nablaByte));
+		biclique.cipherName = "AES128";
+		biclique.dimension = 8;
+		return biclique;
+	}
+	
+	private Differential createDifferential(int activeByte) {
+		AES128 cipher = new AES128();
+		cipher.setKey(new ByteArray(16));
+		ByteArray firstExpandedKey = cipher.getExpandedKey();
+		
+		Differential differential = new Differential(9, 10);
+		differential.keyDifference = new ByteArray(16);
+		differential.keyDifference.set(activeByte, 0xFF);
+		differential.firstSecretKey = firstExpandedKey.splice(0, 16);
+		
+		ByteArray secondKeyPart = differential.keyDifference.clone();
+		secondKeyPart.xor(cipher.computeKeyPart(firstExpandedKey, 9));
+		differential.secondSecretKey = cipher.computeExpandedKey(secondKeyPart, 9).splice(0, 16);
+		
+		for (int round = 9; round <= 10; round++) {
+			differential.setKeyDifference(round, differential.keyDifference.clone());
+			differential.setIntermediateStateDifference(round, differential.keyDifference.clone());
+		}
+		
+		for (int round = 8; round <= 10; round++) {
+			differential.setStateDifference(round, differential.keyDifference.clone());
+		}
+		
+		return differential;
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		
+		file.delete();
+	}
+	
+	private List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try {
+			String line;
+			
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return lines;
+	}
+	
+}
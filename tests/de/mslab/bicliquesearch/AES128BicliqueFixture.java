@@ -0,0 +1,72 @@
+package de.mslab.bicliquesearch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mslab.ciphers.AES128;
+import de.mslab.ciphers.helpers.AES128Helper;
+import de.mslab.core.Biclique;
+import de.mslab.diffbuilder.BytewiseDifferenceBuilder;
+
+/**
+ * Creates bicliques of dimension 8 on AES-128 for tests, which need real bicliques or a search,
+ * but do not test the search on a specific cipher. The search over the last two rounds takes
+ * less than a second.
+ */
+public final class AES128BicliqueFixture {
+	
+	public static final int DIMENSION = 8;
+	
+	private AES128BicliqueFixture() {
+		
+	}
+	
+	/**
+	 * Creates a context, which searches bicliques with bytewise differences over the given rounds.
+	 * All other settings keep the defaults of the finder.
+	 */
+	public static BicliqueFinderContext createContext(int fromRound, int toRound) {
+		BicliqueFinderContext context = new BicliqueFinderContext();
+		context.cipher = new AES128();
+		context.dimension = DIMENSION;
+		context.differenceBuilder = new BytewiseDifferenceBuilder();
+		context.comparator = new AES128Helper();
+		context.fromRound = fromRound;
+		context.toRound = toRound;
+		return context;
+	}
+	
+	/**
+	 * Creates a context like {@link #createContext(int, int)}, which searches all bicliques in a
+	 * single thread, so that the found bicliques of two searches can be compared.
+	 */
+	public static BicliqueFinderContext createExhaustiveContext(int fromRound, int toRound) {
+		BicliqueFinderContext context = createContext(fromRound, toRound);
+		context.stopAfterFoundFirstBiclique = false;
+		context.numThreads = 1;
+		return context;
+	}
+	
+	/**
+	 * Returns the first biclique, which a search with the default settings finds over the given rounds.
+	 */
+	public static Biclique findBiclique(int fromRound, int toRound) {
+		return findBicliques(createContext(fromRound, toRound)).get(0);
+	}
+	
+	/**
+	 * Searches the bicliques of the given context, and tears down the finder afterwards.
+	 */
+	public static List<Biclique> findBicliques(BicliqueFinderContext context) {
+		BicliqueFinder finder = new BicliqueFinder();
+		finder.setContext(context);
+		
+		try {
+			finder.findBicliques();
+			return new ArrayList<Biclique>(finder.getBicliques());
+		} finally {
+			finder.tearDown();
+		}
+	}
+	
+}
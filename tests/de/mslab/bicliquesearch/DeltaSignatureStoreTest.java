@@ -0,0 +1,48 @@
+package de.mslab.bicliquesearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.mslab.core.Biclique;
+
+public class DeltaSignatureStoreTest {
+	
+	@Test
+	public void testFindNextDisjoint() {
+		DeltaSignatureStore store = new DeltaSignatureStore(null, 4, 2);
+		
+		try {
+			store.put(0, new long[]{ 0x01L, 0x00L });
+			store.put(1, new long[]{ 0x02L });
+			store.put(2, new long[]{ 0x00L, 0x01L });
+			store.put(3, new long[]{ 0x04L, 0x02L });
+			
+			long[] signature = new long[]{ 0x01L, 0x01L };
+			assertEquals(1, store.findNextDisjoint(signature, 0));
+			assertEquals(3, store.findNextDisjoint(signature, 2));
+			assertEquals(-1, store.findNextDisjoint(new long[]{ 0x07L, 0x01L }, 0));
+			assertEquals(-1, store.findNextDisjoint(signature, 4));
+		} finally {
+			store.close();
+		}
+	}
+	
+	@Test
+	public void testFindBicliquesWithStore() {
+		List<Biclique> bicliquesInMemory = AES128BicliqueFixture.findBicliques(
+			AES128BicliqueFixture.createExhaustiveContext(8, 10)
+		);
+		BicliqueFinderContext context = AES128BicliqueFixture.createExhaustiveContext(8, 10);
+		context.storeDeltaSignaturesOnDisk = true;
+		List<Biclique> bicliquesWithStore = AES128BicliqueFixture.findBicliques(context);
+		
+		// The store keeps equivalent delta differentials, which are reduced to one in memory.
+		assertTrue(bicliquesInMemory.size() > 0);
+		assertTrue(bicliquesWithStore.containsAll(bicliquesInMemory));
+	}
+	
+}
@@ -0,0 +1,85 @@
+package de.mslab.bicliquesearch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.helpers.BytewiseDifferentialComparator;
+import de.mslab.ciphers.helpers.DifferentialComparator;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class DifferentialEquivalenceClassesTest {
+	
+	private static final int FROM_ROUND = 1;
+	private static final int TO_ROUND = 2;
+	private static final int STATE_SIZE = 16;
+	
+	@Test
+	public void testClassesByActivitySignature() {
+		DifferentialEquivalenceClasses classes = new DifferentialEquivalenceClasses(new BytewiseDifferentialComparator());
+		List<Differential> differentials = new ArrayList<Differential>();
+		differentials.add(createDifferential(0x01, 0x03));
+		differentials.add(createDifferential(0x02, 0x03)); // same active bytes as the first
+		differentials.add(createDifferential(0x01, 0x05)); // other output difference
+		differentials.add(createDifferential(0x01, 0x03));
+		
+		classes.addAll(10, differentials.subList(2, 4));
+		classes.addAll(8, differentials.subList(0, 2));
+		
+		Differential[] representatives = classes.getRepresentatives();
+		assertEquals(4, classes.getNumDifferentials());
+		assertEquals(2, representatives.length);
+		assertSame(differentials.get(0), representatives[0]);
+		assertSame(differentials.get(2), representatives[1]);
+		assertArrayEquals(new long[]{ 8, 9, 11 }, classes.getRanks(representatives[0]));
+		assertArrayEquals(new long[]{ 10 }, classes.getRanks(representatives[1]));
+		assertNull(classes.getRanks(differentials.get(1)));
+	}
+	
+	@Test
+	public void testClassesByDifferences() {
+		DifferentialEquivalenceClasses classes = new DifferentialEquivalenceClasses(new DifferentialComparator() {
+			public boolean shareActiveNonLinearOperations(Differential deltaDifferential, Differential nablaDifferential) {
+				return false;
+			}
+		});
+		List<Differential> differentials = new ArrayList<Differential>();
+		differentials.add(createDifferential(0x01, 0x03));
+		differentials.add(createDifferential(0x02, 0x03));
+		differentials.add(createDifferential(0x01, 0x03));
+		classes.addAll(0, differentials);
+		
+		Differential[] representatives = classes.getRepresentatives();
+		assertEquals(2, representatives.length);
+		assertArrayEquals(new long[]{ 0, 2 }, classes.getRanks(representatives[0]));
+		assertArrayEquals(new long[]{ 1 }, classes.getRanks(representatives[1]));
+		
+		classes.clear();
+		assertEquals(0, classes.getNumDifferentials());
+		assertEquals(0, classes.getRepresentatives().length);
+	}
+	
+	private Differential createDifferential(int intermediateDifference, int outputDifference) {
+		Differential differential = new Differential(FROM_ROUND, TO_ROUND);
+		differential.setStateDifference(FROM_ROUND - 1, new ByteArray(STATE_SIZE));
+		differential.setStateDifference(FROM_ROUND, createDifference(intermediateDifference));
+		differential.setStateDifference(TO_ROUND, createDifference(outputDifference));
+		differential.firstSecretKey = new ByteArray(STATE_SIZE);
+		differential.firstSecretKey.randomize();
+		return differential;
+	}
+	
+	private ByteArray createDifference(int value) {
+		ByteArray difference = new ByteArray(STATE_SIZE);
+		difference.set(0, value);
+		return difference;
+	}
+	
+}
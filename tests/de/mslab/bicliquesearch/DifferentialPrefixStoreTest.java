@@ -0,0 +1,113 @@
+package de.mslab.bicliquesearch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.Biclique;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+import de.mslab.diffbuilder.BicliqueDifferentialBuilder;
+import de.mslab.diffbuilder.BitwiseDifferenceBuilder;
+import de.mslab.diffbuilder.BytewiseDifferenceBuilder;
+import de.mslab.diffbuilder.DifferenceBuilder;
+import de.mslab.diffbuilder.NibblewiseDifferenceBuilder;
+
+public class DifferentialPrefixStoreTest {
+	
+	private static final int DIMENSION = 8;
+	private static final int MAX_BICLIQUE_ROUNDS = 3;
+	
+	@Test
+	public void testRestrict() {
+		testRestrict(CipherName.AES128, new BytewiseDifferenceBuilder());
+		testRestrict(CipherName.LED64, new NibblewiseDifferenceBuilder());
+		testRestrict(CipherName.PRESENT80, new BitwiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testFindBicliquesWithPrefixes() {
+		BicliqueFinder finder = createFinder(true);
+		int numRounds = finder.getContext().cipher.getNumRounds();
+		
+		for (int toRound = MAX_BICLIQUE_ROUNDS; toRound >= 1; toRound--) {
+			assertEquals(findBicliques(createFinder(false), 1, toRound), findBicliques(finder, 1, toRound));
+		}
+		
+		for (int fromRound = numRounds - MAX_BICLIQUE_ROUNDS + 1; fromRound <= numRounds; fromRound++) {
+			assertEquals(
+				findBicliques(createFinder(false), fromRound, numRounds), findBicliques(finder, fromRound, numRounds)
+			);
+		}
+		
+		finder.tearDown();
+	}
+	
+	/**
+	 * Checks that the forward differentials of the longest interval at the cipher start, and the
+	 * backward differentials of the longest interval at the cipher end, restricted to shorter
+	 * intervals, equal the differentials computed for those intervals.
+	 */
+	private void testRestrict(CipherName cipherName, DifferenceBuilder differenceBuilder) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		builder.setCipher(cipher);
+		cipher.setKey(new ByteArray(cipher.getKeySize()));
+		
+		ByteArray expandedKey = cipher.getExpandedKey().clone();
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		int firstRound = numRounds - MAX_BICLIQUE_ROUNDS + 1;
+		
+		for (long rank = 0; rank < numDifferences; rank += Math.max(1, numDifferences / 8)) {
+			Differential forward = builder.computeForwardDifferential(
+				1, MAX_BICLIQUE_ROUNDS, differenceBuilder.get(rank), expandedKey, 1
+			);
+			Differential backward = builder.computeBackwardDifferential(
+				firstRound, numRounds, differenceBuilder.get(rank), expandedKey, numRounds
+			);
+			
+			for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+				assertEqualDifferentials(
+					builder.computeForwardDifferential(1, numBicliqueRounds, differenceBuilder.get(rank), expandedKey, 1),
+					forward.restrict(1, numBicliqueRounds)
+				);
+				assertEqualDifferentials(
+					builder.computeBackwardDifferential(numRounds - numBicliqueRounds + 1, numRounds,
+						differenceBuilder.get(rank), expandedKey, numRounds),
+					backward.restrict(numRounds - numBicliqueRounds + 1, numRounds)
+				);
+			}
+		}
+	}
+	
+	private void assertEqualDifferentials(Differential expected, Differential result) {
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		assertEquals(expected.secondSecretKey, result.secondSecretKey);
+	}
+	
+	private BicliqueFinder createFinder(boolean reuseDifferentialPrefixes) {
+		// The rounds are set by every search.
+		BicliqueFinderContext context = AES128BicliqueFixture.createExhaustiveContext(1, 1);
+		context.reuseDifferentialPrefixes = reuseDifferentialPrefixes;
+		
+		BicliqueFinder finder = new BicliqueFinder();
+		finder.setContext(context);
+		return finder;
+	}
+	
+	private List<Biclique> findBicliques(BicliqueFinder finder, int fromRound, int toRound) {
+		finder.getContext().fromRound = fromRound;
+		finder.getContext().toRound = toRound;
+		finder.findBicliques();
+		return new ArrayList<Biclique>(finder.getBicliques());
+	}
+	
+}
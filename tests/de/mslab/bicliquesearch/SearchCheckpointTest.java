@@ -0,0 +1,203 @@
+package de.mslab.bicliquesearch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mslab.bicliquesearch.helpers.DefaultBicliqueRater;
+import de.mslab.bicliquesearch.helpers.MaxScoreBicliqueCollector;
+import de.mslab.bicliquesearch.helpers.TopBicliqueCollector;
+import de.mslab.ciphers.helpers.AES128Helper;
+import de.mslab.core.Biclique;
+
+public class SearchCheckpointTest {
+	
+	private File directory;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("checkpoints", "");
+		directory.delete();
+	}
+	
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		
+		directory.delete();
+	}
+	
+	@Test
+	public void testRankRanges() {
+		RankRanges ranges = new RankRanges();
+		ranges.add(10, 20);
+		ranges.add(30, 40);
+		ranges.add(0, 5);
+		ranges.add(20, 25);
+		ranges.add(5, 10);
+		
+		assertArrayEquals(new long[]{ 0, 25, 30, 40 }, ranges.getBounds());
+		assertEquals(35, ranges.getNumRanks());
+		assertEquals(25, ranges.nextNotContained(12));
+		assertEquals(27, ranges.nextNotContained(27));
+		assertEquals(30, ranges.nextContained(27));
+		assertEquals(33, ranges.nextContained(33));
+		assertEquals(Long.MAX_VALUE, ranges.nextContained(40));
+		
+		ranges.add(22, 35);
+		assertArrayEquals(new long[]{ 0, 40 }, ranges.getBounds());
+		assertEquals(40, ranges.getNumRanks());
+	}
+	
+	@Test
+	public void testCorruptedCheckpoint() throws IOException {
+		BicliqueFinderContext context = createContext();
+		BicliqueFinder finder = new BicliqueFinder();
+		finder.setContext(context);
+		finder.findBicliques();
+		finder.tearDown();
+		
+		File file = SearchCheckpoint.getFile(directory, context);
+		SearchCheckpoint checkpoint = SearchCheckpoint.read(file);
+		assertTrue(checkpoint.isComplete);
+		assertTrue(checkpoint.matches(context));
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		
+		try {
+			randomAccessFile.seek(file.length() - 1);
+			randomAccessFile.write(randomAccessFile.read() ^ 0x01);
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		assertNull(SearchCheckpoint.read(file));
+	}
+	
+	@Test
+	public void testResume() {
+		BicliqueFinderContext context = createContext();
+		context.checkpointDirectory = null;
+		List<Biclique> expected = findBicliques(context);
+		assertTrue(expected.size() > 1);
+		
+		context = createContext();
+		context.checkpointInterval = 0;
+		context.bicliqueCollector = new InterruptingCollector(expected.size() / 2);
+		
+		try {
+			findBicliques(context);
+			fail();
+		} catch (RuntimeException e) {
+			
+		}
+		
+		SearchCheckpoint checkpoint = SearchCheckpoint.read(SearchCheckpoint.getFile(directory, context));
+		assertTrue(!checkpoint.isComplete);
+		assertTrue(checkpoint.completedNablaRanks.getNumRanks() > 0);
+		assertTrue(checkpoint.bicliques.size() < expected.size());
+		
+		context = createContext();
+		context.resumeFromCheckpoint = true;
+		context.bicliqueCollector = new InterruptingCollector(Integer.MAX_VALUE);
+		assertEquals(expected, findBicliques(context));
+		
+		// The completed search only restores its bicliques.
+		context = createContext();
+		context.resumeFromCheckpoint = true;
+		context.bicliqueCollector = new InterruptingCollector(expected.size());
+		assertEquals(expected, findBicliques(context));
+	}
+	
+	@Test
+	public void testMatchesSettings() {
+		SearchCheckpoint checkpoint = new SearchCheckpoint(createRatedContext());
+		assertTrue(checkpoint.matches(createRatedContext()));
+		
+		BicliqueFinderContext context = createRatedContext();
+		context.comparator = new AES128Helper() {};
+		assertFalse(checkpoint.matches(context));
+		
+		context = createRatedContext();
+		context.bicliqueRater = new DefaultBicliqueRater() {};
+		assertFalse(checkpoint.matches(context));
+		
+		context = createRatedContext();
+		context.bicliqueCollector = new MaxScoreBicliqueCollector();
+		assertFalse(checkpoint.matches(context));
+		
+		context = createRatedContext();
+		context.bicliqueCollector = new TopBicliqueCollector(4);
+		assertFalse(checkpoint.matches(context));
+		
+		context = createRatedContext();
+		context.stopAfterFoundFirstBiclique = true;
+		assertFalse(checkpoint.matches(context));
+	}
+	
+	private BicliqueFinderContext createContext() {
+		BicliqueFinderContext context = AES128BicliqueFixture.createExhaustiveContext(9, 10);
+		context.checkpointDirectory = directory;
+		return context;
+	}
+	
+	private BicliqueFinderContext createRatedContext() {
+		BicliqueFinderContext context = createContext();
+		context.bicliqueRater = new DefaultBicliqueRater();
+		context.bicliqueCollector = new TopBicliqueCollector(3);
+		return context;
+	}
+	
+	private List<Biclique> findBicliques(BicliqueFinderContext context) {
+		BicliqueFinder finder = new BicliqueFinder();
+		finder.setContext(context);
+		
+		try {
+			finder.findBicliques();
+			return finder.getBicliques();
+		} finally {
+			finder.tearDown();
+		}
+	}
+	
+	/**
+	 * Simulates an interrupted search by throwing an exception, when the given number of
+	 * bicliques was added.
+	 */
+	private static class InterruptingCollector extends MaxScoreBicliqueCollector {
+		
+		private int numBicliques;
+		
+		public InterruptingCollector(int numBicliques) {
+			this.numBicliques = numBicliques;
+		}
+		
+		public synchronized void add(Biclique biclique, int score) {
+			if (numBicliques-- == 0) {
+				throw new RuntimeException("Interrupted");
+			}
+			
+			super.add(biclique, score);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,104 @@
+package de.mslab.bicliquesearch.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.bicliquesearch.AES128BicliqueFixture;
+import de.mslab.bicliquesearch.BicliqueFinderContext;
+import de.mslab.core.Biclique;
+
+public class TopBicliqueCollectorTest {
+	
+	private static final int NUM_BICLIQUES = 10;
+	private static final int NUM_BICLIQUES_PER_THREAD = 10000;
+	private static final int NUM_THREADS = 4;
+	
+	@Test
+	public void testConcurrentAdd() throws InterruptedException {
+		final TopBicliqueCollector collector = new TopBicliqueCollector(NUM_BICLIQUES);
+		final List<Integer> scores = Collections.synchronizedList(new ArrayList<Integer>());
+		Thread[] threads = new Thread[NUM_THREADS];
+		
+		for (int i = 0; i < NUM_THREADS; i++) {
+			final Random random = new Random(i);
+			
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < NUM_BICLIQUES_PER_THREAD; j++) {
+						int score = random.nextInt(1000);
+						scores.add(score);
+						collector.add(createBiclique(score), score);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		Collections.sort(scores, Collections.reverseOrder());
+		List<Biclique> bicliques = collector.getBicliques();
+		assertEquals(NUM_BICLIQUES, bicliques.size());
+		
+		for (int i = 0; i < NUM_BICLIQUES; i++) {
+			assertEquals((int)scores.get(i), bicliques.get(i).dimension);
+		}
+		
+		assertEquals(scores.get(NUM_BICLIQUES - 1) + 1, collector.getThreshold());
+	}
+	
+	@Test
+	public void testKeepsFirstOfEqualScores() {
+		TopBicliqueCollector collector = new TopBicliqueCollector(2);
+		Biclique first = createBiclique(1);
+		Biclique second = createBiclique(1);
+		collector.add(first, 1);
+		collector.add(second, 1);
+		collector.add(createBiclique(1), 1);
+		
+		List<Biclique> bicliques = collector.getBicliques();
+		assertEquals(2, bicliques.size());
+		assertTrue(bicliques.get(0) == first);
+		assertTrue(bicliques.get(1) == second);
+		
+		collector.clear();
+		assertEquals(0, collector.getBicliques().size());
+		assertEquals(Integer.MIN_VALUE, collector.getThreshold());
+	}
+	
+	@Test
+	public void testFindBicliques() {
+		BicliqueFinderContext context = AES128BicliqueFixture.createExhaustiveContext(9, 10);
+		context.bicliqueCollector = new MaxScoreBicliqueCollector();
+		List<Biclique> maxScoreBicliques = AES128BicliqueFixture.findBicliques(context);
+		context = AES128BicliqueFixture.createExhaustiveContext(9, 10);
+		context.bicliqueCollector = new TopBicliqueCollector(maxScoreBicliques.size() + 1);
+		List<Biclique> topBicliques = AES128BicliqueFixture.findBicliques(context);
+BicliqueRater rater = new DefaultBicliqueRater();
+		
+		assertTrue(maxScoreBicliques.size() > 0);
+		assertEquals(maxScoreBicliques.size() + 1, topBicliques.size());
+		assertEquals(maxScoreBicliques, topBicliques.subList(0, maxScoreBicliques.size()));
+		assertTrue(rater.determineScoreForBiclique(topBicliques.get(maxScoreBicliques.size()))
+			< rater.determineScoreForBiclique(maxScoreBicliques.get(0)));
+	}
+	
+	/**
+	 * Creates an empty biclique, which is marked with the given score in its dimension.
+	 */
+	private Biclique createBiclique(int score) {
+		Biclique biclique = new Biclique();
+		biclique.dimension = score;
+		return biclique;
+	}
+	
+}
@@ -73,6 +73,20 @@ public class AbstractCipherTest {
 		}
 		
 		compareByteArray(ciphertextShouldBe, ciphertext);
+		testCopy(key, plaintext, ciphertextShouldBe);
+	}
+	
+	/**
+	 * Tests that a copy of the cipher keeps encrypting with the given key, 
+	 * after the original cipher has been rekeyed.
+	 */
+	protected void testCopy(ByteArray key, ByteArray plaintext, ByteArray ciphertextShouldBe) {
+		cipher.setKey(key);
+		RoundBasedBlockCipher copy = cipher.copy();
+		cipher.setKey(new ByteArray(key.length()));
+		
+		ByteArray ciphertext = copy.encrypt(plaintext.clone());
+		compareByteArray(ciphertextShouldBe, ciphertext);
 	}
 	
 	protected void compareByteArray(ByteArray shouldBe, ByteArray toTest) {
@@ -0,0 +1,104 @@
+package de.mslab.ciphers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.core.ByteArray;
+
+public class BitslicedRoundBasedBlockCipherTest {
+	
+	private static final int NUM_LANES = BitslicedRoundBasedBlockCipher.NUM_LANES;
+	
+	@Test
+	public void testLBlock() {
+		testEquivalence(CipherName.LBLOCK);
+	}
+	
+	@Test
+	public void testPRESENT() {
+		testEquivalence(CipherName.PRESENT80);
+		testEquivalence(CipherName.PRESENT128);
+	}
+	
+	@Test
+	public void testSerpent() {
+		testEquivalence(CipherName.SERPENT);
+	}
+	
+	private void testEquivalence(CipherName cipherName) {
+		BitslicedRoundBasedBlockCipher[] ciphers = new BitslicedRoundBasedBlockCipher[NUM_LANES];
+		ByteArray[] blocks = new ByteArray[NUM_LANES];
+		ByteArray key;
+		
+		for (int lane = 0; lane < NUM_LANES; lane++) {
+			ciphers[lane] = (BitslicedRoundBasedBlockCipher)CipherFactory.createCipher(cipherName);
+			key = new ByteArray(ciphers[lane].getKeySize());
+			key.randomize();
+			ciphers[lane].setKey(key);
+			blocks[lane] = new ByteArray(ciphers[lane].getStateSize());
+			blocks[lane].randomize();
+		}
+		
+		BitslicedRoundBasedBlockCipher cipher = ciphers[0];
+		int numRounds = cipher.getNumRounds();
+		long[][] roundKeys = new long[numRounds + 2][];
+		
+		for (int round = 0; round <= numRounds + 1; round++) {
+			if (cipher.hasKeyInjectionInRound(round)) {
+				ByteArray[] laneRoundKeys = new ByteArray[NUM_LANES];
+				
+				for (int lane = 0; lane < NUM_LANES; lane++) {
+					laneRoundKeys[lane] = ciphers[lane].getRoundKey(round);
+				}
+				
+				roundKeys[round] = slice(laneRoundKeys);
+			}
+		}
+		
+		for (int round = 1; round <= numRounds; round++) {
+			long[] state = slice(blocks);
+			cipher.encryptRoundBitsliced(state, roundKeys, round);
+			
+			for (int lane = 0; lane < NUM_LANES; lane++) {
+				ByteArray ciphertext = ciphers[lane].encryptRound(blocks[lane], round);
+				assertEquals(cipherName + " round " + round, ciphertext, unslice(state, lane, cipher.getStateSize()));
+			}
+			
+			state = slice(blocks);
+			cipher.decryptRoundBitsliced(state, roundKeys, round);
+			
+			for (int lane = 0; lane < NUM_LANES; lane++) {
+				ByteArray plaintext = ciphers[lane].decryptRound(blocks[lane], round);
+				assertEquals(cipherName + " round " + round, plaintext, unslice(state, lane, cipher.getStateSize()));
+			}
+		}
+	}
+	
+	private long[] slice(ByteArray[] blocks) {
+		int numBits = blocks[0].length() * Byte.SIZE;
+		long[] slices = new long[numBits];
+		
+		for (int lane = 0; lane < NUM_LANES; lane++) {
+			for (int bit = 0; bit < numBits; bit++) {
+				if (blocks[lane].getBit(bit)) {
+					slices[bit] |= 1L << lane;
+				}
+			}
+		}
+		
+		return slices;
+	}
+	
+	private ByteArray unslice(long[] slices, int lane, int length) {
+		ByteArray result = new ByteArray(length);
+		
+		for (int bit = 0; bit < slices.length; bit++) {
+			result.setBit(bit, ((slices[bit] >>> lane) & 1L) != 0);
+		}
+		
+		return result;
+	}
+	
+}
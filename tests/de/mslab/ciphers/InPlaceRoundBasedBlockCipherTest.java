@@ -0,0 +1,98 @@
+package de.mslab.ciphers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.core.ByteArray;
+
+public class InPlaceRoundBasedBlockCipherTest {
+	
+	private static final int NUM_TESTS_PER_CIPHER = 8;
+	
+	@Test
+	public void testAES() {
+		testEquivalence(CipherName.AES128);
+		testEquivalence(CipherName.AES192);
+		testEquivalence(CipherName.AES256);
+	}
+	
+	@Test
+	public void testKhazad() {
+		testEquivalence(CipherName.KHAZAD);
+	}
+	
+	@Test
+	public void testLED() {
+		testEquivalence(CipherName.LED64);
+		testEquivalence(CipherName.LED80);
+		testEquivalence(CipherName.LED96);
+		testEquivalence(CipherName.LED112);
+		testEquivalence(CipherName.LED128);
+	}
+	
+	@Test
+	public void testPRESENT() {
+		testEquivalence(CipherName.PRESENT80);
+		testEquivalence(CipherName.PRESENT128);
+	}
+	
+	@Test
+	public void testThreeFish() {
+		testEquivalence(CipherName.THREEFISH256);
+		testEquivalence(CipherName.THREEFISH512);
+		testEquivalence(CipherName.THREEFISH1024);
+	}
+	
+	@Test
+	public void testWhirlpoolCipher() {
+		testEquivalence(CipherName.WHIRLPOOLCIPHER);
+	}
+	
+	private void testEquivalence(CipherName cipherName) {
+		InPlaceRoundBasedBlockCipher cipher = (InPlaceRoundBasedBlockCipher)CipherFactory.createCipher(cipherName);
+		int numRounds = cipher.getNumRounds();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		ByteArray block = new ByteArray(cipher.getStateSize());
+		long[] words = new long[cipher.getNumStateWords()];
+		
+		if (cipher instanceof TweakableCipher) {
+			TweakableCipher tweakableCipher = (TweakableCipher)cipher;
+			ByteArray tweak = new ByteArray(tweakableCipher.getTweakSize());
+			tweak.randomize();
+			tweakableCipher.setTweak(tweak);
+		}
+		
+		for (int i = 0; i < NUM_TESTS_PER_CIPHER; i++) {
+			key.randomize();
+			block.randomize();
+			cipher.setKey(key);
+			
+			int fromRound = 1 + (i * numRounds) / NUM_TESTS_PER_CIPHER;
+			int toRound = Math.min(numRounds, fromRound + i);
+			
+			if (i == NUM_TESTS_PER_CIPHER - 1) {
+				fromRound = 1;
+				toRound = numRounds;
+			}
+			
+			block.readWords(words);
+			cipher.encryptRoundsInPlace(words, fromRound, toRound);
+			ByteArray ciphertext = cipher.encryptRounds(block.clone(), fromRound, toRound);
+			assertEquals(ciphertext, createByteArray(words, cipher.getStateSize()));
+			
+			cipher.decryptRoundsInPlace(words, fromRound, toRound);
+			ByteArray plaintext = cipher.decryptRounds(ciphertext, fromRound, toRound);
+			assertEquals(plaintext, createByteArray(words, cipher.getStateSize()));
+			assertEquals(block, plaintext);
+		}
+	}
+	
+	private ByteArray createByteArray(long[] words, int length) {
+		ByteArray result = new ByteArray(length);
+		result.writeWords(words);
+		return result;
+	}
+	
+}
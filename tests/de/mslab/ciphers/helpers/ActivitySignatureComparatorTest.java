@@ -0,0 +1,93 @@
+package de.mslab.ciphers.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
+import de.mslab.core.Differential;
+
+public class ActivitySignatureComparatorTest {
+	
+	private static final int NUM_PAIRS = 2000;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testAES128Helper() {
+		testSignaturesMatchComparator(new AES128Helper(), 1, 3, 16, 16);
+		testSignaturesMatchComparator(new AES128Helper(), 4, 6, 16, 16);
+	}
+	
+	@Test
+	public void testBitwiseDifferentialComparator() {
+		testSignaturesMatchComparator(new BitwiseDifferentialComparator(), 1, 2, 32, 64);
+		testSignaturesMatchComparator(new BitwiseDifferentialComparator(), 3, 5, 32, 64);
+	}
+	
+	@Test
+	public void testBytewiseDifferentialComparator() {
+		testSignaturesMatchComparator(new BytewiseDifferentialComparator(), 1, 3, 16, 32);
+		testSignaturesMatchComparator(new BytewiseDifferentialComparator(), 2, 5, 12, 12);
+	}
+	
+	@Test
+	public void testNibblewiseDifferentialComparator() {
+		testSignaturesMatchComparator(new NibblewiseDifferentialComparator(), 1, 3, 8, 10);
+		testSignaturesMatchComparator(new NibblewiseDifferentialComparator(), 2, 4, 8, 16);
+	}
+	
+	private void testSignaturesMatchComparator(ActivitySignatureComparator comparator, 
+		int fromRound, int toRound, int stateSize, int keySize) {
+		Differential deltaDifferential;
+		Differential nablaDifferential;
+		boolean expected;
+		boolean actual;
+		
+		for (int i = 0; i < NUM_PAIRS; i++) {
+			deltaDifferential = createDifferential(fromRound, toRound, stateSize, keySize);
+			nablaDifferential = createDifferential(fromRound, toRound, stateSize, keySize);
+			
+			expected = comparator.shareActiveNonLinearOperations(deltaDifferential, nablaDifferential);
+			actual = ActivitySignatureBuilder.intersect(
+				comparator.computeActivitySignature(deltaDifferential), 
+				comparator.computeActivitySignature(nablaDifferential)
+			);
+			assertEquals(expected, actual);
+		}
+	}
+	
+	private Differential createDifferential(int fromRound, int toRound, int stateSize, int keySize) {
+		Differential differential = new Differential(fromRound, toRound);
+		
+		for (int round = 0; round < differential.stateDifferences.size(); round++) {
+			differential.stateDifferences.set(round, createSparseDifference(stateSize));
+		}
+		
+		for (int round = 0; round < differential.keyDifferences.size(); round++) {
+			differential.intermediateStateDifferences.set(round, createSparseDifference(stateSize));
+			differential.keyDifferences.set(round, createSparseDifference(keySize));
+		}
+		
+		return differential;
+	}
+	
+	/**
+	 * Creates a difference with very few active bits, so that both outcomes of the 
+	 * comparison occur frequently.
+	 */
+	private Difference createSparseDifference(int numBytes) {
+		ByteArray delta = new ByteArray(numBytes);
+		int numActiveBits = random.nextInt(2);
+		
+		for (int i = 0; i < numActiveBits; i++) {
+			int position = random.nextInt(numBytes);
+			delta.set(position, delta.get(position) | (1 << random.nextInt(8)));
+		}
+		
+		return new Difference(delta);
+	}
+	
+}
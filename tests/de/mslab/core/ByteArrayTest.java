@@ -45,6 +45,18 @@ public class ByteArrayTest {
 		}
 	}
 
+	@Test
+	public final void testByteArrayByteArray() {
+		final byte[] array = new byte[]{ 0x06, 0x7F, (byte)0x80, (byte)0xFF };
+		final ByteArray result = new ByteArray(array);
+		assertEquals(array.length, result.length());
+		assertEquals(0x06, result.get(0));
+		assertEquals(0x7F, result.get(1));
+		assertEquals(0x80, result.get(2));
+		assertEquals(0xFF, result.get(3));
+		assertTrue(result.equals(new ByteArray(new int[]{ 0x06, 0x7F, 0x80, 0xFF })));
+	}
+
 	@Test
 	public final void testByteArrayIntArrayInt() {
 		final int[] array = new int[]{ 6, 7, 8, 9 };
@@ -395,6 +407,27 @@ public class ByteArrayTest {
 		first.copyBytes(second, 7, 0, 0);
 	}
 	
+	@Test
+	public final void testCountNumActiveBits() {
+		final int numTimes = 10000, numArrayElements = 100;
+		int numActiveBits;
+		int[] array;
+		ByteArray result;
+		
+		for (int i = 0; i < numTimes; i++) {
+			array = new int[(int)(Math.random() * numArrayElements)];
+			numActiveBits = 0;
+			
+			for (int j = 0; j < array.length; j++) {
+				array[j] = (int)(Math.random() * 255);
+				numActiveBits += Integer.bitCount(array[j]);
+			}
+			
+			result = new ByteArray(array);
+			assertEquals(numActiveBits, result.countNumActiveBits());
+		}
+	}
+	
 	@Test
 	public final void testCountNumActiveBytes() {
 		final int numTimes = 10000, numArrayElements = 100;
@@ -538,6 +571,18 @@ public class ByteArrayTest {
 		assertFalse(first.equals(second));
 	}
 	
+	@Test
+	public final void testHashCode() {
+		final int[] array = new int[]{ 6, 7, 8, 9, 1, 34, 3451, -134, 12 };
+		ByteArray first = new ByteArray(array);
+		ByteArray second = new ByteArray(array);
+		assertEquals(first.hashCode(), second.hashCode());
+		
+		second.set(8, 13);
+		assertFalse(first.hashCode() == second.hashCode());
+		assertFalse(new ByteArray(8).hashCode() == new ByteArray(9).hashCode());
+	}
+	
 	@Test
 	public final void testGet() {
 		final int[] array = new int[]{ 6, 7, 8, 9, 1, 34, 3451, -134 };
@@ -671,6 +716,34 @@ public class ByteArrayTest {
 		assertFalse(result.isFullyActive());
 	}
 	
+	@Test
+	public final void testIsFullyActiveWithIncompleteWord() {
+		final short[] array = new short[]{ 6, 7, 8, 9, 1, 34, 3451, -134, 0x80, 0x01, 0x10 };
+		ByteArray result = new ByteArray(array);
+		assertTrue(result.isFullyActive());
+		result.set(9, 0);
+		assertFalse(result.isFullyActive());
+	}
+	
+	@Test
+	public final void testGetWord() {
+		final int[] array = new int[]{ 0x1a, 0x04, 0x8a, 0xb9, 0xf1, 0x11, 0xe9, 0xf9, 0x42, 0x07 };
+		ByteArray result = new ByteArray(array);
+		assertEquals(2, result.getNumWords());
+		assertEquals(0x1a048ab9f111e9f9L, result.getWord(0));
+		assertEquals(0x4207000000000000L, result.getWord(1));
+	}
+	
+	@Test
+	public final void testSetWordIgnoresBytesBeyondLength() {
+		ByteArray result = new ByteArray(10);
+		result.setWord(1, 0x0102030405060708L);
+		assertEquals(0x01, result.get(8));
+		assertEquals(0x02, result.get(9));
+		assertEquals(2, result.countNumActiveBytes());
+		assertTrue(result.equals(new int[]{ 0, 0, 0, 0, 0, 0, 0, 0, 1, 2 }));
+	}
+	
 	@Test
 	public final void testLength() {
 		ByteArray result;
@@ -0,0 +1,59 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+/**
+ * Tests the random access of a {@link DifferenceBuilder}. Every test creates a new builder by the
+ * subclass.
+ */
+public abstract class AbstractDifferenceBuilderTest {
+	
+	protected abstract DifferenceBuilder createBuilder();
+	
+	/**
+	 * Initializes the given builder with a dimension and size, for which all ranks are compared,
+	 * and returns the number of differences.
+	 */
+	protected abstract long initializeAndGetNumRanks(DifferenceBuilder builder);
+	
+	@Test
+	public final void testGetReturnsSameDifferencesAsNext() {
+		DifferenceBuilder builder = createBuilder();
+		long numResults = initializeAndGetNumRanks(builder);
+		DifferenceIterator expected, actual;
+		
+		for (long rank = 0; rank < numResults; rank++) {
+			expected = builder.next();
+			actual = builder.get(rank);
+			
+			while(expected.hasNext()) {
+				assertTrue(actual.hasNext());
+				assertTrue(expected.next().equals(actual.next()));
+			}
+			
+			assertFalse(actual.hasNext());
+		}
+	}
+	
+	@Test
+	public final void testIteratorCoversRange() {
+		DifferenceBuilder builder = createBuilder();
+		long numResults = initializeAndGetNumRanks(builder);
+		long fromRank = numResults / 3;
+		long toRank = numResults / 2;
+		Iterator<DifferenceIterator> iterator = builder.iterator(fromRank, toRank);
+		
+		for (long rank = fromRank; rank < toRank; rank++) {
+			assertTrue(iterator.hasNext());
+			assertTrue(builder.get(rank).next().equals(iterator.next().next()));
+		}
+		
+		assertFalse(iterator.hasNext());
+	}
+	
+}
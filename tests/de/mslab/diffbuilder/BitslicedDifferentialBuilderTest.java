@@ -0,0 +1,88 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class BitslicedDifferentialBuilderTest {
+	
+	private static final int DIMENSION = 8;
+	private static final int MAX_BICLIQUE_ROUNDS = 3;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testLBlock() {
+		testEquivalence(CipherName.LBLOCK);
+	}
+	
+	@Test
+	public void testPRESENT() {
+		testEquivalence(CipherName.PRESENT80);
+		testEquivalence(CipherName.PRESENT128);
+	}
+	
+	@Test
+	public void testSerpent() {
+		testEquivalence(CipherName.SERPENT);
+	}
+	
+	private void testEquivalence(CipherName cipherName) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		BicliqueDifferentialBuilder bitslicedBuilder = new BicliqueDifferentialBuilder();
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		bitslicedBuilder.setCipher(cipher);
+		builder.setCipher(cipher.copy());
+		builder.setBitslicingEnabled(false);
+		
+		DifferenceBuilder differenceBuilder = new NibblewiseDifferenceBuilder();
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		
+		for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+			testEquivalence(bitslicedBuilder, builder, differenceBuilder, numDifferences, 1, numBicliqueRounds);
+			testEquivalence(bitslicedBuilder, builder, differenceBuilder, numDifferences,
+				numRounds - numBicliqueRounds + 1, numRounds);
+		}
+		
+		testEquivalence(bitslicedBuilder, builder, differenceBuilder, numDifferences,
+			numRounds / 2 - 1, numRounds / 2 + 1);
+	}
+	
+	private void testEquivalence(BicliqueDifferentialBuilder bitslicedBuilder, BicliqueDifferentialBuilder builder,
+		DifferenceBuilder differenceBuilder, long numDifferences, int fromRound, int toRound) {
+		RoundBasedBlockCipher cipher = builder.getCipher();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		key.randomize();
+		cipher.setKey(key);
+		
+		ByteArray expandedKey = cipher.getExpandedKey().clone();
+		long rank = (long)(random.nextDouble() * numDifferences);
+		
+		Differential expected = builder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		Differential result = bitslicedBuilder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		
+		expected = builder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		result = bitslicedBuilder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+	}
+	
+}
@@ -10,7 +10,7 @@ import de.mslab.core.ByteArray;
 import de.mslab.utils.Logger;
 import de.mslab.utils.MathUtil;
 
-public class BitwiseDifferenceBuilderTest {
+public class BitwiseDifferenceBuilderTest extends AbstractDifferenceBuilderTest {
 	
 	private static BitwiseDifferenceBuilder builder;
 	private static Logger logger = new Logger();
@@ -51,4 +51,12 @@ public class BitwiseDifferenceBuilderTest {
 		logger.info("Memory used {0}", memory);
 	}
 	
+	protected DifferenceBuilder createBuilder() {
+		return new BitwiseDifferenceBuilder();
+	}
+	
+	protected long initializeAndGetNumRanks(DifferenceBuilder differenceBuilder) {
+		return differenceBuilder.initializeAndGetNumDifferences(8, 16);
+	}
+	
 }
@@ -12,7 +12,7 @@ import de.mslab.diffbuilder.BytewiseDifferenceBuilder;
 import de.mslab.utils.Logger;
 import de.mslab.utils.MathUtil;
 
-public class BytewiseDifferenceBuilderTest {
+public class BytewiseDifferenceBuilderTest extends AbstractDifferenceBuilderTest {
 	
 	private static BytewiseDifferenceBuilder builder;
 	private static Logger logger = new Logger();
@@ -61,4 +61,12 @@ public class BytewiseDifferenceBuilderTest {
 		logger.info("Memory used {0}", memory);
 	}
 	
+	protected DifferenceBuilder createBuilder() {
+		return new BytewiseDifferenceBuilder();
+	}
+	
+	protected long initializeAndGetNumRanks(DifferenceBuilder differenceBuilder) {
+		return differenceBuilder.initializeAndGetNumDifferences(12, 16);
+	}
+	
 }
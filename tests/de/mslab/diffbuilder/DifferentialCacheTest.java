@@ -0,0 +1,168 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+import de.mslab.errors.StorageError;
+
+public class DifferentialCacheTest {
+	
+	private static final int DIMENSION = 8;
+	private static final long MAX_SIZE = 1L << 30;
+	private File directory;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("differentials", "");
+		directory.delete();
+	}
+	
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+	
+	@Test
+	public void testReuseAcrossCaches() {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(CipherName.LED64);
+		DifferenceBuilder differenceBuilder = new NibblewiseDifferenceBuilder();
+		differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		ByteArray expandedKey = computeExpandedKey(cipher);
+		
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		builder.setCipher(cipher);
+		Differential expected = builder.computeBackwardDifferential(30, 32, differenceBuilder.get(3), expandedKey, 32);
+		
+		builder.setCache(new DifferentialCache(directory, MAX_SIZE));
+		builder.computeBackwardDifferential(30, 32, differenceBuilder.get(3), expandedKey, 32);
+		assertEquals(1, builder.getCache().getNumEntries());
+		
+		BicliqueDifferentialBuilder otherBuilder = new BicliqueDifferentialBuilder();
+		otherBuilder.setCipher(cipher.copy());
+		otherBuilder.setCache(new DifferentialCache(directory, MAX_SIZE));
+		
+		Differential result = otherBuilder.computeBackwardDifferential(30, 32, differenceBuilder.get(3), expandedKey, 32);
+		assertEquals(1, otherBuilder.getCache().getNumHits());
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		
+		otherBuilder.computeForwardDifferential(30, 32, differenceBuilder.get(3), expandedKey, 30);
+		otherBuilder.computeBackwardDifferential(30, 32, differenceBuilder.get(4), expandedKey, 32);
+		assertEquals(2, otherBuilder.getCache().getNumMisses());
+		assertEquals(3, otherBuilder.getCache().getNumEntries());
+	}
+	
+	@Test
+	public void testCorruptedEntry() throws IOException {
+		DifferentialCache cache = new DifferentialCache(directory, MAX_SIZE);
+		byte[] key = new byte[]{ 1, 2, 3 };
+		cache.put(key, createDifferential());
+		
+		File file = new File(new File(directory, "01"), "010203.bin");
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		
+		try {
+			randomAccessFile.seek(file.length() - 1);
+			randomAccessFile.write(randomAccessFile.read() ^ 0x01);
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		assertNull(cache.get(key));
+		assertEquals(0, cache.getNumEntries());
+		assertTrue(!file.exists());
+	}
+	
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		DifferentialCache cache = new DifferentialCache(directory, MAX_SIZE);
+		cache.put(new byte[]{ 1 }, createDifferential());
+		long entrySize = cache.getSize();
+		
+		cache = new DifferentialCache(directory, 2 * entrySize);
+		cache.put(new byte[]{ 2 }, createDifferential());
+		assertNotNull(cache.get(new byte[]{ 1 }));
+		cache.put(new byte[]{ 3 }, createDifferential());
+		
+		assertEquals(2, cache.getNumEntries());
+		assertNotNull(cache.get(new byte[]{ 1 }));
+		assertNull(cache.get(new byte[]{ 2 }));
+		assertNotNull(cache.get(new byte[]{ 3 }));
+	}
+	
+	@Test
+	public void testDeletedEntry() {
+		DifferentialCache cache = new DifferentialCache(directory, MAX_SIZE);
+		byte[] key = new byte[]{ 1, 2, 3 };
+		cache.put(key, createDifferential());
+		
+		File file = new File(new File(directory, "01"), "010203.bin");
+		assertTrue(file.delete());
+		
+		assertNull(cache.get(key));
+		assertEquals(1, cache.getNumMisses());
+		assertEquals(0, cache.getNumEntries());
+		assertEquals(0, cache.getSize());
+	}
+	
+	@Test
+	public void testFailedRename() {
+		DifferentialCache cache = new DifferentialCache(directory, MAX_SIZE);
+		File file = new File(new File(directory, "01"), "010203.bin");
+		new File(file, "child").mkdirs();
+		
+		try {
+			cache.put(new byte[]{ 1, 2, 3 }, createDifferential());
+			fail();
+		} catch (StorageError e) {
+			assertEquals(0, cache.getNumEntries());
+			assertEquals(1, file.getParentFile().list().length);
+		}
+	}
+	
+	/**
+	 * Returns the expanded all-zero key, from which the BicliqueFinder computes all differentials.
+	 */
+	private ByteArray computeExpandedKey(RoundBasedBlockCipher cipher) {
+		cipher.setKey(new ByteArray(cipher.getKeySize()));
+		return cipher.getExpandedKey().clone();
+	}
+	
+	private Differential createDifferential() {
+		Differential differential = new Differential(1, 2);
+		differential.setStateDifference(1, new ByteArray(new int[]{ 1, 2, 3, 4 }));
+		differential.firstSecretKey = new ByteArray(4);
+		differential.secondSecretKey = new ByteArray(4);
+		differential.keyDifference = new ByteArray(4);
+		return differential;
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		
+		file.delete();
+	}
+	
+}
@@ -8,10 +8,9 @@ import org.junit.Test;
 
 import de.mslab.utils.MathUtil;
 
-public class FullSpaceBytewiseDifferenceBuilderTest {
+public class FullSpaceBytewiseDifferenceBuilderTest extends AbstractDifferenceBuilderTest {
 	
 	private static DifferenceBuilder builder;
-	
 	@BeforeClass
 	public static void setUpBeforeClass() throws Exception {
 		builder = new FullSpaceBytewiseDifferenceBuilder();
@@ -44,4 +43,12 @@ public class FullSpaceBytewiseDifferenceBuilderTest {
 		System.gc();
 	}
 	
+	protected DifferenceBuilder createBuilder() {
+		return new FullSpaceBytewiseDifferenceBuilder();
+	}
+	
+	protected long initializeAndGetNumRanks(DifferenceBuilder differenceBuilder) {
+		return differenceBuilder.initializeAndGetNumDifferences(12, 10);
+	}
+	
 }
@@ -0,0 +1,144 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class GrayCodeDifferenceIteratorTest {
+	
+	private static final int DIMENSION = 8;
+	private static final int MAX_BICLIQUE_ROUNDS = 3;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testBitwise() {
+		testDifferences(new BitwiseDifferenceBuilder(), 8);
+	}
+	
+	@Test
+	public void testBytewise() {
+		testDifferences(new BytewiseDifferenceBuilder(), 16);
+	}
+	
+	@Test
+	public void testNibblewise() {
+		testDifferences(new NibblewiseDifferenceBuilder(), 8);
+	}
+	
+	@Test
+	public void testLinearKeySchedules() {
+		testEquivalence(CipherName.LED64, new NibblewiseDifferenceBuilder());
+		testEquivalence(CipherName.LED128, new NibblewiseDifferenceBuilder());
+		testEquivalence(CipherName.PRINCECORE, new NibblewiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testNonLinearKeySchedules() {
+		testEquivalence(CipherName.AES128, new BytewiseDifferenceBuilder());
+		testEquivalence(CipherName.PRESENT80, new BitwiseDifferenceBuilder());
+	}
+	
+	/**
+	 * Checks that the Gray-code iterator returns the same differences as the original iterator, and
+	 * that consecutive differences differ in a single unit difference.
+	 */
+	private void testDifferences(DifferenceBuilder differenceBuilder, int numBytes) {
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, numBytes);
+		
+		for (int i = 0; i < 8; i++) {
+			long rank = (long)(random.nextDouble() * numDifferences);
+			AbstractDifferenceIterator iterator = (AbstractDifferenceIterator)differenceBuilder.get(rank);
+			GrayCodeDifferenceIterator grayCodeIterator = iterator.createGrayCodeIterator();
+			Map<ByteArray, Integer> counts = new HashMap<ByteArray, Integer>();
+			ByteArray previous = new ByteArray(numBytes);
+			ByteArray difference;
+			
+			while (iterator.hasNext()) {
+				count(counts, iterator.next().clone(), 1);
+			}
+			
+			while (grayCodeIterator.hasNext()) {
+				difference = grayCodeIterator.next();
+				previous.xor(difference);
+				assertEquals(grayCodeIterator.getUnitDifference(grayCodeIterator.getFlippedBit()), previous);
+				
+				previous = difference.clone();
+				count(counts, previous, -1);
+			}
+			
+			for (Integer count : counts.values()) {
+				assertEquals(0, count.intValue());
+			}
+			
+			assertNull(grayCodeIterator.next());
+		}
+	}
+	
+	private void count(Map<ByteArray, Integer> counts, ByteArray difference, int increment) {
+		Integer count = counts.get(difference);
+		counts.put(difference, (count == null ? 0 : count) + increment);
+	}
+	
+	private void testEquivalence(CipherName cipherName, DifferenceBuilder differenceBuilder) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		BicliqueDifferentialBuilder grayCodeBuilder = new BicliqueDifferentialBuilder();
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		grayCodeBuilder.setCipher(cipher);
+		builder.setCipher(cipher.copy());
+		builder.setGrayCodeEnabled(false);
+		
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		
+		for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+			testEquivalence(grayCodeBuilder, builder, differenceBuilder, numDifferences, 1, numBicliqueRounds);
+			testEquivalence(grayCodeBuilder, builder, differenceBuilder, numDifferences,
+				numRounds - numBicliqueRounds + 1, numRounds);
+		}
+	}
+	
+	private void testEquivalence(BicliqueDifferentialBuilder grayCodeBuilder, BicliqueDifferentialBuilder builder,
+		DifferenceBuilder differenceBuilder, long numDifferences, int fromRound, int toRound) {
+		RoundBasedBlockCipher cipher = builder.getCipher();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		key.randomize();
+		cipher.setKey(key);
+		
+		ByteArray expandedKey = cipher.getExpandedKey().clone();
+		long rank = (long)(random.nextDouble() * numDifferences);
+		
+		Differential expected = builder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		Differential result = grayCodeBuilder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		assertEqualDifferentials(expected, result);
+		
+		expected = builder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		result = grayCodeBuilder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		assertEqualDifferentials(expected, result);
+	}
+	
+	private void assertEqualDifferentials(Differential expected, Differential result) {
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		assertEquals(expected.secondSecretKey, result.secondSecretKey);
+	}
+	
+}
@@ -13,7 +13,7 @@ import de.mslab.utils.Logger;
 import de.mslab.utils.MathUtil;
 
 
-public class NibblewiseDifferenceBuilderTest {
+public class NibblewiseDifferenceBuilderTest extends AbstractDifferenceBuilderTest {
 	
 	private static NibblewiseDifferenceBuilder builder;
 	private static Logger logger = new Logger();
@@ -80,4 +80,12 @@ public class NibblewiseDifferenceBuilderTest {
 		logger.info("Memory used {0}", memory);
 	}
 	
+	protected DifferenceBuilder createBuilder() {
+		return new NibblewiseDifferenceBuilder();
+	}
+	
+	protected long initializeAndGetNumRanks(DifferenceBuilder differenceBuilder) {
+		return differenceBuilder.initializeAndGetNumDifferences(8, 10);
+	}
+	
 }
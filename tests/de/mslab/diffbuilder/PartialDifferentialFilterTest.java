@@ -0,0 +1,133 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.TweakableCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class PartialDifferentialFilterTest {
+	
+	private static final int DIMENSION = 8;
+	private static final int MAX_BICLIQUE_ROUNDS = 3;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testAES() {
+		testEquivalence(CipherName.AES128, new BytewiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testLED() {
+		testEquivalence(CipherName.LED64, new NibblewiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testPRESENT() {
+		testEquivalence(CipherName.PRESENT80, new BitwiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testSerpent() {
+		testEquivalence(CipherName.SERPENT, new NibblewiseDifferenceBuilder());
+	}
+	
+	@Test
+	public void testThreeFish() {
+		testEquivalence(CipherName.THREEFISH256, new BytewiseDifferenceBuilder());
+	}
+	
+	private void testEquivalence(CipherName cipherName, DifferenceBuilder differenceBuilder) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		
+		if (cipher instanceof TweakableCipher) {
+			TweakableCipher tweakableCipher = (TweakableCipher)cipher;
+			ByteArray tweak = new ByteArray(tweakableCipher.getTweakSize());
+			tweak.randomize();
+			tweakableCipher.setTweak(tweak);
+		}
+		
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		BicliqueDifferentialBuilder filteredBuilder = new BicliqueDifferentialBuilder();
+		builder.setCipher(cipher);
+		filteredBuilder.setCipher(cipher.copy());
+		
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		
+		for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+			testEquivalence(builder, filteredBuilder, differenceBuilder, numDifferences, 1, numBicliqueRounds);
+			testEquivalence(builder, filteredBuilder, differenceBuilder, numDifferences,
+				numRounds - numBicliqueRounds + 1, numRounds);
+		}
+	}
+	
+	/**
+	 * Checks that an accepting filter yields the complete differential, that every partial differential
+	 * is covered by the complete one, and that a filter, which rejects the second partial differential,
+	 * aborts the computation.
+	 */
+	private void testEquivalence(BicliqueDifferentialBuilder builder, BicliqueDifferentialBuilder filteredBuilder,
+		DifferenceBuilder differenceBuilder, long numDifferences, int fromRound, int toRound) {
+		RoundBasedBlockCipher cipher = builder.getCipher();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		key.randomize();
+		cipher.setKey(key);
+		
+		ByteArray expandedKey = cipher.getExpandedKey().clone();
+		long rank = (long)(random.nextDouble() * numDifferences);
+		RecordingFilter filter = new RecordingFilter(Integer.MAX_VALUE);
+		
+		Differential expected = builder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		Differential result = filteredBuilder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound, filter
+		);
+		assertEquals(expected, result);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		assertEquals(expected.secondSecretKey, result.secondSecretKey);
+		assertEquals(builder.getCipher().getExpandedKey(), filteredBuilder.getCipher().getExpandedKey());
+		
+		for (Differential partialDifferential : filter.differentials) {
+			assertTrue(TruncatedDifferentialBuilder.covers(expected, partialDifferential));
+		}
+		
+		filter = new RecordingFilter(1);
+		result = filteredBuilder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound, filter
+		);
+		assertNull(result);
+	}
+	
+	/**
+	 * Stores a copy of every passed differential, and accepts only the given number of them.
+	 */
+	private static class RecordingFilter implements PartialDifferentialFilter {
+		
+		private List<Differential> differentials = new ArrayList<Differential>();
+		private int numAccepted;
+		
+		public RecordingFilter(int numAccepted) {
+			this.numAccepted = numAccepted;
+		}
+		
+		public boolean accept(Differential differential) {
+			differentials.add(differential.clone());
+			return differentials.size() <= numAccepted;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,91 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.TweakableCipher;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class PrimitiveDifferentialBuilderTest {
+	
+	private static final int DIMENSION = 8;
+	private static final int MAX_BICLIQUE_ROUNDS = 4;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testThreeFish() {
+		testEquivalence(CipherName.THREEFISH256);
+		testEquivalence(CipherName.THREEFISH512);
+		testEquivalence(CipherName.THREEFISH1024);
+	}
+	
+	private void testEquivalence(CipherName cipherName) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		TweakableCipher tweakableCipher = (TweakableCipher)cipher;
+		ByteArray tweak = new ByteArray(tweakableCipher.getTweakSize());
+		tweak.randomize();
+		tweakableCipher.setTweak(tweak);
+		
+		BicliqueDifferentialBuilder primitiveBuilder = new BicliqueDifferentialBuilder();
+		BicliqueDifferentialBuilder builder = new BicliqueDifferentialBuilder();
+		primitiveBuilder.setCipher(cipher);
+		builder.setCipher(cipher.copy());
+		builder.setPrimitiveStatesEnabled(false);
+		
+		DifferenceBuilder differenceBuilder = new NibblewiseDifferenceBuilder();
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		
+		for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+			testEquivalence(primitiveBuilder, builder, differenceBuilder, numDifferences, 1, numBicliqueRounds);
+			testEquivalence(primitiveBuilder, builder, differenceBuilder, numDifferences,
+				numRounds - numBicliqueRounds + 1, numRounds);
+		}
+		
+		testEquivalence(primitiveBuilder, builder, differenceBuilder, numDifferences,
+			numRounds / 2 - 2, numRounds / 2 + 2);
+	}
+	
+	private void testEquivalence(BicliqueDifferentialBuilder primitiveBuilder, BicliqueDifferentialBuilder builder,
+		DifferenceBuilder differenceBuilder, long numDifferences, int fromRound, int toRound) {
+		RoundBasedBlockCipher cipher = builder.getCipher();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		key.randomize();
+		cipher.setKey(key);
+		
+		ByteArray expandedKey = cipher.getExpandedKey().clone();
+		long rank = (long)(random.nextDouble() * numDifferences);
+		
+		Differential expected = builder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		Differential result = primitiveBuilder.computeForwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+		);
+		assertEqualDifferentials(expected, result);
+		
+		expected = builder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		result = primitiveBuilder.computeBackwardDifferential(
+			fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+		);
+		assertEqualDifferentials(expected, result);
+		assertEquals(builder.getCipher().getExpandedKey(), primitiveBuilder.getCipher().getExpandedKey());
+	}
+	
+	private void assertEqualDifferentials(Differential expected, Differential result) {
+		assertEquals(expected, result);
+		assertEquals(expected.firstSecretKey, result.firstSecretKey);
+		assertEquals(expected.keyDifference, result.keyDifference);
+		assertEquals(expected.secondSecretKey, result.secondSecretKey);
+	}
+	
+}
@@ -0,0 +1,138 @@
+package de.mslab.diffbuilder;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.ciphers.CipherFactory;
+import de.mslab.ciphers.CipherFactory.CipherName;
+import de.mslab.ciphers.RoundBasedBlockCipher;
+import de.mslab.ciphers.truncated.TruncatedDifferentialPropagatorFactory;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class TruncatedDifferentialBuilderTest {
+	
+	private static final int DIMENSION = 2;
+	private static final int MAX_BICLIQUE_ROUNDS = 3;
+	private static final int NUM_DIFFERENCES_PER_INTERVAL = 12;
+	private Random random = new Random(42);
+	
+	@Test
+	public void testAES() {
+		testCoversConcreteDifferentials(CipherName.AES128);
+		testCoversConcreteDifferentials(CipherName.AES192);
+		testCoversConcreteDifferentials(CipherName.AES256);
+	}
+	
+	@Test
+	public void testARIA() {
+		testCoversConcreteDifferentials(CipherName.ARIA128);
+		testCoversConcreteDifferentials(CipherName.ARIA256);
+	}
+	
+	@Test
+	public void testBKSQ() {
+		testCoversConcreteDifferentials(CipherName.BKSQ96);
+		testCoversConcreteDifferentials(CipherName.BKSQ144);
+		testCoversConcreteDifferentials(CipherName.BKSQ192);
+	}
+	
+	@Test
+	public void testKhazad() {
+		testCoversConcreteDifferentials(CipherName.KHAZAD);
+	}
+	
+	@Test
+	public void testKLEIN() {
+		testCoversConcreteDifferentials(CipherName.KLEIN64);
+		testCoversConcreteDifferentials(CipherName.KLEIN80);
+		testCoversConcreteDifferentials(CipherName.KLEIN96);
+	}
+	
+	@Test
+	public void testLED() {
+		testCoversConcreteDifferentials(CipherName.LED64);
+		testCoversConcreteDifferentials(CipherName.LED80);
+		testCoversConcreteDifferentials(CipherName.LED128);
+	}
+	
+	@Test
+	public void testSQUARE() {
+		testCoversConcreteDifferentials(CipherName.SQUARE);
+	}
+	
+	@Test
+	public void testTruncatedDifferentialIsSparseForSingleKeyByte() {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(CipherName.AES128);
+		TruncatedDifferentialBuilder builder = new TruncatedDifferentialBuilder(
+			TruncatedDifferentialPropagatorFactory.createPropagator(CipherName.AES128, cipher)
+		);
+		DifferenceBuilder differenceBuilder = new BytewiseDifferenceBuilder();
+		differenceBuilder.initializeAndGetNumDifferences(1, cipher.getKeySize());
+		
+		cipher.setKey(new ByteArray(cipher.getKeySize()));
+		Differential differential = builder.computeForwardDifferential(
+			9, 10, differenceBuilder.get(0), cipher.getExpandedKey(), 9
+		);
+		
+		// A single active byte in the key of round 9 activates one column of the state after round 9
+		assertTrue(differential.getStateDifference(9).getDelta().countNumActiveBytes() <= 4);
+	}
+	
+	private void testCoversConcreteDifferentials(CipherName cipherName) {
+		RoundBasedBlockCipher cipher = CipherFactory.createCipher(cipherName);
+		TruncatedDifferentialBuilder builder = new TruncatedDifferentialBuilder(
+			TruncatedDifferentialPropagatorFactory.createPropagator(cipherName, cipher)
+		);
+		builder.setCrossCheckEnabled(true);
+		
+		DifferenceBuilder differenceBuilder;
+		
+		if (cipher.operatesNibblewise()) {
+			differenceBuilder = new NibblewiseDifferenceBuilder();
+		} else {
+			differenceBuilder = new BytewiseDifferenceBuilder();
+		}
+		
+		long numDifferences = differenceBuilder.initializeAndGetNumDifferences(DIMENSION, cipher.getKeySize());
+		int numRounds = cipher.getNumRounds();
+		
+		for (int numBicliqueRounds = 1; numBicliqueRounds <= MAX_BICLIQUE_ROUNDS; numBicliqueRounds++) {
+			testCoversConcreteDifferentials(builder, differenceBuilder, numDifferences, 1, numBicliqueRounds);
+			testCoversConcreteDifferentials(builder, differenceBuilder, numDifferences, 
+				numRounds - numBicliqueRounds + 1, numRounds);
+		}
+		
+		testCoversConcreteDifferentials(builder, differenceBuilder, numDifferences, 
+			numRounds / 2 - 1, numRounds / 2 + 1);
+	}
+	
+	private void testCoversConcreteDifferentials(TruncatedDifferentialBuilder builder, 
+		DifferenceBuilder differenceBuilder, long numDifferences, int fromRound, int toRound) {
+		RoundBasedBlockCipher cipher = builder.getCipher();
+		ByteArray key = new ByteArray(cipher.getKeySize());
+		long rank;
+		
+		for (int i = 0; i < NUM_DIFFERENCES_PER_INTERVAL; i++) {
+			for (int j = 0; j < key.length(); j++) {
+				key.set(j, random.nextInt(256));
+			}
+			
+			cipher.setKey(key);
+			ByteArray expandedKey = cipher.getExpandedKey().clone();
+			rank = (long)(random.nextDouble() * numDifferences);
+			
+			// Throws a DifferentialMismatchError if the truncated differential misses an active bit
+			builder.computeForwardDifferential(
+				fromRound, toRound, differenceBuilder.get(rank), expandedKey, fromRound
+			);
+			builder.computeBackwardDifferential(
+				fromRound, toRound, differenceBuilder.get(rank), expandedKey, toRound
+			);
+		}
+	}
+	
+}
@@ -0,0 +1,56 @@
+package de.mslab.matching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.mslab.bicliquesearch.AES128BicliqueFixture;
+import de.mslab.ciphers.AES128;
+import de.mslab.ciphers.helpers.AES128Helper;
+import de.mslab.core.Biclique;
+
+public class ParallelMatchingFinderTest {
+	
+	private AES128Helper counter = new AES128Helper();
+	
+	/**
+	 * The keys of the matching are randomized, so that only the number of recomputed operations 
+	 * and the matching round are compared. 
+	 */
+	@Test
+	public void testEqualResults() {
+		Biclique biclique = AES128BicliqueFixture.findBiclique(9, 10);
+		MatchingFinderResult expected = findOptimalMatching(biclique, 1);
+		MatchingFinderResult result = findOptimalMatching(biclique, 4);
+		
+		assertTrue(expected.minRecomputedOperations > 0);
+		assertEquals(expected.minRecomputedOperations, result.minRecomputedOperations);
+		assertEquals(expected.bestMatchingRound, result.bestMatchingRound);
+		assertEquals(result.minRecomputedOperations, counter.countRecomputedOperations(result.p_mergedto_v) 
+			+ counter.countRecomputedOperations(result.s_mergedto_v));
+	}
+	
+	@Test
+	public void testAbandonMatchingsEarly() {
+		Biclique biclique = AES128BicliqueFixture.findBiclique(9, 10);
+		MatchingContext context = new MatchingContext(biclique, new AES128(), counter);
+		context.abandonMatchingsEarly = false;
+		MatchingFinderResult expected = new MatchingFinder().findOptimalMatching(context);
+		MatchingFinderResult result = findOptimalMatching(biclique, 4);
+		
+		assertEquals(0, expected.numAbandonedMatchings);
+		assertTrue(result.numAbandonedMatchings > 0);
+		assertEquals(expected.minRecomputedOperations, result.minRecomputedOperations);
+		assertEquals(expected.bestMatchingRound, result.bestMatchingRound);
+		assertEquals(result.minRecomputedOperations, counter.countRecomputedOperations(result.p_mergedto_v) 
+			+ counter.countRecomputedOperations(result.s_mergedto_v));
+	}
+	
+	private MatchingFinderResult findOptimalMatching(Biclique biclique, int numThreads) {
+		MatchingContext context = new MatchingContext(biclique, new AES128(), counter);
+		context.numThreads = numThreads;
+		return new MatchingFinder().findOptimalMatching(context);
+	}
+	
+}
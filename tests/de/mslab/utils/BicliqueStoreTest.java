@@ -0,0 +1,267 @@
+package de.mslab.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mslab.bicliquesearch.helpers.BicliqueRater;
+import de.mslab.core.Biclique;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Difference;
+import de.mslab.core.Differential;
+import de.mslab.errors.StorageError;
+
+public class BicliqueStoreTest {
+	
+	private File directory;
+	private File file;
+	private BicliqueStore store;
+	
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("bicliquestore", "");
+		directory.delete();
+		directory.mkdirs();
+		file = new File(directory, "bicliques.db");
+		store = new BicliqueStore(file);
+	}
+	
+	@After
+	public void tearDown() {
+		store.close();
+		delete(directory);
+	}
+	
+	@Test
+	public void testSerializeBinary() throws Exception {
+		BicliqueBinarySerializer serializer = new BicliqueBinarySerializer();
+		Biclique biclique = createBiclique("AES128", 8, 9, 10);
+		byte[] bytes = serializer.serialize(biclique);
+		
+		assertEquals(biclique, serializer.deserialize(bytes));
+		assertEquals(biclique.toString(), serializer.deserialize(bytes).toString());
+		
+		ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(objectBytes);
+		output.writeObject(biclique);
+		output.close();
+		assertTrue(bytes.length * 4 < objectBytes.size());
+	}
+	
+	@Test
+	public void testAppendAndFind() throws Exception {
+		store.append(createBiclique("AES128", 8, 9, 10), 5);
+		store.append(createBiclique("AES128", 8, 1, 3), 7);
+		store.append(createBiclique("LED64", 16, 1, 8), 3);
+		store.append(createBiclique("AES128", 4, 9, 10), 9);
+		store.close();
+		
+		store = new BicliqueStore(file);
+		assertEquals(4, store.getNumEntries());
+		
+		List<BicliqueStore.Entry> entries = store.find("AES128", -1, -1, -1, 0);
+		assertEquals(3, entries.size());
+		assertEquals(3, entries.get(0).index);
+		assertEquals(1, entries.get(1).index);
+		assertEquals(0, entries.get(2).index);
+		
+		entries = store.find("AES128", 9, 10, 8, 0);
+		assertEquals(1, entries.size());
+		assertEquals(createBiclique("AES128", 8, 9, 10), store.load(entries.get(0)));
+		
+		assertEquals(2, store.find(null, -1, -1, -1, 6).size());
+		assertEquals(0, store.find("PRESENT80", -1, -1, -1, 0).size());
+		
+		entries = store.find("LED64", 1, 8, 16, 0);
+		assertEquals(createBiclique("LED64", 16, 1, 8), store.load(entries.get(0)));
+	}
+	
+	@Test
+	public void testCutOffIncompleteRecord() throws Exception {
+		store.append(createBiclique("AES128", 8, 9, 10), 5);
+		store.append(createBiclique("AES128", 8, 1, 3), 7);
+		store.close();
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		long length = randomAccessFile.length();
+		randomAccessFile.setLength(length - 3);
+		randomAccessFile.close();
+		
+		store = new BicliqueStore(file);
+		assertEquals(1, store.getNumEntries());
+		assertEquals(createBiclique("AES128", 8, 9, 10), store.load(store.getEntries().get(0)));
+		
+		store.append(createBiclique("AES128", 8, 1, 3), 7);
+		store.close();
+		store = new BicliqueStore(file);
+		assertEquals(2, store.getNumEntries());
+		assertEquals(createBiclique("AES128", 8, 1, 3), store.load(store.getEntries().get(1)));
+	}
+	
+	@Test
+	public void testRejectMalformedRuns() throws Exception {
+		BicliqueBinarySerializer serializer = new BicliqueBinarySerializer();
+		byte[] runs = new byte[]{ 0, 4, 1, 2, 3, 4 };
+		assertEquals(new ByteArray(new int[]{ 1, 2, 3, 4 }), deserializeFirstKey(serializer, runs));
+		
+		// An empty run of non-zero bytes, and runs beyond the length of the array.
+		for (byte[] malformedRuns : new byte[][]{ { 0, 0, 0, 4, 1, 2, 3, 4 }, { 5 }, { 1, 4, 1, 2, 3, 4 } }) {
+			try {
+				deserializeFirstKey(serializer, malformedRuns);
+				fail();
+			} catch (IOException e) {
+				
+			}
+		}
+	}
+	
+	@Test
+	public void testRejectCorruptedRecord() throws Exception {
+		store.append(createBiclique("AES128", 8, 9, 10), 5);
+		store.append(createBiclique("AES128", 8, 1, 3), 7);
+		store.append(createBiclique("AES128", 8, 5, 6), 6);
+		long position = store.getEntries().get(1).offset;
+		store.close();
+		
+		long length = file.length();
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		
+		try {
+			randomAccessFile.seek(position);
+			randomAccessFile.write(randomAccessFile.read() ^ 0x01);
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		try {
+			new BicliqueStore(file);
+			fail();
+		} catch (StorageError e) {
+			assertEquals(length, file.length());
+		}
+	}
+	
+	@Test
+	public void testRejectAppendBeyondMaxSize() throws Exception {
+		store.append(createBiclique("AES128", 8, 9, 10), 5);
+		store.close();
+		store = new BicliqueStore(file, file.length() + 10);
+		
+		try {
+			store.append(createBiclique("AES128", 8, 1, 3), 7);
+			fail();
+		} catch (StorageError e) {
+			assertEquals(1, store.getNumEntries());
+		}
+		
+		store.close();
+		store = new BicliqueStore(file);
+		assertEquals(1, store.getNumEntries());
+		assertEquals(createBiclique("AES128", 8, 9, 10), store.load(store.getEntries().get(0)));
+	}
+	
+	@Test
+	public void testConvertXML() throws Exception {
+		Biclique biclique = createBiclique("AES128", 8, 9, 10);
+		store.append(biclique, 5);
+		store.append(biclique, 3);
+		
+		BicliqueStoreConverter converter = new BicliqueStoreConverter();
+		File xmlDirectory = new File(directory, "xml");
+		File[] files = converter.exportXML(store, store.getEntries(), xmlDirectory);
+		assertEquals(2, files.length);
+		assertEquals("AES128_9_10_0.xml", files[0].getName());
+		
+		BicliqueStore importedStore = new BicliqueStore(new File(directory, "imported.db"));
+		
+		try {
+			int numImported = converter.importXML(xmlDirectory, importedStore, new BicliqueRater() {
+				public int determineScoreForBiclique(Biclique biclique) {
+					return biclique.dimension;
+				}
+			});
+			assertEquals(2, numImported);
+			
+			List<BicliqueStore.Entry> entries = importedStore.find("AES128", 9, 10, 8, 8);
+			assertEquals(2, entries.size());
+			assertEquals(biclique.toString(), importedStore.load(entries.get(0)).toString());
+			assertEquals(biclique.toString(), importedStore.load(entries.get(1)).toString());
+		} finally {
+			importedStore.close();
+		}
+	}
+	
+	private Biclique createBiclique(String cipherName, int dimension, int fromRound, int toRound) {
+		Biclique biclique = new Biclique(
+			createDifferential(fromRound, toRound, dimension),
+			createDifferential(fromRound, toRound, dimension + 1)
+		);
+		biclique.cipherName = cipherName;
+		biclique.dimension = dimension;
+		return biclique;
+	}
+	
+	/**
+	 * Creates a sparse differential, where one byte per difference is active. As in differentials of
+	 * AES-128, which the XML parser expects, the key differences start at the first round, and the
+	 * state differences at the state before it.
+	 */
+	private Differential createDifferential(int fromRound, int toRound, int seed) {
+		Differential differential = new Differential(fromRound, toRound);
+		differential.firstSecretKey = new ByteArray(16);
+		differential.secondSecretKey = new ByteArray(16);
+		differential.keyDifference = new ByteArray(16);
+		differential.keyDifference.set(seed % 16, 0x80);
+		fillDifferences(fromRound, toRound, seed, differential.intermediateStateDifferences);
+		fillDifferences(fromRound, toRound, seed + 1, differential.keyDifferences);
+		fillDifferences(fromRound - 1, toRound, seed + 2, differential.stateDifferences);
+		return differential;
+	}
+	
+	private void fillDifferences(int fromRound, int toRound, int seed, Vector<Difference> differences) {
+		for (int round = fromRound; round <= toRound; round++) {
+			ByteArray delta = new ByteArray(16);
+			delta.set((seed + round) % 16, (seed * 31 + round) & 0xFF | 1);
+			differences.set(round, new Difference(delta));
+		}
+	}
+	
+	/**
+	 * Deserializes a biclique, whose delta differential contains only a first key of 4 bytes, which
+	 * is stored in the given runs.
+	 */
+	private ByteArray deserializeFirstKey(BicliqueBinarySerializer serializer, byte[] runs) throws IOException {
+		byte[] header = new byte[]{ BicliqueBinarySerializer.VERSION, 0, 0, 1, 0, 0, 5 };
+		byte[] trailer = new byte[]{ 0, 0, 0, 0, 0, 0 };
+		byte[] bytes = new byte[header.length + runs.length + trailer.length];
+		System.arraycopy(header, 0, bytes, 0, header.length);
+		System.arraycopy(runs, 0, bytes, header.length, runs.length);
+		System.arraycopy(trailer, 0, bytes, header.length + runs.length, trailer.length);
+		return serializer.deserialize(bytes).deltaDifferential.firstSecretKey;
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		
+		file.delete();
+	}
+	
+}
@@ -0,0 +1,128 @@
+package de.mslab.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mslab.core.Biclique;
+import de.mslab.core.ByteArray;
+import de.mslab.core.Differential;
+
+public class BicliqueXMLStreamTest {
+	
+	private File directory;
+	
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("bicliquexml", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+	
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		
+		directory.delete();
+	}
+	
+	@Test
+	public void testReadAndWriteStream() throws Exception {
+		Biclique[] bicliques = new Biclique[]{
+			createBiclique(9, 10, 1),
+			createBiclique(8, 10, 2),
+			createBiclique(9, 10, 3)
+		};
+		File file = new File(directory, "bicliques.xml");
+		BicliqueXMLStreamWriter writer = new BicliqueXMLStreamWriter(file);
+		
+		for (Biclique biclique : bicliques) {
+			writer.write(biclique);
+		}
+		
+		writer.close();
+		assertEquals(bicliques.length, writer.getNumBicliques());
+		
+		BicliqueXMLStreamReader reader = new BicliqueXMLStreamReader(file);
+		
+		try {
+			for (Biclique biclique : bicliques) {
+				assertEquals(biclique.toString(), reader.read().toString());
+			}
+			
+			assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+	}
+	
+	@Test
+	public void testReadSerializedBiclique() throws Exception {
+		Biclique biclique = createBiclique(9, 10, 1);
+		File file = new File(directory, "biclique.xml");
+		new BicliqueXMLSerializer().serialize(biclique, file);
+		
+		assertEquals(biclique.toString(), new BicliqueXMLParser().parseXML(file).toString());
+		
+		BicliqueXMLStreamReader reader = new BicliqueXMLStreamReader(file);
+		
+		try {
+			assertEquals(biclique.toString(), reader.read().toString());
+			assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Creates a biclique on AES-128, whose differences are placed as the XML parser expects them:
+	 * the key differences at every round, and the state differences at every state from the one
+	 * before the first round.
+	 */
+	private Biclique createBiclique(int fromRound, int toRound, int seed) {
+		Biclique biclique = new Biclique(
+			createDifferential(fromRound, toRound, seed),
+			createDifferential(fromRound, toRound, seed + 1)
+		);
+		biclique.cipherName = "AES128";
+		biclique.dimension = 8;
+		return biclique;
+	}
+	
+	private Differential createDifferential(int fromRound, int toRound, int seed) {
+		Differential differential = new Differential(fromRound, toRound);
+		differential.firstSecretKey = new ByteArray(16);
+		differential.keyDifference = new ByteArray(16);
+		differential.keyDifference.set(seed, 0xFF);
+		differential.secondSecretKey = differential.keyDifference.clone();
+		
+		for (int round = fromRound - 1; round <= toRound; round++) {
+			if (round >= fromRound) {
+				differential.setKeyDifference(round, createDelta(seed + round));
+				differential.setIntermediateStateDifference(round, createDelta(seed + 2 * round));
+			}
+			
+			differential.setStateDifference(round, createDelta(seed + 3 * round));
+		}
+		
+		return differential;
+	}
+	
+	private ByteArray createDelta(int position) {
+		ByteArray delta = new ByteArray(16);
+		delta.set(position % 16, 0x80 | position);
+		return delta;
+	}
+	
+}
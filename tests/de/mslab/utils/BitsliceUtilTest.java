@@ -0,0 +1,70 @@
+package de.mslab.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.mslab.core.ByteArray;
+
+public class BitsliceUtilTest {
+	
+	@Test
+	public void testComputeActivity() {
+		long[] slices = { 0L, -1L, 0x02L, 0x01L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0x8000000000000000L };
+		long[] keySlices = { 0x01L, 0L, 0L, 0x01L };
+		
+		assertEquals(new ByteArray(new int[]{ 0x30, 0x01 }), BitsliceUtil.computeActivity(slices, 2));
+		assertEquals(new ByteArray(new int[]{ 0xA0, 0x01 }), BitsliceUtil.computeActivity(slices, keySlices, 2));
+	}
+	
+	@Test
+	public void testPermute() {
+		int[] permutation = { 2, 0, 1, 3, 5, 4 };
+		long[] slices = { 10, 11, 12, 13, 14, 15 };
+		
+		BitsliceUtil.permute(slices, BitsliceUtil.computeCycles(permutation));
+		assertArrayEquals(new long[]{ 12, 10, 11, 13, 15, 14 }, slices);
+	}
+	
+	@Test
+	public void testRotate() {
+		long[] slices = { 0, 1, 2, 3, 4, 5 };
+		
+		BitsliceUtil.rotate(slices, 1, 4, 1);
+		assertArrayEquals(new long[]{ 0, 4, 1, 2, 3, 5 }, slices);
+		
+		BitsliceUtil.rotate(slices, 1, 4, -1);
+		assertArrayEquals(new long[]{ 0, 1, 2, 3, 4, 5 }, slices);
+	}
+	
+	@Test
+	public void testTranspose() {
+		Random random = new Random(42);
+		long[] matrix = new long[Long.SIZE + 1];
+		long[] original = new long[matrix.length];
+		
+		for (int i = 1; i < matrix.length; i++) {
+			matrix[i] = random.nextLong();
+		}
+		
+		System.arraycopy(matrix, 0, original, 0, matrix.length);
+		BitsliceUtil.transpose(matrix, 1);
+		
+		for (int row = 0; row < Long.SIZE; row++) {
+			for (int column = 0; column < Long.SIZE; column++) {
+				assertEquals(
+					getBit(original[1 + row], column),
+					getBit(matrix[1 + column], row)
+				);
+			}
+		}
+	}
+	
+	private long getBit(long word, int column) {
+		return (word >>> (Long.SIZE - 1 - column)) & 1L;
+	}
+	
+}